@@ -0,0 +1,90 @@
+package org.com.nettyconnector.benchmark;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.com.nettyconnector.infrastructure.netty.EnvelopeDecoder;
+import org.com.nettyconnector.infrastructure.netty.TcpFrames;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChatDeliver Envelope 的 protobuf 编解码，content 取常见长度：
+ * <ul>
+ *     <li>toByteArray / parseFrom(byte[])：ProtobufEncoder、ProtobufDecoder 的做法</li>
+ *     <li>encodeFrame：下行实际使用的 {@link TcpFrames#encode}，直接序列化进池化 direct 帧缓冲</li>
+ *     <li>envelopeDecoder：上行实际使用的 {@link EnvelopeDecoder}，从池化 direct body 解码</li>
+ * </ul>
+ * <pre>
+ * java -jar target/benchmarks.jar EnvelopeCodecBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvelopeCodecBenchmark {
+
+    @Param({"32", "256", "2048"})
+    public int contentLength;
+
+    private Envelope envelope;
+    private byte[] bytes;
+    private ByteBuf directBody;
+    private EmbeddedChannel decoder;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        envelope = WireSamples.chatDeliver(contentLength);
+        bytes = envelope.toByteArray();
+        directBody = PooledByteBufAllocator.DEFAULT.directBuffer(bytes.length).writeBytes(bytes);
+        decoder = new EmbeddedChannel(EnvelopeDecoder.INSTANCE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        decoder.finishAndReleaseAll();
+        directBody.release();
+    }
+
+    @Benchmark
+    public byte[] toByteArray() {
+        return envelope.toByteArray();
+    }
+
+    @Benchmark
+    public int encodeFrame() {
+        ByteBuf frame = TcpFrames.encode(PooledByteBufAllocator.DEFAULT, envelope);
+        int len = frame.readableBytes();
+        frame.release();
+        return len;
+    }
+
+    @Benchmark
+    public Envelope parseFrom() throws InvalidProtocolBufferException {
+        return Envelope.parseFrom(bytes);
+    }
+
+    @Benchmark
+    public Object envelopeDecoder() {
+        decoder.writeInbound(directBody.retainedDuplicate());
+        return decoder.readInbound();
+    }
+}
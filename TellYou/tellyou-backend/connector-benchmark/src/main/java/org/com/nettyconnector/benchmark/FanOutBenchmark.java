@@ -0,0 +1,90 @@
+package org.com.nettyconnector.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.com.nettyconnector.domain.connection.ConnectionKey;
+import org.com.nettyconnector.domain.connection.ConnectionMeta;
+import org.com.nettyconnector.infrastructure.netty.EncodedFrameHandler;
+import org.com.nettyconnector.infrastructure.netty.NettyConnectionManager;
+import org.com.nettyconnector.infrastructure.netty.OutboundBacklogStats;
+import org.com.nettyconnector.infrastructure.netty.WriteCoalescingStats;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单用户多设备下行：{@link NettyConnectionManager#sendToUser} 编码一次、向每台设备的写队列投递，
+ * 再在每个 EmbeddedChannel 上跑完聚合 flush 并取出帧。一次 op = 一条消息扇出到全部设备。
+ * <p>
+ * 会话 id 为 0，不启用断线恢复 ring，只测扇出与写出本身。
+ * <pre>
+ * java -jar target/benchmarks.jar FanOutBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FanOutBenchmark {
+
+    private static final long USER_ID = 10_000_123L;
+
+    @Param({"1", "4", "64"})
+    public int devices;
+
+    @Param({"256"})
+    public int contentLength;
+
+    private NettyConnectionManager manager;
+    private EmbeddedChannel[] channels;
+    private Envelope envelope;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        manager = new NettyConnectionManager(NoopOnlineRoutes.INSTANCE, new WriteCoalescingStats(), new OutboundBacklogStats());
+        channels = new EmbeddedChannel[devices];
+        for (int i = 0; i < devices; i++) {
+            EmbeddedChannel ch = new EmbeddedChannel(DefaultChannelId.newInstance(), EncodedFrameHandler.INSTANCE);
+            manager.bindAuthenticated(new ConnectionKey(USER_ID, "device-" + i),
+                    new ConnectionMeta("bench", "gw-1", ch.id().asLongText(), 0L, 0L, 0L), ch);
+            channels[i] = ch;
+        }
+        envelope = WireSamples.chatDeliver(contentLength);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (EmbeddedChannel ch : channels) {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Benchmark
+    public int sendToUser() {
+        int delivered = manager.sendToUser(USER_ID, envelope, null).delivered();
+        for (EmbeddedChannel ch : channels) {
+            ch.runPendingTasks();
+            ByteBuf frame;
+            while ((frame = ch.readOutbound()) != null) {
+                frame.release();
+            }
+        }
+        return delivered;
+    }
+}
@@ -0,0 +1,88 @@
+package org.com.nettyconnector.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.com.nettyconnector.infrastructure.netty.TcpFrameDecoder;
+import org.com.nettyconnector.infrastructure.netty.TcpFrameEncoder;
+import org.com.nettyconnector.infrastructure.netty.TcpFrames;
+import org.com.nettyconnector.infrastructure.netty.TcpProtocolConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 帧层编解码（不含 protobuf）：TcpFrameDecoder 从池化 direct 入站缓冲切出 body，
+ * TcpFrameEncoder 给 body 加帧头写入新的出站缓冲。未开启压缩。
+ * <pre>
+ * java -jar target/benchmarks.jar FrameCodecBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameCodecBenchmark {
+
+    @Param({"64", "512", "4096"})
+    public int bodyLength;
+
+    private EmbeddedChannel decoder;
+    private EmbeddedChannel encoder;
+    private ByteBuf frame;
+    private ByteBuf body;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        body = PooledByteBufAllocator.DEFAULT.directBuffer(bodyLength);
+        for (int i = 0; i < bodyLength; i++) {
+            body.writeByte(i);
+        }
+        frame = PooledByteBufAllocator.DEFAULT.directBuffer(TcpProtocolConstants.HEADER_LEN + bodyLength);
+        TcpFrames.writeHeader(frame, TcpProtocolConstants.VERSION_V1, (byte) 0, bodyLength);
+        frame.writeBytes(body, body.readerIndex(), bodyLength);
+
+        decoder = new EmbeddedChannel(new TcpFrameDecoder(TcpProtocolConstants.DEFAULT_MAX_BODY_LEN));
+        encoder = new EmbeddedChannel(new TcpFrameEncoder());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        decoder.finishAndReleaseAll();
+        encoder.finishAndReleaseAll();
+        frame.release();
+        body.release();
+    }
+
+    @Benchmark
+    public int decode() {
+        decoder.writeInbound(frame.retainedDuplicate());
+        ByteBuf out = decoder.readInbound();
+        int len = out.readableBytes();
+        out.release();
+        return len;
+    }
+
+    @Benchmark
+    public int encode() {
+        encoder.writeOutbound(body.retainedDuplicate());
+        ByteBuf out = encoder.readOutbound();
+        int len = out.readableBytes();
+        out.release();
+        return len;
+    }
+}
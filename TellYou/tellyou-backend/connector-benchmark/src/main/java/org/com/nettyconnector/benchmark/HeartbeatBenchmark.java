@@ -0,0 +1,123 @@
+package org.com.nettyconnector.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import io.netty.handler.codec.protobuf.ProtobufEncoder;
+import org.com.nettyconnector.infrastructure.netty.EncodedFrameHandler;
+import org.com.nettyconnector.infrastructure.netty.PingFastPathHandler;
+import org.com.nettyconnector.infrastructure.netty.TcpFrameDecoder;
+import org.com.nettyconnector.infrastructure.netty.TcpFrameEncoder;
+import org.com.nettyconnector.infrastructure.netty.TcpFrames;
+import org.com.nettyconnector.infrastructure.netty.TcpProtocolConstants;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.com.nettyconnector.proto.connector.tcp.v1.Ping;
+import org.com.nettyconnector.proto.connector.tcp.v1.Pong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单次心跳（Ping 帧进、Pong 帧出）在连接 pipeline 上的 CPU 开销：完整 protobuf 解码/编码 vs 快速通道。
+ * <pre>
+ * java -jar target/benchmarks.jar HeartbeatBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeartbeatBenchmark {
+
+    private EmbeddedChannel fullDecode;
+    private EmbeddedChannel fastPath;
+    private ByteBuf pingFrame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Envelope ping = Envelope.newBuilder()
+                .setVersion(1)
+                .setTimestampMs(System.currentTimeMillis())
+                .setPing(Ping.getDefaultInstance())
+                .build();
+        pingFrame = TcpFrames.encode(PooledByteBufAllocator.DEFAULT, ping);
+
+        fullDecode = new EmbeddedChannel(
+                new TcpFrameDecoder(TcpProtocolConstants.DEFAULT_MAX_BODY_LEN),
+                new ProtobufDecoder(Envelope.getDefaultInstance()),
+                EncodedFrameHandler.INSTANCE,
+                new TcpFrameEncoder(),
+                new ProtobufEncoder(),
+                PingResponder.INSTANCE);
+        fastPath = new EmbeddedChannel(
+                new TcpFrameDecoder(TcpProtocolConstants.DEFAULT_MAX_BODY_LEN),
+                new PingFastPathHandler(),
+                new ProtobufDecoder(Envelope.getDefaultInstance()),
+                EncodedFrameHandler.INSTANCE,
+                new TcpFrameEncoder(),
+                new ProtobufEncoder(),
+                PingResponder.INSTANCE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fullDecode.finishAndReleaseAll();
+        fastPath.finishAndReleaseAll();
+        pingFrame.release();
+    }
+
+    @Benchmark
+    public int fullDecode() {
+        return roundTrip(fullDecode);
+    }
+
+    @Benchmark
+    public int fastPath() {
+        return roundTrip(fastPath);
+    }
+
+    private int roundTrip(EmbeddedChannel ch) {
+        ch.writeInbound(pingFrame.retainedDuplicate());
+        ByteBuf pong = ch.readOutbound();
+        int bytes = pong.readableBytes();
+        pong.release();
+        return bytes;
+    }
+
+    /**
+     * 与 TcpEnvelopeHandler.handlePing 相同的慢路径应答。
+     */
+    @ChannelHandler.Sharable
+    static final class PingResponder extends SimpleChannelInboundHandler<Envelope> {
+
+        static final PingResponder INSTANCE = new PingResponder();
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Envelope req) {
+            ctx.writeAndFlush(Envelope.newBuilder()
+                    .setVersion(req.getVersion())
+                    .setStreamId(req.getStreamId())
+                    .setTimestampMs(System.currentTimeMillis())
+                    .setTraceId(req.getTraceId())
+                    .setPong(Pong.newBuilder().build())
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.com.nettyconnector.benchmark;
+
+import org.com.shared.infrastructure.redis.OnlineRouteRepository;
+
+import java.util.Map;
+
+/**
+ * 不访问 Redis 的路由仓库，让连接注册表相关的测量只包含注册表本身。
+ */
+enum NoopOnlineRoutes implements OnlineRouteRepository {
+    INSTANCE;
+
+    @Override
+    public void bind(long userId, String deviceId, String gatewayId, long ttlSeconds) {
+    }
+
+    @Override
+    public void unbind(long userId, String deviceId, String gatewayId) {
+    }
+
+    @Override
+    public void bindAll(Map<Long, Map<String, String>> routesByUser, long ttlSeconds) {
+    }
+
+    @Override
+    public void unbindAll(Map<Long, Map<String, String>> routesByUser) {
+    }
+
+    @Override
+    public Map<String, String> listDeviceRoutes(long userId) {
+        return Map.of();
+    }
+
+    @Override
+    public String getGatewayId(long userId, String deviceId) {
+        return null;
+    }
+}
@@ -0,0 +1,93 @@
+package org.com.nettyconnector.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import org.com.nettyconnector.infrastructure.netty.EnvelopeDecoder;
+import org.com.nettyconnector.infrastructure.netty.TcpFrameDecoder;
+import org.com.nettyconnector.infrastructure.netty.TcpFrames;
+import org.com.nettyconnector.infrastructure.netty.TcpProtocolConstants;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatUplink;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上行 ChatUplink 帧（池化 direct 内存）经 TcpFrameDecoder 之后的 Envelope 解码开销：
+ * ProtobufDecoder（先拷贝到 byte[]）vs EnvelopeDecoder（直接读 nioBuffer）。配合 -prof gc 看每帧分配字节与 GC 次数。
+ * <pre>
+ * java -jar target/benchmarks.jar UplinkDecodeBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UplinkDecodeBenchmark {
+
+    @Param({"64", "1024", "8192"})
+    public int contentLength;
+
+    private EmbeddedChannel copying;
+    private EmbeddedChannel direct;
+    private ByteBuf uplinkFrame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Envelope uplink = Envelope.newBuilder()
+                .setVersion(1)
+                .setTimestampMs(System.currentTimeMillis())
+                .setTraceId("bench-trace")
+                .setChatUplink(ChatUplink.newBuilder()
+                        .setClientMessageId("c-0001")
+                        .setSessionId(42L)
+                        .setContent("x".repeat(contentLength)))
+                .build();
+        uplinkFrame = TcpFrames.encode(PooledByteBufAllocator.DEFAULT, uplink);
+
+        copying = new EmbeddedChannel(
+                new TcpFrameDecoder(TcpProtocolConstants.DEFAULT_MAX_BODY_LEN),
+                new ProtobufDecoder(Envelope.getDefaultInstance()));
+        direct = new EmbeddedChannel(
+                new TcpFrameDecoder(TcpProtocolConstants.DEFAULT_MAX_BODY_LEN),
+                EnvelopeDecoder.INSTANCE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        copying.finishAndReleaseAll();
+        direct.finishAndReleaseAll();
+        uplinkFrame.release();
+    }
+
+    @Benchmark
+    public Object protobufDecoder() {
+        return decode(copying);
+    }
+
+    @Benchmark
+    public Object envelopeDecoder() {
+        return decode(direct);
+    }
+
+    private Object decode(EmbeddedChannel ch) {
+        ch.writeInbound(uplinkFrame.retainedDuplicate());
+        return ch.readInbound();
+    }
+}
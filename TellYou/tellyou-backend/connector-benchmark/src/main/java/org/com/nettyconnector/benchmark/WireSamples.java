@@ -0,0 +1,40 @@
+package org.com.nettyconnector.benchmark;
+
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+
+/**
+ * 各基准共用的典型下行消息：雪花 id、会话 / 分区 / seq 齐全，content 为指定长度的中英混合文本。
+ */
+final class WireSamples {
+
+    private static final String TEXT = "今天下午三点开会，记得带上周报 see you then! ";
+
+    private WireSamples() {
+    }
+
+    static Envelope chatDeliver(int contentLength) {
+        return Envelope.newBuilder()
+                .setVersion(1)
+                .setTimestampMs(1_700_000_000_000L)
+                .setTraceId("9f1c2e7a4b3d5f60")
+                .setChatDeliver(ChatDeliver.newBuilder()
+                        .setServerMessageId("1843029837461520384")
+                        .setType(1)
+                        .setSenderId(10_000_123L)
+                        .setSessionId(5_000_000_042L)
+                        .setContent(content(contentLength))
+                        .setServerTimeMs(1_700_000_000_000L)
+                        .setPartitionId(3)
+                        .setSeq(1_024L))
+                .build();
+    }
+
+    private static String content(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append(TEXT, 0, Math.min(TEXT.length(), length - sb.length()));
+        }
+        return sb.toString();
+    }
+}
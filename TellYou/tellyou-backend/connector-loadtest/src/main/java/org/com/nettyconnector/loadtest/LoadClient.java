@@ -0,0 +1,234 @@
+package org.com.nettyconnector.loadtest;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.com.nettyconnector.loadtest.LoadTestStats.Count;
+import org.com.nettyconnector.loadtest.LoadTestStats.Latency;
+import org.com.nettyconnector.proto.connector.tcp.v1.AuthRequest;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatUplink;
+import org.com.nettyconnector.proto.connector.tcp.v1.DeliveryAck;
+import org.com.nettyconnector.proto.connector.tcp.v1.DeliveryAckType;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.com.nettyconnector.proto.connector.tcp.v1.PersistedAckStatus;
+import org.com.nettyconnector.proto.connector.tcp.v1.Ping;
+import org.com.nettyconnector.proto.connector.tcp.v1.UplinkAckStatus;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一条模拟客户端连接：建连后认证，成功后按固定周期 Ping 和发送 ChatUplink，对收到的下行回 DeliveryAck。
+ * <p>
+ * 连接两两配对（第 2k 与 2k+1 条），ChatUplink 发给配对的用户，这样下行也落在压测进程内，
+ * 可以用内容里携带的发送时刻直接计算端到端下发延迟。所有状态只在本 channel 的 eventLoop 上访问。
+ */
+final class LoadClient extends SimpleChannelInboundHandler<Envelope> {
+
+    static final String CONTENT_PREFIX = "lg:";
+
+    private final int index;
+    private final long userId;
+    private final long peerUserId;
+    private final long sessionId;
+    private final String token;
+    private final long connectStartNanos;
+    private final LoadTestConfig config;
+    private final LoadTestStats stats;
+    private final String padding;
+
+    private final Map<String, Long> inFlight = new HashMap<>();
+    private long authStartNanos;
+    private long pingSentNanos;
+    private long uplinkSeq;
+    private boolean authenticated;
+    private ScheduledFuture<?> pingTask;
+    private ScheduledFuture<?> uplinkTask;
+
+    LoadClient(int index, long userId, long peerUserId, long sessionId, String token, long connectStartNanos,
+               LoadTestConfig config, LoadTestStats stats) {
+        this.index = index;
+        this.userId = userId;
+        this.peerUserId = peerUserId;
+        this.sessionId = sessionId;
+        this.token = token;
+        this.connectStartNanos = connectStartNanos;
+        this.config = config;
+        this.stats = stats;
+        this.padding = "x".repeat(Math.max(0, config.payloadBytes()));
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) {
+        long now = System.nanoTime();
+        stats.increment(Count.CONNECTED);
+        stats.recordNanos(Latency.CONNECT, now - connectStartNanos);
+        stats.connectionOpened();
+
+        authStartNanos = now;
+        ctx.writeAndFlush(envelope().setAuthRequest(AuthRequest.newBuilder()
+                .setToken(token)
+                .setClientId("loadtest")
+                .setDeviceId("lg-" + index)
+                .setAcceptDeliverBatch(true)).build());
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        stats.connectionClosed();
+        if (authenticated) {
+            stats.increment(Count.DISCONNECTED);
+        }
+        cancel(pingTask);
+        cancel(uplinkTask);
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, Envelope msg) {
+        switch (msg.getPayloadCase()) {
+            case AUTH_OK -> onAuthOk(ctx);
+            case AUTH_FAIL -> {
+                stats.increment(Count.AUTH_FAILED);
+                ctx.close();
+            }
+            case PONG -> {
+                if (pingSentNanos != 0L) {
+                    stats.recordNanos(Latency.PING_RTT, System.nanoTime() - pingSentNanos);
+                    pingSentNanos = 0L;
+                }
+                stats.increment(Count.PONGS);
+            }
+            case UPLINK_ACK -> {
+                String id = msg.getUplinkAck().getClientMessageId();
+                if (msg.getUplinkAck().getStatus() == UplinkAckStatus.ACCEPTED) {
+                    stats.increment(Count.UPLINK_ACCEPTED);
+                    Long sent = inFlight.get(id);
+                    if (sent != null) {
+                        stats.recordNanos(Latency.UPLINK_ACK_RTT, System.nanoTime() - sent);
+                    }
+                } else {
+                    stats.increment(Count.UPLINK_REJECTED);
+                    inFlight.remove(id);
+                }
+            }
+            case PERSISTED_ACK -> {
+                Long sent = inFlight.remove(msg.getPersistedAck().getClientMessageId());
+                if (msg.getPersistedAck().getStatus() == PersistedAckStatus.PERSISTED) {
+                    stats.increment(Count.PERSISTED);
+                    if (sent != null) {
+                        stats.recordNanos(Latency.PERSISTED_ACK_RTT, System.nanoTime() - sent);
+                    }
+                } else {
+                    stats.increment(Count.PERSIST_FAILED);
+                }
+            }
+            case CHAT_DELIVER -> onDeliver(ctx, msg.getChatDeliver());
+            case CHAT_DELIVER_BATCH -> {
+                stats.increment(Count.DELIVER_BATCHES);
+                for (ChatDeliver deliver : msg.getChatDeliverBatch().getDeliversList()) {
+                    onDeliver(ctx, deliver);
+                }
+            }
+            case PULL_HINT -> stats.increment(Count.PULL_HINTS);
+            case RECONNECT -> stats.increment(Count.RECONNECT_HINTS);
+            case ERROR -> stats.increment(Count.ERRORS);
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        ctx.flush();
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        ctx.close();
+    }
+
+    private void onAuthOk(ChannelHandlerContext ctx) {
+        authenticated = true;
+        stats.increment(Count.AUTH_OK);
+        stats.recordNanos(Latency.AUTH, System.nanoTime() - authStartNanos);
+
+        // 各连接的周期错开，避免所有连接在同一时刻 ping / 发送
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (config.pingIntervalSec() > 0) {
+            long periodMs = TimeUnit.SECONDS.toMillis(config.pingIntervalSec());
+            pingTask = ctx.executor().scheduleAtFixedRate(() -> ping(ctx), random.nextLong(periodMs), periodMs, TimeUnit.MILLISECONDS);
+        }
+        if (config.uplinkRate() > 0) {
+            long periodNanos = Math.max(1_000L, (long) (config.connections() * 1_000_000_000D / config.uplinkRate()));
+            uplinkTask = ctx.executor().scheduleAtFixedRate(() -> sendUplink(ctx), random.nextLong(periodNanos), periodNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void ping(ChannelHandlerContext ctx) {
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+        pingSentNanos = System.nanoTime();
+        stats.increment(Count.PINGS);
+        ctx.writeAndFlush(envelope().setPing(Ping.getDefaultInstance()).build());
+    }
+
+    private void sendUplink(ChannelHandlerContext ctx) {
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+        String clientMessageId = index + "-" + (++uplinkSeq);
+        inFlight.put(clientMessageId, System.nanoTime());
+        stats.increment(Count.UPLINKS);
+        ctx.writeAndFlush(envelope().setChatUplink(ChatUplink.newBuilder()
+                .setClientMessageId(clientMessageId)
+                .setType(config.messageType())
+                .setTargetId(peerUserId)
+                .setSessionId(sessionId)
+                .setContent(CONTENT_PREFIX + LoadClock.nowMicros() + ":" + padding)
+                .setClientTimeMs(System.currentTimeMillis())).build());
+    }
+
+    private void onDeliver(ChannelHandlerContext ctx, ChatDeliver deliver) {
+        stats.increment(Count.DELIVERS);
+        long sentMicros = sentMicros(deliver.getContent());
+        if (sentMicros > 0L) {
+            stats.recordMicros(Latency.DELIVER, LoadClock.nowMicros() - sentMicros);
+        }
+        stats.increment(Count.DELIVERY_ACKS);
+        ctx.write(envelope().setDeliveryAck(DeliveryAck.newBuilder()
+                .setServerMessageId(deliver.getServerMessageId())
+                .setAckType(DeliveryAckType.DELIVERED)
+                .setClientTimeMs(System.currentTimeMillis())).build());
+    }
+
+    static long sentMicros(String content) {
+        if (!content.startsWith(CONTENT_PREFIX)) {
+            return -1L;
+        }
+        int end = content.indexOf(':', CONTENT_PREFIX.length());
+        try {
+            return Long.parseLong(content.substring(CONTENT_PREFIX.length(), end < 0 ? content.length() : end));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    private static Envelope.Builder envelope() {
+        return Envelope.newBuilder()
+                .setVersion(1)
+                .setTimestampMs(System.currentTimeMillis());
+    }
+
+    private static void cancel(ScheduledFuture<?> task) {
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.com.nettyconnector.loadtest;
+
+/**
+ * 进程内单调的微秒时钟：发送端写进 ChatUplink 内容，接收端（同一进程内的配对连接）用它计算下发延迟，
+ * 不受墙上时钟调整影响。
+ */
+final class LoadClock {
+
+    private static final long ORIGIN_NANOS = System.nanoTime();
+    private static final long ORIGIN_MICROS = System.currentTimeMillis() * 1000L;
+
+    private LoadClock() {
+    }
+
+    static long nowMicros() {
+        return ORIGIN_MICROS + (System.nanoTime() - ORIGIN_NANOS) / 1000L;
+    }
+}
@@ -0,0 +1,131 @@
+package org.com.nettyconnector.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测参数，全部来自命令行 --name=value；未给出的取默认值。
+ *
+ * @param uplinkRate     全部连接合计的 ChatUplink 目标速率（条/秒），0 表示只建连 + 心跳
+ * @param localAddresses 轮流绑定的本地源地址；单机压测超过约 6 万连接时需要多个（如 127.0.0.2,127.0.0.3），
+ *                       否则会耗尽同一源地址的临时端口
+ * @param tokenFile      每行 "userId,token"，给出时不再自行签发 JWT
+ */
+public record LoadTestConfig(
+        String host,
+        int port,
+        int connections,
+        int rampUpSec,
+        int durationSec,
+        int pingIntervalSec,
+        double uplinkRate,
+        int payloadBytes,
+        int messageType,
+        int threads,
+        String transport,
+        List<String> localAddresses,
+        int maxPendingConnects,
+        int connectTimeoutMs,
+        long userIdBase,
+        long sessionIdBase,
+        String jwtPrivateKeyPath,
+        String jwtUidKey,
+        String tokenFile,
+        int progressIntervalSec,
+        String report
+) {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("host", "127.0.0.1");
+        DEFAULTS.put("port", "7070");
+        DEFAULTS.put("connections", "1000");
+        DEFAULTS.put("ramp-up-sec", "10");
+        DEFAULTS.put("duration-sec", "60");
+        DEFAULTS.put("ping-interval-sec", "30");
+        DEFAULTS.put("uplink-rate", "100");
+        DEFAULTS.put("payload-bytes", "64");
+        DEFAULTS.put("message-type", "1");
+        DEFAULTS.put("threads", "0");
+        DEFAULTS.put("transport", "auto");
+        DEFAULTS.put("local-addresses", "");
+        DEFAULTS.put("max-pending-connects", "1000");
+        DEFAULTS.put("connect-timeout-ms", "10000");
+        DEFAULTS.put("user-id-base", "100000000");
+        DEFAULTS.put("session-id-base", "900000000");
+        DEFAULTS.put("jwt-private-key-path", "");
+        DEFAULTS.put("jwt-uid-key", "uid");
+        DEFAULTS.put("token-file", "");
+        DEFAULTS.put("progress-interval-sec", "5");
+        DEFAULTS.put("report", "loadtest-report.json");
+    }
+
+    public static LoadTestConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("expected --name=value, got: " + arg + "\n" + usage());
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (!DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("unknown option --" + name + "\n" + usage());
+            }
+            values.put(name, arg.substring(arg.indexOf('=') + 1));
+        }
+
+        LoadTestConfig config = new LoadTestConfig(
+                values.get("host"),
+                Integer.parseInt(values.get("port")),
+                Integer.parseInt(values.get("connections")),
+                Integer.parseInt(values.get("ramp-up-sec")),
+                Integer.parseInt(values.get("duration-sec")),
+                Integer.parseInt(values.get("ping-interval-sec")),
+                Double.parseDouble(values.get("uplink-rate")),
+                Integer.parseInt(values.get("payload-bytes")),
+                Integer.parseInt(values.get("message-type")),
+                Integer.parseInt(values.get("threads")),
+                values.get("transport"),
+                splitList(values.get("local-addresses")),
+                Integer.parseInt(values.get("max-pending-connects")),
+                Integer.parseInt(values.get("connect-timeout-ms")),
+                Long.parseLong(values.get("user-id-base")),
+                Long.parseLong(values.get("session-id-base")),
+                values.get("jwt-private-key-path"),
+                values.get("jwt-uid-key"),
+                values.get("token-file"),
+                Integer.parseInt(values.get("progress-interval-sec")),
+                values.get("report")
+        );
+        if (config.connections <= 0) {
+            throw new IllegalArgumentException("--connections must be positive");
+        }
+        if (config.tokenFile.isBlank() && config.jwtPrivateKeyPath.isBlank()) {
+            throw new IllegalArgumentException("either --token-file or --jwt-private-key-path is required\n" + usage());
+        }
+        return config;
+    }
+
+    public static String usage() {
+        StringBuilder sb = new StringBuilder("usage: java -jar loadtest.jar [--name=value ...]\n");
+        DEFAULTS.forEach((k, v) -> sb.append("  --").append(k).append(" (default: ").append(v.isEmpty() ? "\"\"" : v).append(")\n"));
+        return sb.toString();
+    }
+
+    private static List<String> splitList(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        List<String> items = new ArrayList<>();
+        for (String item : Arrays.asList(value.split(","))) {
+            if (!item.isBlank()) {
+                items.add(item.trim());
+            }
+        }
+        return List.copyOf(items);
+    }
+}
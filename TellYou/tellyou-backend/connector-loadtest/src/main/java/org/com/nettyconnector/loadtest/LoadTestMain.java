@@ -0,0 +1,181 @@
+package org.com.nettyconnector.loadtest;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.handler.codec.protobuf.ProtobufEncoder;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.HdrHistogram.Histogram;
+import org.com.nettyconnector.infrastructure.netty.EnvelopeDecoder;
+import org.com.nettyconnector.infrastructure.netty.TcpFrameDecoder;
+import org.com.nettyconnector.infrastructure.netty.TcpFrameEncoder;
+import org.com.nettyconnector.infrastructure.netty.TcpProtocolConstants;
+import org.com.nettyconnector.infrastructure.netty.TcpTransport;
+import org.com.nettyconnector.loadtest.LoadTestStats.Count;
+import org.com.nettyconnector.loadtest.LoadTestStats.Latency;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * netty-connector 容量压测：按爬坡速率建立 N 条 TCP 连接，认证后定时 Ping、按目标速率发送 ChatUplink，
+ * 记录建连 / 认证 / Ping RTT / UplinkAck RTT / PersistedAck RTT / 端到端下发延迟，结束时输出 JSON 报告。
+ * <pre>
+ * java -Xmx4g -jar target/loadtest.jar --connections=200000 --ramp-up-sec=120 --duration-sec=300 \
+ *     --uplink-rate=20000 --jwt-private-key-path=/path/to/jwt-private.pem \
+ *     --local-addresses=127.0.0.2,127.0.0.3,127.0.0.4,127.0.0.5
+ * </pre>
+ * 单机跑 20 万连接前需要放开文件句柄（ulimit -n）和 net.ipv4.ip_local_port_range，并给出多个本地源地址。
+ * 消息按配对连接的 session-id-base + k 会话发送，message-store 侧需要预置这些会话，否则只会得到 PersistedAck(FAILED)。
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config;
+        try {
+            config = LoadTestConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        System.exit(run(config) ? 0 : 1);
+    }
+
+    static boolean run(LoadTestConfig config) throws Exception {
+        TokenSource tokens = TokenSource.create(config);
+        System.out.printf("preparing %d tokens...%n", config.connections());
+        // RS256 签名约 1ms/次，提前并行生成，避免拖慢爬坡
+        String[] tokenByIndex = new String[config.connections()];
+        IntStream.range(0, config.connections()).parallel().forEach(i -> tokenByIndex[i] = tokens.token(i));
+
+        TcpTransport transport = TcpTransport.resolve(config.transport());
+        EventLoopGroup group = transport.newEventLoopGroup(Math.max(0, config.threads()), "loadtest");
+        ChannelGroup channels = new DefaultChannelGroup("loadtest", GlobalEventExecutor.INSTANCE);
+        LoadTestStats stats = new LoadTestStats();
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "loadtest-progress");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(transport.socketChannelClass())
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.connectTimeoutMs());
+        InetSocketAddress remote = new InetSocketAddress(config.host(), config.port());
+        Semaphore pendingConnects = new Semaphore(Math.max(1, config.maxPendingConnects()));
+
+        long startNanos = System.nanoTime();
+        long startedAtMs = System.currentTimeMillis();
+        progress.scheduleAtFixedRate(() -> printProgress(stats, startNanos),
+                config.progressIntervalSec(), Math.max(1, config.progressIntervalSec()), TimeUnit.SECONDS);
+        System.out.printf("transport=%s, target=%s, connections=%d, ramp-up=%ds, duration=%ds, uplink-rate=%.1f/s%n",
+                transport, remote, config.connections(), config.rampUpSec(), config.durationSec(), config.uplinkRate());
+
+        try {
+            long rampNanos = TimeUnit.SECONDS.toNanos(Math.max(0, config.rampUpSec()));
+            for (int i = 0; i < config.connections(); i++) {
+                long due = startNanos + rampNanos * i / config.connections();
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                pendingConnects.acquire();
+                connect(bootstrap, remote, i, tokens.userId(i), peerUserId(tokens, i, config), tokenByIndex[i],
+                        config, stats, channels, pendingConnects);
+            }
+            pendingConnects.acquire(Math.max(1, config.maxPendingConnects()));
+            long rampEndNanos = System.nanoTime();
+            System.out.printf("ramp-up done in %.1fs, active=%d%n", (rampEndNanos - startNanos) / 1e9, stats.active());
+
+            stats.resetSteadyStateLatencies();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(Math.max(0, config.durationSec())));
+            long endNanos = System.nanoTime();
+
+            progress.shutdownNow();
+            stats.drainInterval();
+            LoadTestReport report = LoadTestReport.build(config, transport.name(), startedAtMs,
+                    (rampEndNanos - startNanos) / 1e9, (endNanos - rampEndNanos) / 1e9, stats);
+            report.write(Path.of(config.report()));
+            System.out.println(report.summary());
+            System.out.printf("report written to %s%n", Path.of(config.report()).toAbsolutePath());
+            return stats.count(Count.AUTH_OK) > 0;
+        } finally {
+            progress.shutdownNow();
+            channels.close().awaitUninterruptibly(30, TimeUnit.SECONDS);
+            group.shutdownGracefully(0, 5, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    private static void connect(Bootstrap bootstrap, InetSocketAddress remote, int index, long userId, long peerUserId,
+                                String token, LoadTestConfig config, LoadTestStats stats, ChannelGroup channels,
+                                Semaphore pendingConnects) {
+        long sessionId = config.sessionIdBase() + index / 2;
+        long connectStartNanos = System.nanoTime();
+        stats.increment(Count.CONNECT_ATTEMPTS);
+        Bootstrap b = bootstrap.clone().handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline().addLast(new TcpFrameDecoder(TcpProtocolConstants.DEFAULT_MAX_BODY_LEN));
+                ch.pipeline().addLast(EnvelopeDecoder.INSTANCE);
+                ch.pipeline().addLast(new TcpFrameEncoder());
+                ch.pipeline().addLast(new ProtobufEncoder());
+                ch.pipeline().addLast(new LoadClient(index, userId, peerUserId, sessionId, token, connectStartNanos, config, stats));
+            }
+        });
+
+        ChannelFuture future = config.localAddresses().isEmpty()
+                ? b.connect(remote)
+                : b.connect(remote, new InetSocketAddress(config.localAddresses().get(index % config.localAddresses().size()), 0));
+        future.addListener((ChannelFuture f) -> {
+            pendingConnects.release();
+            if (f.isSuccess()) {
+                channels.add(f.channel());
+            } else {
+                stats.increment(Count.CONNECT_FAILED);
+            }
+        });
+    }
+
+    /**
+     * 第 2k 与 2k+1 条连接互为会话对端；总数为奇数时最后一条发给自己。
+     */
+    private static long peerUserId(TokenSource tokens, int index, LoadTestConfig config) {
+        int peer = index ^ 1;
+        return tokens.userId(peer < config.connections() ? peer : index);
+    }
+
+    private static void printProgress(LoadTestStats stats, long startNanos) {
+        Map<Latency, Histogram> interval = stats.drainInterval();
+        System.out.printf("[%6.1fs] active=%d auth_ok=%d auth_fail=%d connect_fail=%d uplinks=%d delivers=%d"
+                        + " | uplink_ack p99=%.2fms deliver p99=%.2fms ping p99=%.2fms%n",
+                (System.nanoTime() - startNanos) / 1e9, stats.active(),
+                stats.count(Count.AUTH_OK), stats.count(Count.AUTH_FAILED), stats.count(Count.CONNECT_FAILED),
+                stats.count(Count.UPLINKS), stats.count(Count.DELIVERS),
+                p99Ms(interval.get(Latency.UPLINK_ACK_RTT)), p99Ms(interval.get(Latency.DELIVER)),
+                p99Ms(interval.get(Latency.PING_RTT)));
+    }
+
+    private static double p99Ms(Histogram h) {
+        return h.getTotalCount() == 0 ? 0D : h.getValueAtPercentile(99) / 1000D;
+    }
+}
@@ -0,0 +1,141 @@
+package org.com.nettyconnector.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.com.nettyconnector.loadtest.LoadTestStats.Count;
+import org.com.nettyconnector.loadtest.LoadTestStats.Latency;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 机器可读的压测报告：配置、各阶段耗时、计数与失败率、各延迟分布（毫秒）。
+ * 消息类延迟只统计爬坡结束后的稳态阶段，建连 / 认证延迟覆盖整个爬坡。
+ */
+final class LoadTestReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<String, Object> root;
+
+    private LoadTestReport(Map<String, Object> root) {
+        this.root = root;
+    }
+
+    static LoadTestReport build(LoadTestConfig config, String transport, long startedAtMs,
+                                double rampUpSec, double steadySec, LoadTestStats stats) {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("startedAt", Instant.ofEpochMilli(startedAtMs).toString());
+        root.put("transport", transport);
+        root.put("config", config);
+
+        Map<String, Object> phases = new LinkedHashMap<>();
+        phases.put("rampUpSec", round(rampUpSec));
+        phases.put("steadyStateSec", round(steadySec));
+        root.put("phases", phases);
+
+        Map<String, Object> connections = new LinkedHashMap<>();
+        long attempts = stats.count(Count.CONNECT_ATTEMPTS);
+        long connected = stats.count(Count.CONNECTED);
+        connections.put("attempted", attempts);
+        connections.put("connected", connected);
+        connections.put("connectFailed", stats.count(Count.CONNECT_FAILED));
+        connections.put("connectFailureRate", ratio(stats.count(Count.CONNECT_FAILED), attempts));
+        connections.put("authOk", stats.count(Count.AUTH_OK));
+        connections.put("authFailed", stats.count(Count.AUTH_FAILED));
+        connections.put("authFailureRate", ratio(connected - stats.count(Count.AUTH_OK), connected));
+        connections.put("disconnectedAfterAuth", stats.count(Count.DISCONNECTED));
+        connections.put("activeAtEnd", stats.active());
+        connections.put("peakActive", stats.peakActive());
+        root.put("connections", connections);
+
+        Map<String, Object> counters = new LinkedHashMap<>();
+        for (Count count : Count.values()) {
+            counters.put(camel(count.name()), stats.count(count));
+        }
+        root.put("counters", counters);
+
+        Map<String, Object> throughput = new LinkedHashMap<>();
+        double elapsed = Math.max(1e-9, rampUpSec + steadySec);
+        throughput.put("uplinksPerSec", round(stats.count(Count.UPLINKS) / elapsed));
+        throughput.put("persistedPerSec", round(stats.count(Count.PERSISTED) / elapsed));
+        throughput.put("deliversPerSec", round(stats.count(Count.DELIVERS) / elapsed));
+        throughput.put("uplinkRejectRate", ratio(stats.count(Count.UPLINK_REJECTED), stats.count(Count.UPLINKS)));
+        throughput.put("persistFailureRate", ratio(stats.count(Count.PERSIST_FAILED),
+                stats.count(Count.PERSISTED) + stats.count(Count.PERSIST_FAILED)));
+        root.put("throughput", throughput);
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        for (Latency l : Latency.values()) {
+            latency.put(camel(l.name()), distribution(stats.total(l)));
+        }
+        root.put("latencyMs", latency);
+        return new LoadTestReport(root);
+    }
+
+    void write(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        MAPPER.writeValue(path.toFile(), root);
+    }
+
+    String summary() {
+        try {
+            return MAPPER.writeValueAsString(Map.of(
+                    "connections", root.get("connections"),
+                    "throughput", root.get("throughput")));
+        } catch (IOException e) {
+            return root.toString();
+        }
+    }
+
+    private static Map<String, Object> distribution(Histogram h) {
+        Map<String, Object> d = new LinkedHashMap<>();
+        d.put("count", h.getTotalCount());
+        if (h.getTotalCount() == 0) {
+            return d;
+        }
+        d.put("min", ms(h.getMinValue()));
+        d.put("mean", round(h.getMean() / 1000D));
+        d.put("p50", ms(h.getValueAtPercentile(50)));
+        d.put("p90", ms(h.getValueAtPercentile(90)));
+        d.put("p99", ms(h.getValueAtPercentile(99)));
+        d.put("p999", ms(h.getValueAtPercentile(99.9)));
+        d.put("max", ms(h.getMaxValue()));
+        return d;
+    }
+
+    private static double ms(long micros) {
+        return round(micros / 1000D);
+    }
+
+    private static double ratio(long part, long total) {
+        return total <= 0 ? 0D : round((double) part / total);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000D) / 1000D;
+    }
+
+    private static String camel(String enumName) {
+        StringBuilder sb = new StringBuilder();
+        boolean upper = false;
+        for (char c : enumName.toLowerCase(Locale.ROOT).toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                sb.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,107 @@
+package org.com.nettyconnector.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压测计数与延迟直方图。记录发生在各个 eventLoop 上，全部无锁：计数用 LongAdder，延迟用 HdrHistogram 的
+ * {@link Recorder}（记录端 wait-free），汇总线程定期取区间直方图累加到总量里。延迟统一按微秒记录。
+ */
+final class LoadTestStats {
+
+    enum Latency {
+        CONNECT, AUTH, PING_RTT, UPLINK_ACK_RTT, PERSISTED_ACK_RTT, DELIVER
+    }
+
+    enum Count {
+        CONNECT_ATTEMPTS, CONNECTED, CONNECT_FAILED,
+        AUTH_OK, AUTH_FAILED, DISCONNECTED,
+        PINGS, PONGS,
+        UPLINKS, UPLINK_ACCEPTED, UPLINK_REJECTED, PERSISTED, PERSIST_FAILED,
+        DELIVERS, DELIVER_BATCHES, DELIVERY_ACKS, PULL_HINTS, RECONNECT_HINTS, ERRORS
+    }
+
+    private final Map<Latency, Recorder> recorders = new LinkedHashMap<>();
+    private final Map<Latency, Histogram> totals = new LinkedHashMap<>();
+    private final Map<Count, LongAdder> counts = new LinkedHashMap<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peakActive = new AtomicInteger();
+
+    LoadTestStats() {
+        for (Latency latency : Latency.values()) {
+            recorders.put(latency, new Recorder(3));
+            totals.put(latency, new Histogram(3));
+        }
+        for (Count count : Count.values()) {
+            counts.put(count, new LongAdder());
+        }
+    }
+
+    void increment(Count count) {
+        counts.get(count).increment();
+    }
+
+    long count(Count count) {
+        return counts.get(count).sum();
+    }
+
+    void recordNanos(Latency latency, long nanos) {
+        recordMicros(latency, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    void recordMicros(Latency latency, long micros) {
+        recorders.get(latency).recordValue(Math.max(0L, micros));
+    }
+
+    void connectionOpened() {
+        int now = active.incrementAndGet();
+        peakActive.accumulateAndGet(now, Math::max);
+    }
+
+    void connectionClosed() {
+        active.decrementAndGet();
+    }
+
+    int active() {
+        return active.get();
+    }
+
+    int peakActive() {
+        return peakActive.get();
+    }
+
+    /**
+     * 取走各 Recorder 自上次以来的区间数据并累加到总量，返回本区间的直方图（汇总线程调用）。
+     */
+    synchronized Map<Latency, Histogram> drainInterval() {
+        Map<Latency, Histogram> intervals = new LinkedHashMap<>();
+        for (Latency latency : Latency.values()) {
+            Histogram interval = recorders.get(latency).getIntervalHistogram();
+            totals.get(latency).add(interval);
+            intervals.put(latency, interval);
+        }
+        return intervals;
+    }
+
+    /**
+     * 爬坡结束时调用：丢弃此前的消息类延迟，使报告只反映稳态；建连 / 认证延迟保留。
+     */
+    synchronized void resetSteadyStateLatencies() {
+        drainInterval();
+        for (Latency latency : Latency.values()) {
+            if (latency != Latency.CONNECT && latency != Latency.AUTH) {
+                totals.get(latency).reset();
+            }
+        }
+    }
+
+    synchronized Histogram total(Latency latency) {
+        return totals.get(latency).copy();
+    }
+}
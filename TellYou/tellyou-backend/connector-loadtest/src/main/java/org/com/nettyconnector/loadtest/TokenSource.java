@@ -0,0 +1,65 @@
+package org.com.nettyconnector.loadtest;
+
+import org.com.shared.infrastructure.jwt.JwtRsaKeys;
+import org.com.shared.infrastructure.jwt.JwtRsaTokenCodec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.PrivateKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 第 i 条连接使用的用户与 JWT：要么按 user-id-base + i 用 RSA 私钥现签（与 auth-service 相同的 RS256 格式），
+ * 要么从 token 文件按行读取。
+ */
+final class TokenSource {
+
+    record Identity(long userId, String token) {
+    }
+
+    private final PrivateKey privateKey;
+    private final String uidKey;
+    private final long userIdBase;
+    private final List<Identity> fromFile;
+
+    private TokenSource(PrivateKey privateKey, String uidKey, long userIdBase, List<Identity> fromFile) {
+        this.privateKey = privateKey;
+        this.uidKey = uidKey;
+        this.userIdBase = userIdBase;
+        this.fromFile = fromFile;
+    }
+
+    static TokenSource create(LoadTestConfig config) throws IOException {
+        if (!config.tokenFile().isBlank()) {
+            List<Identity> identities = new ArrayList<>();
+            for (String line : Files.readAllLines(Path.of(config.tokenFile()), StandardCharsets.UTF_8)) {
+                int comma = line.indexOf(',');
+                if (line.isBlank() || line.startsWith("#") || comma < 0) {
+                    continue;
+                }
+                identities.add(new Identity(Long.parseLong(line.substring(0, comma).trim()), line.substring(comma + 1).trim()));
+            }
+            if (identities.size() < config.connections()) {
+                throw new IllegalArgumentException("token file has " + identities.size() + " entries, need " + config.connections());
+            }
+            return new TokenSource(null, null, 0L, identities);
+        }
+        PrivateKey key = JwtRsaKeys.loadPrivateKey(null, config.jwtPrivateKeyPath());
+        return new TokenSource(key, config.jwtUidKey(), config.userIdBase(), null);
+    }
+
+    long userId(int index) {
+        return fromFile != null ? fromFile.get(index).userId() : userIdBase + index;
+    }
+
+    String token(int index) {
+        if (fromFile != null) {
+            return fromFile.get(index).token();
+        }
+        return JwtRsaTokenCodec.createToken(privateKey, uidKey, userIdBase + index, TimeUnit.HOURS.toMillis(12));
+    }
+}
@@ -1,32 +1,63 @@
 package org.com.dispatch.infrastructure.connector;
 
 import com.alibaba.nacos.api.naming.pojo.Instance;
-import jakarta.annotation.PreDestroy;
-import io.grpc.Deadline;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.com.dispatch.infrastructure.nacos.ConnectorDirectory;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
 import org.com.shared.proto.connector.deliver.v1.ConnectorDeliverServiceGrpc;
+import org.com.shared.proto.connector.deliver.v1.DeliverChatBatchRequest;
+import org.com.shared.proto.connector.deliver.v1.DeliverChatBatchResponse;
 import org.com.shared.proto.connector.deliver.v1.DeliverChatRequest;
 import org.com.shared.proto.connector.deliver.v1.DeliverChatResponse;
-import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamRequest;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamResponse;
+import org.com.shared.proto.connector.deliver.v1.UserTarget;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * 下发到 connector 的 gRPC 客户端。
+ * <p>
+ * 默认每个 gatewayId 维持一条 DeliverStream 双向流：Nacos 成员变化时关闭已下线/换地址的流并为新成员预先建流；
+ * 流异常断开后按指数退避重连（仅当该 gateway 仍在成员列表中）。grpc.connector.deliver-stream.enabled=false 时退回一元调用，
+ * 一元调用同样走 future stub 异步发出，调用方对多个 connector 的下发可以并发进行。
+ */
 @Component
 @Slf4j
 public class ConnectorDeliverClient {
 
-    private record CachedChannel(String ip, int port, ManagedChannel channel, ConnectorDeliverServiceGrpc.ConnectorDeliverServiceBlockingStub stub) {
-    }
-
     private final ConnectorInstanceResolver resolver;
+    private final ConnectorDirectory connectorDirectory;
+
+    private record CachedChannel(String ip, int port, ManagedChannel channel) {
+    }
 
-    private final ConcurrentHashMap<String, CachedChannel> channelCache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CachedChannel> unaryChannels = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConnectorDeliverStream> streams = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> reconnectAttempts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reconnectScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "connector-deliver-reconnect");
+        t.setDaemon(true);
+        return t;
+    });
 
     @Value("${grpc.use-plaintext:true}")
     private boolean usePlaintext;
@@ -34,78 +65,274 @@ public class ConnectorDeliverClient {
     @Value("${grpc.timeout.connector:${grpc.timeout.default:3000}}")
     private long connectorTimeoutMs;
 
-    public ConnectorDeliverClient(ConnectorInstanceResolver resolver) {
+    @Value("${grpc.connector.deliver-stream.enabled:true}")
+    private boolean streamEnabled;
+
+    @Value("${grpc.connector.deliver-stream.reconnect-min-backoff-ms:200}")
+    private long reconnectMinBackoffMs;
+
+    @Value("${grpc.connector.deliver-stream.reconnect-max-backoff-ms:10000}")
+    private long reconnectMaxBackoffMs;
+
+    public ConnectorDeliverClient(ConnectorInstanceResolver resolver, ConnectorDirectory connectorDirectory) {
         this.resolver = resolver;
+        this.connectorDirectory = connectorDirectory;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!streamEnabled) {
+            return;
+        }
+        connectorDirectory.addListener(this::onMembershipChanged);
+        onMembershipChanged(connectorDirectory.getConnectors());
     }
 
     public DeliverChatResponse deliver(String gatewayId, long userId, String deviceId, ChatDeliver deliver, String traceId) {
+        return deliverAsync(gatewayId, userId, deviceId, deliver, traceId).join();
+    }
+
+    /**
+     * 失败（connector 不存在、流断开、超时）时 future 以 null 完成。
+     */
+    public CompletableFuture<DeliverChatResponse> deliverAsync(String gatewayId, long userId, String deviceId, ChatDeliver deliver, String traceId) {
         Objects.requireNonNull(deliver, "deliver");
 
-        Instance ins = resolver.resolveByGatewayId(gatewayId);
-        if (ins == null) {
-            log.debug("connector not found for gatewayId={}", gatewayId);
-            return null;
+        DeliverChatRequest.Builder req = DeliverChatRequest.newBuilder()
+                .setUserId(userId)
+                .setDeliver(deliver);
+        if (deviceId != null) {
+            req.setDeviceId(deviceId);
+        }
+        if (traceId != null) {
+            req.setTraceId(traceId);
         }
 
-        String ip = ins.getIp();
-        int port = resolver.resolveGrpcPort(ins);
-        if (ip == null || ip.isBlank() || port <= 0) {
-            log.warn("invalid connector instance: gatewayId={}, ip={}, port={}", gatewayId, ip, port);
+        CompletableFuture<DeliverChatResponse> future;
+        try {
+            if (streamEnabled) {
+                ConnectorDeliverStream stream = streamFor(gatewayId);
+                if (stream == null) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                future = stream.send(DeliverStreamRequest.newBuilder().setDeliver(req))
+                        .thenApply(DeliverStreamResponse::getDeliver);
+            } else {
+                ManagedChannel ch = unaryChannel(gatewayId);
+                future = ch == null ? CompletableFuture.completedFuture(null) : toCompletable(ConnectorDeliverServiceGrpc.newFutureStub(ch)
+                        .withDeadlineAfter(connectorTimeoutMs, TimeUnit.MILLISECONDS)
+                        .deliverChat(req.build()));
+            }
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.exceptionally(e -> {
+            log.debug("deliver grpc failed: gatewayId={}, userId={}, deviceId={}, err={}", gatewayId, userId, deviceId, e.toString());
             return null;
+        });
+    }
+
+    /**
+     * 同一条消息发给同一 connector 上的多个用户，一次 RPC 完成；失败时 future 以 null 完成。
+     */
+    public CompletableFuture<DeliverChatBatchResponse> deliverBatchAsync(String gatewayId, List<UserTarget> targets, ChatDeliver deliver, String traceId) {
+        Objects.requireNonNull(deliver, "deliver");
+
+        DeliverChatBatchRequest.Builder req = DeliverChatBatchRequest.newBuilder()
+                .addAllTargets(targets)
+                .setDeliver(deliver);
+        if (traceId != null) {
+            req.setTraceId(traceId);
+        }
+
+        CompletableFuture<DeliverChatBatchResponse> future;
+        try {
+            if (streamEnabled) {
+                ConnectorDeliverStream stream = streamFor(gatewayId);
+                if (stream == null) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                future = stream.send(DeliverStreamRequest.newBuilder().setDeliverBatch(req))
+                        .thenApply(DeliverStreamResponse::getDeliverBatch);
+            } else {
+                ManagedChannel ch = unaryChannel(gatewayId);
+                future = ch == null ? CompletableFuture.completedFuture(null) : toCompletable(ConnectorDeliverServiceGrpc.newFutureStub(ch)
+                        .withDeadlineAfter(connectorTimeoutMs, TimeUnit.MILLISECONDS)
+                        .deliverChatBatch(req.build()));
+            }
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
         }
+        return future.exceptionally(e -> {
+            log.debug("deliver batch grpc failed: gatewayId={}, targets={}, err={}", gatewayId, targets.size(), e.toString());
+            return null;
+        });
+    }
+
+    private static <T> CompletableFuture<T> toCompletable(ListenableFuture<T> listenable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Futures.addCallback(listenable, new FutureCallback<>() {
+            @Override
+            public void onSuccess(T result) {
+                future.complete(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
 
-        CachedChannel cached = channelCache.compute(gatewayId, (_k, old) -> {
+    /**
+     * 一元调用使用的缓存 channel；deadline 必须按调用设置，缓存在 stub 上会从建连时刻开始计时。
+     */
+    private ManagedChannel unaryChannel(String gatewayId) {
+        Instance ins = resolveInstance(gatewayId);
+        if (ins == null) {
+            return null;
+        }
+        String ip = ins.getIp();
+        int port = resolver.resolveGrpcPort(ins);
+        CachedChannel cached = unaryChannels.compute(gatewayId, (_k, old) -> {
             if (old != null && ip.equals(old.ip) && port == old.port) {
                 return old;
             }
             if (old != null) {
-                try {
-                    old.channel.shutdown();
-                } catch (Exception ignored) {
-                }
+                old.channel.shutdown();
             }
+            return new CachedChannel(ip, port, newChannel(ip, port));
+        });
+        return cached.channel;
+    }
 
-            ManagedChannelBuilder<?> b = ManagedChannelBuilder.forAddress(ip, port);
-            if (usePlaintext) {
-                b.usePlaintext();
+    private ConnectorDeliverStream streamFor(String gatewayId) {
+        ConnectorDeliverStream current = streams.get(gatewayId);
+        if (current != null && current.isOpen()) {
+            return current;
+        }
+        Instance ins = resolveInstance(gatewayId);
+        if (ins == null) {
+            return null;
+        }
+        return openStream(gatewayId, ins.getIp(), resolver.resolveGrpcPort(ins));
+    }
+
+    private ConnectorDeliverStream openStream(String gatewayId, String ip, int port) {
+        ConnectorDeliverStream[] replaced = {null};
+        ConnectorDeliverStream stream = streams.compute(gatewayId, (_k, old) -> {
+            if (old != null && old.isOpen() && old.sameAddress(ip, port)) {
+                return old;
             }
-            ManagedChannel ch = b.build();
-            ConnectorDeliverServiceGrpc.ConnectorDeliverServiceBlockingStub stub = ConnectorDeliverServiceGrpc.newBlockingStub(ch)
-                    .withDeadline(Deadline.after(connectorTimeoutMs, TimeUnit.MILLISECONDS));
-            return new CachedChannel(ip, port, ch, stub);
+            replaced[0] = old;
+            ConnectorDeliverStream created = new ConnectorDeliverStream(gatewayId, ip, port, newChannel(ip, port),
+                    connectorTimeoutMs, this::onStreamBroken);
+            created.start();
+            return created;
         });
+        if (replaced[0] != null) {
+            replaced[0].close();
+        }
+        return stream;
+    }
 
-        DeliverChatRequest.Builder req = DeliverChatRequest.newBuilder()
-                .setUserId(userId)
-                .setDeliver(deliver);
+    private void onStreamBroken(ConnectorDeliverStream stream) {
+        String gatewayId = stream.gatewayId();
+        if (streams.remove(gatewayId, stream)) {
+            stream.close();
+        }
+        if (stream.hasResponded()) {
+            reconnectAttempts.remove(gatewayId);
+        }
+        int attempt = reconnectAttempts.merge(gatewayId, 1, Integer::sum);
+        long delay = Math.min(reconnectMaxBackoffMs, reconnectMinBackoffMs << Math.min(attempt - 1, 16));
+        reconnectScheduler.schedule(() -> reconnect(gatewayId), delay, TimeUnit.MILLISECONDS);
+    }
 
-        if (deviceId != null) {
-            req.setDeviceId(deviceId);
+    private void reconnect(String gatewayId) {
+        Instance ins = resolver.resolveByGatewayId(gatewayId);
+        if (ins == null) {
+            // 已不在成员列表中，不再重连
+            reconnectAttempts.remove(gatewayId);
+            return;
         }
-        if (traceId != null) {
-            req.setTraceId(traceId);
+        if (streams.containsKey(gatewayId)) {
+            return;
         }
+        log.info("reconnect deliver stream: gatewayId={}", gatewayId);
+        openStream(gatewayId, ins.getIp(), resolver.resolveGrpcPort(ins));
+    }
 
-        try {
-            return cached.stub.deliverChat(req.build());
-        } catch (Exception e) {
-            log.debug("deliver grpc failed: gatewayId={}, userId={}, deviceId={}, err={}", gatewayId, userId, deviceId, e.toString());
+    /**
+     * 跟随 Nacos 成员变化：关闭已下线或换了地址的流，为新成员预先建立流。
+     */
+    private void onMembershipChanged(List<Instance> instances) {
+        Map<String, Instance> byGateway = new HashMap<>();
+        if (instances != null) {
+            for (Instance it : instances) {
+                String gid = it == null || it.getMetadata() == null ? null : it.getMetadata().get("gateway.id");
+                if (gid != null && !gid.isBlank() && it.isEnabled() && it.isHealthy()) {
+                    byGateway.put(gid, it);
+                }
+            }
+        }
+
+        for (ConnectorDeliverStream stream : streams.values()) {
+            Instance ins = byGateway.get(stream.gatewayId());
+            if (ins == null || !stream.sameAddress(ins.getIp(), resolver.resolveGrpcPort(ins))) {
+                if (streams.remove(stream.gatewayId(), stream)) {
+                    log.info("close deliver stream on membership change: gatewayId={}", stream.gatewayId());
+                    stream.close();
+                }
+            }
+        }
+        for (Map.Entry<String, Instance> it : byGateway.entrySet()) {
+            reconnectAttempts.remove(it.getKey());
+            try {
+                openStream(it.getKey(), it.getValue().getIp(), resolver.resolveGrpcPort(it.getValue()));
+            } catch (Exception e) {
+                log.warn("open deliver stream failed: gatewayId={}, err={}", it.getKey(), e.toString());
+            }
+        }
+    }
+
+    private Instance resolveInstance(String gatewayId) {
+        Instance ins = resolver.resolveByGatewayId(gatewayId);
+        if (ins == null) {
+            log.debug("connector not found for gatewayId={}", gatewayId);
+            return null;
+        }
+        String ip = ins.getIp();
+        int port = resolver.resolveGrpcPort(ins);
+        if (ip == null || ip.isBlank() || port <= 0) {
+            log.warn("invalid connector instance: gatewayId={}, ip={}, port={}", gatewayId, ip, port);
             return null;
         }
+        return ins;
+    }
+
+    private ManagedChannel newChannel(String ip, int port) {
+        ManagedChannelBuilder<?> b = ManagedChannelBuilder.forAddress(ip, port);
+        if (usePlaintext) {
+            b.usePlaintext();
+        }
+        return b.build();
     }
 
     public void shutdownAll() {
-        for (CachedChannel it : channelCache.values()) {
-            if (it == null) {
-                continue;
-            }
+        reconnectScheduler.shutdownNow();
+        for (ConnectorDeliverStream it : streams.values()) {
             try {
-                it.channel.shutdown();
-                it.channel.awaitTermination(1, TimeUnit.SECONDS);
+                it.close();
             } catch (Exception ignored) {
             }
         }
-        channelCache.clear();
+        streams.clear();
+        for (CachedChannel it : unaryChannels.values()) {
+            it.channel.shutdown();
+        }
+        unaryChannels.clear();
     }
 
     @PreDestroy
@@ -0,0 +1,199 @@
+package org.com.dispatch.infrastructure.connector;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.com.shared.proto.connector.deliver.v1.ConnectorDeliverServiceGrpc;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamRequest;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 到单个 connector 的 DeliverStream 双向流。
+ * <p>
+ * 请求带自增 correlation_id，响应按 id 完成对应的 future；发送端在 gRPC 流控 isReady=false 时阻塞等待
+ * （最多 timeoutMs，超时以 RESOURCE_EXHAUSTED 失败），把背压交还给 MQ 消费线程；写出后再等待响应最多 timeoutMs。
+ * connector 回执的 error 为请求不合法（INVALID_ARGUMENT），internal_error 为对端处理异常（INTERNAL）。
+ * 流断开后所有在途请求立即失败，由 {@link ConnectorDeliverClient} 负责重连。
+ */
+@Slf4j
+final class ConnectorDeliverStream {
+
+    private final String gatewayId;
+    private final String ip;
+    private final int port;
+    private final ManagedChannel channel;
+    private final long timeoutMs;
+    private final Consumer<ConnectorDeliverStream> onBroken;
+
+    private final AtomicLong correlationIds = new AtomicLong();
+    private final ConcurrentHashMap<Long, CompletableFuture<DeliverStreamResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Object sendLock = new Object();
+
+    private volatile ClientCallStreamObserver<DeliverStreamRequest> requestStream;
+    private volatile boolean closed;
+    private volatile boolean responded;
+
+    ConnectorDeliverStream(String gatewayId, String ip, int port, ManagedChannel channel, long timeoutMs,
+                           Consumer<ConnectorDeliverStream> onBroken) {
+        this.gatewayId = gatewayId;
+        this.ip = ip;
+        this.port = port;
+        this.channel = channel;
+        this.timeoutMs = timeoutMs;
+        this.onBroken = onBroken;
+    }
+
+    String gatewayId() {
+        return gatewayId;
+    }
+
+    boolean sameAddress(String ip, int port) {
+        return this.ip.equals(ip) && this.port == port;
+    }
+
+    boolean isOpen() {
+        return !closed;
+    }
+
+    boolean hasResponded() {
+        return responded;
+    }
+
+    void start() {
+        ConnectorDeliverServiceGrpc.newStub(channel).deliverStream(new ClientResponseObserver<DeliverStreamRequest, DeliverStreamResponse>() {
+            @Override
+            public void beforeStart(ClientCallStreamObserver<DeliverStreamRequest> stream) {
+                requestStream = stream;
+                stream.setOnReadyHandler(() -> {
+                    synchronized (sendLock) {
+                        sendLock.notifyAll();
+                    }
+                });
+            }
+
+            @Override
+            public void onNext(DeliverStreamResponse resp) {
+                responded = true;
+                CompletableFuture<DeliverStreamResponse> future = inFlight.remove(resp.getCorrelationId());
+                if (future == null) {
+                    return;
+                }
+                switch (resp.getResultCase()) {
+                    case ERROR -> future.completeExceptionally(
+                            Status.INVALID_ARGUMENT.withDescription(resp.getError()).asRuntimeException());
+                    case INTERNAL_ERROR -> future.completeExceptionally(
+                            Status.INTERNAL.withDescription(resp.getInternalError()).asRuntimeException());
+                    default -> future.complete(resp);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                broken(Status.fromThrowable(t));
+            }
+
+            @Override
+            public void onCompleted() {
+                broken(Status.UNAVAILABLE.withDescription("deliver stream completed by server"));
+            }
+        });
+    }
+
+    /**
+     * correlation_id 由本方法填充。
+     */
+    CompletableFuture<DeliverStreamResponse> send(DeliverStreamRequest.Builder item) {
+        CompletableFuture<DeliverStreamResponse> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(Status.UNAVAILABLE.withDescription("deliver stream closed").asRuntimeException());
+            return future;
+        }
+
+        long correlationId = correlationIds.incrementAndGet();
+        inFlight.put(correlationId, future);
+        future.whenComplete((_r, _e) -> inFlight.remove(correlationId));
+
+        DeliverStreamRequest request = item.setCorrelationId(correlationId).build();
+        try {
+            synchronized (sendLock) {
+                awaitReady();
+                requestStream.onNext(request);
+            }
+            // 写出后才开始计响应超时，等待可写的超时单独以 RESOURCE_EXHAUSTED 报出
+            future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(Status.CANCELLED.withDescription("interrupted while waiting for deliver stream")
+                    .withCause(e).asRuntimeException());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 调用方已持有 sendLock。
+     */
+    private void awaitReady() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (!closed && !requestStream.isReady()) {
+            long waitMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (waitMs <= 0) {
+                throw new StatusRuntimeException(Status.RESOURCE_EXHAUSTED.withDescription("deliver stream not ready"));
+            }
+            sendLock.wait(waitMs);
+        }
+        if (closed) {
+            throw new StatusRuntimeException(Status.UNAVAILABLE.withDescription("deliver stream closed"));
+        }
+    }
+
+    private void broken(Status status) {
+        if (closed) {
+            return;
+        }
+        log.info("deliver stream broken: gatewayId={}, status={}", gatewayId, status);
+        failAll(status);
+        onBroken.accept(this);
+    }
+
+    private void failAll(Status status) {
+        closed = true;
+        synchronized (sendLock) {
+            sendLock.notifyAll();
+        }
+        for (Long id : inFlight.keySet()) {
+            CompletableFuture<DeliverStreamResponse> future = inFlight.remove(id);
+            if (future != null) {
+                future.completeExceptionally(status.asRuntimeException());
+            }
+        }
+    }
+
+    /**
+     * 主动关闭：半关闭请求方向并释放底层 channel。
+     */
+    void close() {
+        if (closed) {
+            channel.shutdown();
+            return;
+        }
+        failAll(Status.CANCELLED.withDescription("deliver stream closed locally"));
+        try {
+            synchronized (sendLock) {
+                requestStream.onCompleted();
+            }
+        } catch (Exception ignored) {
+        }
+        channel.shutdown();
+    }
+}
@@ -14,15 +14,19 @@ import org.com.dispatch.infrastructure.connector.ConnectorDeliverClient;
 import org.com.dispatch.infrastructure.grpc.SocialSessionGrpcClient;
 import org.com.dispatch.route.GatewayRouteService;
 import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.shared.proto.connector.deliver.v1.UserTarget;
 import org.com.shared.proto.social.session.v1.SessionMember;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Configuration
 @Slf4j
@@ -147,15 +151,9 @@ public class RocketMqConsumerConfiguration {
                     ? Map.of()
                     : gatewayRouteService.listUserDeviceRoutesBatch(receiverIds);
 
-            for (SessionMember m : members) {
-                if (m == null || !m.getIsActive()) {
-                    continue;
-                }
-                long receiverId = m.getUserId();
-                if (receiverId <= 0) {
-                    continue;
-                }
-
+            // 按 gatewayId 分组：每个 connector 每条消息只发一次 DeliverChatBatch
+            Map<String, Map<Long, UserTarget.Builder>> targetsByGateway = new HashMap<>();
+            for (Long receiverId : receiverIds) {
                 Map<String, String> routes = routesByUser.get(receiverId);
                 if (routes == null || routes.isEmpty()) {
                     continue;
@@ -167,10 +165,22 @@ public class RocketMqConsumerConfiguration {
                     if (gatewayId == null || gatewayId.isBlank()) {
                         continue;
                     }
+                    targetsByGateway.computeIfAbsent(gatewayId, _k -> new HashMap<>())
+                            .computeIfAbsent(receiverId, uid -> UserTarget.newBuilder().setUserId(uid))
+                            .addDeviceIds(deviceId);
+                }
+            }
 
-                    connectorDeliverClient.deliver(gatewayId, receiverId, deviceId, deliver, traceId);
+            // 同一条消息对各 connector 的下发并发发出，最后统一等待回执
+            List<CompletableFuture<?>> pending = new ArrayList<>(targetsByGateway.size());
+            for (Map.Entry<String, Map<Long, UserTarget.Builder>> it : targetsByGateway.entrySet()) {
+                List<UserTarget> targets = new ArrayList<>(it.getValue().size());
+                for (UserTarget.Builder target : it.getValue().values()) {
+                    targets.add(target.build());
                 }
+                pending.add(connectorDeliverClient.deliverBatchAsync(it.getKey(), targets, deliver, traceId));
             }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
         }
 
         return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
@@ -9,6 +9,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
@@ -21,6 +23,8 @@ public class ConnectorDirectory {
 
     private volatile List<Instance> connectors = List.of();
 
+    private final List<Consumer<List<Instance>>> listeners = new CopyOnWriteArrayList<>();
+
     public ConnectorDirectory(NacosServiceDiscovery discovery) {
         this.discovery = discovery;
     }
@@ -29,11 +33,25 @@ public class ConnectorDirectory {
         return connectors;
     }
 
+    /**
+     * 订阅 connector 成员变化，回调运行在 Nacos 通知线程上，应尽快返回。
+     */
+    public void addListener(Consumer<List<Instance>> listener) {
+        listeners.add(listener);
+    }
+
     @PostConstruct
     public void init() throws NacosException {
         this.connectors = discovery.subscribeAndCache(connectorServiceName, instances -> {
             this.connectors = instances;
             log.info("ConnectorDirectory变更: service={}, instances={}", connectorServiceName, instances.size());
+            for (Consumer<List<Instance>> listener : listeners) {
+                try {
+                    listener.accept(instances);
+                } catch (Exception e) {
+                    log.warn("ConnectorDirectory listener failed: {}", e.toString());
+                }
+            }
         });
         log.info("ConnectorDirectory初始化: service={}, instances={}", connectorServiceName, connectors.size());
     }
@@ -0,0 +1,172 @@
+package org.com.dispatch.infrastructure.connector;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import io.grpc.stub.StreamObserver;
+import org.com.dispatch.infrastructure.nacos.ConnectorDirectory;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.shared.proto.connector.deliver.v1.ConnectorDeliverServiceGrpc;
+import org.com.shared.proto.connector.deliver.v1.DeliverChatBatchRequest;
+import org.com.shared.proto.connector.deliver.v1.DeliverChatBatchResponse;
+import org.com.shared.proto.connector.deliver.v1.DeliverChatResponse;
+import org.com.shared.proto.connector.deliver.v1.UserTarget;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+public class ConnectorDeliverClientTest {
+
+    private static final ChatDeliver DELIVER = ChatDeliver.newBuilder().setServerMessageId("1").setSessionId(9).build();
+
+    @Test
+    void shouldFollowMembershipChanges() throws Exception {
+        try (FakeConnector a = FakeConnector.answering(item -> FakeConnector.delivered(item, 1));
+             FakeConnector b = FakeConnector.answering(item -> FakeConnector.delivered(item, 2))) {
+            Members members = new Members(List.of(instance("gw-1", a.port())));
+            ConnectorDeliverClient client = newClient(members);
+            try {
+                Assertions.assertEquals(1, deliver(client).getDelivered());
+
+                // 同一 gatewayId 换了地址：旧流关闭，新请求走新地址
+                members.change(List.of(instance("gw-1", b.port())));
+                Assertions.assertEquals(2, deliver(client).getDelivered());
+
+                members.change(List.of());
+                Assertions.assertNull(deliver(client));
+            } finally {
+                client.shutdownAll();
+            }
+        }
+    }
+
+    @Test
+    void shouldReconnectAfterStreamBreaks() throws Exception {
+        AtomicInteger items = new AtomicInteger();
+        try (FakeConnector a = FakeConnector.answering(item -> {
+            if (items.incrementAndGet() == 1) {
+                // 第一条请求时让 server 整体断开，模拟 connector 重启
+                throw new IllegalStateException("boom");
+            }
+            return FakeConnector.delivered(item, 1);
+        })) {
+            ConnectorDeliverClient client = newClient(new Members(List.of(instance("gw-1", a.port()))));
+            try {
+                Assertions.assertNull(deliver(client));
+
+                DeliverChatResponse resp = null;
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+                while (resp == null && System.nanoTime() < deadline) {
+                    resp = deliver(client);
+                    if (resp == null) {
+                        Thread.sleep(20);
+                    }
+                }
+                Assertions.assertNotNull(resp, "stream did not recover");
+                Assertions.assertEquals(1, resp.getDelivered());
+            } finally {
+                client.shutdownAll();
+            }
+        }
+    }
+
+    @Test
+    void shouldOverlapUnaryBatchCallsAcrossConnectors() throws Exception {
+        // 两个 connector 都要等对方也收到请求才应答：逐个阻塞调用时第一个会一直等到超时
+        CountDownLatch bothReceived = new CountDownLatch(2);
+        try (FakeConnector a = FakeConnector.start(waitingForPeer(bothReceived, 1));
+             FakeConnector b = FakeConnector.start(waitingForPeer(bothReceived, 2))) {
+            ConnectorDeliverClient client = newClient(new Members(List.of(instance("gw-1", a.port()), instance("gw-2", b.port()))), false);
+            try {
+                List<UserTarget> targets = List.of(UserTarget.newBuilder().setUserId(7L).build());
+                CompletableFuture<DeliverChatBatchResponse> first = client.deliverBatchAsync("gw-1", targets, DELIVER, null);
+                CompletableFuture<DeliverChatBatchResponse> second = client.deliverBatchAsync("gw-2", targets, DELIVER, null);
+
+                Assertions.assertEquals(1, first.get(3, TimeUnit.SECONDS).getDelivered());
+                Assertions.assertEquals(2, second.get(3, TimeUnit.SECONDS).getDelivered());
+            } finally {
+                client.shutdownAll();
+            }
+        }
+    }
+
+    private static ConnectorDeliverServiceGrpc.ConnectorDeliverServiceImplBase waitingForPeer(CountDownLatch bothReceived, int delivered) {
+        return new ConnectorDeliverServiceGrpc.ConnectorDeliverServiceImplBase() {
+            @Override
+            public void deliverChatBatch(DeliverChatBatchRequest request, StreamObserver<DeliverChatBatchResponse> responses) {
+                bothReceived.countDown();
+                try {
+                    if (!bothReceived.await(2, TimeUnit.SECONDS)) {
+                        responses.onError(new IllegalStateException("peer call never arrived"));
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    responses.onError(e);
+                    return;
+                }
+                responses.onNext(DeliverChatBatchResponse.newBuilder().setDelivered(delivered).build());
+                responses.onCompleted();
+            }
+        };
+    }
+
+    private static DeliverChatResponse deliver(ConnectorDeliverClient client) throws Exception {
+        return client.deliverAsync("gw-1", 7L, null, DELIVER, null).get(3, TimeUnit.SECONDS);
+    }
+
+    private static ConnectorDeliverClient newClient(Members members) {
+        return newClient(members, true);
+    }
+
+    private static ConnectorDeliverClient newClient(Members members, boolean streamEnabled) {
+        ConnectorDirectory directory = Mockito.mock(ConnectorDirectory.class);
+        Mockito.when(directory.getConnectors()).thenAnswer(inv -> members.current.get());
+        Mockito.doAnswer(inv -> {
+            members.listener = inv.getArgument(0);
+            return null;
+        }).when(directory).addListener(Mockito.any());
+
+        ConnectorDeliverClient client = new ConnectorDeliverClient(new ConnectorInstanceResolver(directory), directory);
+        ReflectionTestUtils.setField(client, "usePlaintext", true);
+        ReflectionTestUtils.setField(client, "connectorTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(client, "streamEnabled", streamEnabled);
+        ReflectionTestUtils.setField(client, "reconnectMinBackoffMs", 20L);
+        ReflectionTestUtils.setField(client, "reconnectMaxBackoffMs", 200L);
+        client.init();
+        return client;
+    }
+
+    private static Instance instance(String gatewayId, int port) {
+        Instance ins = new Instance();
+        ins.setIp("127.0.0.1");
+        ins.setPort(port);
+        ins.setHealthy(true);
+        ins.setEnabled(true);
+        ins.setMetadata(Map.of("gateway.id", gatewayId));
+        return ins;
+    }
+
+    private static final class Members {
+
+        private final AtomicReference<List<Instance>> current;
+        private Consumer<List<Instance>> listener;
+
+        private Members(List<Instance> initial) {
+            this.current = new AtomicReference<>(initial);
+        }
+
+        private void change(List<Instance> instances) {
+            current.set(instances);
+            listener.accept(instances);
+        }
+    }
+}
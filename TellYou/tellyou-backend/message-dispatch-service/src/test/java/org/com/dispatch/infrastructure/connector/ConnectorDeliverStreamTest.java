@@ -0,0 +1,166 @@
+package org.com.dispatch.infrastructure.connector;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.shared.proto.connector.deliver.v1.ConnectorDeliverServiceGrpc;
+import org.com.shared.proto.connector.deliver.v1.DeliverChatRequest;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamRequest;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+public class ConnectorDeliverStreamTest {
+
+    @Test
+    void shouldMapValidationAndInternalErrorsToDistinctStatuses() throws Exception {
+        try (FakeConnector connector = FakeConnector.answering(item -> {
+            long userId = item.getDeliver().getUserId();
+            DeliverStreamResponse.Builder resp = DeliverStreamResponse.newBuilder().setCorrelationId(item.getCorrelationId());
+            if (userId == 1L) {
+                return resp.setError("user_id must be positive").build();
+            }
+            if (userId == 2L) {
+                return resp.setInternalError("java.lang.IllegalStateException").build();
+            }
+            return FakeConnector.delivered(item, 1);
+        })) {
+            ConnectorDeliverStream stream = open(connector.newChannel(), connector.port(), 2000, s -> {
+            });
+            try {
+                Assertions.assertEquals(1, stream.send(deliver(3L, "hi")).get(2, TimeUnit.SECONDS).getDeliver().getDelivered());
+                Assertions.assertEquals(Status.Code.INVALID_ARGUMENT, failure(stream.send(deliver(1L, "hi"))));
+                Assertions.assertEquals(Status.Code.INTERNAL, failure(stream.send(deliver(2L, "hi"))));
+                Assertions.assertTrue(stream.hasResponded());
+            } finally {
+                stream.close();
+            }
+        }
+    }
+
+    @Test
+    void shouldTimeOutWhenConnectorDoesNotAnswer() throws Exception {
+        try (FakeConnector connector = FakeConnector.answering(item -> null)) {
+            ConnectorDeliverStream stream = open(connector.newChannel(), connector.port(), 200, s -> {
+            });
+            try {
+                CompletableFuture<DeliverStreamResponse> future = stream.send(deliver(3L, "hi"));
+                ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS));
+                Assertions.assertInstanceOf(TimeoutException.class, e.getCause());
+                Assertions.assertTrue(stream.isOpen());
+            } finally {
+                stream.close();
+            }
+        }
+    }
+
+    @Test
+    void shouldFailFastWhileNotReadyAndKeepInterruptFlag() throws Exception {
+        // 服务端从不 request，HTTP/2 窗口填满后客户端 isReady=false
+        try (FakeConnector connector = FakeConnector.start(new ConnectorDeliverServiceGrpc.ConnectorDeliverServiceImplBase() {
+            @Override
+            public StreamObserver<DeliverStreamRequest> deliverStream(StreamObserver<DeliverStreamResponse> responses) {
+                ((ServerCallStreamObserver<DeliverStreamResponse>) responses).disableAutoRequest();
+                return new StreamObserver<>() {
+                    @Override
+                    public void onNext(DeliverStreamRequest value) {
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                };
+            }
+        })) {
+            ConnectorDeliverStream stream = open(connector.newChannel(), connector.port(), 100, s -> {
+            });
+            String content = "x".repeat(64 * 1024);
+            try {
+                boolean notReady = false;
+                for (int i = 0; i < 400 && !notReady; i++) {
+                    CompletableFuture<DeliverStreamResponse> f = stream.send(deliver(3L, content));
+                    if (f.isCompletedExceptionally()) {
+                        Assertions.assertEquals(Status.Code.RESOURCE_EXHAUSTED, failure(f));
+                        notReady = true;
+                    }
+                }
+                Assertions.assertTrue(notReady, "stream never became not-ready");
+
+                Thread.currentThread().interrupt();
+                CompletableFuture<DeliverStreamResponse> interrupted = stream.send(deliver(3L, content));
+                Assertions.assertTrue(Thread.interrupted(), "interrupt flag must be restored");
+                Assertions.assertEquals(Status.Code.CANCELLED, failure(interrupted));
+            } finally {
+                Thread.interrupted();
+                stream.close();
+            }
+        }
+    }
+
+    @Test
+    void shouldFailInFlightAndReportBrokenWhenServerCloses() throws Exception {
+        try (FakeConnector connector = FakeConnector.start(new ConnectorDeliverServiceGrpc.ConnectorDeliverServiceImplBase() {
+            @Override
+            public StreamObserver<DeliverStreamRequest> deliverStream(StreamObserver<DeliverStreamResponse> responses) {
+                return new StreamObserver<>() {
+                    @Override
+                    public void onNext(DeliverStreamRequest value) {
+                        responses.onCompleted();
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                };
+            }
+        })) {
+            CountDownLatch broken = new CountDownLatch(1);
+            ConnectorDeliverStream stream = open(connector.newChannel(), connector.port(), 2000, s -> broken.countDown());
+            try {
+                CompletableFuture<DeliverStreamResponse> future = stream.send(deliver(3L, "hi"));
+                Assertions.assertEquals(Status.Code.UNAVAILABLE, failure(future));
+                Assertions.assertTrue(broken.await(2, TimeUnit.SECONDS));
+                Assertions.assertFalse(stream.isOpen());
+                Assertions.assertEquals(Status.Code.UNAVAILABLE, failure(stream.send(deliver(3L, "hi"))));
+            } finally {
+                stream.close();
+            }
+        }
+    }
+
+    private static ConnectorDeliverStream open(ManagedChannel channel, int port, long timeoutMs,
+                                               Consumer<ConnectorDeliverStream> onBroken) {
+        ConnectorDeliverStream stream = new ConnectorDeliverStream("gw-1", "127.0.0.1", port, channel, timeoutMs, onBroken);
+        stream.start();
+        return stream;
+    }
+
+    private static DeliverStreamRequest.Builder deliver(long userId, String content) {
+        return DeliverStreamRequest.newBuilder().setDeliver(DeliverChatRequest.newBuilder()
+                .setUserId(userId)
+                .setDeliver(ChatDeliver.newBuilder().setServerMessageId("1").setSessionId(9).setContent(content).build()));
+    }
+
+    private static Status.Code failure(CompletableFuture<DeliverStreamResponse> future) {
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS));
+        return Assertions.assertInstanceOf(StatusRuntimeException.class, e.getCause()).getStatus().getCode();
+    }
+}
@@ -0,0 +1,79 @@
+package org.com.dispatch.infrastructure.connector;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.com.shared.proto.connector.deliver.v1.ConnectorDeliverServiceGrpc;
+import org.com.shared.proto.connector.deliver.v1.DeliverChatResponse;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamRequest;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamResponse;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * 测试用 connector：在回环地址上起一个真实的 gRPC server，DeliverStream 的每条请求交给 handler 应答。
+ */
+final class FakeConnector implements AutoCloseable {
+
+    private final Server server;
+
+    private FakeConnector(ConnectorDeliverServiceGrpc.ConnectorDeliverServiceImplBase service) throws IOException {
+        this.server = NettyServerBuilder.forPort(0).addService(service).build().start();
+    }
+
+    static FakeConnector start(ConnectorDeliverServiceGrpc.ConnectorDeliverServiceImplBase service) throws IOException {
+        return new FakeConnector(service);
+    }
+
+    /**
+     * handler 返回 null 表示不应答这一条。
+     */
+    static FakeConnector answering(Function<DeliverStreamRequest, DeliverStreamResponse> handler) throws IOException {
+        return start(new ConnectorDeliverServiceGrpc.ConnectorDeliverServiceImplBase() {
+            @Override
+            public StreamObserver<DeliverStreamRequest> deliverStream(StreamObserver<DeliverStreamResponse> responses) {
+                return new StreamObserver<>() {
+                    @Override
+                    public void onNext(DeliverStreamRequest item) {
+                        DeliverStreamResponse resp = handler.apply(item);
+                        if (resp != null) {
+                            responses.onNext(resp);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        responses.onCompleted();
+                    }
+                };
+            }
+        });
+    }
+
+    static DeliverStreamResponse delivered(DeliverStreamRequest item, int delivered) {
+        return DeliverStreamResponse.newBuilder()
+                .setCorrelationId(item.getCorrelationId())
+                .setDeliver(DeliverChatResponse.newBuilder().setDelivered(delivered).build())
+                .build();
+    }
+
+    int port() {
+        return server.getPort();
+    }
+
+    ManagedChannel newChannel() {
+        return NettyChannelBuilder.forAddress("127.0.0.1", port()).usePlaintext().build();
+    }
+
+    @Override
+    public void close() {
+        server.shutdownNow();
+    }
+}
@@ -0,0 +1,85 @@
+package org.com.store.application;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.store.infrastructure.metrics.CounterDeltas;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 消息落库的事务提交统计：逐条模式下 commits == messages，组提交模式下二者之比即平均批大小。
+ * 定期把 commits/s 与 messages/s 打到日志里。
+ */
+@Component
+@Slf4j
+public class GroupCommitStats {
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder batchFailures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+
+    private final CounterDeltas deltas = new CounterDeltas(messages::sum, commits::sum, queueWaitNanos::sum);
+
+    /**
+     * 一次成功提交的事务，包含 messageCount 条消息。
+     */
+    public void onCommit(int messageCount) {
+        commits.increment();
+        messages.add(messageCount);
+    }
+
+    /**
+     * 批量事务回滚、改为逐条重试。
+     */
+    public void onBatchFailure() {
+        batchFailures.increment();
+    }
+
+    public void onRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * 一条消息从入队到所在批次开始写库的等待时间，即组提交额外引入的延迟。
+     */
+    public void onQueueWait(long nanos) {
+        queueWaitNanos.add(nanos);
+    }
+
+    public long messages() {
+        return messages.sum();
+    }
+
+    public long commits() {
+        return commits.sum();
+    }
+
+    public long batchFailures() {
+        return batchFailures.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${group-commit.report-interval-ms:60000}")
+    public void report() {
+        CounterDeltas.Window w = deltas.next();
+        long dMsgs = w.delta(0);
+        long dTxs = w.delta(1);
+        long dWait = w.delta(2);
+        if (dMsgs == 0) {
+            return;
+        }
+        log.info("message persist: messages/s={}, commits/s={}, avgBatch={}, avgQueueWaitUs={}, batchFailures={}, rejected={}",
+                String.format("%.1f", w.rate(0)),
+                String.format("%.1f", w.rate(1)),
+                String.format("%.2f", dTxs == 0 ? 0D : (double) dMsgs / dTxs),
+                dWait == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(dWait / dMsgs),
+                batchFailures.sum(), rejected.sum());
+    }
+}
@@ -0,0 +1,189 @@
+package org.com.store.application;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.com.store.application.MessageStoreApplicationService.PersistResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 组提交：并发的落库请求先进入队列，由提交线程攒批后在一个事务里写完，再逐个完成调用方的 future。
+ * <p>
+ * 提交线程拿到一批的第一条后，最多再等 max-delay-ms 凑够 max-batch-size；为 0 时只合并
+ * 上一次提交期间自然积压的请求，不额外等待。队列满时直接拒绝，由客户端按失败重试。
+ * 批量事务失败（例如某一行违反约束）时整批回滚，改为逐条写，避免一条坏消息拖累同批的其他消息。
+ * <p>
+ * 每个提交线程有自己的队列，同一会话固定落到 sessionId % committer-threads 号线程，
+ * 同会话的消息按入队顺序提交，seq 在库中不会乱序出现；queue-capacity 为所有队列的总容量。
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class GroupCommitter {
+
+    private record Pending(PreparedMessage message, CompletableFuture<PersistResult> future, long enqueuedNanos) {
+    }
+
+    private final MessageBatchWriter messageBatchWriter;
+    private final GroupCommitStats groupCommitStats;
+
+    @Value("${group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${group-commit.max-batch-size:128}")
+    private int maxBatchSize;
+
+    @Value("${group-commit.max-delay-ms:2}")
+    private long maxDelayMs;
+
+    @Value("${group-commit.committer-threads:2}")
+    private int committerThreads;
+
+    @Value("${group-commit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private List<BlockingQueue<Pending>> queues;
+    private final List<Thread> committers = new ArrayList<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        int threads = Math.max(1, committerThreads);
+        queues = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            queues.add(new ArrayBlockingQueue<>(Math.max(1, queueCapacity / threads)));
+        }
+        running = true;
+        for (int i = 0; i < threads; i++) {
+            BlockingQueue<Pending> queue = queues.get(i);
+            Thread t = new Thread(() -> runLoop(queue), "group-commit-" + i);
+            t.setDaemon(true);
+            t.start();
+            committers.add(t);
+        }
+        log.info("group commit enabled: maxBatchSize={}, maxDelayMs={}, committers={}", maxBatchSize, maxDelayMs, committers.size());
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public CompletableFuture<PersistResult> submit(PreparedMessage message) {
+        CompletableFuture<PersistResult> future = new CompletableFuture<>();
+        if (!running || !queueOf(message).offer(new Pending(message, future, System.nanoTime()))) {
+            groupCommitStats.onRejected();
+            future.complete(PersistResult.failed("store_overloaded"));
+        }
+        return future;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        // 不再接收新请求，提交线程把队列里剩余的写完后退出
+        running = false;
+        for (Thread t : committers) {
+            t.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        for (BlockingQueue<Pending> queue : queues) {
+            Pending p;
+            while ((p = queue.poll()) != null) {
+                p.future.complete(PersistResult.failed("store_shutting_down"));
+            }
+        }
+    }
+
+    private BlockingQueue<Pending> queueOf(PreparedMessage message) {
+        Long sessionId = message.message().getSessionId();
+        return queues.get(sessionId == null ? 0 : (int) Math.floorMod(sessionId, (long) queues.size()));
+    }
+
+    private void runLoop(BlockingQueue<Pending> queue) {
+        ArrayList<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(queue, batch, first.enqueuedNanos + TimeUnit.MILLISECONDS.toNanos(maxDelayMs));
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable t) {
+                log.error("group commit loop error", t);
+                for (Pending p : batch) {
+                    p.future.completeExceptionally(t);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void fill(BlockingQueue<Pending> queue, List<Pending> batch, long deadlineNanos) throws InterruptedException {
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadlineNanos - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0 || !running) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<Pending> batch) {
+        long now = System.nanoTime();
+        ArrayList<PreparedMessage> messages = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            messages.add(p.message);
+            groupCommitStats.onQueueWait(now - p.enqueuedNanos);
+        }
+
+        List<PersistResult> results;
+        try {
+            results = messageBatchWriter.writeBatch(messages);
+        } catch (Exception e) {
+            groupCommitStats.onBatchFailure();
+            log.warn("group commit batch failed, retrying one by one: size={}, err={}", batch.size(), e.toString());
+            commitOneByOne(batch);
+            return;
+        }
+        groupCommitStats.onCommit(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(results.get(i));
+        }
+    }
+
+    private void commitOneByOne(List<Pending> batch) {
+        for (Pending p : batch) {
+            try {
+                PersistResult result = messageBatchWriter.writeOne(p.message);
+                groupCommitStats.onCommit(1);
+                p.future.complete(result);
+            } catch (Exception e) {
+                p.future.completeExceptionally(e);
+            }
+        }
+    }
+}
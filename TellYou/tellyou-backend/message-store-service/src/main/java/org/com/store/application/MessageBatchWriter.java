@@ -0,0 +1,131 @@
+package org.com.store.application;
+
+import lombok.RequiredArgsConstructor;
+import org.com.store.application.MessageStoreApplicationService.PersistResult;
+import org.com.store.infrastructure.persistence.mapper.MessageDedupMapper;
+import org.com.store.infrastructure.persistence.mapper.MessageFanoutTaskMapper;
+import org.com.store.infrastructure.persistence.mapper.MessageMapper;
+import org.com.store.infrastructure.persistence.mapper.OutboxEventMapper;
+import org.com.store.infrastructure.persistence.mapper.UserMessageIndexMapper;
+import org.com.store.infrastructure.persistence.po.MessageDO;
+import org.com.store.infrastructure.persistence.po.MessageDedupDO;
+import org.com.store.infrastructure.persistence.po.MessageFanoutTaskDO;
+import org.com.store.infrastructure.persistence.po.OutboxEventDO;
+import org.com.store.infrastructure.persistence.po.UserMessageIndexDO;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 消息落库事务：逐条写（每条消息一个事务）和批量写（一批消息一个事务，每张表一条多行 INSERT）。
+ */
+@Service
+@RequiredArgsConstructor
+public class MessageBatchWriter {
+
+    /**
+     * 收件箱索引单条 INSERT 的最大行数，避免大群同步写扩散时语句超过 max_allowed_packet。
+     */
+    private static final int INDEX_CHUNK_SIZE = 1000;
+
+    private final MessageMapper messageMapper;
+    private final MessageDedupMapper messageDedupMapper;
+    private final OutboxEventMapper outboxEventMapper;
+    private final MessageFanoutTaskMapper messageFanoutTaskMapper;
+    private final UserMessageIndexMapper userMessageIndexMapper;
+
+    @Transactional
+    public PersistResult writeOne(PreparedMessage m) {
+        try {
+            messageDedupMapper.insert(m.dedup());
+        } catch (DuplicateKeyException dup) {
+            MessageDedupDO existing = messageDedupMapper.selectByClientMessageId(m.clientMessageId());
+            if (existing == null) {
+                return PersistResult.failed("duplicate_but_missing_record");
+            }
+            return m.duplicateOf(existing);
+        }
+
+        messageMapper.insert(m.message());
+        outboxEventMapper.insert(m.outbox());
+        if (m.fanoutTask() != null) {
+            messageFanoutTaskMapper.insert(m.fanoutTask());
+        }
+        insertIndex(m.indexItems());
+        return m.persisted();
+    }
+
+    /**
+     * 批内和库中已有的重复 client_message_id 都按幂等处理：message_dedup 以
+     * ON DUPLICATE KEY 保留先到的一条，回查后 msg_id 不是自己的即为重复，不再写后续各表。
+     *
+     * @return 与 batch 一一对应的结果
+     */
+    @Transactional
+    public List<PersistResult> writeBatch(List<PreparedMessage> batch) {
+        ArrayList<MessageDedupDO> dedups = new ArrayList<>(batch.size());
+        ArrayList<String> clientMessageIds = new ArrayList<>(batch.size());
+        for (PreparedMessage m : batch) {
+            dedups.add(m.dedup());
+            clientMessageIds.add(m.clientMessageId());
+        }
+        messageDedupMapper.batchInsertIgnoreDuplicate(dedups);
+
+        Map<String, MessageDedupDO> stored = new HashMap<>();
+        for (MessageDedupDO d : messageDedupMapper.selectByClientMessageIds(clientMessageIds)) {
+            stored.put(d.getClientMessageId(), d);
+        }
+
+        ArrayList<PersistResult> results = new ArrayList<>(batch.size());
+        ArrayList<MessageDO> messages = new ArrayList<>(batch.size());
+        ArrayList<OutboxEventDO> outboxes = new ArrayList<>(batch.size());
+        ArrayList<MessageFanoutTaskDO> tasks = new ArrayList<>();
+        ArrayList<UserMessageIndexDO> index = new ArrayList<>();
+        for (PreparedMessage m : batch) {
+            MessageDedupDO existing = stored.get(m.clientMessageId());
+            if (existing == null) {
+                results.add(PersistResult.failed("duplicate_but_missing_record"));
+                continue;
+            }
+            if (!m.message().getMsgId().equals(existing.getMsgId())) {
+                results.add(m.duplicateOf(existing));
+                continue;
+            }
+            messages.add(m.message());
+            outboxes.add(m.outbox());
+            if (m.fanoutTask() != null) {
+                tasks.add(m.fanoutTask());
+            }
+            index.addAll(m.indexItems());
+            results.add(m.persisted());
+        }
+
+        if (!messages.isEmpty()) {
+            messageMapper.batchInsert(messages);
+            outboxEventMapper.batchInsert(outboxes);
+        }
+        if (!tasks.isEmpty()) {
+            messageFanoutTaskMapper.batchInsert(tasks);
+        }
+        insertIndex(index);
+        return results;
+    }
+
+    /**
+     * 事务外按 client_message_id 查已落库的消息，没有时返回 null。
+     */
+    public MessageDedupDO findStored(String clientMessageId) {
+        return messageDedupMapper.selectByClientMessageId(clientMessageId);
+    }
+
+    private void insertIndex(List<UserMessageIndexDO> items) {
+        for (int from = 0; from < items.size(); from += INDEX_CHUNK_SIZE) {
+            userMessageIndexMapper.batchInsertIgnore(items.subList(from, Math.min(items.size(), from + INDEX_CHUNK_SIZE)));
+        }
+    }
+}
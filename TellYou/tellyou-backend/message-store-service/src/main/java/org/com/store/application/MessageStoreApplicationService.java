@@ -5,26 +5,22 @@ import lombok.RequiredArgsConstructor;
 import org.com.shared.proto.social.session.v1.CheckSendPermissionResponse;
 import org.com.shared.infrastructure.id.SnowflakeIdGenerator;
 import org.com.store.domain.MessageFlags;
+import org.com.store.infrastructure.grpc.SendPermissionCache;
 import org.com.store.infrastructure.grpc.SocialSessionGrpcClient;
 import org.com.store.infrastructure.outbox.OutboxEventFactory;
-import org.com.store.infrastructure.persistence.mapper.MessageFanoutTaskMapper;
-import org.com.store.infrastructure.persistence.mapper.MessageDedupMapper;
-import org.com.store.infrastructure.persistence.mapper.MessageMapper;
-import org.com.store.infrastructure.persistence.mapper.OutboxEventMapper;
-import org.com.store.infrastructure.persistence.mapper.UserMessageIndexMapper;
 import org.com.store.infrastructure.persistence.po.MessageDO;
 import org.com.store.infrastructure.persistence.po.MessageDedupDO;
 import org.com.store.infrastructure.persistence.po.MessageFanoutTaskDO;
 import org.com.store.infrastructure.persistence.po.OutboxEventDO;
 import org.com.store.infrastructure.persistence.po.UserMessageIndexDO;
 import org.com.store.infrastructure.seq.SeqGenerator;
-import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -33,49 +29,75 @@ public class MessageStoreApplicationService {
     private final SnowflakeIdGenerator idGenerator;
     private final SeqGenerator seqGenerator;
 
-    private final MessageMapper messageMapper;
-    private final MessageDedupMapper messageDedupMapper;
-    private final OutboxEventMapper outboxEventMapper;
     private final OutboxEventFactory outboxEventFactory;
 
     private final SocialSessionGrpcClient socialSessionGrpcClient;
-    private final UserMessageIndexMapper userMessageIndexMapper;
-    private final MessageFanoutTaskMapper messageFanoutTaskMapper;
+    private final SendPermissionCache sendPermissionCache;
 
-    @Transactional
-    public PersistResult persistChatMessage(PersistCommand cmd) {
+    private final MessageBatchWriter messageBatchWriter;
+    private final GroupCommitter groupCommitter;
+    private final GroupCommitStats groupCommitStats;
+
+    /**
+     * 校验、鉴权、分配 msgId / seq 和构造各表的行都在事务外完成；落库按配置逐条提交，
+     * 或交给 {@link GroupCommitter} 与其他并发请求合并成一个事务。
+     */
+    public CompletableFuture<PersistResult> persistChatMessage(PersistCommand cmd) {
         Objects.requireNonNull(cmd, "cmd");
         if (cmd.senderId() <= 0) {
-            return PersistResult.failed("invalid_sender_id");
+            return completed(PersistResult.failed("invalid_sender_id"));
         }
         if (cmd.sessionId() <= 0) {
-            return PersistResult.failed("invalid_session_id");
+            return completed(PersistResult.failed("invalid_session_id"));
         }
         if (cmd.clientMessageId() == null || cmd.clientMessageId().isBlank()) {
-            return PersistResult.failed("missing_client_message_id");
+            return completed(PersistResult.failed("missing_client_message_id"));
         }
         if (cmd.content() == null || cmd.content().isBlank()) {
-            return PersistResult.failed("missing_content");
+            return completed(PersistResult.failed("missing_content"));
         }
 
         int partitionId = cmd.partitionId() <= 0 ? 1 : cmd.partitionId();
 
         long messageFlags;
         try {
-            CheckSendPermissionResponse perm = socialSessionGrpcClient.checkSendPermission(cmd.sessionId(), cmd.senderId(), partitionId);
+            CheckSendPermissionResponse perm = sendPermissionCache.checkSendPermission(cmd.sessionId(), cmd.senderId(), partitionId);
             if (!perm.getAllowed()) {
-                return PersistResult.failed(perm.getReason() == null || perm.getReason().isBlank() ? "send_not_allowed" : perm.getReason());
+                return completed(PersistResult.failed(perm.getReason() == null || perm.getReason().isBlank() ? "send_not_allowed" : perm.getReason()));
             }
             messageFlags = perm.getMessageFlags();
         } catch (Exception e) {
-            return PersistResult.failed("permission_check_failed");
+            return completed(PersistResult.failed("permission_check_failed"));
         }
 
         try {
             JSON.parse(cmd.content());
         } catch (Exception e) {
-            return PersistResult.failed("invalid_content_json");
+            return completed(PersistResult.failed("invalid_content_json"));
         }
+
+        try {
+            if (MessageFlags.has(messageFlags, MessageFlags.WRITE_FANOUT) && !MessageFlags.has(messageFlags, MessageFlags.ASYNC_FANOUT)) {
+                // 同步写扩散要先拉成员列表构造索引行：客户端重试已落库的消息时先查重，省掉这次 RPC 和 msgId / seq
+                MessageDedupDO existing = messageBatchWriter.findStored(cmd.clientMessageId());
+                if (existing != null) {
+                    return completed(PersistResult.persisted(existing.getMsgId(), existing.getSeq(), existing.getPartitionId(),
+                            cmd.appearance(), System.currentTimeMillis()));
+                }
+            }
+            PreparedMessage prepared = prepare(cmd, partitionId, messageFlags);
+            if (groupCommitter.enabled()) {
+                return groupCommitter.submit(prepared);
+            }
+            PersistResult result = messageBatchWriter.writeOne(prepared);
+            groupCommitStats.onCommit(1);
+            return completed(result);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private PreparedMessage prepare(PersistCommand cmd, int partitionId, long messageFlags) {
         long nowMs = System.currentTimeMillis();
 
         long msgId = idGenerator.nextId();
@@ -89,22 +111,6 @@ public class MessageStoreApplicationService {
         dedup.setSeq(seq);
         dedup.setCreatedAt(LocalDateTime.now());
 
-        try {
-            messageDedupMapper.insert(dedup);
-        } catch (DuplicateKeyException dup) {
-            MessageDedupDO existing = messageDedupMapper.selectByClientMessageId(cmd.clientMessageId());
-            if (existing == null) {
-                return PersistResult.failed("duplicate_but_missing_record");
-            }
-            return PersistResult.persisted(
-                    existing.getMsgId(),
-                    existing.getSeq(),
-                    existing.getPartitionId(),
-                    cmd.appearance(),
-                    nowMs
-            );
-        }
-
         MessageDO message = new MessageDO();
         message.setMsgId(msgId);
         message.setSessionId(cmd.sessionId());
@@ -116,16 +122,15 @@ public class MessageStoreApplicationService {
         message.setContent(cmd.content());
         message.setCreatedAt(LocalDateTime.now());
 
-        messageMapper.insert(message);
-
         OutboxEventDO outbox = outboxEventFactory.createMessagePersistedEvent(message, cmd.clientMessageId(), cmd.clientTimeMs(), nowMs, cmd.traceId());
-        outboxEventMapper.insert(outbox);
 
+        MessageFanoutTaskDO task = null;
+        List<UserMessageIndexDO> items = List.of();
         boolean writeFanout = MessageFlags.has(messageFlags, MessageFlags.WRITE_FANOUT);
         if (writeFanout) {
             boolean asyncFanout = MessageFlags.has(messageFlags, MessageFlags.ASYNC_FANOUT);
             if (asyncFanout) {
-                MessageFanoutTaskDO task = new MessageFanoutTaskDO();
+                task = new MessageFanoutTaskDO();
                 task.setSessionId(cmd.sessionId());
                 task.setMsgId(msgId);
                 task.setSeq(seq);
@@ -135,11 +140,10 @@ public class MessageStoreApplicationService {
                 LocalDateTime now = LocalDateTime.now();
                 task.setCreatedAt(now);
                 task.setUpdatedAt(now);
-                messageFanoutTaskMapper.insert(task);
             } else {
                 var membersResp = socialSessionGrpcClient.listSessionMembers(cmd.sessionId());
                 var members = membersResp.getMembersList();
-                ArrayList<UserMessageIndexDO> items = new ArrayList<>(members.size());
+                ArrayList<UserMessageIndexDO> index = new ArrayList<>(members.size());
                 for (var m : members) {
                     if (!m.getIsActive()) {
                         continue;
@@ -150,15 +154,17 @@ public class MessageStoreApplicationService {
                     idx.setMsgId(msgId);
                     idx.setSeq(seq);
                     idx.setReadState(0);
-                    items.add(idx);
-                }
-                if (!items.isEmpty()) {
-                    userMessageIndexMapper.batchInsertIgnore(items);
+                    index.add(idx);
                 }
+                items = index;
             }
         }
 
-        return PersistResult.persisted(msgId, seq, partitionId, cmd.appearance(), nowMs);
+        return new PreparedMessage(dedup, message, outbox, task, items, cmd.appearance(), nowMs);
+    }
+
+    private static CompletableFuture<PersistResult> completed(PersistResult result) {
+        return CompletableFuture.completedFuture(result);
     }
 
     public record PersistCommand(
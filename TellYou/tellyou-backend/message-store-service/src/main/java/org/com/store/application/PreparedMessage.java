@@ -0,0 +1,43 @@
+package org.com.store.application;
+
+import org.com.store.infrastructure.persistence.po.MessageDO;
+import org.com.store.infrastructure.persistence.po.MessageDedupDO;
+import org.com.store.infrastructure.persistence.po.MessageFanoutTaskDO;
+import org.com.store.infrastructure.persistence.po.OutboxEventDO;
+import org.com.store.infrastructure.persistence.po.UserMessageIndexDO;
+
+import java.util.List;
+
+/**
+ * 校验、鉴权、分配 msgId / seq 之后待落库的一条消息：各表的行已经构造好，事务内只做 INSERT。
+ *
+ * @param fanoutTask 异步写扩散任务，没有时为 null
+ * @param indexItems 同步写扩散的收件箱索引，没有时为空
+ */
+public record PreparedMessage(
+        MessageDedupDO dedup,
+        MessageDO message,
+        OutboxEventDO outbox,
+        MessageFanoutTaskDO fanoutTask,
+        List<UserMessageIndexDO> indexItems,
+        Integer appearance,
+        long serverTimeMs
+) {
+
+    public String clientMessageId() {
+        return dedup.getClientMessageId();
+    }
+
+    MessageStoreApplicationService.PersistResult persisted() {
+        return MessageStoreApplicationService.PersistResult.persisted(
+                message.getMsgId(), message.getSeq(), message.getPartitionId(), appearance, serverTimeMs);
+    }
+
+    /**
+     * client_message_id 已被之前的请求占用：返回原消息的 msgId / seq，保持幂等。
+     */
+    MessageStoreApplicationService.PersistResult duplicateOf(MessageDedupDO existing) {
+        return MessageStoreApplicationService.PersistResult.persisted(
+                existing.getMsgId(), existing.getSeq(), existing.getPartitionId(), appearance, serverTimeMs);
+    }
+}
@@ -0,0 +1,297 @@
+package org.com.store.infrastructure.grpc;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.com.shared.infrastructure.redis.SessionChangeEvent;
+import org.com.shared.proto.social.session.v1.CheckSendPermissionResponse;
+import org.com.store.infrastructure.nacos.SessionOwnership;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.BaseStatusListener;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+/**
+ * 发送权限缓存：按 (sessionId, userId, partitionId) 缓存 social-service 的 checkSendPermission 结论和 messageFlags，
+ * 省掉热点会话每条消息一次的 RPC（social 侧最多 4 次查库）。
+ * <p>
+ * 允许的结论缓存 allow-ttl-ms，拒绝的结论缓存 deny-ttl-ms（负缓存，挡住反复重试的非法发送）；RPC 失败不缓存。
+ * social-service 在建群、退群、踢人、解散后经 Redis pub/sub 广播 {@link SessionChangeEvent}，收到即失效；
+ * pub/sub 不保证送达，重新订阅时清空全部缓存，其余情况由 TTL 兜底。会话迁出本实例时顺带清掉它的条目。
+ * <p>
+ * mode：off 不缓存；shadow 照常走 RPC 并与缓存结论比对，只计数不生效，用来在开启前评估陈旧结论；on 命中直接返回。
+ */
+@Component
+@Slf4j
+public class SendPermissionCache {
+
+    public enum Mode {
+        OFF, SHADOW, ON
+    }
+
+    private record MemberKey(long userId, int partitionId) {
+    }
+
+    private record Entry(CheckSendPermissionResponse response, long expiresAtMs) {
+    }
+
+    private final SocialSessionGrpcClient socialSessionGrpcClient;
+    private final SendPermissionCacheStats stats;
+    private final SessionOwnership sessionOwnership;
+    private final RedissonClient redissonClient;
+
+    @Value("${permission-cache.mode:off}")
+    private String modeName;
+
+    @Value("${permission-cache.allow-ttl-ms:5000}")
+    private long allowTtlMs;
+
+    @Value("${permission-cache.deny-ttl-ms:1000}")
+    private long denyTtlMs;
+
+    @Value("${permission-cache.max-entries:100000}")
+    private int maxEntries;
+
+    private volatile Mode mode = Mode.OFF;
+    private final Map<Long, Map<MemberKey, Entry>> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    /**
+     * 每次失效先 +1；回源期间发生过失效时丢弃回源结果，避免把失效前读到的旧结论写回缓存。
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    private RTopic topic;
+    private int messageListenerId = -1;
+    private int statusListenerId = -1;
+
+    public SendPermissionCache(SocialSessionGrpcClient socialSessionGrpcClient,
+                               SendPermissionCacheStats stats,
+                               SessionOwnership sessionOwnership,
+                               RedissonClient redissonClient) {
+        this.socialSessionGrpcClient = socialSessionGrpcClient;
+        this.stats = stats;
+        this.sessionOwnership = sessionOwnership;
+        this.redissonClient = redissonClient;
+    }
+
+    @PostConstruct
+    public void init() {
+        mode = Mode.valueOf(modeName.trim().toUpperCase(Locale.ROOT));
+        if (mode == Mode.OFF) {
+            return;
+        }
+        topic = redissonClient.getTopic(SessionChangeEvent.TOPIC, StringCodec.INSTANCE);
+        messageListenerId = topic.addListener(String.class, (channel, msg) -> onSessionChanged(SessionChangeEvent.decode(msg)));
+        statusListenerId = topic.addListener(new BaseStatusListener() {
+            @Override
+            public void onSubscribe(String channel) {
+                // 断线期间的通知已丢失，重新订阅后不再信任已有条目
+                invalidateAll();
+            }
+        });
+        sessionOwnership.addListener(this::invalidateIf);
+        log.info("send permission cache enabled: mode={}, allowTtlMs={}, denyTtlMs={}, maxEntries={}", mode, allowTtlMs, denyTtlMs, maxEntries);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (topic != null) {
+            topic.removeListener(messageListenerId, statusListenerId);
+        }
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * 查询发送权限；未命中或非 on 模式时回源 RPC，RPC 异常原样抛出。
+     */
+    public CheckSendPermissionResponse checkSendPermission(long sessionId, long userId, int partitionId) {
+        if (mode == Mode.OFF) {
+            return socialSessionGrpcClient.checkSendPermission(sessionId, userId, partitionId);
+        }
+
+        MemberKey key = new MemberKey(userId, partitionId);
+        Entry cached = lookup(sessionId, key, System.currentTimeMillis());
+        if (cached != null) {
+            stats.onHit(cached.response.getAllowed());
+            if (mode == Mode.ON) {
+                return cached.response;
+            }
+        } else {
+            stats.onMiss();
+        }
+
+        long epochBefore = epoch.get();
+        CheckSendPermissionResponse live;
+        try {
+            live = socialSessionGrpcClient.checkSendPermission(sessionId, userId, partitionId);
+        } catch (RuntimeException e) {
+            stats.onRpcFailure();
+            throw e;
+        }
+
+        if (cached != null) {
+            // 影子模式命中时不刷新条目，让条目与 on 模式下一样按 TTL 老化，比对结果才有代表性
+            compare(sessionId, userId, partitionId, cached.response, live);
+        } else {
+            put(sessionId, key, live, epochBefore);
+        }
+        return live;
+    }
+
+    public void invalidateSession(long sessionId) {
+        epoch.incrementAndGet();
+        Map<MemberKey, Entry> entries = sessions.remove(sessionId);
+        if (entries != null) {
+            int n = entries.size();
+            size.addAndGet(-n);
+            stats.onInvalidated(n);
+        }
+    }
+
+    public void invalidateMember(long sessionId, long userId) {
+        epoch.incrementAndGet();
+        Map<MemberKey, Entry> entries = sessions.get(sessionId);
+        if (entries == null) {
+            return;
+        }
+        int n = 0;
+        for (MemberKey key : entries.keySet()) {
+            if (key.userId == userId && entries.remove(key) != null) {
+                n++;
+            }
+        }
+        size.addAndGet(-n);
+        stats.onInvalidated(n);
+    }
+
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        int n = 0;
+        for (Long sessionId : sessions.keySet()) {
+            Map<MemberKey, Entry> entries = sessions.remove(sessionId);
+            if (entries != null) {
+                n += entries.size();
+            }
+        }
+        size.addAndGet(-n);
+        stats.onInvalidated(n);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * 清理过期条目和空会话，并按实际条目数校正计数（并发失效时计数可能有少量漂移）。
+     */
+    @Scheduled(fixedDelayString = "${permission-cache.sweep-interval-ms:5000}")
+    public void evictExpired() {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int total = 0;
+        for (Map.Entry<Long, Map<MemberKey, Entry>> e : sessions.entrySet()) {
+            Map<MemberKey, Entry> entries = e.getValue();
+            entries.values().removeIf(entry -> entry.expiresAtMs <= now);
+            if (entries.isEmpty()) {
+                sessions.remove(e.getKey(), entries);
+            } else {
+                total += entries.size();
+            }
+        }
+        size.set(total);
+    }
+
+    private void invalidateIf(LongPredicate lost) {
+        epoch.incrementAndGet();
+        int n = 0;
+        for (Long sessionId : sessions.keySet()) {
+            if (!lost.test(sessionId)) {
+                continue;
+            }
+            Map<MemberKey, Entry> entries = sessions.remove(sessionId);
+            if (entries != null) {
+                n += entries.size();
+            }
+        }
+        size.addAndGet(-n);
+        stats.onInvalidated(n);
+    }
+
+    private void onSessionChanged(SessionChangeEvent event) {
+        if (event == null) {
+            return;
+        }
+        if (event.wholeSessionChanged()) {
+            invalidateSession(event.sessionId());
+        } else {
+            invalidateMember(event.sessionId(), event.userId());
+        }
+    }
+
+    private Entry lookup(long sessionId, MemberKey key, long now) {
+        Map<MemberKey, Entry> entries = sessions.get(sessionId);
+        if (entries == null) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMs <= now) {
+            if (entries.remove(key, entry)) {
+                size.decrementAndGet();
+            }
+            return null;
+        }
+        return entry;
+    }
+
+    private void put(long sessionId, MemberKey key, CheckSendPermissionResponse response, long epochBefore) {
+        if (size.get() >= maxEntries) {
+            stats.onOverflow();
+            return;
+        }
+        long ttlMs = response.getAllowed() ? allowTtlMs : denyTtlMs;
+        if (ttlMs <= 0) {
+            return;
+        }
+        Map<MemberKey, Entry> entries = sessions.computeIfAbsent(sessionId, k -> new ConcurrentHashMap<>());
+        Entry entry = new Entry(response, System.currentTimeMillis() + ttlMs);
+        if (entries.put(key, entry) == null) {
+            size.incrementAndGet();
+        }
+        // 先写后查：与失效（先 +1 再删）交错时，二者至少有一方能把这条旧结论删掉
+        if (epoch.get() != epochBefore && entries.remove(key, entry)) {
+            size.decrementAndGet();
+        }
+    }
+
+    private void compare(long sessionId, long userId, int partitionId,
+                         CheckSendPermissionResponse cached, CheckSendPermissionResponse live) {
+        boolean mismatch = cached.getAllowed() != live.getAllowed()
+                || cached.getMessageFlags() != live.getMessageFlags()
+                || !cached.getReason().equals(live.getReason());
+        stats.onShadowCompare(mismatch);
+        if (mismatch) {
+            log.debug("permission cache mismatch: sessionId={}, userId={}, partitionId={}, cached=({}, {}, {}), live=({}, {}, {})",
+                    sessionId, userId, partitionId,
+                    cached.getAllowed(), cached.getReason(), cached.getMessageFlags(),
+                    live.getAllowed(), live.getReason(), live.getMessageFlags());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.com.store.infrastructure.grpc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.store.infrastructure.metrics.CounterDeltas;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 发送权限缓存的命中与一致性：hits 含 negativeHits（命中的拒绝结论）；
+ * shadowCompares / shadowMismatches 为影子模式下缓存结论与实时 RPC 的比对次数和不一致次数，
+ * 开启缓存前应先确认 mismatch 比例可以接受。
+ */
+@Component
+@Slf4j
+public class SendPermissionCacheStats {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rpcFailures = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+    private final LongAdder shadowCompares = new LongAdder();
+    private final LongAdder shadowMismatches = new LongAdder();
+
+    private final CounterDeltas deltas = new CounterDeltas(hits::sum, misses::sum, shadowCompares::sum, shadowMismatches::sum);
+
+    public void onHit(boolean allowed) {
+        hits.increment();
+        if (!allowed) {
+            negativeHits.increment();
+        }
+    }
+
+    public void onMiss() {
+        misses.increment();
+    }
+
+    /**
+     * 回源 RPC 失败，结果不缓存。
+     */
+    public void onRpcFailure() {
+        rpcFailures.increment();
+    }
+
+    public void onInvalidated(int entries) {
+        if (entries > 0) {
+            invalidations.add(entries);
+        }
+    }
+
+    /**
+     * 缓存已满，本次结果未缓存。
+     */
+    public void onOverflow() {
+        overflows.increment();
+    }
+
+    public void onShadowCompare(boolean mismatch) {
+        shadowCompares.increment();
+        if (mismatch) {
+            shadowMismatches.increment();
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long shadowMismatches() {
+        return shadowMismatches.sum();
+    }
+
+    /**
+     * 累计命中率。
+     */
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0D : (double) h / total;
+    }
+
+    @Scheduled(fixedDelayString = "${permission-cache.report-interval-ms:60000}")
+    public void report() {
+        CounterDeltas.Window w = deltas.next();
+        long dHits = w.delta(0);
+        long dMisses = w.delta(1);
+        long dCompares = w.delta(2);
+        long dMismatches = w.delta(3);
+        if (dHits + dMisses == 0) {
+            return;
+        }
+        log.info("permission cache: hitRate={}, lookups={}, negativeHits={}, rpcFailures={}, invalidations={}, overflows={}, shadowCompares={}, shadowMismatches={}",
+                String.format("%.3f", (double) dHits / (dHits + dMisses)), dHits + dMisses,
+                negativeHits.sum(), rpcFailures.sum(), invalidations.sum(), overflows.sum(), dCompares, dMismatches);
+    }
+}
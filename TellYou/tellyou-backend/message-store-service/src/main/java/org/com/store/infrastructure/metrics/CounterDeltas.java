@@ -0,0 +1,64 @@
+package org.com.store.infrastructure.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 定期日志用的增量快照：记住上一次 {@link #next()} 时各计数器的取值，返回这一周期内的增量和经过的秒数。
+ * 各统计类的 report 共用它，不必各自维护 lastXxx 字段和 synchronized。
+ */
+public final class CounterDeltas {
+
+    private final LongSupplier[] counters;
+    private final long[] last;
+    private long lastNanos = System.nanoTime();
+
+    /**
+     * @param counters 累计计数器，按构造时的顺序用 {@link Window#delta(int)} 取增量
+     */
+    public CounterDeltas(LongSupplier... counters) {
+        this.counters = counters.clone();
+        this.last = new long[counters.length];
+    }
+
+    public synchronized Window next() {
+        long now = System.nanoTime();
+        long[] deltas = new long[counters.length];
+        for (int i = 0; i < counters.length; i++) {
+            long v = counters[i].getAsLong();
+            deltas[i] = v - last[i];
+            last[i] = v;
+        }
+        double seconds = Math.max(1e-9, (now - lastNanos) / 1e9);
+        lastNanos = now;
+        return new Window(deltas, seconds);
+    }
+
+    /**
+     * 一个统计周期。
+     */
+    public static final class Window {
+
+        private final long[] deltas;
+        private final double seconds;
+
+        private Window(long[] deltas, double seconds) {
+            this.deltas = deltas;
+            this.seconds = seconds;
+        }
+
+        public long delta(int index) {
+            return deltas[index];
+        }
+
+        public double seconds() {
+            return seconds;
+        }
+
+        /**
+         * 第 index 个计数器在本周期内的每秒速率。
+         */
+        public double rate(int index) {
+            return deltas[index] / seconds;
+        }
+    }
+}
@@ -34,6 +34,8 @@ public class NacosServiceRegistrar {
 
     private org.com.shared.infrastructure.nacos.NacosServiceRegistrar sharedRegistrar;
 
+    private String instanceId;
+
     @PostConstruct
     public void register() {
         try {
@@ -44,6 +46,7 @@ public class NacosServiceRegistrar {
 
             String ip = resolveIp();
             sharedRegistrar.register(serviceName, ip, grpcPort, metadata);
+            this.instanceId = ip + ":" + grpcPort;
             log.info("Nacos注册成功: service={}, group={}, {}:{} grpc.port={}", serviceName, group, ip, grpcPort, grpcPort);
         } catch (Exception e) {
             log.error("Nacos注册失败: service={} group={}", serviceName, group, e);
@@ -51,6 +54,13 @@ public class NacosServiceRegistrar {
         }
     }
 
+    /**
+     * 本实例在会话归属环上的标识，与 {@link org.com.shared.infrastructure.nacos.InstanceHashRing#idOf} 一致。
+     */
+    public String instanceId() {
+        return instanceId;
+    }
+
     @PreDestroy
     public void deregister() {
         if (sharedRegistrar == null) {
@@ -0,0 +1,178 @@
+package org.com.store.infrastructure.nacos;
+
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.com.shared.infrastructure.nacos.InstanceHashRing;
+import org.com.shared.infrastructure.nacos.NacosServiceDiscovery;
+import org.com.store.infrastructure.metrics.CounterDeltas;
+import org.com.store.infrastructure.seq.SegmentSeqGenerator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongPredicate;
+
+/**
+ * 会话归属：在所有已注册的 store 实例上按 sessionId 做一致性哈希，与 connector 侧的路由使用同一个环，
+ * 因此正常情况下每个会话的写入只会到达它的归属实例，会话级的内存状态（号段、缓存）只在归属实例上有效。
+ * <p>
+ * 成员变化时重建环，并让本地状态交出已迁走的会话：号段租约在单独的线程上释放（需要访问 Redis，
+ * 不占用 Nacos 通知线程），其他监听者按需清理。
+ * 路由视图短暂不一致时仍会收到非归属会话的请求，照常处理，只计数；正确性不依赖归属，
+ * 号段租约由 Redis 栅栏兜底。环为空（例如 Nacos 不可用、单机开发）时视为拥有全部会话。
+ */
+@Component
+@Slf4j
+public class SessionOwnership {
+
+    private final NacosServiceDiscovery nacosServiceDiscovery;
+    private final NacosServiceRegistrar nacosServiceRegistrar;
+    private final ObjectProvider<SegmentSeqGenerator> segmentSeqGenerator;
+
+    @Value("${spring.application.name}")
+    private String serviceName;
+
+    @Value("${session-ownership.virtual-nodes:" + InstanceHashRing.DEFAULT_VIRTUAL_NODES + "}")
+    private int virtualNodes;
+
+    private volatile InstanceHashRing ring = InstanceHashRing.empty();
+    private volatile boolean subscribed;
+    private final List<OwnershipListener> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder misrouted = new LongAdder();
+    private final CounterDeltas deltas = new CounterDeltas(misrouted::sum);
+    private final ExecutorService leaseReleaseExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "seq-lease-release");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * 归属变化回调，参数判断某个会话是否已不再属于本实例；运行在 Nacos 通知线程上，应尽快返回。
+     */
+    @FunctionalInterface
+    public interface OwnershipListener {
+        void onOwnershipChanged(LongPredicate lost);
+    }
+
+    public SessionOwnership(NacosServiceDiscovery nacosServiceDiscovery,
+                            NacosServiceRegistrar nacosServiceRegistrar,
+                            ObjectProvider<SegmentSeqGenerator> segmentSeqGenerator) {
+        this.nacosServiceDiscovery = nacosServiceDiscovery;
+        this.nacosServiceRegistrar = nacosServiceRegistrar;
+        this.segmentSeqGenerator = segmentSeqGenerator;
+    }
+
+    @PostConstruct
+    public void init() {
+        subscribe();
+    }
+
+    /**
+     * 启动时 Nacos 不可用则保持空环（拥有全部会话），之后定期重试订阅，成功后按成员列表重建环。
+     */
+    @Scheduled(fixedDelayString = "${session-ownership.subscribe-retry-ms:10000}")
+    public void retrySubscribe() {
+        if (!subscribed) {
+            subscribe();
+        }
+    }
+
+    public boolean owns(long sessionId) {
+        return owns(ring, sessionId);
+    }
+
+    /**
+     * 记录一次写请求；请求落在非归属实例上时计数。
+     *
+     * @return 本实例是否为该会话的归属实例
+     */
+    public boolean checkWrite(long sessionId) {
+        boolean owner = owns(sessionId);
+        if (!owner) {
+            misrouted.increment();
+        }
+        return owner;
+    }
+
+    public void addListener(OwnershipListener listener) {
+        listeners.add(listener);
+    }
+
+    public long misrouted() {
+        return misrouted.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${session-ownership.report-interval-ms:60000}")
+    public void report() {
+        long delta = deltas.next().delta(0);
+        if (delta != 0) {
+            log.info("session ownership: members={}, misroutedWrites={} (+{})", ring.members().size(), misrouted.sum(), delta);
+        }
+    }
+
+    private synchronized void subscribe() {
+        if (subscribed) {
+            return;
+        }
+        try {
+            List<Instance> initial = nacosServiceDiscovery.subscribeAndCache(serviceName, this::onMembersChanged);
+            subscribed = true;
+            onMembersChanged(initial);
+        } catch (NacosException e) {
+            log.warn("session ownership subscribe failed, owning all sessions until Nacos is reachable: {}", e.toString());
+        }
+    }
+
+    private synchronized void onMembersChanged(List<Instance> instances) {
+        InstanceHashRing next = InstanceHashRing.of(instances, virtualNodes);
+        this.ring = next;
+        LongPredicate lost = sessionId -> !owns(next, sessionId);
+
+        segmentSeqGenerator.ifAvailable(this::releaseLostLeases);
+        for (OwnershipListener listener : listeners) {
+            try {
+                listener.onOwnershipChanged(lost);
+            } catch (Exception e) {
+                log.warn("session ownership listener failed: {}", e.toString());
+            }
+        }
+        log.info("session ownership ring rebuilt: self={}, members={}", nacosServiceRegistrar.instanceId(), next.members().size());
+    }
+
+    /**
+     * 按执行时的最新环判断归属，连续多次成员变化只会以最后一次为准，不会交出又迁回来的会话。
+     */
+    private void releaseLostLeases(SegmentSeqGenerator generator) {
+        try {
+            leaseReleaseExecutor.execute(() -> {
+                try {
+                    generator.releaseIf(sessionId -> !owns(sessionId));
+                } catch (Exception e) {
+                    log.warn("release lost seq leases failed: {}", e.toString());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("seq lease release skipped, shutting down");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseReleaseExecutor.shutdownNow();
+    }
+
+    private boolean owns(InstanceHashRing r, long sessionId) {
+        Instance owner = r.owner(sessionId);
+        return owner == null || InstanceHashRing.idOf(owner).equals(nacosServiceRegistrar.instanceId());
+    }
+}
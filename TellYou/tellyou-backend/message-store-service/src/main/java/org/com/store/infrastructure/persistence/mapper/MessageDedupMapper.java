@@ -4,11 +4,17 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.com.store.infrastructure.persistence.po.MessageDedupDO;
 
+import java.util.List;
+
 @Mapper
 public interface MessageDedupMapper {
 
     void insert(MessageDedupDO messageDedupDO);
 
+    int batchInsertIgnoreDuplicate(List<MessageDedupDO> items);
+
+    List<MessageDedupDO> selectByClientMessageIds(@Param("clientMessageIds") List<String> clientMessageIds);
+
     MessageDedupDO selectByClientMessageId(@Param("clientMessageId") String clientMessageId);
 
     int updateMsgIdAndSeqByClientMessageId(
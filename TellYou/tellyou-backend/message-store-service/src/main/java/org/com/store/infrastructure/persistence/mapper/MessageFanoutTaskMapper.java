@@ -12,6 +12,8 @@ public interface MessageFanoutTaskMapper {
 
     void insert(MessageFanoutTaskDO task);
 
+    int batchInsert(List<MessageFanoutTaskDO> tasks);
+
     List<MessageFanoutTaskDO> listPending(@Param("now") LocalDateTime now, @Param("limit") int limit);
 
     int markProcessing(@Param("id") long id, @Param("updatedAt") LocalDateTime updatedAt);
@@ -3,8 +3,12 @@ package org.com.store.infrastructure.persistence.mapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.com.store.infrastructure.persistence.po.MessageDO;
 
+import java.util.List;
+
 @Mapper
 public interface MessageMapper {
 
     void insert(MessageDO messageDO);
+
+    int batchInsert(List<MessageDO> items);
 }
@@ -12,6 +12,8 @@ public interface OutboxEventMapper {
 
     void insert(OutboxEventDO outboxEventDO);
 
+    int batchInsert(List<OutboxEventDO> items);
+
     List<OutboxEventDO> listPending(@Param("now") LocalDateTime now, @Param("limit") int limit);
 
     List<OutboxEventDO> lockPendingSkipLocked(@Param("now") LocalDateTime now, @Param("limit") int limit);
@@ -3,15 +3,17 @@ package org.com.store.infrastructure.seq;
 import lombok.RequiredArgsConstructor;
 import org.redisson.api.RAtomicLong;
 import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 @Component
+@ConditionalOnProperty(name = "seq.allocator", havingValue = "incr", matchIfMissing = true)
 @RequiredArgsConstructor
 public class RedissonSeqGenerator implements SeqGenerator {
 
     private final RedissonClient redissonClient;
 
-    private static String seqKey(long sessionId) {
+    static String seqKey(long sessionId) {
         return "im:seq:session:" + sessionId;
     }
 
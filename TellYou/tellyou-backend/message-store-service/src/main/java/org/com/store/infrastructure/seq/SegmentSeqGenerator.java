@@ -0,0 +1,338 @@
+package org.com.store.infrastructure.seq;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongPredicate;
+
+/**
+ * 号段租约发号：每个会话用 INCRBY N 从 Redis 一次取一段连续的 seq，本地逐个发出。
+ * <p>
+ * 号段大小按会话最近的发送速率自适应，约等于 target-lease-ms 内的消息数，取 2 的幂并限制在
+ * [1, max-size]；安静的单聊始终为 1，即退化为一次 INCR。
+ * <p>
+ * 跨实例严格递增靠 Redis 上的租约栅栏：取大于 1 的号段时把 {@code im:seq:session:{id}:lease} 置为本实例，
+ * 带 ttl-ms 过期；栅栏被其他实例持有时不发号，等它释放或过期。本地号段只在 ttl-ms - safety-margin-ms 内有效，
+ * 因而栅栏过期前本实例一定已停止使用旧号段。会话归属变化时调用 {@link #releaseIf} 主动交出租约。
+ * <p>
+ * 访问 Redis 和等待栅栏都不持有会话的锁：号段用完时由一个线程去取，同会话的其他线程等它完成，
+ * 等待超过 max-wait-ms 抛出 {@link SeqLeaseUnavailableException}，gRPC 层回 UNAVAILABLE 由客户端重试。
+ * <p>
+ * 计数器 key 与 {@link RedissonSeqGenerator} 相同，Redis Cluster 下两个 key 需在同一 slot。
+ * 注意 INCR 实现不检查栅栏：两种实现混跑（例如滚动发布切换 seq.allocator）时，INCR 实例可能在 segment 实例
+ * 号段未用完前发出更大的 seq，同会话 seq 与落库顺序不再一致。切换 allocator 需整体停写切换，或保证切换期间
+ * 同一会话至少 ttl-ms 内不被两种实现写入。
+ */
+@Component
+@ConditionalOnProperty(name = "seq.allocator", havingValue = "segment")
+@Slf4j
+public class SegmentSeqGenerator implements SeqGenerator {
+
+    /**
+     * KEYS[1] 计数器，KEYS[2] 租约栅栏；ARGV[1] 实例 id，ARGV[2] 号段大小，ARGV[3] 栅栏 ttl（ms）。
+     * 返回 {号段末尾 seq, 0}，栅栏被其他实例持有时返回 {-1, 栅栏剩余 ms}。
+     */
+    private static final String LEASE_SCRIPT = """
+            local holder = redis.call('GET', KEYS[2])
+            if holder and holder ~= ARGV[1] then
+                return {-1, redis.call('PTTL', KEYS[2])}
+            end
+            local n = tonumber(ARGV[2])
+            if n > 1 then
+                redis.call('SET', KEYS[2], ARGV[1], 'PX', ARGV[3])
+            elseif holder then
+                redis.call('DEL', KEYS[2])
+            end
+            return {redis.call('INCRBY', KEYS[1], n), 0}
+            """;
+
+    private static final String RELEASE_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """;
+
+    private static final double RATE_SMOOTHING = 0.5D;
+
+    private final RedissonClient redissonClient;
+    private final SeqLeaseStats stats;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ConcurrentHashMap<Long, Lease> leases = new ConcurrentHashMap<>();
+
+    @Value("${seq.lease.max-size:1024}")
+    private int maxSize;
+
+    @Value("${seq.lease.target-lease-ms:1000}")
+    private long targetLeaseMs;
+
+    @Value("${seq.lease.ttl-ms:3000}")
+    private long ttlMs;
+
+    @Value("${seq.lease.safety-margin-ms:500}")
+    private long safetyMarginMs;
+
+    @Value("${seq.lease.max-wait-ms:5000}")
+    private long maxWaitMs;
+
+    public SegmentSeqGenerator(RedissonClient redissonClient, SeqLeaseStats stats) {
+        this.redissonClient = redissonClient;
+        this.stats = stats;
+    }
+
+    private record Segment(long end, int size, long startNanos) {
+    }
+
+    /**
+     * 单个会话的本地号段，[next, end] 为尚未发出的 seq；所有字段由 Lease 自身的锁保护。
+     */
+    private static final class Lease {
+        long next = 1;
+        long end = 0;
+        long validUntilNanos;
+        long leasedAtNanos;
+        int size;
+        int issued;
+        double ratePerSec;
+        boolean removed;
+        /**
+         * 非 null 表示有线程正在 Redis 上取号段，其余线程在锁外等它完成。
+         */
+        CompletableFuture<Void> refilling;
+
+        long remaining() {
+            return Math.max(0, end - next + 1);
+        }
+    }
+
+    @Override
+    public long nextSeq(long sessionId) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        while (true) {
+            Lease lease = leases.computeIfAbsent(sessionId, _k -> new Lease());
+            CompletableFuture<Void> refilling;
+            int size;
+            synchronized (lease) {
+                if (lease.removed) {
+                    continue;
+                }
+                long now = System.nanoTime();
+                if (lease.next <= lease.end && now - lease.validUntilNanos < 0) {
+                    lease.issued++;
+                    stats.onHit();
+                    return lease.next++;
+                }
+                refilling = lease.refilling;
+                if (refilling == null) {
+                    stats.onWasted(lease.remaining());
+                    lease.next = 1;
+                    lease.end = 0;
+                    size = nextSize(lease, now);
+                    lease.refilling = new CompletableFuture<>();
+                } else {
+                    size = 0;
+                }
+            }
+            if (refilling != null) {
+                awaitRefill(sessionId, refilling, deadline);
+                continue;
+            }
+            return refill(sessionId, lease, size, deadline);
+        }
+    }
+
+    /**
+     * 交出满足条件的会话的租约（例如归属已迁到其他实例），剩余号段作废。
+     */
+    public void releaseIf(LongPredicate shouldRelease) {
+        for (Map.Entry<Long, Lease> it : leases.entrySet()) {
+            long sessionId = it.getKey();
+            if (shouldRelease.test(sessionId)) {
+                release(sessionId, it.getValue());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        releaseIf(_id -> true);
+    }
+
+    /**
+     * 清理过期超过一个 ttl 的号段，避免不再活跃的会话一直占着内存；短暂空闲的会话保留速率估计。
+     */
+    @Scheduled(fixedDelayString = "${seq.lease.ttl-ms:3000}")
+    public void evictExpired() {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        long now = System.nanoTime();
+        for (Map.Entry<Long, Lease> it : leases.entrySet()) {
+            Lease lease = it.getValue();
+            synchronized (lease) {
+                if (lease.refilling == null && now - lease.validUntilNanos >= idleNanos) {
+                    stats.onWasted(lease.remaining());
+                    lease.removed = true;
+                    leases.remove(it.getKey(), lease);
+                }
+            }
+        }
+    }
+
+    public int activeLeases() {
+        return leases.size();
+    }
+
+    private void release(long sessionId, Lease lease) {
+        boolean holdsFence;
+        synchronized (lease) {
+            if (lease.removed) {
+                return;
+            }
+            stats.onWasted(lease.remaining());
+            lease.removed = true;
+            leases.remove(sessionId, lease);
+            // 只有大于 1 的号段才持有栅栏；正在取的号段由取号线程发现 removed 后自行交回
+            holdsFence = lease.size > 1;
+        }
+        if (holdsFence) {
+            releaseFence(sessionId);
+        }
+        stats.onReleased();
+    }
+
+    private void releaseFence(long sessionId) {
+        try {
+            redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, RELEASE_SCRIPT,
+                    RScript.ReturnType.INTEGER, List.of(leaseKey(sessionId)), instanceId);
+        } catch (RuntimeException e) {
+            // 交回失败时栅栏在 ttl-ms 后自然过期
+            log.warn("release seq lease failed: sessionId={}, err={}", sessionId, e.toString());
+        }
+    }
+
+    /**
+     * 在锁外取号段并装入 lease，返回号段的第一个 seq；无论成败都唤醒等待同一会话的线程。
+     */
+    private long refill(long sessionId, Lease lease, int size, long deadline) {
+        CompletableFuture<Void> refilling;
+        Segment segment;
+        try {
+            segment = acquire(sessionId, size, deadline);
+        } catch (RuntimeException e) {
+            synchronized (lease) {
+                refilling = lease.refilling;
+                lease.refilling = null;
+            }
+            refilling.complete(null);
+            throw e;
+        }
+
+        boolean released;
+        long seq = 0;
+        synchronized (lease) {
+            refilling = lease.refilling;
+            lease.refilling = null;
+            released = lease.removed;
+            if (released) {
+                stats.onWasted(segment.size());
+            } else {
+                lease.end = segment.end();
+                lease.next = segment.end() - segment.size() + 1;
+                lease.size = segment.size();
+                lease.leasedAtNanos = segment.startNanos();
+                // 以发起请求的时刻起算，保证本地号段先于 Redis 上的栅栏失效
+                lease.validUntilNanos = segment.startNanos()
+                        + TimeUnit.MILLISECONDS.toNanos(segment.size() > 1 ? Math.max(0, ttlMs - safetyMarginMs) : 0);
+                lease.issued = 1;
+                seq = lease.next++;
+            }
+        }
+        refilling.complete(null);
+        if (released) {
+            // 取号段期间租约被交出（会话归属已迁走）：刚拿到的栅栏交回，本次请求由客户端重试到新的归属实例；
+            // 若本实例已为该会话建了新租约，栅栏归新租约使用
+            if (segment.size() > 1 && !leases.containsKey(sessionId)) {
+                releaseFence(sessionId);
+            }
+            throw new SeqLeaseUnavailableException("seq lease released while refilling: sessionId=" + sessionId);
+        }
+        return seq;
+    }
+
+    private Segment acquire(long sessionId, int size, long deadline) {
+        while (true) {
+            long startNanos = System.nanoTime();
+            List<Object> r = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, LEASE_SCRIPT,
+                    RScript.ReturnType.MULTI, List.of(RedissonSeqGenerator.seqKey(sessionId), leaseKey(sessionId)),
+                    instanceId, String.valueOf(size), String.valueOf(ttlMs));
+            long end = ((Number) r.get(0)).longValue();
+            if (end >= 0) {
+                stats.onLease(size);
+                return new Segment(end, size, startNanos);
+            }
+            stats.onFencedWait();
+            long pttl = ((Number) r.get(1)).longValue();
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) {
+                throw new SeqLeaseUnavailableException("seq lease held by another instance: sessionId=" + sessionId);
+            }
+            sleep(Math.min(Math.min(Math.max(pttl, 1L), 20L), remainingMs));
+        }
+    }
+
+    private static void awaitRefill(long sessionId, CompletableFuture<Void> refilling, long deadline) {
+        try {
+            refilling.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new SeqLeaseUnavailableException("timed out waiting for seq lease: sessionId=" + sessionId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SeqLeaseUnavailableException("interrupted while waiting for seq lease: sessionId=" + sessionId);
+        } catch (ExecutionException e) {
+            // refilling 只会正常完成
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 按上一个号段的消耗速度估算发送速率，号段约覆盖 target-lease-ms 的消息量；
+     * 单次最多放大 4 倍，避免偶发突发把号段一下拉满。
+     */
+    private int nextSize(Lease lease, long now) {
+        if (lease.leasedAtNanos != 0 && lease.issued > 0) {
+            double elapsedSec = Math.max(1e-3, (now - lease.leasedAtNanos) / 1e9);
+            double rate = lease.issued / elapsedSec;
+            lease.ratePerSec = lease.ratePerSec == 0 ? rate : RATE_SMOOTHING * rate + (1 - RATE_SMOOTHING) * lease.ratePerSec;
+        }
+        long wanted = (long) (lease.ratePerSec * targetLeaseMs / 1000D);
+        long capped = Math.min(Math.min(wanted, Math.max(1L, lease.size) * 4), maxSize);
+        return capped <= 1 ? 1 : (int) Long.highestOneBit(capped);
+    }
+
+    private static String leaseKey(long sessionId) {
+        return RedissonSeqGenerator.seqKey(sessionId) + ":lease";
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SeqLeaseUnavailableException("interrupted while waiting for seq lease");
+        }
+    }
+}
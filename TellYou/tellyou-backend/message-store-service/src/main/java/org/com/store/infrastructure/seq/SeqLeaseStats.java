@@ -0,0 +1,93 @@
+package org.com.store.infrastructure.seq;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.store.infrastructure.metrics.CounterDeltas;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 号段租约的命中与浪费：hits 为本地直接发号次数，leases 为访问 Redis 取号段的次数；
+ * wasted 为号段过期或释放时没发出去的 seq 个数，即会话 seq 上出现的空洞。
+ */
+@Component
+@ConditionalOnProperty(name = "seq.allocator", havingValue = "segment")
+@Slf4j
+public class SeqLeaseStats {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder leasedSeqs = new LongAdder();
+    private final LongAdder wasted = new LongAdder();
+    private final LongAdder gaps = new LongAdder();
+    private final LongAdder fencedWaits = new LongAdder();
+    private final LongAdder released = new LongAdder();
+
+    private final CounterDeltas deltas = new CounterDeltas(hits::sum, leases::sum);
+
+    public void onHit() {
+        hits.increment();
+    }
+
+    public void onLease(int size) {
+        leases.increment();
+        leasedSeqs.add(size);
+    }
+
+    /**
+     * 号段剩余 count 个 seq 作废，在会话上留下一段空洞。
+     */
+    public void onWasted(long count) {
+        if (count > 0) {
+            wasted.add(count);
+            gaps.increment();
+        }
+    }
+
+    /**
+     * 会话正被其他实例持有租约，等待其释放或过期。
+     */
+    public void onFencedWait() {
+        fencedWaits.increment();
+    }
+
+    public void onReleased() {
+        released.increment();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long leases() {
+        return leases.sum();
+    }
+
+    public long wasted() {
+        return wasted.sum();
+    }
+
+    /**
+     * 累计命中率：不访问 Redis 就发出的 seq 占比。
+     */
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + leases.sum();
+        return total == 0 ? 0D : (double) h / total;
+    }
+
+    @Scheduled(fixedDelayString = "${seq.lease.report-interval-ms:60000}")
+    public void report() {
+        CounterDeltas.Window w = deltas.next();
+        long dHits = w.delta(0);
+        long dLeases = w.delta(1);
+        if (dHits + dLeases == 0) {
+            return;
+        }
+        log.info("seq lease: hitRate={}, redisCalls={}, leasedSeqs={}, wastedSeqs={}, gaps={}, fencedWaits={}, released={}",
+                String.format("%.3f", (double) dHits / (dHits + dLeases)), dLeases,
+                leasedSeqs.sum(), wasted.sum(), gaps.sum(), fencedWaits.sum(), released.sum());
+    }
+}
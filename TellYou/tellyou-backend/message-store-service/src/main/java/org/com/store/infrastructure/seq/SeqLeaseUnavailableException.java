@@ -0,0 +1,11 @@
+package org.com.store.infrastructure.seq;
+
+/**
+ * 暂时拿不到号段（栅栏被其他实例持有超过 max-wait-ms，或租约在取号段期间被交出），可由调用方重试。
+ */
+public class SeqLeaseUnavailableException extends RuntimeException {
+
+    public SeqLeaseUnavailableException(String message) {
+        super(message);
+    }
+}
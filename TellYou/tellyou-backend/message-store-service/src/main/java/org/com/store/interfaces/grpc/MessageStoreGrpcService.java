@@ -1,5 +1,6 @@
 package org.com.store.interfaces.grpc;
 
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import net.devh.boot.grpc.server.service.GrpcService;
@@ -7,15 +8,21 @@ import org.com.shared.proto.message.store.v1.MessageStoreServiceGrpc;
 import org.com.shared.proto.message.store.v1.PersistChatMessageRequest;
 import org.com.shared.proto.message.store.v1.PersistChatMessageResponse;
 import org.com.store.application.MessageStoreApplicationService;
+import org.com.store.infrastructure.nacos.SessionOwnership;
+import org.com.store.infrastructure.seq.SeqLeaseUnavailableException;
+
+import java.util.concurrent.CompletionException;
 
 @GrpcService
 @RequiredArgsConstructor
 public class MessageStoreGrpcService extends MessageStoreServiceGrpc.MessageStoreServiceImplBase {
 
     private final MessageStoreApplicationService applicationService;
+    private final SessionOwnership sessionOwnership;
 
     @Override
     public void persistChatMessage(PersistChatMessageRequest request, StreamObserver<PersistChatMessageResponse> responseObserver) {
+        sessionOwnership.checkWrite(request.getSessionId());
         Integer appearance = request.getAppearance() == 0 ? null : request.getAppearance();
 
         MessageStoreApplicationService.PersistCommand cmd = new MessageStoreApplicationService.PersistCommand(
@@ -31,19 +38,29 @@ public class MessageStoreGrpcService extends MessageStoreServiceGrpc.MessageStor
                 request.getTraceId()
         );
 
-        MessageStoreApplicationService.PersistResult result = applicationService.persistChatMessage(cmd);
-
-        PersistChatMessageResponse resp = PersistChatMessageResponse.newBuilder()
-                .setPersisted(result.persisted())
-                .setServerMessageId(result.msgId() <= 0 ? "" : String.valueOf(result.msgId()))
-                .setSeq(result.seq())
-                .setPartitionId(result.partitionId())
-                .setAppearance(result.appearance() == null ? 0 : result.appearance())
-                .setServerTimeMs(result.serverTimeMs())
-                .setReason(result.reason() == null ? "" : result.reason())
-                .build();
+        // 组提交模式下结果由提交线程回调，gRPC 线程不必等待事务完成
+        applicationService.persistChatMessage(cmd).whenComplete((result, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                // 号段暂时拿不到（栅栏被其他实例持有）可重试，其余按内部错误处理
+                Status status = cause instanceof SeqLeaseUnavailableException
+                        ? Status.UNAVAILABLE.withDescription("seq_lease_busy")
+                        : Status.INTERNAL.withDescription("persist_failed");
+                responseObserver.onError(status.withCause(cause).asRuntimeException());
+                return;
+            }
+            PersistChatMessageResponse resp = PersistChatMessageResponse.newBuilder()
+                    .setPersisted(result.persisted())
+                    .setServerMessageId(result.msgId() <= 0 ? "" : String.valueOf(result.msgId()))
+                    .setSeq(result.seq())
+                    .setPartitionId(result.partitionId())
+                    .setAppearance(result.appearance() == null ? 0 : result.appearance())
+                    .setServerTimeMs(result.serverTimeMs())
+                    .setReason(result.reason() == null ? "" : result.reason())
+                    .build();
 
-        responseObserver.onNext(resp);
-        responseObserver.onCompleted();
+            responseObserver.onNext(resp);
+            responseObserver.onCompleted();
+        });
     }
 }
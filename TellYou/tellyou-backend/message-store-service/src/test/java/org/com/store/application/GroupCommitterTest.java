@@ -0,0 +1,117 @@
+package org.com.store.application;
+
+import org.com.store.application.MessageStoreApplicationService.PersistResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class GroupCommitterTest {
+
+    @Test
+    void shouldCommitEachSessionInSubmitOrderAcrossCommitters() throws Exception {
+        MessageBatchWriter writer = Mockito.mock(MessageBatchWriter.class);
+        Map<Long, List<Long>> committed = new ConcurrentHashMap<>();
+        Mockito.when(writer.writeBatch(Mockito.anyList())).thenAnswer(inv -> {
+            List<PreparedMessage> batch = inv.getArgument(0);
+            List<PersistResult> results = new ArrayList<>(batch.size());
+            for (PreparedMessage m : batch) {
+                committed.computeIfAbsent(m.message().getSessionId(), k -> new CopyOnWriteArrayList<>()).add(m.message().getSeq());
+                results.add(m.persisted());
+            }
+            // 放慢提交，让队列积压出多批
+            Thread.sleep(1);
+            return results;
+        });
+        GroupCommitter committer = newCommitter(writer, 4, 8);
+
+        try {
+            List<CompletableFuture<PersistResult>> futures = new ArrayList<>();
+            for (long seq = 1; seq <= 200; seq++) {
+                for (long sessionId = 1; sessionId <= 6; sessionId++) {
+                    futures.add(committer.submit(MessageBatchWriterTest.message("c-" + sessionId + "-" + seq, seq, sessionId, seq)));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+            Assertions.assertEquals(6, committed.size());
+            for (List<Long> seqs : committed.values()) {
+                Assertions.assertEquals(200, seqs.size());
+                for (int i = 1; i < seqs.size(); i++) {
+                    Assertions.assertTrue(seqs.get(i - 1) < seqs.get(i), "seq committed out of order: " + seqs);
+                }
+            }
+        } finally {
+            committer.stop();
+        }
+    }
+
+    @Test
+    void shouldFallBackToOneByOneWhenBatchFails() throws Exception {
+        MessageBatchWriter writer = Mockito.mock(MessageBatchWriter.class);
+        Mockito.when(writer.writeBatch(Mockito.anyList())).thenThrow(new IllegalStateException("constraint"));
+        PreparedMessage good = MessageBatchWriterTest.message("c-1", 1L, 7L, 1L);
+        PreparedMessage bad = MessageBatchWriterTest.message("c-2", 2L, 7L, 2L);
+        Mockito.when(writer.writeOne(good)).thenReturn(good.persisted());
+        Mockito.when(writer.writeOne(bad)).thenThrow(new IllegalStateException("bad row"));
+        GroupCommitStats stats = new GroupCommitStats();
+        GroupCommitter committer = newCommitter(writer, stats, 1, 128);
+        // 单线程时第二条在第一条提交前入队即可同批；max-delay 拉长保证两条合成一批
+        ReflectionTestUtils.setField(committer, "maxDelayMs", 200L);
+        committer.start();
+
+        try {
+            CompletableFuture<PersistResult> first = committer.submit(good);
+            CompletableFuture<PersistResult> second = committer.submit(bad);
+
+            Assertions.assertEquals(1L, first.get(5, TimeUnit.SECONDS).msgId());
+            Assertions.assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+            Mockito.verify(writer).writeBatch(List.of(good, bad));
+            Assertions.assertEquals(1, stats.batchFailures());
+            Assertions.assertEquals(1, stats.commits());
+        } finally {
+            committer.stop();
+        }
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        MessageBatchWriter writer = Mockito.mock(MessageBatchWriter.class);
+        GroupCommitStats stats = new GroupCommitStats();
+        GroupCommitter committer = newCommitter(writer, stats, 1, 1);
+        ReflectionTestUtils.setField(committer, "running", true);
+        ReflectionTestUtils.setField(committer, "queues", List.of(new ArrayBlockingQueue<>(1)));
+
+        committer.submit(MessageBatchWriterTest.message("c-1", 1L, 7L, 1L));
+        PersistResult rejected = committer.submit(MessageBatchWriterTest.message("c-2", 2L, 7L, 2L)).get(1, TimeUnit.SECONDS);
+
+        Assertions.assertFalse(rejected.persisted());
+        Assertions.assertEquals("store_overloaded", rejected.reason());
+        Assertions.assertEquals(1, stats.rejected());
+    }
+
+    private static GroupCommitter newCommitter(MessageBatchWriter writer, int threads, int maxBatchSize) {
+        GroupCommitter committer = newCommitter(writer, new GroupCommitStats(), threads, maxBatchSize);
+        committer.start();
+        return committer;
+    }
+
+    private static GroupCommitter newCommitter(MessageBatchWriter writer, GroupCommitStats stats, int threads, int maxBatchSize) {
+        GroupCommitter committer = new GroupCommitter(writer, stats);
+        ReflectionTestUtils.setField(committer, "enabled", true);
+        ReflectionTestUtils.setField(committer, "maxBatchSize", maxBatchSize);
+        ReflectionTestUtils.setField(committer, "maxDelayMs", 2L);
+        ReflectionTestUtils.setField(committer, "committerThreads", threads);
+        ReflectionTestUtils.setField(committer, "queueCapacity", 10_000);
+        return committer;
+    }
+}
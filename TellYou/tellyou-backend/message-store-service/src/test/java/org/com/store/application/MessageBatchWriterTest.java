@@ -0,0 +1,89 @@
+package org.com.store.application;
+
+import org.com.store.application.MessageStoreApplicationService.PersistResult;
+import org.com.store.infrastructure.persistence.mapper.MessageDedupMapper;
+import org.com.store.infrastructure.persistence.mapper.MessageFanoutTaskMapper;
+import org.com.store.infrastructure.persistence.mapper.MessageMapper;
+import org.com.store.infrastructure.persistence.mapper.OutboxEventMapper;
+import org.com.store.infrastructure.persistence.mapper.UserMessageIndexMapper;
+import org.com.store.infrastructure.persistence.po.MessageDO;
+import org.com.store.infrastructure.persistence.po.MessageDedupDO;
+import org.com.store.infrastructure.persistence.po.OutboxEventDO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+public class MessageBatchWriterTest {
+
+    private final MessageDedupMapper dedupMapper = Mockito.mock(MessageDedupMapper.class);
+    private final MessageMapper messageMapper = Mockito.mock(MessageMapper.class);
+    private final OutboxEventMapper outboxMapper = Mockito.mock(OutboxEventMapper.class);
+    private final MessageBatchWriter writer = new MessageBatchWriter(messageMapper, dedupMapper, outboxMapper,
+            Mockito.mock(MessageFanoutTaskMapper.class), Mockito.mock(UserMessageIndexMapper.class));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldKeepFirstOfDuplicatesInsideOneBatch() {
+        PreparedMessage first = message("c-1", 100L, 7L, 1L);
+        PreparedMessage retry = message("c-1", 101L, 7L, 2L);
+        PreparedMessage other = message("c-2", 102L, 7L, 3L);
+        // ON DUPLICATE KEY 保留先到的一条
+        Mockito.when(dedupMapper.selectByClientMessageIds(Mockito.anyList()))
+                .thenReturn(List.of(first.dedup(), other.dedup()));
+
+        List<PersistResult> results = writer.writeBatch(List.of(first, retry, other));
+
+        Assertions.assertEquals(List.of(100L, 100L, 102L), results.stream().map(PersistResult::msgId).toList());
+        Assertions.assertEquals(List.of(1L, 1L, 3L), results.stream().map(PersistResult::seq).toList());
+        Assertions.assertTrue(results.stream().allMatch(PersistResult::persisted));
+        ArgumentCaptor<List<MessageDO>> inserted = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(messageMapper).batchInsert(inserted.capture());
+        Assertions.assertEquals(List.of(100L, 102L), inserted.getValue().stream().map(MessageDO::getMsgId).toList());
+        Mockito.verify(outboxMapper).batchInsert(Mockito.argThat(items -> items.size() == 2));
+    }
+
+    @Test
+    void shouldReturnStoredMessageForDuplicateAlreadyInDb() {
+        PreparedMessage retry = message("c-1", 200L, 7L, 9L);
+        MessageDedupDO stored = message("c-1", 50L, 7L, 5L).dedup();
+        Mockito.when(dedupMapper.selectByClientMessageIds(List.of("c-1"))).thenReturn(List.of(stored));
+
+        List<PersistResult> results = writer.writeBatch(List.of(retry));
+
+        Assertions.assertEquals(1, results.size());
+        Assertions.assertTrue(results.get(0).persisted());
+        Assertions.assertEquals(50L, results.get(0).msgId());
+        Assertions.assertEquals(5L, results.get(0).seq());
+        Mockito.verify(messageMapper, Mockito.never()).batchInsert(Mockito.anyList());
+        Mockito.verify(outboxMapper, Mockito.never()).batchInsert(Mockito.anyList());
+    }
+
+    @Test
+    void shouldFailEntryWhoseDedupRowIsMissing() {
+        PreparedMessage m = message("c-1", 100L, 7L, 1L);
+        Mockito.when(dedupMapper.selectByClientMessageIds(List.of("c-1"))).thenReturn(List.of());
+
+        List<PersistResult> results = writer.writeBatch(List.of(m));
+
+        Assertions.assertFalse(results.get(0).persisted());
+        Assertions.assertEquals("duplicate_but_missing_record", results.get(0).reason());
+    }
+
+    static PreparedMessage message(String clientMessageId, long msgId, long sessionId, long seq) {
+        MessageDedupDO dedup = new MessageDedupDO();
+        dedup.setClientMessageId(clientMessageId);
+        dedup.setMsgId(msgId);
+        dedup.setSessionId(sessionId);
+        dedup.setPartitionId(0);
+        dedup.setSeq(seq);
+        MessageDO message = new MessageDO();
+        message.setMsgId(msgId);
+        message.setSessionId(sessionId);
+        message.setPartitionId(0);
+        message.setSeq(seq);
+        return new PreparedMessage(dedup, message, new OutboxEventDO(), null, List.of(), null, 0L);
+    }
+}
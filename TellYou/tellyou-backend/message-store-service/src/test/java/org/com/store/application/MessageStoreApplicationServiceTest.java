@@ -0,0 +1,74 @@
+package org.com.store.application;
+
+import org.com.shared.infrastructure.id.SnowflakeIdGenerator;
+import org.com.shared.proto.social.session.v1.CheckSendPermissionResponse;
+import org.com.shared.proto.social.session.v1.ListSessionMembersResponse;
+import org.com.store.application.MessageStoreApplicationService.PersistCommand;
+import org.com.store.application.MessageStoreApplicationService.PersistResult;
+import org.com.store.domain.MessageFlags;
+import org.com.store.infrastructure.grpc.SendPermissionCache;
+import org.com.store.infrastructure.grpc.SocialSessionGrpcClient;
+import org.com.store.infrastructure.outbox.OutboxEventFactory;
+import org.com.store.infrastructure.seq.SeqGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class MessageStoreApplicationServiceTest {
+
+    private static final PersistCommand CMD = new PersistCommand("c-1", 1, 0L, 7L, 42L, "{\"text\":\"hi\"}", 0L, 1, null, "");
+
+    private final SnowflakeIdGenerator idGenerator = Mockito.mock(SnowflakeIdGenerator.class);
+    private final SeqGenerator seqGenerator = Mockito.mock(SeqGenerator.class);
+    private final SocialSessionGrpcClient social = Mockito.mock(SocialSessionGrpcClient.class);
+    private final SendPermissionCache permissionCache = Mockito.mock(SendPermissionCache.class);
+    private final MessageBatchWriter writer = Mockito.mock(MessageBatchWriter.class);
+    private final MessageStoreApplicationService service = new MessageStoreApplicationService(idGenerator, seqGenerator,
+            Mockito.mock(OutboxEventFactory.class), social, permissionCache, writer,
+            Mockito.mock(GroupCommitter.class), new GroupCommitStats());
+
+    @Test
+    void shouldAnswerRetryOfSyncFanoutMessageWithoutListingMembers() {
+        allow(MessageFlags.WRITE_FANOUT);
+        Mockito.when(writer.findStored("c-1")).thenReturn(MessageBatchWriterTest.message("c-1", 100L, 7L, 3L).dedup());
+
+        PersistResult result = service.persistChatMessage(CMD).join();
+
+        Assertions.assertTrue(result.persisted());
+        Assertions.assertEquals(100L, result.msgId());
+        Assertions.assertEquals(3L, result.seq());
+        Mockito.verifyNoInteractions(social, idGenerator, seqGenerator);
+        Mockito.verify(writer, Mockito.never()).writeOne(Mockito.any());
+    }
+
+    @Test
+    void shouldListMembersOnlyForNewSyncFanoutMessage() {
+        allow(MessageFlags.WRITE_FANOUT);
+        Mockito.when(idGenerator.nextId()).thenReturn(100L);
+        Mockito.when(seqGenerator.nextSeq(7L)).thenReturn(3L);
+        Mockito.when(social.listSessionMembers(7L)).thenReturn(ListSessionMembersResponse.getDefaultInstance());
+        Mockito.when(writer.writeOne(Mockito.any())).thenAnswer(inv -> ((PreparedMessage) inv.getArgument(0)).persisted());
+
+        PersistResult result = service.persistChatMessage(CMD).join();
+
+        Assertions.assertEquals(100L, result.msgId());
+        Mockito.verify(social).listSessionMembers(7L);
+    }
+
+    @Test
+    void shouldSkipLookupWithoutSyncFanout() {
+        allow(MessageFlags.WRITE_FANOUT | MessageFlags.ASYNC_FANOUT);
+        Mockito.when(idGenerator.nextId()).thenReturn(100L);
+        Mockito.when(writer.writeOne(Mockito.any())).thenAnswer(inv -> ((PreparedMessage) inv.getArgument(0)).persisted());
+
+        service.persistChatMessage(CMD).join();
+
+        Mockito.verify(writer, Mockito.never()).findStored(Mockito.any());
+        Mockito.verifyNoInteractions(social);
+    }
+
+    private void allow(long flags) {
+        Mockito.when(permissionCache.checkSendPermission(7L, 42L, 1))
+                .thenReturn(CheckSendPermissionResponse.newBuilder().setAllowed(true).setMessageFlags(flags).build());
+    }
+}
@@ -0,0 +1,119 @@
+package org.com.store.infrastructure.grpc;
+
+import org.com.shared.proto.social.session.v1.CheckSendPermissionResponse;
+import org.com.store.infrastructure.nacos.SessionOwnership;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.api.listener.StatusListener;
+import org.redisson.client.codec.Codec;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SendPermissionCacheTest {
+
+    private static final CheckSendPermissionResponse ALLOWED = CheckSendPermissionResponse.newBuilder().setAllowed(true).build();
+    private static final CheckSendPermissionResponse DENIED = CheckSendPermissionResponse.newBuilder()
+            .setAllowed(false).setReason("not_member").build();
+
+    private final SocialSessionGrpcClient social = Mockito.mock(SocialSessionGrpcClient.class);
+    private final SessionOwnership ownership = Mockito.mock(SessionOwnership.class);
+    private final SendPermissionCacheStats stats = new SendPermissionCacheStats();
+    private final AtomicReference<SessionOwnership.OwnershipListener> ownershipListener = new AtomicReference<>();
+    private final AtomicReference<StatusListener> statusListener = new AtomicReference<>();
+
+    @Test
+    void shouldDropLookupThatRacedWithInvalidation() {
+        SendPermissionCache cache = newCache("on", 5000);
+        // 回源期间收到失效通知：读到的是失效前的结论，不能写回缓存
+        Mockito.when(social.checkSendPermission(1L, 7L, 0)).thenAnswer(inv -> {
+            cache.invalidateSession(1L);
+            return ALLOWED;
+        }).thenReturn(DENIED);
+
+        Assertions.assertTrue(cache.checkSendPermission(1L, 7L, 0).getAllowed());
+        Assertions.assertEquals(0, cache.size());
+
+        Assertions.assertFalse(cache.checkSendPermission(1L, 7L, 0).getAllowed());
+        Assertions.assertFalse(cache.checkSendPermission(1L, 7L, 0).getAllowed());
+        Mockito.verify(social, Mockito.times(2)).checkSendPermission(1L, 7L, 0);
+        Assertions.assertEquals(1, stats.hits());
+    }
+
+    @Test
+    void shouldCompareInShadowModeWithoutRefreshingEntries() throws Exception {
+        SendPermissionCache cache = newCache("shadow", 200);
+        Mockito.when(social.checkSendPermission(1L, 7L, 0)).thenReturn(ALLOWED, DENIED, ALLOWED);
+
+        Assertions.assertTrue(cache.checkSendPermission(1L, 7L, 0).getAllowed());
+        // 影子模式命中也走 RPC，返回实时结论并记一次不一致
+        Assertions.assertFalse(cache.checkSendPermission(1L, 7L, 0).getAllowed());
+        Assertions.assertEquals(1, stats.hits());
+        Assertions.assertEquals(1, stats.shadowMismatches());
+
+        // 命中不续期：条目按首次写入的时间过期
+        Thread.sleep(300);
+        cache.checkSendPermission(1L, 7L, 0);
+        Assertions.assertEquals(2, stats.misses());
+        Mockito.verify(social, Mockito.times(3)).checkSendPermission(1L, 7L, 0);
+    }
+
+    @Test
+    void shouldClearAllEntriesOnResubscribe() {
+        SendPermissionCache cache = newCache("on", 5000);
+        Mockito.when(social.checkSendPermission(Mockito.anyLong(), Mockito.anyLong(), Mockito.anyInt())).thenReturn(ALLOWED);
+        cache.checkSendPermission(1L, 7L, 0);
+        cache.checkSendPermission(2L, 7L, 0);
+        Assertions.assertEquals(2, cache.size());
+
+        statusListener.get().onSubscribe("session-change");
+        Assertions.assertEquals(0, cache.size());
+
+        cache.checkSendPermission(1L, 7L, 0);
+        Mockito.verify(social, Mockito.times(2)).checkSendPermission(1L, 7L, 0);
+    }
+
+    @Test
+    void shouldInvalidateSessionsWhenOwnershipIsLost() {
+        SendPermissionCache cache = newCache("on", 5000);
+        Mockito.when(social.checkSendPermission(Mockito.anyLong(), Mockito.anyLong(), Mockito.anyInt())).thenReturn(ALLOWED);
+        cache.checkSendPermission(1L, 7L, 0);
+        cache.checkSendPermission(2L, 7L, 0);
+
+        ownershipListener.get().onOwnershipChanged(sessionId -> sessionId == 1L);
+        Assertions.assertEquals(1, cache.size());
+
+        cache.checkSendPermission(2L, 7L, 0);
+        Mockito.verify(social, Mockito.times(1)).checkSendPermission(2L, 7L, 0);
+        cache.checkSendPermission(1L, 7L, 0);
+        Mockito.verify(social, Mockito.times(2)).checkSendPermission(1L, 7L, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private SendPermissionCache newCache(String mode, long ttlMs) {
+        RTopic topic = Mockito.mock(RTopic.class);
+        Mockito.when(topic.addListener(Mockito.eq(String.class), Mockito.any(MessageListener.class))).thenReturn(1);
+        Mockito.when(topic.addListener(Mockito.any(StatusListener.class))).thenAnswer(inv -> {
+            statusListener.set(inv.getArgument(0));
+            return 2;
+        });
+        RedissonClient redissonClient = Mockito.mock(RedissonClient.class);
+        Mockito.when(redissonClient.getTopic(Mockito.anyString(), Mockito.any(Codec.class))).thenReturn(topic);
+        Mockito.doAnswer(inv -> {
+            ownershipListener.set(inv.getArgument(0));
+            return null;
+        }).when(ownership).addListener(Mockito.any());
+
+        SendPermissionCache cache = new SendPermissionCache(social, stats, ownership, redissonClient);
+        ReflectionTestUtils.setField(cache, "modeName", mode);
+        ReflectionTestUtils.setField(cache, "allowTtlMs", ttlMs);
+        ReflectionTestUtils.setField(cache, "denyTtlMs", ttlMs);
+        ReflectionTestUtils.setField(cache, "maxEntries", 1000);
+        cache.init();
+        return cache;
+    }
+}
@@ -0,0 +1,157 @@
+package org.com.store.infrastructure.seq;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在内嵌 Redis 上验证租约与栅栏脚本。
+ */
+public class SegmentSeqGeneratorTest {
+
+    private static final long SESSION_ID = 9L;
+    private static final String FENCE_KEY = "im:seq:session:9:lease";
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        redissonClient.getKeys().flushall();
+    }
+
+    @Test
+    void shouldIssueIncreasingSeqsAndHoldFenceForLargerSegments() {
+        SegmentSeqGenerator generator = newGenerator(1000);
+
+        long last = 0;
+        for (int i = 0; i < 20; i++) {
+            long seq = generator.nextSeq(SESSION_ID);
+            Assertions.assertTrue(seq > last, "seq must increase: " + seq + " after " + last);
+            last = seq;
+        }
+        // 号段随发送速率放大到大于 1 后，栅栏由本实例持有并带 ttl
+        Assertions.assertEquals(instanceId(generator), fence().get());
+        Assertions.assertTrue(fence().remainTimeToLive() > 0);
+    }
+
+    @Test
+    void shouldFailFastWithRetryableErrorWhileAnotherInstanceHoldsFence() {
+        SegmentSeqGenerator owner = holdFence();
+        SegmentSeqGenerator other = newGenerator(100);
+
+        long start = System.nanoTime();
+        Assertions.assertThrows(SeqLeaseUnavailableException.class, () -> other.nextSeq(SESSION_ID));
+        Assertions.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+
+        // 持有者交出租约后其他实例立即可以取号段，seq 接着已发出的部分继续
+        long ownerSeq = owner.nextSeq(SESSION_ID);
+        owner.releaseAll();
+        Assertions.assertFalse(fence().isExists());
+        Assertions.assertTrue(other.nextSeq(SESSION_ID) > ownerSeq);
+    }
+
+    @Test
+    void shouldReleaseOnlyOwnFence() {
+        SegmentSeqGenerator generator = holdFence();
+        fence().set("other-instance");
+
+        generator.releaseAll();
+        Assertions.assertEquals("other-instance", fence().get());
+    }
+
+    @Test
+    void shouldClearOwnFenceWhenFallingBackToSingleSeqs() {
+        SegmentSeqGenerator generator = holdFence();
+
+        // 号段退回 1 时不再需要栅栏，脚本顺手删掉自己持有的那个
+        ReflectionTestUtils.setField(generator, "maxSize", 1);
+        generator.nextSeq(SESSION_ID);
+        Assertions.assertFalse(fence().isExists());
+    }
+
+    @Test
+    void shouldNotBlockReleaseWhileRefillWaitsOnFence() throws Exception {
+        holdFence();
+        SegmentSeqGenerator waiting = newGenerator(2000);
+
+        CompletableFuture<Long> pending = CompletableFuture.supplyAsync(() -> waiting.nextSeq(SESSION_ID));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (waiting.activeLeases() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+
+        long start = System.nanoTime();
+        waiting.releaseIf(_id -> true);
+        Assertions.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500,
+                "release must not wait for the fenced refill");
+
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> pending.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(SeqLeaseUnavailableException.class, e.getCause());
+    }
+
+    /**
+     * 连续发号直到号段放大、本实例持有栅栏。
+     */
+    private static SegmentSeqGenerator holdFence() {
+        SegmentSeqGenerator generator = newGenerator(1000);
+        for (int i = 0; i < 20 && !fence().isExists(); i++) {
+            generator.nextSeq(SESSION_ID);
+        }
+        Assertions.assertEquals(instanceId(generator), fence().get());
+        return generator;
+    }
+
+    private static SegmentSeqGenerator newGenerator(long maxWaitMs) {
+        SegmentSeqGenerator generator = new SegmentSeqGenerator(redissonClient, new SeqLeaseStats());
+        ReflectionTestUtils.setField(generator, "maxSize", 1024);
+        ReflectionTestUtils.setField(generator, "targetLeaseMs", 1000L);
+        ReflectionTestUtils.setField(generator, "ttlMs", 3000L);
+        // 本地号段立即过期，每次发号都走脚本
+        ReflectionTestUtils.setField(generator, "safetyMarginMs", 3000L);
+        ReflectionTestUtils.setField(generator, "maxWaitMs", maxWaitMs);
+        return generator;
+    }
+
+    private static RBucket<String> fence() {
+        return redissonClient.getBucket(FENCE_KEY, StringCodec.INSTANCE);
+    }
+
+    private static String instanceId(SegmentSeqGenerator generator) {
+        return (String) ReflectionTestUtils.getField(generator, "instanceId");
+    }
+}
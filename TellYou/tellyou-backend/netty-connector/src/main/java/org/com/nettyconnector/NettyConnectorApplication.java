@@ -2,7 +2,9 @@ package org.com.nettyconnector;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling
 @SpringBootApplication(scanBasePackages = {"org.com.nettyconnector", "org.com.shared"})
 public class NettyConnectorApplication {
 
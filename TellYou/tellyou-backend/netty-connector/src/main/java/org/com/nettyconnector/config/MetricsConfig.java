@@ -0,0 +1,21 @@
+package org.com.nettyconnector.config;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * connector 没有 actuator，这里直接提供 Prometheus 注册表；所有指标统一带 gateway 标签，便于按 connector 区分。
+     */
+    @Bean(destroyMethod = "close")
+    public PrometheusMeterRegistry prometheusMeterRegistry(@Value("${gateway.id:connector-1}") String gatewayId) {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().commonTags("gateway", gatewayId);
+        return registry;
+    }
+}
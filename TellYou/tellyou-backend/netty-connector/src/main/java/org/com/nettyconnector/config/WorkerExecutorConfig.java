@@ -0,0 +1,48 @@
+package org.com.nettyconnector.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+@Configuration
+public class WorkerExecutorConfig {
+
+    /**
+     * JWT 验签线程池：队列有界，满了直接拒绝，由调用方回 AuthFail，避免重启后的认证风暴拖垮 eventLoop。
+     */
+    @Bean(name = "authVerifyExecutor")
+    public Executor authVerifyExecutor(
+            @Value("${netty.tcp.auth.verify-threads:2}") int threads,
+            @Value("${netty.tcp.auth.max-pending:1024}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("auth-verify-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * DeliverStream 请求处理线程池：每条流的在途数由 grpc.deliver-stream.max-in-flight 限制，队列满时该条以 internal_error 回执。
+     */
+    @Bean(name = "deliverStreamExecutor")
+    public Executor deliverStreamExecutor(
+            @Value("${grpc.deliver-stream.worker-threads:4}") int threads,
+            @Value("${grpc.deliver-stream.max-pending:4096}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("deliver-stream-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -3,13 +3,30 @@ package org.com.nettyconnector.domain.connection;
 import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ConnectionManager {
 
     void bindAuthenticated(ConnectionKey key, ConnectionMeta meta, Object connectionRef);
 
+    /**
+     * 凭 resume token 恢复会话：本机仍保留 resumedSessionId 对应的会话时挂回新连接（会话号换成 meta.sessionId，旧令牌随之作废）
+     * 并返回待补发的下行；会话不在本机时不做任何绑定，返回 null，由调用方按新会话绑定并让客户端拉取。
+     */
+    ResumeResult resumeAuthenticated(ConnectionKey key, ConnectionMeta meta, Object connectionRef, long resumedSessionId,
+                                     String lastServerMessageId);
+
+    void acknowledgeDelivery(ConnectionKey key, String serverMessageId);
+
     void unbindByChannelId(String channelId);
 
+    /**
+     * 连接断开时调用：仅当 key 当前绑定的仍是该 channel 时才解绑（或转入恢复窗口）。
+     */
+    default void unbindByChannel(ConnectionKey key, String channelId) {
+        unbindByChannelId(channelId);
+    }
+
     void unbind(ConnectionKey key);
 
     List<ConnectionMeta> listByUser(long userId);
@@ -17,4 +34,24 @@ public interface ConnectionManager {
     int onlineCount(long userId);
 
     SendResult sendToUser(long userId, Envelope envelope, SendFilter filter);
+
+    /**
+     * 同一 Envelope 发给多个用户，整体只序列化一次；返回结果与 targets 顺序一一对应。
+     */
+    List<SendResult> sendToUsers(List<SendTarget> targets, Envelope envelope);
+
+    /**
+     * 本地全部已认证连接的路由快照：userId -> (deviceId -> gatewayId)。
+     */
+    Map<Long, Map<String, String>> localRoutes();
+
+    /**
+     * 单个用户当前的本地路由 deviceId -> gatewayId；用户不在本机时返回空 map。
+     */
+    Map<String, String> localRoutes(long userId);
+
+    /**
+     * 停机前调用：返回当前路由快照，并让后续的连接断开跳过逐条 Redis 解绑。
+     */
+    Map<Long, Map<String, String>> releaseRoutes();
 }
@@ -1,10 +1,14 @@
 package org.com.nettyconnector.domain.connection;
 
+/**
+ * @param sessionId 可恢复会话 id，断线后凭 resume token 重新挂回；0 表示不支持恢复
+ */
 public record ConnectionMeta(
         String clientId,
         String gatewayId,
         String channelId,
         long connectedAtMs,
-        long authenticatedAtMs
+        long authenticatedAtMs,
+        long sessionId
 ) {
 }
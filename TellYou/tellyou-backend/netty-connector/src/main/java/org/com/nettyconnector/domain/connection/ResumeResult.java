@@ -0,0 +1,12 @@
+package org.com.nettyconnector.domain.connection;
+
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+
+import java.util.List;
+
+/**
+ * @param missed    断线期间未确认、需要补发的下行，按原发送顺序
+ * @param needsPull 本地缓冲无法覆盖断线区间（或会话不在本机），客户端需要拉取
+ */
+public record ResumeResult(List<ChatDeliver> missed, boolean needsPull) {
+}
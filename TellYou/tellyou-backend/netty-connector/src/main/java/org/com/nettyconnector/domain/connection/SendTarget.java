@@ -0,0 +1,4 @@
+package org.com.nettyconnector.domain.connection;
+
+public record SendTarget(long userId, SendFilter filter) {
+}
@@ -0,0 +1,133 @@
+package org.com.nettyconnector.infrastructure.auth;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * 断线恢复令牌：自包含的 HMAC-SHA256 签名串，任何持有同一 netty.tcp.resume.secret 的 connector 都能校验，
+ * 不需要共享存储。格式为 base64url(v2|userId|sessionId|expiresAtMs|authExpiresAtMs|deviceId).base64url(mac)。
+ * <p>
+ * 令牌自签发起 window-sec 内有效，且不超过最初认证所用 JWT 的过期时间（authExpiresAtMs，恢复后沿用）；
+ * 连接存活期间由 {@link #refreshIntervalMs()} 定期换发。令牌只能兑换一次：兑换时经 {@link ResumeTokenLedger} 在 Redis 上
+ * 占用会话号，恢复后会话号轮换，旧令牌在任何 connector 上都不能再用。
+ * <p>
+ * 未配置 secret 时使用启动时随机生成的密钥，令牌只在本进程内有效；require-secret=true 时直接拒绝启动。
+ */
+@Slf4j
+@Component
+public class ResumeTokenCodec {
+
+    private static final String VERSION = "v2";
+    private static final String HMAC = "HmacSHA256";
+
+    @Value("${netty.tcp.resume.secret:}")
+    private String secret;
+
+    @Value("${netty.tcp.resume.window-sec:120}")
+    private long windowSec;
+
+    @Value("${netty.tcp.resume.require-secret:false}")
+    private boolean requireSecret;
+
+    private SecretKeySpec key;
+
+    public record ResumeClaims(long userId, String deviceId, long sessionId, long expiresAtMs, long authExpiresAtMs) {
+    }
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            if (requireSecret && enabled()) {
+                throw new IllegalStateException("netty.tcp.resume.secret must be set when netty.tcp.resume.require-secret=true");
+            }
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            log.warn("netty.tcp.resume.secret not set, resume tokens are only valid on this connector instance");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, HMAC);
+    }
+
+    public boolean enabled() {
+        return windowSec > 0;
+    }
+
+    public int windowSec() {
+        return (int) windowSec;
+    }
+
+    /**
+     * 连接存活期间换发令牌的间隔：半个窗口，断线时客户端手里的令牌至少还剩半个窗口。
+     */
+    public long refreshIntervalMs() {
+        return Math.max(1000L, windowSec * 1000L / 2);
+    }
+
+    /**
+     * @param authExpiresAtMs 最初认证所用 JWT 的过期时间，0 表示不限
+     */
+    public String issue(long userId, String deviceId, long sessionId, long authExpiresAtMs) {
+        long expiresAtMs = System.currentTimeMillis() + windowSec * 1000L;
+        if (authExpiresAtMs > 0) {
+            expiresAtMs = Math.min(expiresAtMs, authExpiresAtMs);
+        }
+        String payload = VERSION + "|" + userId + "|" + sessionId + "|" + expiresAtMs + "|" + authExpiresAtMs + "|" + deviceId;
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * @return 签名无效、格式错误或已过期时返回 null
+     */
+    public ResumeClaims parse(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payloadBytes = decoder.decode(token.substring(0, dot));
+            byte[] mac = decoder.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(mac, sign(payloadBytes))) {
+                return null;
+            }
+            String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", 6);
+            if (parts.length != 6 || !VERSION.equals(parts[0])) {
+                return null;
+            }
+            long expiresAtMs = Long.parseLong(parts[3]);
+            if (expiresAtMs < System.currentTimeMillis()) {
+                return null;
+            }
+            return new ResumeClaims(Long.parseLong(parts[1]), parts[5], Long.parseLong(parts[2]), expiresAtMs, Long.parseLong(parts[4]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.com.nettyconnector.infrastructure.auth;
+
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * resume token 的兑换记录：兑换前以令牌中的会话号在 Redis 上 SET NX PX 占位，同一令牌在任意 connector 上只能兑换一次。
+ * 占位保留一个恢复窗口，令牌的有效期不会超过它。
+ */
+@Component
+public class ResumeTokenLedger {
+
+    private final RedissonClient redissonClient;
+    private final ResumeTokenCodec resumeTokenCodec;
+
+    public ResumeTokenLedger(RedissonClient redissonClient, ResumeTokenCodec resumeTokenCodec) {
+        this.redissonClient = redissonClient;
+        this.resumeTokenCodec = resumeTokenCodec;
+    }
+
+    private static String claimKey(long sessionId) {
+        return "gw:resume:claimed:" + sessionId;
+    }
+
+    /**
+     * @param gatewayId 兑换所在的 connector，只用于排查
+     * @return true 表示本次占位成功；false 表示令牌已被兑换过
+     */
+    public CompletableFuture<Boolean> claim(long sessionId, String gatewayId) {
+        return redissonClient.getBucket(claimKey(sessionId), StringCodec.INSTANCE)
+                .setIfAbsentAsync(gatewayId, Duration.ofSeconds(resumeTokenCodec.windowSec()))
+                .toCompletableFuture();
+    }
+}
@@ -0,0 +1,169 @@
+package org.com.nettyconnector.infrastructure.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.com.shared.infrastructure.jwt.JwtRsaKeys;
+import org.com.shared.infrastructure.jwt.JwtRsaTokenCodec;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TCP 认证用的 JWT 校验。
+ * <p>
+ * RSA 验签在独立的有界线程池（authVerifyExecutor）上执行，不占用 eventLoop；验签通过的 token 以 SHA-256 摘要为 key
+ * 缓存到过期时刻为止，断线重连、连接器重启后的集中重认证大多直接命中缓存。线程池队列满时立即以 503 拒绝。
+ */
+@Slf4j
+@Component
+public class TokenAuthenticator {
+
+    @Value("${jwt.public-key:}")
+    private String publicKeyPem;
+
+    @Value("${jwt.public-key-path:}")
+    private String publicKeyPath;
+
+    @Value("${jwt.uid-key:uid}")
+    private String uidKey;
+
+    @Value("${netty.tcp.auth.cache-max-ttl-sec:3600}")
+    private long cacheMaxTtlSec;
+
+    private final Executor authVerifyExecutor;
+    private final Cache<String, TokenVerification> verifiedTokens;
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    private volatile PublicKey cachedPublicKey;
+
+    public TokenAuthenticator(@Qualifier("authVerifyExecutor") Executor authVerifyExecutor,
+                              @Value("${netty.tcp.auth.cache-size:100000}") long cacheSize) {
+        this.authVerifyExecutor = authVerifyExecutor;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, TokenVerification>() {
+                    @Override
+                    public long expireAfterCreate(String key, TokenVerification value, long currentTime) {
+                        long ttlMs = value.expiresAtMs() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, ttlMs));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, TokenVerification value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, TokenVerification value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 缓存命中时返回已完成的 future（调用线程上完成），否则在验签线程池上完成。
+     */
+    public CompletableFuture<TokenVerification> authenticate(String token) {
+        String digest = digest(token);
+        TokenVerification cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                verifications.increment();
+                TokenVerification result = verify(token);
+                if (result.ok()) {
+                    verifiedTokens.put(digest, result);
+                }
+                return result;
+            }, authVerifyExecutor);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            return CompletableFuture.completedFuture(TokenVerification.failure(503, "auth_overloaded"));
+        }
+    }
+
+    private TokenVerification verify(String token) {
+        PublicKey publicKey;
+        try {
+            publicKey = getPublicKey();
+        } catch (RuntimeException e) {
+            log.warn("jwt public key unavailable: {}", e.getMessage());
+            return TokenVerification.failure(500, "auth_unavailable");
+        }
+        try {
+            Claims claims = JwtRsaTokenCodec.parseClaims(publicKey, token);
+            Long userId = claims.get(uidKey, Long.class);
+            if (userId == null || userId <= 0) {
+                return TokenVerification.failure(401, "missing_uid");
+            }
+            long maxExpiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(cacheMaxTtlSec);
+            Date exp = claims.getExpiration();
+            long expiresAt = exp == null ? maxExpiresAt : Math.min(exp.getTime(), maxExpiresAt);
+            return TokenVerification.success(userId, expiresAt);
+        } catch (ExpiredJwtException e) {
+            return TokenVerification.failure(401, "token_expired");
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("invalid jwt: {}", e.getMessage());
+            return TokenVerification.failure(401, "invalid_token");
+        }
+    }
+
+    private PublicKey getPublicKey() {
+        PublicKey key = cachedPublicKey;
+        if (key != null) {
+            return key;
+        }
+        synchronized (this) {
+            if (cachedPublicKey == null) {
+                cachedPublicKey = JwtRsaKeys.loadPublicKey(publicKeyPem, publicKeyPath);
+            }
+            return cachedPublicKey;
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long cacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long verifications() {
+        return verifications.sum();
+    }
+
+    public long rejections() {
+        return rejections.sum();
+    }
+}
@@ -0,0 +1,15 @@
+package org.com.nettyconnector.infrastructure.auth;
+
+/**
+ * 一次 token 校验的结果；失败时 userId 无意义，errorCode/reason 直接用于 AuthFail。
+ */
+public record TokenVerification(boolean ok, long userId, long expiresAtMs, int errorCode, String reason) {
+
+    public static TokenVerification success(long userId, long expiresAtMs) {
+        return new TokenVerification(true, userId, expiresAtMs, 0, "");
+    }
+
+    public static TokenVerification failure(int errorCode, String reason) {
+        return new TokenVerification(false, 0L, 0L, errorCode, reason);
+    }
+}
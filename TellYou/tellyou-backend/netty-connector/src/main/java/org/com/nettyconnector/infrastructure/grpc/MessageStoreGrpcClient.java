@@ -0,0 +1,153 @@
+package org.com.nettyconnector.infrastructure.grpc;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.com.shared.infrastructure.grpc.GrpcClientFactory;
+import org.com.shared.infrastructure.nacos.InstanceHashRing;
+import org.com.shared.infrastructure.nacos.NacosServiceDiscovery;
+import org.com.shared.proto.message.store.v1.MessageStoreServiceGrpc;
+import org.com.shared.proto.message.store.v1.PersistChatMessageRequest;
+import org.com.shared.proto.message.store.v1.PersistChatMessageResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * message-store-service 的异步客户端，供 eventLoop 直接发起调用。
+ * <p>
+ * 首次解析 Channel 需要访问 Nacos，这一步放在后台线程完成；stub 就绪之前的调用直接以 UNAVAILABLE 失败，
+ * 保证调用方线程永远不会阻塞。
+ * <p>
+ * 开启会话亲和时订阅 store 实例列表，按 sessionId 在一致性哈希环上选出归属实例，同一会话的写入总落在
+ * 同一个 store 上；成员增减时重建环并关闭已下线实例的 Channel。环为空时退回任选一个实例。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageStoreGrpcClient {
+
+    private static final String SERVICE_NAME = "message-store-service";
+
+    private final GrpcClientFactory grpcClientFactory;
+    private final NacosServiceDiscovery nacosServiceDiscovery;
+
+    @Value("${grpc.timeout.message-store-service:${grpc.timeout.default:3000}}")
+    private long messageStoreTimeoutMs;
+
+    @Value("${grpc.message-store.session-affinity:true}")
+    private boolean sessionAffinity;
+
+    @Value("${grpc.message-store.virtual-nodes:" + InstanceHashRing.DEFAULT_VIRTUAL_NODES + "}")
+    private int virtualNodes;
+
+    private volatile MessageStoreServiceGrpc.MessageStoreServiceStub stub;
+    private final AtomicBoolean resolving = new AtomicBoolean();
+
+    private volatile InstanceHashRing ring = InstanceHashRing.empty();
+    private final ConcurrentHashMap<String, MessageStoreServiceGrpc.MessageStoreServiceStub> ownerStubs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        resolveAsync();
+        if (sessionAffinity) {
+            CompletableFuture.runAsync(this::subscribeMembers);
+        }
+    }
+
+    public void persistChatMessage(PersistChatMessageRequest request, StreamObserver<PersistChatMessageResponse> observer) {
+        MessageStoreServiceGrpc.MessageStoreServiceStub s = ownerStub(request.getSessionId());
+        if (s == null) {
+            s = this.stub;
+        }
+        if (s == null) {
+            resolveAsync();
+            observer.onError(Status.UNAVAILABLE.withDescription("message-store channel not ready").asRuntimeException());
+            return;
+        }
+        s.withDeadlineAfter(messageStoreTimeoutMs, TimeUnit.MILLISECONDS).persistChatMessage(request, observer);
+    }
+
+    private MessageStoreServiceGrpc.MessageStoreServiceStub ownerStub(long sessionId) {
+        InstanceHashRing r = this.ring;
+        Instance owner = r.owner(sessionId);
+        if (owner == null) {
+            return null;
+        }
+        String id = InstanceHashRing.idOf(owner);
+        // Channel 惰性建连，这里只构造对象，不会阻塞 eventLoop
+        MessageStoreServiceGrpc.MessageStoreServiceStub s = ownerStubs.computeIfAbsent(id,
+                _id -> grpcClientFactory.createStub(SERVICE_NAME, owner, MessageStoreServiceGrpc::newStub));
+        // 环在查询之后被替换、实例已下线时，onMembersChanged 可能在这之前就清理过了：撤掉刚建的 stub 和 Channel
+        InstanceHashRing current = this.ring;
+        if (current != r && !isMember(current, id)) {
+            if (ownerStubs.remove(id, s)) {
+                grpcClientFactory.removeChannel(SERVICE_NAME, owner);
+            }
+            return null;
+        }
+        return s;
+    }
+
+    private static boolean isMember(InstanceHashRing r, String id) {
+        for (Instance instance : r.members()) {
+            if (InstanceHashRing.idOf(instance).equals(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void subscribeMembers() {
+        try {
+            onMembersChanged(nacosServiceDiscovery.subscribeAndCache(SERVICE_NAME, this::onMembersChanged));
+        } catch (Exception e) {
+            log.warn("message-store membership subscribe failed, falling back to any instance: {}", e.toString());
+        }
+    }
+
+    private synchronized void onMembersChanged(List<Instance> instances) {
+        InstanceHashRing previous = this.ring;
+        InstanceHashRing next = InstanceHashRing.of(instances, virtualNodes);
+        this.ring = next;
+
+        Set<String> alive = new HashSet<>();
+        for (Instance instance : next.members()) {
+            alive.add(InstanceHashRing.idOf(instance));
+        }
+        for (Instance instance : previous.members()) {
+            String id = InstanceHashRing.idOf(instance);
+            if (!alive.contains(id)) {
+                ownerStubs.remove(id);
+                grpcClientFactory.removeChannel(SERVICE_NAME, instance);
+            }
+        }
+        log.info("message-store ring rebuilt: members={} -> {}", previous.members().size(), next.members().size());
+    }
+
+    private void resolveAsync() {
+        if (stub != null || !resolving.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                this.stub = grpcClientFactory.createStub(SERVICE_NAME, MessageStoreServiceGrpc::newStub);
+                log.info("message-store gRPC stub ready");
+            } catch (Exception e) {
+                log.warn("message-store gRPC channel resolve failed: {}", e.toString());
+            } finally {
+                resolving.set(false);
+            }
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package org.com.nettyconnector.infrastructure.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.com.nettyconnector.domain.connection.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热路径上直接记录的指标：认证耗时、gRPC 下发耗时与下发结果、出站 encode+flush 耗时（采样）。
+ * <p>
+ * 其余计数都已在各个 *Stats bean 里用 LongAdder 累加，由 {@link ConnectorMetricsBinder} 在抓取时读取，
+ * 不在热路径上额外记录。
+ */
+@Component
+public class ConnectorMetrics {
+
+    private final Timer authOk;
+    private final Timer authFail;
+    private final Timer deliver;
+    private final Timer deliverBatch;
+    private final Timer writeFlush;
+    private final Counter delivered;
+    private final Counter offline;
+    private final Counter notWritable;
+    private final Counter errors;
+
+    public ConnectorMetrics(MeterRegistry registry) {
+        this.authOk = latency("connector.auth.latency", "认证（验签 + 绑定）耗时", Duration.ofSeconds(5))
+                .tag("result", "ok").register(registry);
+        this.authFail = latency("connector.auth.latency", "认证（验签 + 绑定）耗时", Duration.ofSeconds(5))
+                .tag("result", "fail").register(registry);
+        this.deliver = latency("connector.grpc.deliver.latency", "gRPC 下发在 connector 内的处理耗时", Duration.ofSeconds(1))
+                .tag("method", "DeliverChat").register(registry);
+        this.deliverBatch = latency("connector.grpc.deliver.latency", "gRPC 下发在 connector 内的处理耗时", Duration.ofSeconds(1))
+                .tag("method", "DeliverChatBatch").register(registry);
+        this.writeFlush = latency("connector.write.flush.latency", "单次出站 drain 的 encode + write + flush 耗时（采样）", Duration.ofMillis(100))
+                .register(registry);
+        this.delivered = outcome(registry, "delivered");
+        this.offline = outcome(registry, "offline");
+        this.notWritable = outcome(registry, "not_writable");
+        this.errors = outcome(registry, "error");
+    }
+
+    private static Timer.Builder latency(String name, String description, Duration max) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(max);
+    }
+
+    private static Counter outcome(MeterRegistry registry, String outcome) {
+        return Counter.builder("connector.deliver.targets")
+                .description("gRPC 下发按设备统计的结果")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    public void recordAuth(boolean ok, long nanos) {
+        (ok ? authOk : authFail).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDeliver(boolean batch, long nanos) {
+        (batch ? deliverBatch : deliver).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordOutcome(SendResult result) {
+        recordOutcome(result.delivered(), result.offline(), result.notWritable(), result.errors());
+    }
+
+    public void recordOutcome(int delivered, int offline, int notWritable, int errors) {
+        if (delivered > 0) {
+            this.delivered.increment(delivered);
+        }
+        if (offline > 0) {
+            this.offline.increment(offline);
+        }
+        if (notWritable > 0) {
+            this.notWritable.increment(notWritable);
+        }
+        if (errors > 0) {
+            this.errors.increment(errors);
+        }
+    }
+
+    public void recordWriteFlush(long nanos) {
+        writeFlush.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,165 @@
+package org.com.nettyconnector.infrastructure.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.com.nettyconnector.infrastructure.auth.TokenAuthenticator;
+import org.com.nettyconnector.infrastructure.netty.ConnectionDrainStats;
+import org.com.nettyconnector.infrastructure.netty.ConnectorChannelAttrs;
+import org.com.nettyconnector.infrastructure.netty.DeliveryAckStats;
+import org.com.nettyconnector.infrastructure.netty.IdleSweepStats;
+import org.com.nettyconnector.infrastructure.netty.OutboundBacklogStats;
+import org.com.nettyconnector.infrastructure.netty.PingFastPathHandler;
+import org.com.nettyconnector.infrastructure.netty.TcpServer;
+import org.com.nettyconnector.infrastructure.netty.TrafficCountingHandler;
+import org.com.nettyconnector.infrastructure.netty.WriteCoalescingStats;
+import org.com.nettyconnector.infrastructure.route.RouteLeaseStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 把已有的 LongAdder 统计、eventLoop 队列深度和连接状态注册成 Micrometer 指标。
+ * <p>
+ * 全部是抓取时才读取的 FunctionCounter / Gauge，热路径上没有额外开销；连接状态需要遍历连接，
+ * 结果缓存 {@link #CONNECTION_STATE_TTL_MS} 毫秒，同一次抓取的几个状态只遍历一遍。
+ */
+@Component
+@RequiredArgsConstructor
+public class ConnectorMetricsBinder {
+
+    private static final long CONNECTION_STATE_TTL_MS = 1000L;
+
+    @Value("${netty.metrics.flush-latency-sample-every:64}")
+    private int flushLatencySampleEvery;
+
+    private final MeterRegistry registry;
+    private final ConnectorMetrics connectorMetrics;
+    private final TcpServer tcpServer;
+    private final TrafficCountingHandler traffic;
+    private final WriteCoalescingStats writeStats;
+    private final OutboundBacklogStats backlogStats;
+    private final RouteLeaseStats routeLeaseStats;
+    private final TokenAuthenticator tokenAuthenticator;
+    private final IdleSweepStats idleSweepStats;
+    private final ConnectionDrainStats drainStats;
+    private final PingFastPathHandler pingFastPathHandler;
+    private final DeliveryAckStats deliveryAckStats;
+
+    private volatile ConnectionStates connectionStates = new ConnectionStates(0L, 0, 0, 0);
+
+    private record ConnectionStates(long sampledAtMs, int authenticated, int pendingAuth, int notWritable) {
+    }
+
+    @PostConstruct
+    public void bind() {
+        writeStats.onFlushLatency(flushLatencySampleEvery, connectorMetrics::recordWriteFlush);
+
+        bindEventLoops(tcpServer.workerGroup());
+
+        Gauge.builder("connector.connections", this, b -> b.connectionStates().authenticated())
+                .tag("state", "authenticated").register(registry);
+        Gauge.builder("connector.connections", this, b -> b.connectionStates().pendingAuth())
+                .tag("state", "pending_auth").register(registry);
+        Gauge.builder("connector.connections", this, b -> b.connectionStates().notWritable())
+                .tag("state", "not_writable").register(registry);
+
+        counter("connector.traffic.bytes", traffic, TrafficCountingHandler::bytesIn, "direction", "in");
+        counter("connector.traffic.bytes", traffic, TrafficCountingHandler::bytesOut, "direction", "out");
+
+        counter("connector.write.flushes", writeStats, WriteCoalescingStats::flushes);
+        counter("connector.write.messages", writeStats, WriteCoalescingStats::messages);
+        counter("connector.write.deliver.batches", writeStats, WriteCoalescingStats::deliverBatches);
+
+        gauge("connector.outbound.backlog.messages", backlogStats, OutboundBacklogStats::pendingMessages);
+        gauge("connector.outbound.backlog.bytes", backlogStats, OutboundBacklogStats::pendingBytes);
+        counter("connector.outbound.backlog.parked", backlogStats, OutboundBacklogStats::parkedMessages);
+        counter("connector.outbound.backlog.evictions", backlogStats, OutboundBacklogStats::evictions);
+        counter("connector.outbound.backlog.evicted.messages", backlogStats, OutboundBacklogStats::evictedMessages);
+
+        counter("connector.route.lease.cycles", routeLeaseStats, RouteLeaseStats::cycles);
+        counter("connector.route.lease.renewed", routeLeaseStats, RouteLeaseStats::renewedRoutes);
+        counter("connector.route.lease.failed.batches", routeLeaseStats, RouteLeaseStats::failedBatches);
+        gauge("connector.route.lease.last.cycle.ms", routeLeaseStats, RouteLeaseStats::lastCycleMs);
+
+        counter("connector.auth.token.cache.hits", tokenAuthenticator, TokenAuthenticator::cacheHits);
+        counter("connector.auth.token.verifications", tokenAuthenticator, TokenAuthenticator::verifications);
+        counter("connector.auth.token.rejections", tokenAuthenticator, TokenAuthenticator::rejections);
+
+        gauge("connector.idle.tracked", idleSweepStats, IdleSweepStats::trackedConnections);
+        counter("connector.idle.sweeps", idleSweepStats, IdleSweepStats::sweeps);
+        counter("connector.idle.scanned", idleSweepStats, IdleSweepStats::scannedConnections);
+        counter("connector.idle.closes", idleSweepStats, IdleSweepStats::idleCloses);
+
+        counter("connector.drain.runs", drainStats, ConnectionDrainStats::drains);
+        counter("connector.drain.reconnect.hints", drainStats, ConnectionDrainStats::reconnectHints);
+        counter("connector.drain.forced.closes", drainStats, ConnectionDrainStats::forcedCloses);
+
+        counter("connector.ping.fast.pongs", pingFastPathHandler, PingFastPathHandler::fastPongs);
+
+        gauge("connector.delivery.unacked", deliveryAckStats, DeliveryAckStats::unacked);
+        counter("connector.delivery.acked", deliveryAckStats, DeliveryAckStats::acked);
+        counter("connector.delivery.retransmits", deliveryAckStats, DeliveryAckStats::retransmits);
+        counter("connector.delivery.retransmits.deferred", deliveryAckStats, DeliveryAckStats::retransmitsDeferred);
+        counter("connector.delivery.exhausted", deliveryAckStats, DeliveryAckStats::exhausted);
+        counter("connector.delivery.window.overflows", deliveryAckStats, DeliveryAckStats::overflows);
+        counter("connector.delivery.pull.hints", deliveryAckStats, DeliveryAckStats::pullHints);
+    }
+
+    private void bindEventLoops(EventLoopGroup group) {
+        if (group == null) {
+            return;
+        }
+        int index = 0;
+        for (EventExecutor executor : group) {
+            if (executor instanceof SingleThreadEventExecutor loop) {
+                Gauge.builder("netty.eventloop.pending.tasks", loop, SingleThreadEventExecutor::pendingTasks)
+                        .description("eventLoop 任务队列中等待执行的任务数")
+                        .tag("loop", Integer.toString(index))
+                        .register(registry);
+            }
+            index++;
+        }
+    }
+
+    private ConnectionStates connectionStates() {
+        ConnectionStates states = connectionStates;
+        long now = System.currentTimeMillis();
+        if (now - states.sampledAtMs() < CONNECTION_STATE_TTL_MS) {
+            return states;
+        }
+        int authenticated = 0;
+        int pendingAuth = 0;
+        int notWritable = 0;
+        for (Channel ch : tcpServer.connections()) {
+            if (Boolean.TRUE.equals(ch.attr(ConnectorChannelAttrs.AUTHENTICATED).get())) {
+                authenticated++;
+            } else {
+                pendingAuth++;
+            }
+            if (!ch.isWritable()) {
+                notWritable++;
+            }
+        }
+        states = new ConnectionStates(now, authenticated, pendingAuth, notWritable);
+        connectionStates = states;
+        return states;
+    }
+
+    private <T> void counter(String name, T source, ToLongFunction<T> value, String... tags) {
+        FunctionCounter.builder(name, source, s -> value.applyAsLong(s)).tags(tags).register(registry);
+    }
+
+    private <T> void gauge(String name, T source, ToLongFunction<T> value) {
+        ToDoubleFunction<T> asDouble = s -> value.applyAsLong(s);
+        Gauge.builder(name, source, asDouble).register(registry);
+    }
+}
@@ -0,0 +1,90 @@
+package org.com.nettyconnector.infrastructure.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Prometheus 抓取端点：connector 不带 web 容器，用 JDK 自带的 HttpServer 在独立端口上输出文本格式。
+ * 单线程处理请求，抓取本身不会占用 eventLoop。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PrometheusScrapeServer {
+
+    @Value("${netty.metrics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${netty.metrics.port:9464}")
+    private int port;
+
+    @Value("${netty.metrics.path:/metrics}")
+    private String path;
+
+    private final PrometheusMeterRegistry registry;
+
+    private HttpServer server;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(path, this::scrape);
+        server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metrics-scrape");
+            t.setDaemon(true);
+            return t;
+        }));
+        server.start();
+        log.info("Prometheus metrics exposed on port={}, path={}", server.getAddress().getPort(), path);
+    }
+
+    private void scrape(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", TextFormat.CONTENT_TYPE_004);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * 实际监听端口（配置为 0 时由系统分配），未启动时返回 -1。
+     */
+    public int port() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            if (server.getExecutor() instanceof ExecutorService executor) {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
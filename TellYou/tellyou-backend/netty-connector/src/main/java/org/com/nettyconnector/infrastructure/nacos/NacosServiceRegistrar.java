@@ -9,6 +9,7 @@ import org.springframework.stereotype.Component;
 import java.net.InetAddress;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Component
@@ -39,6 +40,7 @@ public class NacosServiceRegistrar {
     private int tcpPort;
 
     private org.com.shared.infrastructure.nacos.NacosServiceRegistrar sharedRegistrar;
+    private final AtomicBoolean deregistered = new AtomicBoolean();
 
     @PostConstruct
     public void register() {
@@ -62,16 +64,30 @@ public class NacosServiceRegistrar {
         }
     }
 
+    /**
+     * 只从 Nacos 注销本实例，不关闭客户端；连接迁移开始前调用，重复调用无副作用。
+     */
+    public void deregisterInstance() {
+        if (sharedRegistrar == null || !deregistered.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sharedRegistrar.deregister(serviceName, resolveIp(), grpcPort);
+            log.info("Nacos注销成功: service={}, gateway.id={}", serviceName, gatewayId);
+        } catch (Exception e) {
+            log.warn("Nacos注销失败: service={} group={}", serviceName, group, e);
+        }
+    }
+
     @PreDestroy
     public void deregister() {
+        deregisterInstance();
         try {
-            String ip = resolveIp();
             if (sharedRegistrar != null) {
-                sharedRegistrar.deregister(serviceName, ip, grpcPort);
                 sharedRegistrar.shutdown();
             }
         } catch (Exception e) {
-            log.warn("Nacos注销失败: service={} group={}", serviceName, group, e);
+            log.warn("Nacos客户端关闭失败: service={} group={}", serviceName, group, e);
         }
     }
 
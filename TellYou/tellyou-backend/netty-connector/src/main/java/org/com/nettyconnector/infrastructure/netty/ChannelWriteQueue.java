@@ -0,0 +1,297 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import com.google.protobuf.MessageLite;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.Channel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.PlatformDependent;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliverBatch;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个 channel 的出站聚合队列。
+ * <p>
+ * 任意线程都可以 {@link #enqueue(Object)}，消息先进入无锁 MPSC 队列；同一个 eventLoop tick 内
+ * 只投递一次 drain 任务，drain 时把积压的消息全部 write，最后只 flush 一次。
+ * <p>
+ * 客户端声明支持批量下行时（{@link DeliverBatching}），drain 任务延后 windowMs 执行，
+ * 连续的 ChatDeliver 会被重新打包成一个 ChatDeliverBatch 帧。
+ * <p>
+ * channel 越过写缓冲高水位（isWritable=false）时不再继续 write，剩余消息转入仅由 eventLoop 访问的
+ * 积压队列，等 {@link #onWritable()}（channelWritabilityChanged）时按原顺序续写；积压超过
+ * {@link OutboundBacklogLimits} 时判定为慢消费者，释放全部积压并断开连接。
+ */
+public final class ChannelWriteQueue implements Runnable {
+
+    /**
+     * 单次 drain 的上限，避免一个热点 channel 长时间霸占 eventLoop。
+     */
+    private static final int MAX_WRITES_PER_DRAIN = 1024;
+
+    /**
+     * 每条连接都有一个队列，默认的 1024 槽 chunk 常驻约 4KB；绝大多数连接同时在途的下行只有几条，
+     * 用小 chunk 按需串接，突发时再扩展。容量上限只是形式上的，实际积压由 {@link OutboundBacklogLimits} 控制。
+     */
+    private static final int QUEUE_CHUNK_SIZE = 16;
+    private static final int QUEUE_MAX_CAPACITY = 1 << 30;
+
+    private final Channel channel;
+    private final WriteCoalescingStats stats;
+    private final DeliverBatching batching;
+    private final OutboundBacklogLimits limits;
+    private final OutboundBacklogStats backlogStats;
+    private final Queue<Object> pending = PlatformDependent.newMpscQueue(QUEUE_CHUNK_SIZE, QUEUE_MAX_CAPACITY);
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * 不可写期间的积压，只在 eventLoop 上读写；比 pending 中的消息更早，续写时优先发出。首次积压时才创建。
+     */
+    private ArrayDeque<Object> parked;
+    private long parkedBytes;
+    private volatile boolean parkedAny;
+    private volatile boolean evicted;
+
+    public ChannelWriteQueue(Channel channel, WriteCoalescingStats stats) {
+        this(channel, stats, null);
+    }
+
+    public ChannelWriteQueue(Channel channel, WriteCoalescingStats stats, DeliverBatching batching) {
+        this(channel, stats, batching, OutboundBacklogLimits.DEFAULT, new OutboundBacklogStats());
+    }
+
+    public ChannelWriteQueue(Channel channel, WriteCoalescingStats stats, DeliverBatching batching,
+                             OutboundBacklogLimits limits, OutboundBacklogStats backlogStats) {
+        this.channel = channel;
+        this.stats = stats;
+        this.batching = batching;
+        this.limits = limits;
+        this.backlogStats = backlogStats;
+    }
+
+    /**
+     * @return false 表示该连接已因积压溢出被驱逐，消息已释放
+     */
+    public boolean enqueue(Object msg) {
+        if (evicted) {
+            ReferenceCountUtil.safeRelease(msg);
+            return false;
+        }
+        if (!pending.offer(msg)) {
+            ReferenceCountUtil.safeRelease(msg);
+            return false;
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                schedule();
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                releasePending();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 是否还有消息滞留在本机未写到网络：有积压，或 channel 出站缓冲在高水位之上。任意线程可调用。
+     */
+    public boolean backlogged() {
+        return parkedAny || !channel.isWritable();
+    }
+
+    /**
+     * channel 回到低水位以下时由 channelWritabilityChanged 调用（eventLoop 线程）。
+     */
+    public void onWritable() {
+        if (hasParked() || !pending.isEmpty()) {
+            run();
+        }
+    }
+
+    /**
+     * 连接断开时释放积压（eventLoop 线程）。
+     */
+    public void discard() {
+        releaseParked();
+        releasePending();
+    }
+
+    private void schedule() {
+        if (batching != null && batching.windowMs() > 0) {
+            channel.eventLoop().schedule(this, batching.windowMs(), TimeUnit.MILLISECONDS);
+        } else {
+            channel.eventLoop().execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        // 先清标记再 drain：drain 期间新入队的消息会触发下一轮调度，不会丢
+        scheduled.set(false);
+
+        if (!channel.isActive() || evicted) {
+            discard();
+            return;
+        }
+
+        boolean timed = stats.sampleFlushLatency();
+        long startNanos = timed ? System.nanoTime() : 0L;
+        int written = 0;
+        int messages = 0;
+        List<EncodedFrame> batch = null;
+        Object msg;
+        while (written < MAX_WRITES_PER_DRAIN && channel.isWritable() && (msg = poll()) != null) {
+            messages++;
+            if (batching != null && msg instanceof EncodedFrame frame && frame.isChatDeliver()) {
+                if (batch == null) {
+                    batch = new ArrayList<>(Math.min(batching.maxSize(), 16));
+                }
+                batch.add(frame);
+                if (batch.size() >= batching.maxSize()) {
+                    writeBatch(batch);
+                    written++;
+                }
+                continue;
+            }
+
+            // 保持顺序：非 ChatDeliver 消息之前积攒的批次先写出
+            if (batch != null && !batch.isEmpty()) {
+                writeBatch(batch);
+                written++;
+            }
+            channel.write(msg, channel.voidPromise());
+            written++;
+        }
+        if (batch != null && !batch.isEmpty()) {
+            writeBatch(batch);
+            written++;
+        }
+
+        if (written > 0) {
+            channel.flush();
+            stats.recordFlush(messages);
+            if (timed) {
+                stats.recordFlushLatency(System.nanoTime() - startNanos);
+            }
+        }
+
+        if (!channel.isWritable()) {
+            // 等待 channelWritabilityChanged，期间新入队的消息同样转入积压
+            park();
+            return;
+        }
+        parkedAny = hasParked();
+        if ((hasParked() || !pending.isEmpty()) && scheduled.compareAndSet(false, true)) {
+            channel.eventLoop().execute(this);
+        }
+    }
+
+    private Object poll() {
+        Object msg = parked == null ? null : parked.poll();
+        if (msg == null) {
+            return pending.poll();
+        }
+        long bytes = sizeOf(msg);
+        parkedBytes -= bytes;
+        backlogStats.recordUnparked(bytes);
+        return msg;
+    }
+
+    private void park() {
+        Object msg;
+        while ((msg = pending.poll()) != null) {
+            long bytes = sizeOf(msg);
+            if (parked == null) {
+                parked = new ArrayDeque<>();
+            }
+            parked.add(msg);
+            parkedBytes += bytes;
+            backlogStats.recordParked(bytes);
+        }
+        if (parked == null) {
+            return;
+        }
+        parkedAny = !parked.isEmpty();
+        if (parked.size() > limits.maxMessages() || parkedBytes > limits.maxBytes()) {
+            evicted = true;
+            backlogStats.recordEviction(parked.size());
+            discard();
+            channel.close();
+        }
+    }
+
+    private static long sizeOf(Object msg) {
+        if (msg instanceof ByteBufHolder holder) {
+            return holder.content().readableBytes();
+        }
+        if (msg instanceof ByteBuf buf) {
+            return buf.readableBytes();
+        }
+        if (msg instanceof MessageLite message) {
+            return message.getSerializedSize();
+        }
+        return 0L;
+    }
+
+    private void writeBatch(List<EncodedFrame> batch) {
+        if (batch.size() == 1) {
+            channel.write(batch.get(0), channel.voidPromise());
+            batch.clear();
+            return;
+        }
+
+        Envelope first = batch.get(0).envelope();
+        ChatDeliverBatch.Builder delivers = ChatDeliverBatch.newBuilder();
+        for (EncodedFrame frame : batch) {
+            delivers.addDelivers(frame.envelope().getChatDeliver());
+            frame.release();
+        }
+        stats.recordDeliverBatch(batch.size());
+        batch.clear();
+
+        Envelope envelope = Envelope.newBuilder()
+                .setVersion(first.getVersion())
+                .setTimestampMs(System.currentTimeMillis())
+                .setTraceId(first.getTraceId())
+                .setChatDeliverBatch(delivers)
+                .build();
+        EnvelopeFrames frames = new EnvelopeFrames(envelope);
+        try {
+            channel.write(frames.newFrame(channel), channel.voidPromise());
+        } finally {
+            frames.release();
+        }
+    }
+
+    private boolean hasParked() {
+        return parked != null && !parked.isEmpty();
+    }
+
+    private void releaseParked() {
+        if (parked == null) {
+            return;
+        }
+        Object msg;
+        while ((msg = parked.poll()) != null) {
+            backlogStats.recordUnparked(sizeOf(msg));
+            ReferenceCountUtil.safeRelease(msg);
+        }
+        parkedBytes = 0L;
+        parkedAny = false;
+    }
+
+    private void releasePending() {
+        Object msg;
+        while ((msg = pending.poll()) != null) {
+            ReferenceCountUtil.safeRelease(msg);
+        }
+    }
+}
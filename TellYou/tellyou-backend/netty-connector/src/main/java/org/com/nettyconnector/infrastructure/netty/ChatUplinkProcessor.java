@@ -0,0 +1,183 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.com.nettyconnector.infrastructure.grpc.MessageStoreGrpcClient;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatUplink;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.com.nettyconnector.proto.connector.tcp.v1.PersistedAck;
+import org.com.nettyconnector.proto.connector.tcp.v1.PersistedAckStatus;
+import org.com.nettyconnector.proto.connector.tcp.v1.UplinkAck;
+import org.com.nettyconnector.proto.connector.tcp.v1.UplinkAckStatus;
+import org.com.shared.proto.message.store.v1.PersistChatMessageRequest;
+import org.com.shared.proto.message.store.v1.PersistChatMessageResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * ChatUplink 处理：立即回 UplinkAck，异步调用 message-store 落库，完成后回 PersistedAck。
+ * <p>
+ * 每个连接的在途上行数受 netty.tcp.uplink.max-in-flight 约束：达到上限时关闭 autoRead，
+ * 由 TCP 窗口把压力传回客户端；在途数回落到一半以下再恢复读取。已解码但尚未处理的帧仍会被接收，
+ * 超过上限两倍的直接 REJECTED。gRPC 回调统一切回 channel 的 eventLoop，窗口状态只在 eventLoop 上变更。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatUplinkProcessor {
+
+    @Value("${netty.tcp.uplink.max-in-flight:64}")
+    private int maxInFlight;
+
+    private final MessageStoreGrpcClient messageStoreGrpcClient;
+
+    public void handle(ChannelHandlerContext ctx, Envelope req) {
+        ChatUplink uplink = req.getChatUplink();
+        String clientMessageId = uplink.getClientMessageId();
+        if (clientMessageId.isBlank()) {
+            writeUplinkAck(ctx, req, clientMessageId, UplinkAckStatus.REJECTED, "missing_client_message_id");
+            return;
+        }
+        if (uplink.getSessionId() <= 0) {
+            writeUplinkAck(ctx, req, clientMessageId, UplinkAckStatus.REJECTED, "invalid_session_id");
+            return;
+        }
+
+        Channel ch = ctx.channel();
+        UplinkWindow window = window(ch);
+        int limit = Math.max(1, maxInFlight);
+        if (window.inFlight >= limit * 2) {
+            writeUplinkAck(ctx, req, clientMessageId, UplinkAckStatus.REJECTED, "too_many_in_flight");
+            return;
+        }
+
+        window.inFlight++;
+        if (window.inFlight >= limit && !window.readSuspended) {
+            window.readSuspended = true;
+            ch.config().setAutoRead(false);
+        }
+        writeUplinkAck(ctx, req, clientMessageId, UplinkAckStatus.ACCEPTED, "");
+
+        Long senderId = ch.attr(ConnectorChannelAttrs.USER_ID).get();
+        PersistChatMessageRequest.Builder request = PersistChatMessageRequest.newBuilder()
+                .setClientMessageId(clientMessageId)
+                .setType(uplink.getType())
+                .setTargetId(uplink.getTargetId())
+                .setSessionId(uplink.getSessionId())
+                .setSenderId(senderId == null ? 0L : senderId)
+                .setContent(uplink.getContent())
+                .setClientTimeMs(uplink.getClientTimeMs())
+                .setPartitionId(uplink.getPartitionId())
+                .setAppearance(uplink.getAppearance())
+                .setTraceId(req.getTraceId());
+        if (uplink.hasExtra()) {
+            request.setExtra(uplink.getExtra());
+        }
+
+        try {
+            messageStoreGrpcClient.persistChatMessage(request.build(), new PersistObserver(ctx, req, clientMessageId));
+        } catch (Exception e) {
+            complete(ctx, req, clientMessageId, null, Status.fromThrowable(e));
+        }
+    }
+
+    private void complete(ChannelHandlerContext ctx, Envelope req, String clientMessageId,
+                          PersistChatMessageResponse response, Status error) {
+        Channel ch = ctx.channel();
+        UplinkWindow window = window(ch);
+        window.inFlight--;
+        if (window.readSuspended && window.inFlight <= Math.max(1, maxInFlight) / 2) {
+            window.readSuspended = false;
+            ch.config().setAutoRead(true);
+        }
+        if (!ch.isActive()) {
+            return;
+        }
+
+        PersistedAck.Builder ack = PersistedAck.newBuilder().setClientMessageId(clientMessageId);
+        if (response != null && response.getPersisted()) {
+            ack.setStatus(PersistedAckStatus.PERSISTED).setServerMessageId(response.getServerMessageId());
+        } else {
+            String reason = response != null ? response.getReason() : error.getCode().name();
+            ack.setStatus(PersistedAckStatus.FAILED).setReason(reason);
+        }
+        ctx.writeAndFlush(Envelope.newBuilder()
+                .setVersion(req.getVersion())
+                .setStreamId(req.getStreamId())
+                .setTimestampMs(System.currentTimeMillis())
+                .setTraceId(req.getTraceId())
+                .setPersistedAck(ack.build())
+                .build());
+    }
+
+    private void writeUplinkAck(ChannelHandlerContext ctx, Envelope req, String clientMessageId,
+                                UplinkAckStatus status, String reason) {
+        ctx.writeAndFlush(Envelope.newBuilder()
+                .setVersion(req.getVersion())
+                .setStreamId(req.getStreamId())
+                .setTimestampMs(System.currentTimeMillis())
+                .setTraceId(req.getTraceId())
+                .setUplinkAck(UplinkAck.newBuilder()
+                        .setClientMessageId(clientMessageId)
+                        .setStatus(status)
+                        .setReason(reason)
+                        .build())
+                .build());
+    }
+
+    private static UplinkWindow window(Channel ch) {
+        UplinkWindow window = ch.attr(ConnectorChannelAttrs.UPLINK_WINDOW).get();
+        if (window == null) {
+            window = new UplinkWindow();
+            ch.attr(ConnectorChannelAttrs.UPLINK_WINDOW).set(window);
+        }
+        return window;
+    }
+
+    /**
+     * gRPC 回调线程上只做结果暂存和切线程，不触碰 channel 状态。
+     */
+    private final class PersistObserver implements StreamObserver<PersistChatMessageResponse> {
+
+        private final ChannelHandlerContext ctx;
+        private final Envelope req;
+        private final String clientMessageId;
+        private PersistChatMessageResponse response;
+
+        private PersistObserver(ChannelHandlerContext ctx, Envelope req, String clientMessageId) {
+            this.ctx = ctx;
+            this.req = req;
+            this.clientMessageId = clientMessageId;
+        }
+
+        @Override
+        public void onNext(PersistChatMessageResponse value) {
+            this.response = value;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.warn("persist chat uplink failed, clientMessageId={}, cause={}", clientMessageId, t.toString());
+            finish(null, Status.fromThrowable(t));
+        }
+
+        @Override
+        public void onCompleted() {
+            finish(response, response == null ? Status.UNKNOWN.withDescription("empty_response") : null);
+        }
+
+        private void finish(PersistChatMessageResponse resp, Status error) {
+            try {
+                ctx.executor().execute(() -> complete(ctx, req, clientMessageId, resp, error));
+            } catch (RejectedExecutionException ignored) {
+                // eventLoop 已关闭，连接随之销毁，无需再回 ack
+            }
+        }
+    }
+}
@@ -0,0 +1,514 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.channel.Channel;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+import org.com.nettyconnector.domain.connection.ConnectionKey;
+import org.com.nettyconnector.domain.connection.ConnectionManager;
+import org.com.nettyconnector.domain.connection.ConnectionMeta;
+import org.com.nettyconnector.domain.connection.ResumeResult;
+import org.com.nettyconnector.domain.connection.SendFilter;
+import org.com.nettyconnector.domain.connection.SendResult;
+import org.com.nettyconnector.domain.connection.SendTarget;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.com.shared.infrastructure.redis.OnlineRouteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 面向单机百万连接的紧凑连接注册表（netty.tcp.connection-registry=compact）。
+ * <p>
+ * userId 按哈希分到若干 stripe，每个 stripe 是一张原始 long 键的开放寻址表（{@link LongObjectHashMap}），
+ * 值为该用户的设备数组，变更时整体替换（copy-on-write），读路径只在锁内取数组引用。
+ * 与 {@link NettyConnectionManager} 相比省掉了 Long 装箱、每用户一张内层 ConcurrentHashMap、
+ * ConnectionMeta / ConnectionKey 对象和 channelId 反查索引；deviceId、clientId、gatewayId 统一 intern。
+ * <p>
+ * 连接断开走 {@link #unbindByChannel(ConnectionKey, String)} 直接定位；{@link #unbindByChannelId(String)}
+ * 没有反查索引，需要扫描全部 stripe，只作兜底。
+ */
+@Component
+@ConditionalOnProperty(name = "netty.tcp.connection-registry", havingValue = "compact")
+public class CompactConnectionManager implements ConnectionManager {
+
+    private static final Device[] NO_DEVICES = new Device[0];
+
+    /**
+     * channel 为 null 表示连接已断开、会话处于可恢复窗口内（detached）：路由保留，下行只记入 ring。
+     */
+    private record Device(String deviceId, String clientId, String gatewayId, String channelId,
+                          Channel channel, ChannelWriteQueue writeQueue, DeliverRing ring,
+                          long connectedAtMs, long authenticatedAtMs, long sessionId) {
+
+        boolean detached() {
+            return channel == null;
+        }
+
+        Device detach() {
+            return new Device(deviceId, clientId, gatewayId, channelId, null, null, ring,
+                    connectedAtMs, authenticatedAtMs, sessionId);
+        }
+
+        ConnectionMeta meta() {
+            return new ConnectionMeta(clientId, gatewayId, channelId, connectedAtMs, authenticatedAtMs, sessionId);
+        }
+    }
+
+    private static final class Stripe {
+        final LongObjectHashMap<Device[]> users = new LongObjectHashMap<>();
+    }
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    private final OnlineRouteRepository onlineRouteRepository;
+    private final WriteCoalescingStats writeCoalescingStats;
+    private final OutboundBacklogStats outboundBacklogStats;
+
+    private volatile boolean routesReleased;
+
+    @Value("${gateway.route.ttl-seconds:300}")
+    private long routeTtlSeconds;
+
+    @Value("${netty.tcp.outbound-backlog.max-messages:1024}")
+    private int backlogMaxMessages;
+
+    @Value("${netty.tcp.outbound-backlog.max-bytes:4194304}")
+    private long backlogMaxBytes;
+
+    @Value("${netty.tcp.resume.window-sec:120}")
+    private long resumeWindowSec;
+
+    @Value("${netty.tcp.resume.buffer-size:64}")
+    private int resumeBufferSize;
+
+    public CompactConnectionManager(OnlineRouteRepository onlineRouteRepository,
+                                    WriteCoalescingStats writeCoalescingStats,
+                                    OutboundBacklogStats outboundBacklogStats,
+                                    @Value("${netty.tcp.connection-registry-stripes:64}") int stripeCount) {
+        this.onlineRouteRepository = onlineRouteRepository;
+        this.writeCoalescingStats = writeCoalescingStats;
+        this.outboundBacklogStats = outboundBacklogStats;
+        int n = Integer.highestOneBit(Math.max(1, Math.min(stripeCount, 1 << 16)) * 2 - 1);
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = n - 1;
+    }
+
+    private Stripe stripe(long userId) {
+        long h = userId * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h ^ (h >>> 32)) & stripeMask];
+    }
+
+    private Device[] devices(long userId) {
+        Stripe stripe = stripe(userId);
+        synchronized (stripe) {
+            Device[] devices = stripe.users.get(userId);
+            return devices == null ? NO_DEVICES : devices;
+        }
+    }
+
+    private static int indexOf(Device[] devices, String deviceId) {
+        for (int i = 0; i < devices.length; i++) {
+            if (devices[i].deviceId.equals(deviceId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Device find(Device[] devices, String deviceId) {
+        int i = indexOf(devices, deviceId);
+        return i < 0 ? null : devices[i];
+    }
+
+    /**
+     * 在 stripe 锁内调用：替换或追加，返回被替换的旧设备。
+     */
+    private static Device put(Stripe stripe, long userId, Device device) {
+        Device[] devices = stripe.users.get(userId);
+        if (devices == null) {
+            stripe.users.put(userId, new Device[]{device});
+            return null;
+        }
+        int i = indexOf(devices, device.deviceId);
+        Device[] next;
+        Device old = null;
+        if (i >= 0) {
+            old = devices[i];
+            next = devices.clone();
+            next[i] = device;
+        } else {
+            next = Arrays.copyOf(devices, devices.length + 1);
+            next[devices.length] = device;
+        }
+        stripe.users.put(userId, next);
+        return old;
+    }
+
+    /**
+     * 在 stripe 锁内调用：仅当当前设备就是 expected 时移除。
+     */
+    private static boolean remove(Stripe stripe, long userId, Device expected) {
+        Device[] devices = stripe.users.get(userId);
+        if (devices == null) {
+            return false;
+        }
+        int i = -1;
+        for (int j = 0; j < devices.length; j++) {
+            if (devices[j] == expected) {
+                i = j;
+                break;
+            }
+        }
+        if (i < 0) {
+            return false;
+        }
+        if (devices.length == 1) {
+            stripe.users.remove(userId);
+        } else {
+            Device[] next = new Device[devices.length - 1];
+            System.arraycopy(devices, 0, next, 0, i);
+            System.arraycopy(devices, i + 1, next, i, devices.length - i - 1);
+            stripe.users.put(userId, next);
+        }
+        return true;
+    }
+
+    private static String intern(String value) {
+        return value == null ? null : value.intern();
+    }
+
+    @Override
+    public void bindAuthenticated(ConnectionKey key, ConnectionMeta meta, Object connectionRef) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(meta, "meta");
+        attach(key, meta, channelOf(connectionRef), newRing(meta), null);
+    }
+
+    @Override
+    public ResumeResult resumeAuthenticated(ConnectionKey key, ConnectionMeta meta, Object connectionRef, long resumedSessionId,
+                                            String lastServerMessageId) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(meta, "meta");
+        Channel channel = channelOf(connectionRef);
+
+        Device previous = find(devices(key.userId()), key.deviceId());
+        if (previous == null || previous.ring == null || previous.sessionId != resumedSessionId) {
+            // 会话不在本机（换了 connector、已过恢复窗口或令牌已被用过）
+            return null;
+        }
+
+        List<ChatDeliver> missed = previous.ring.since(lastServerMessageId);
+        // 只替换仍是 previous 的绑定：同一令牌并发恢复时只有一个能成功
+        if (!attach(key, meta, channel, previous.ring, previous)) {
+            return null;
+        }
+        return missed == null ? new ResumeResult(List.of(), true) : new ResumeResult(missed, false);
+    }
+
+    @Override
+    public void acknowledgeDelivery(ConnectionKey key, String serverMessageId) {
+        Device device = find(devices(key.userId()), key.deviceId());
+        if (device != null && device.ring != null) {
+            device.ring.ack(serverMessageId);
+        }
+    }
+
+    private static Channel channelOf(Object connectionRef) {
+        if (!(connectionRef instanceof Channel channel)) {
+            throw new IllegalArgumentException("connectionRef must be a Netty Channel");
+        }
+        return channel;
+    }
+
+    private DeliverRing newRing(ConnectionMeta meta) {
+        return meta.sessionId() != 0 && resumeWindowSec > 0 && resumeBufferSize > 0 ? new DeliverRing(resumeBufferSize) : null;
+    }
+
+    /**
+     * @param expected 非 null 时只在当前绑定仍是它时才替换，否则不做任何改动并返回 false
+     */
+    private boolean attach(ConnectionKey key, ConnectionMeta meta, Channel channel, DeliverRing ring, Device expected) {
+        ChannelWriteQueue writeQueue = new ChannelWriteQueue(channel, writeCoalescingStats,
+                channel.attr(ConnectorChannelAttrs.DELIVER_BATCHING).get(),
+                new OutboundBacklogLimits(backlogMaxMessages, backlogMaxBytes), outboundBacklogStats);
+        Device device = new Device(intern(key.deviceId()), intern(meta.clientId()), intern(meta.gatewayId()), meta.channelId(),
+                channel, writeQueue, ring, meta.connectedAtMs(), meta.authenticatedAtMs(), meta.sessionId());
+
+        Stripe stripe = stripe(key.userId());
+        Device old;
+        synchronized (stripe) {
+            if (expected != null && find(nonNull(stripe.users.get(key.userId())), key.deviceId()) != expected) {
+                return false;
+            }
+            old = put(stripe, key.userId(), device);
+        }
+        channel.attr(ConnectorChannelAttrs.WRITE_QUEUE).set(writeQueue);
+
+        onlineRouteRepository.bind(key.userId(), device.deviceId, device.gatewayId, routeTtlSeconds);
+
+        if (old != null && old.channel != null && old.channel != channel) {
+            Channel oldCh = old.channel;
+            oldCh.eventLoop().execute(oldCh::close);
+        }
+        return true;
+    }
+
+    @Override
+    public void unbindByChannel(ConnectionKey key, String channelId) {
+        if (key == null || channelId == null) {
+            return;
+        }
+        Stripe stripe = stripe(key.userId());
+        Device removed = null;
+        Device detached = null;
+        Channel channel;
+        synchronized (stripe) {
+            Device current = find(nonNull(stripe.users.get(key.userId())), key.deviceId());
+            if (current == null || current.detached() || !channelId.equals(current.channelId)) {
+                return;
+            }
+            channel = current.channel;
+            if (current.ring != null && resumeWindowSec > 0 && !routesReleased) {
+                // 可恢复的会话断线后先转为 detached，保留路由和 ring；窗口到期仍未恢复再真正解绑
+                detached = current.detach();
+                put(stripe, key.userId(), detached);
+            } else if (remove(stripe, key.userId(), current)) {
+                removed = current;
+            }
+        }
+        if (detached != null) {
+            Device expiring = detached;
+            channel.eventLoop().schedule(() -> expire(key.userId(), expiring), resumeWindowSec, TimeUnit.SECONDS);
+        } else if (removed != null && !routesReleased) {
+            onlineRouteRepository.unbind(key.userId(), removed.deviceId, removed.gatewayId);
+        }
+    }
+
+    private static Device[] nonNull(Device[] devices) {
+        return devices == null ? NO_DEVICES : devices;
+    }
+
+    private void expire(long userId, Device detached) {
+        Stripe stripe = stripe(userId);
+        synchronized (stripe) {
+            if (!remove(stripe, userId, detached)) {
+                return;
+            }
+        }
+        if (!routesReleased) {
+            onlineRouteRepository.unbind(userId, detached.deviceId, detached.gatewayId);
+        }
+    }
+
+    /**
+     * 没有 channelId 反查索引，逐个 stripe 扫描；正常断开路径走 {@link #unbindByChannel(ConnectionKey, String)}。
+     */
+    @Override
+    public void unbindByChannelId(String channelId) {
+        if (channelId == null || channelId.isBlank()) {
+            return;
+        }
+        for (Stripe stripe : stripes) {
+            ConnectionKey key = null;
+            synchronized (stripe) {
+                for (LongObjectMap.PrimitiveEntry<Device[]> user : stripe.users.entries()) {
+                    for (Device device : user.value()) {
+                        if (channelId.equals(device.channelId)) {
+                            key = new ConnectionKey(user.key(), device.deviceId);
+                            break;
+                        }
+                    }
+                    if (key != null) {
+                        break;
+                    }
+                }
+            }
+            if (key != null) {
+                unbindByChannel(key, channelId);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void unbind(ConnectionKey key) {
+        if (key == null) {
+            return;
+        }
+        Stripe stripe = stripe(key.userId());
+        Device removed;
+        synchronized (stripe) {
+            removed = find(nonNull(stripe.users.get(key.userId())), key.deviceId());
+            if (removed == null || !remove(stripe, key.userId(), removed)) {
+                return;
+            }
+        }
+        if (!routesReleased) {
+            onlineRouteRepository.unbind(key.userId(), removed.deviceId, removed.gatewayId);
+        }
+    }
+
+    @Override
+    public List<ConnectionMeta> listByUser(long userId) {
+        Device[] devices = devices(userId);
+        if (devices.length == 0) {
+            return List.of();
+        }
+        List<ConnectionMeta> metas = new ArrayList<>(devices.length);
+        for (Device device : devices) {
+            if (!device.detached()) {
+                metas.add(device.meta());
+            }
+        }
+        return metas;
+    }
+
+    @Override
+    public int onlineCount(long userId) {
+        int count = 0;
+        for (Device device : devices(userId)) {
+            if (!device.detached()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Map<Long, Map<String, String>> localRoutes() {
+        Map<Long, Map<String, String>> routes = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (LongObjectMap.PrimitiveEntry<Device[]> user : stripe.users.entries()) {
+                    Device[] devices = user.value();
+                    Map<String, String> byDevice = new HashMap<>(devices.length * 2);
+                    for (Device device : devices) {
+                        byDevice.put(device.deviceId, device.gatewayId);
+                    }
+                    routes.put(user.key(), byDevice);
+                }
+            }
+        }
+        return routes;
+    }
+
+    @Override
+    public Map<String, String> localRoutes(long userId) {
+        Device[] devices = devices(userId);
+        if (devices.length == 0) {
+            return Map.of();
+        }
+        Map<String, String> byDevice = new HashMap<>(devices.length * 2);
+        for (Device device : devices) {
+            byDevice.put(device.deviceId, device.gatewayId);
+        }
+        return byDevice;
+    }
+
+    @Override
+    public Map<Long, Map<String, String>> releaseRoutes() {
+        routesReleased = true;
+        return localRoutes();
+    }
+
+    /**
+     * 当前注册的连接数（含 detached）。
+     */
+    public long connectionCount() {
+        long connections = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Device[] devices : stripe.users.values()) {
+                    connections += devices.length;
+                }
+            }
+        }
+        return connections;
+    }
+
+    @Override
+    public SendResult sendToUser(long userId, Envelope envelope, SendFilter filter) {
+        // 同一条 Envelope 只序列化、加帧头一次，各设备写 retainedDuplicate，共享底层内存
+        EnvelopeFrames frames = new EnvelopeFrames(envelope);
+        try {
+            return sendToDevices(userId, frames, filter);
+        } finally {
+            frames.release();
+        }
+    }
+
+    @Override
+    public List<SendResult> sendToUsers(List<SendTarget> targets, Envelope envelope) {
+        if (targets == null || targets.isEmpty()) {
+            return List.of();
+        }
+        List<SendResult> results = new ArrayList<>(targets.size());
+        EnvelopeFrames frames = new EnvelopeFrames(envelope);
+        try {
+            for (SendTarget target : targets) {
+                results.add(sendToDevices(target.userId(), frames, target.filter()));
+            }
+        } finally {
+            frames.release();
+        }
+        return results;
+    }
+
+    private SendResult sendToDevices(long userId, EnvelopeFrames frames, SendFilter filter) {
+        Device[] devices = devices(userId);
+        if (devices.length == 0) {
+            return new SendResult(0, 1, 0, 0);
+        }
+
+        int delivered = 0;
+        int offline = 0;
+        int notWritable = 0;
+        int errors = 0;
+
+        Envelope envelope = frames.envelope();
+        for (Device device : devices) {
+            if (filter != null && !filter.matchesDeviceId(device.deviceId)) {
+                continue;
+            }
+
+            if (device.ring != null && envelope.hasChatDeliver()) {
+                // detached 会话同样记录，恢复时补发
+                device.ring.record(envelope.getChatDeliver());
+            }
+
+            Channel ch = device.channel;
+            if (ch == null || !ch.isActive()) {
+                offline++;
+                continue;
+            }
+
+            if (envelope.hasChatDeliver()) {
+                DeliveryAckWindow.track(ch, envelope.getChatDeliver());
+            }
+            try {
+                if (device.writeQueue.enqueue(frames.newFrame(ch))) {
+                    delivered++;
+                } else {
+                    notWritable++;
+                }
+            } catch (Exception e) {
+                errors++;
+            }
+        }
+
+        return new SendResult(delivered, offline, notWritable, errors);
+    }
+}
@@ -0,0 +1,49 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 连接迁移统计：迁移次数、下发的 Reconnect 提示数、迁移结束时被强制关闭的连接数与最近一次耗时。
+ */
+@Component
+public class ConnectionDrainStats {
+
+    private final LongAdder drains = new LongAdder();
+    private final LongAdder reconnectHints = new LongAdder();
+    private final LongAdder forcedCloses = new LongAdder();
+    private volatile long lastDrainMs;
+
+    void recordDrainStarted() {
+        drains.increment();
+    }
+
+    void recordHint() {
+        reconnectHints.increment();
+    }
+
+    void recordForcedClose() {
+        forcedCloses.increment();
+    }
+
+    void recordDrainFinished(long elapsedMs) {
+        lastDrainMs = elapsedMs;
+    }
+
+    public long drains() {
+        return drains.sum();
+    }
+
+    public long reconnectHints() {
+        return reconnectHints.sum();
+    }
+
+    public long forcedCloses() {
+        return forcedCloses.sum();
+    }
+
+    public long lastDrainMs() {
+        return lastDrainMs;
+    }
+}
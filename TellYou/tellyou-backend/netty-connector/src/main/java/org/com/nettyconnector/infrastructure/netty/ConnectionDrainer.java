@@ -0,0 +1,223 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.channel.Channel;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.com.nettyconnector.infrastructure.nacos.NacosServiceRegistrar;
+import org.com.nettyconnector.infrastructure.route.RouteLeaseManager;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.com.nettyconnector.proto.connector.tcp.v1.Reconnect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 下线前的连接迁移，避免全部客户端在同一时刻断开、同时涌向其余 connector。
+ * <p>
+ * 顺序：从 Nacos 注销 -> 关闭监听 socket -> 打乱连接顺序，每 wave-interval-ms 向 wave-size 个连接下发
+ * {@link Reconnect}（delay_ms 在 [0, max-jitter-ms) 内随机）-> 等待 max-jitter-ms + close-grace-ms -> 关闭剩余连接。
+ * 连接很多时自动放大每批数量，保证整体不超过 max-duration-ms。由 {@code @PreDestroy} 或 ConnectorAdminService.Drain 触发，同一时刻只会有一次。
+ * 停机时迁移结束后再批量清理本机路由（{@link RouteLeaseManager#releaseAll()}）；依赖 RouteLeaseManager 也保证
+ * 它的 {@code @PreDestroy} 排在本类之后。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConnectionDrainer {
+
+    private final TcpServer tcpServer;
+    private final NacosServiceRegistrar nacosServiceRegistrar;
+    private final ConnectionDrainStats stats;
+    private final RouteLeaseManager routeLeaseManager;
+
+    @Value("${netty.tcp.drain.on-shutdown:true}")
+    private boolean drainOnShutdown;
+
+    @Value("${netty.tcp.drain.wave-size:500}")
+    private int waveSize;
+
+    @Value("${netty.tcp.drain.wave-interval-ms:100}")
+    private long waveIntervalMs;
+
+    @Value("${netty.tcp.drain.max-jitter-ms:5000}")
+    private int maxJitterMs;
+
+    @Value("${netty.tcp.drain.close-grace-ms:3000}")
+    private long closeGraceMs;
+
+    @Value("${netty.tcp.drain.max-duration-ms:30000}")
+    private long maxDurationMs;
+
+    @Value("${netty.tcp.drain.target-gateway-id:}")
+    private String targetGatewayId;
+
+    @Value("${netty.tcp.drain.target-address:}")
+    private String targetAddress;
+
+    private final AtomicReference<CompletableFuture<Void>> running = new AtomicReference<>();
+
+    /**
+     * 一次迁移的参数；字段为 0 / null 时取配置值。
+     */
+    public record DrainPlan(String targetGatewayId, String targetAddress, int waveSize, long waveIntervalMs,
+                            int maxJitterMs, long closeGraceMs) {
+    }
+
+    public record DrainTicket(int connections, long estimatedDurationMs) {
+    }
+
+    /**
+     * @return 已有迁移在进行时返回 null
+     */
+    public DrainTicket start(DrainPlan requested) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (!running.compareAndSet(null, done)) {
+            return null;
+        }
+        DrainPlan plan = withDefaults(requested);
+        stats.recordDrainStarted();
+
+        // 先注销再停止 accept：dispatch 与客户端的服务发现不再选中本机，重连只会落到其他 connector
+        nacosServiceRegistrar.deregisterInstance();
+        tcpServer.stopAccepting();
+
+        List<Channel> channels = new ArrayList<>(tcpServer.connections());
+        Collections.shuffle(channels);
+        int effectiveWave = effectiveWaveSize(plan, channels.size());
+        int waves = (channels.size() + effectiveWave - 1) / effectiveWave;
+        long estimated = Math.max(0, waves - 1) * plan.waveIntervalMs() + plan.maxJitterMs() + plan.closeGraceMs();
+        log.info("connection drain started: connections={}, waveSize={}, waves={}, estimatedMs={}, target={}/{}",
+                channels.size(), effectiveWave, waves, estimated, plan.targetGatewayId(), plan.targetAddress());
+
+        Thread worker = new Thread(() -> {
+            try {
+                drain(channels, plan, effectiveWave);
+            } catch (Throwable e) {
+                log.error("connection drain failed", e);
+            } finally {
+                done.complete(null);
+            }
+        }, "connector-drain");
+        worker.setDaemon(true);
+        worker.start();
+        return new DrainTicket(channels.size(), estimated);
+    }
+
+    public boolean draining() {
+        return running.get() != null;
+    }
+
+    @PreDestroy
+    public void drainOnShutdown() {
+        if (!drainOnShutdown) {
+            return;
+        }
+        start(new DrainPlan(null, null, 0, 0, 0, 0));
+        CompletableFuture<Void> current = running.get();
+        try {
+            current.get(maxDurationMs + 1000L, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("connection drain did not finish in {}ms, closing the rest", maxDurationMs);
+            closeRemaining();
+        }
+        // 连接全部关闭之后再清理路由：迁移期间 dispatch 仍能按路由把消息投到尚未断开的连接
+        routeLeaseManager.releaseAll();
+    }
+
+    private void drain(List<Channel> channels, DrainPlan plan, int wave) {
+        long startMs = System.currentTimeMillis();
+        for (int from = 0; from < channels.size(); from += wave) {
+            if (from > 0 && !sleep(plan.waveIntervalMs())) {
+                break;
+            }
+            int to = Math.min(channels.size(), from + wave);
+            for (int i = from; i < to; i++) {
+                Channel ch = channels.get(i);
+                if (ch.isActive()) {
+                    ch.writeAndFlush(reconnectHint(plan));
+                    stats.recordHint();
+                }
+            }
+        }
+
+        // 最晚的客户端在 max-jitter-ms 后才断开，再留 close-grace-ms 给它们完成重连
+        if (!channels.isEmpty()) {
+            sleep(plan.maxJitterMs() + plan.closeGraceMs());
+        }
+        closeRemaining();
+        long elapsedMs = System.currentTimeMillis() - startMs;
+        stats.recordDrainFinished(elapsedMs);
+        log.info("connection drain finished: hinted={}, forcedCloses={}, costMs={}",
+                stats.reconnectHints(), stats.forcedCloses(), elapsedMs);
+    }
+
+    private void closeRemaining() {
+        for (Channel ch : tcpServer.connections()) {
+            if (ch.isActive()) {
+                stats.recordForcedClose();
+                ch.close();
+            }
+        }
+    }
+
+    private static Envelope reconnectHint(DrainPlan plan) {
+        Reconnect.Builder reconnect = Reconnect.newBuilder()
+                .setDelayMs(plan.maxJitterMs() > 0 ? ThreadLocalRandom.current().nextInt(plan.maxJitterMs()) : 0)
+                .setReason("server_draining");
+        if (plan.targetGatewayId() != null) {
+            reconnect.setTargetGatewayId(plan.targetGatewayId());
+        }
+        if (plan.targetAddress() != null) {
+            reconnect.setTargetAddress(plan.targetAddress());
+        }
+        return Envelope.newBuilder()
+                .setVersion(1)
+                .setTimestampMs(System.currentTimeMillis())
+                .setReconnect(reconnect)
+                .build();
+    }
+
+    private int effectiveWaveSize(DrainPlan plan, int connections) {
+        long budgetMs = maxDurationMs - plan.maxJitterMs() - plan.closeGraceMs();
+        long maxWaves = Math.max(1, budgetMs / Math.max(1, plan.waveIntervalMs()) + 1);
+        int needed = (int) ((connections + maxWaves - 1) / maxWaves);
+        return Math.max(Math.max(1, plan.waveSize()), needed);
+    }
+
+    private DrainPlan withDefaults(DrainPlan plan) {
+        return new DrainPlan(
+                blankToNull(plan.targetGatewayId() != null ? plan.targetGatewayId() : targetGatewayId),
+                blankToNull(plan.targetAddress() != null ? plan.targetAddress() : targetAddress),
+                plan.waveSize() > 0 ? plan.waveSize() : waveSize,
+                plan.waveIntervalMs() > 0 ? plan.waveIntervalMs() : waveIntervalMs,
+                plan.maxJitterMs() > 0 ? plan.maxJitterMs() : maxJitterMs,
+                plan.closeGraceMs() > 0 ? plan.closeGraceMs() : closeGraceMs);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static boolean sleep(long ms) {
+        if (ms <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(ms);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
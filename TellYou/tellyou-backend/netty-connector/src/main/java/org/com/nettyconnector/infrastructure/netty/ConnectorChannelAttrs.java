@@ -1,6 +1,7 @@
 package org.com.nettyconnector.infrastructure.netty;
 
 import io.netty.util.AttributeKey;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompression;
 
 public final class ConnectorChannelAttrs {
 
@@ -11,5 +12,15 @@ public final class ConnectorChannelAttrs {
     public static final AttributeKey<String> DEVICE_ID = AttributeKey.valueOf("connector.deviceId");
     public static final AttributeKey<String> CLIENT_ID = AttributeKey.valueOf("connector.clientId");
     public static final AttributeKey<Boolean> AUTHENTICATED = AttributeKey.valueOf("connector.authenticated");
+    /**
+     * AuthRequest 已受理、验签尚未完成；与 AUTHENTICATED 一起保证一条连接只认证一次。
+     */
+    static final AttributeKey<Boolean> AUTH_PENDING = AttributeKey.valueOf("connector.authPending");
     public static final AttributeKey<Long> CONNECTED_AT_MS = AttributeKey.valueOf("connector.connectedAtMs");
+    public static final AttributeKey<FrameCompression> FRAME_COMPRESSION = AttributeKey.valueOf("connector.frameCompression");
+    public static final AttributeKey<DeliverBatching> DELIVER_BATCHING = AttributeKey.valueOf("connector.deliverBatching");
+    static final AttributeKey<ChannelWriteQueue> WRITE_QUEUE = AttributeKey.valueOf("connector.writeQueue");
+    static final AttributeKey<DeliveryAckWindow> ACK_WINDOW = AttributeKey.valueOf("connector.ackWindow");
+    static final AttributeKey<UplinkWindow> UPLINK_WINDOW = AttributeKey.valueOf("connector.uplinkWindow");
+    static final AttributeKey<ResumeSession> RESUME_SESSION = AttributeKey.valueOf("connector.resumeSession");
 }
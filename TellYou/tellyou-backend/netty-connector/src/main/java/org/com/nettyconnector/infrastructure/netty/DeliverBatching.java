@@ -0,0 +1,7 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+/**
+ * 单个连接的下行打包参数：最多 maxSize 条 ChatDeliver 合成一帧，首条入队后最多再等 windowMs 凑批。
+ */
+public record DeliverBatching(int maxSize, long windowMs) {
+}
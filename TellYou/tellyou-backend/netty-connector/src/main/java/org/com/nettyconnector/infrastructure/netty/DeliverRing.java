@@ -0,0 +1,74 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单设备最近下发的 ChatDeliver 环形缓冲，用于断线恢复时补发。
+ * <p>
+ * 位置单调递增，[acked, next) 为尚未收到 DeliveryAck 的区间；超出容量的旧消息被覆盖，
+ * 恢复点落在覆盖区时视为未命中，由客户端拉取。写入来自 gRPC 线程，确认来自 eventLoop，统一用对象锁保护。
+ */
+final class DeliverRing {
+
+    private final int capacity;
+    private ChatDeliver[] slots;
+    private long next;
+    private long acked;
+
+    DeliverRing(int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized void record(ChatDeliver deliver) {
+        if (slots == null) {
+            slots = new ChatDeliver[capacity];
+        }
+        slots[(int) (next % capacity)] = deliver;
+        next++;
+    }
+
+    synchronized void ack(String serverMessageId) {
+        long pos = find(serverMessageId);
+        if (pos >= acked) {
+            acked = pos + 1;
+        }
+    }
+
+    /**
+     * @param lastServerMessageId 客户端最后收到的消息，为空时取服务端记录的确认位置
+     * @return 需要补发的消息；恢复点已被覆盖时返回 null
+     */
+    synchronized List<ChatDeliver> since(String lastServerMessageId) {
+        long from = acked;
+        if (lastServerMessageId != null && !lastServerMessageId.isBlank()) {
+            long pos = find(lastServerMessageId);
+            if (pos < 0) {
+                return next == 0 ? List.of() : null;
+            }
+            from = pos + 1;
+        }
+        if (from < next - capacity) {
+            return null;
+        }
+        List<ChatDeliver> missed = new ArrayList<>((int) (next - from));
+        for (long p = from; p < next; p++) {
+            missed.add(slots[(int) (p % capacity)]);
+        }
+        return missed;
+    }
+
+    private long find(String serverMessageId) {
+        if (slots == null || serverMessageId == null) {
+            return -1;
+        }
+        for (long p = next - 1; p >= Math.max(0, next - capacity); p--) {
+            if (serverMessageId.equals(slots[(int) (p % capacity)].getServerMessageId())) {
+                return p;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,89 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 下行确认统计：当前未确认条数（全连接合计）、重传次数（以及因写积压推迟的次数），以及重传用尽 / 窗口溢出后转成 PullHint 的条数。
+ */
+@Component
+public class DeliveryAckStats {
+
+    private final LongAdder unacked = new LongAdder();
+    private final LongAdder tracked = new LongAdder();
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder retransmits = new LongAdder();
+    private final LongAdder retransmitsDeferred = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+    private final LongAdder pullHints = new LongAdder();
+
+    void recordTracked() {
+        unacked.increment();
+        tracked.increment();
+    }
+
+    void recordAcked() {
+        unacked.decrement();
+        acked.increment();
+    }
+
+    void recordRetransmit() {
+        retransmits.increment();
+    }
+
+    void recordRetransmitDeferred() {
+        retransmitsDeferred.increment();
+    }
+
+    void recordExhausted(int entries) {
+        unacked.add(-entries);
+        exhausted.add(entries);
+    }
+
+    void recordOverflow() {
+        unacked.decrement();
+        overflows.increment();
+    }
+
+    void recordPullHint() {
+        pullHints.increment();
+    }
+
+    void recordDiscarded(int entries) {
+        unacked.add(-entries);
+    }
+
+    public long unacked() {
+        return unacked.sum();
+    }
+
+    public long tracked() {
+        return tracked.sum();
+    }
+
+    public long acked() {
+        return acked.sum();
+    }
+
+    public long retransmits() {
+        return retransmits.sum();
+    }
+
+    public long retransmitsDeferred() {
+        return retransmitsDeferred.sum();
+    }
+
+    public long exhausted() {
+        return exhausted.sum();
+    }
+
+    public long overflows() {
+        return overflows.sum();
+    }
+
+    public long pullHints() {
+        return pullHints.sum();
+    }
+}
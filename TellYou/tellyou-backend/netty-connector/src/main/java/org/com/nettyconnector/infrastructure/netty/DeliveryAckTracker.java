@@ -0,0 +1,116 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.channel.Channel;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下行 ChatDeliver 的至少一次投递：每个已认证连接一个 {@link DeliveryAckWindow}，全 connector 共用一个时间轮。
+ * <p>
+ * 投递时登记，超时未收到 DeliveryAck 就经该连接的 ChannelWriteQueue 重传，间隔从 timeout-ms 开始指数退避、
+ * 不超过 max-backoff-ms；重传 max-retries 次仍未确认，或窗口已满被挤出的最早一条，转成 PullHint 让客户端拉取。
+ * 全部状态都在内存里，连接断开时随窗口丢弃，断线期间的消息由 resume 补发或客户端拉取兜底。
+ */
+@Component
+public class DeliveryAckTracker {
+
+    @Value("${netty.tcp.delivery-ack.enabled:true}")
+    private boolean enabled;
+
+    @Value("${netty.tcp.delivery-ack.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Value("${netty.tcp.delivery-ack.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${netty.tcp.delivery-ack.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    @Value("${netty.tcp.delivery-ack.window-size:256}")
+    private int windowSize;
+
+    @Value("${netty.tcp.delivery-ack.tick-ms:100}")
+    private long tickMs;
+
+    private final DeliveryAckStats stats;
+    private volatile Timer timer;
+
+    @Autowired
+    public DeliveryAckTracker(DeliveryAckStats stats) {
+        this.stats = stats;
+    }
+
+    DeliveryAckTracker(DeliveryAckStats stats, Timer timer, long timeoutMs, int maxRetries, long maxBackoffMs, int windowSize) {
+        this.stats = stats;
+        this.timer = timer;
+        this.enabled = true;
+        this.timeoutMs = timeoutMs;
+        this.maxRetries = maxRetries;
+        this.maxBackoffMs = maxBackoffMs;
+        this.windowSize = windowSize;
+    }
+
+    public boolean enabled() {
+        return enabled && timeoutMs > 0 && windowSize > 0;
+    }
+
+    /**
+     * 认证成功时为连接创建窗口；未开启时返回 null。
+     */
+    DeliveryAckWindow newWindow(Channel channel) {
+        return enabled() ? new DeliveryAckWindow(this, channel) : null;
+    }
+
+    /**
+     * @param attempt 已重传次数，0 表示首次投递后的等待
+     */
+    Timeout schedule(TimerTask task, int attempt) {
+        long delay = Math.min(timeoutMs << Math.min(attempt, 20), Math.max(timeoutMs, maxBackoffMs));
+        return timer().newTimeout(task, delay, TimeUnit.MILLISECONDS);
+    }
+
+    int maxRetries() {
+        return maxRetries;
+    }
+
+    int windowSize() {
+        return windowSize;
+    }
+
+    DeliveryAckStats stats() {
+        return stats;
+    }
+
+    private Timer timer() {
+        Timer t = timer;
+        if (t == null) {
+            synchronized (this) {
+                t = timer;
+                if (t == null) {
+                    // 精度只需百毫秒级，一个时间轮承载全部连接的定时，登记 / 取消都是 O(1)
+                    t = new HashedWheelTimer(new DefaultThreadFactory("delivery-ack-timer", true),
+                            Math.max(10L, tickMs), TimeUnit.MILLISECONDS, 512);
+                    timer = t;
+                }
+            }
+        }
+        return t;
+    }
+
+    @PreDestroy
+    public void stop() {
+        Timer t = timer;
+        if (t != null) {
+            t.stop();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.channel.Channel;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.com.nettyconnector.proto.connector.tcp.v1.PullHint;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * 单个连接的未确认下行窗口，按 server_message_id 索引、按投递顺序排列。
+ * <p>
+ * 登记来自 gRPC 线程，确认来自 eventLoop，超时来自时间轮线程，统一用对象锁保护；
+ * 重传和 PullHint 都在锁外经 ChannelWriteQueue 发出。
+ * <p>
+ * 计时从登记（入队）开始；超时时若连接仍有写积压（{@link ChannelWriteQueue#backlogged()}），原帧多半还没发到网络上，
+ * 这一轮不重传、不消耗重试次数，按当前退避重新计时，慢连接不会被自己的重传继续撑大积压。
+ */
+final class DeliveryAckWindow {
+
+    static final String REASON_RETRY_EXHAUSTED = "retry_exhausted";
+    static final String REASON_WINDOW_OVERFLOW = "window_overflow";
+
+    private final DeliveryAckTracker tracker;
+    private final Channel channel;
+
+    /**
+     * 首次登记时才创建，大多数连接的未确认下行只有几条。
+     */
+    private LinkedHashMap<String, Pending> pending;
+    private boolean closed;
+
+    private final class Pending implements TimerTask {
+
+        private final ChatDeliver deliver;
+        private int attempts;
+        private Timeout timeout;
+
+        private Pending(ChatDeliver deliver) {
+            this.deliver = deliver;
+        }
+
+        @Override
+        public void run(Timeout expired) {
+            onTimeout(this);
+        }
+    }
+
+    DeliveryAckWindow(DeliveryAckTracker tracker, Channel channel) {
+        this.tracker = tracker;
+        this.channel = channel;
+    }
+
+    /**
+     * 连接已开启确认窗口时登记；应在写出之前调用，避免 DeliveryAck 先于登记到达。
+     */
+    static void track(Channel channel, ChatDeliver deliver) {
+        DeliveryAckWindow window = channel.attr(ConnectorChannelAttrs.ACK_WINDOW).get();
+        if (window != null) {
+            window.track(deliver);
+        }
+    }
+
+    /**
+     * 登记一条即将写出的下行；同一 server_message_id 重复登记时忽略。
+     */
+    void track(ChatDeliver deliver) {
+        String id = deliver.getServerMessageId();
+        if (id.isEmpty()) {
+            return;
+        }
+        Pending overflow = null;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (pending == null) {
+                pending = new LinkedHashMap<>();
+            } else if (pending.containsKey(id)) {
+                return;
+            }
+            if (pending.size() >= tracker.windowSize()) {
+                Iterator<Pending> it = pending.values().iterator();
+                overflow = it.next();
+                it.remove();
+                overflow.timeout.cancel();
+            }
+            Pending entry = new Pending(deliver);
+            entry.timeout = tracker.schedule(entry, 0);
+            pending.put(id, entry);
+        }
+        tracker.stats().recordTracked();
+        if (overflow != null) {
+            tracker.stats().recordOverflow();
+            sendPullHint(overflow.deliver, REASON_WINDOW_OVERFLOW);
+        }
+    }
+
+    void ack(String serverMessageId) {
+        Pending entry;
+        synchronized (this) {
+            entry = pending == null ? null : pending.remove(serverMessageId);
+        }
+        if (entry != null) {
+            entry.timeout.cancel();
+            tracker.stats().recordAcked();
+        }
+    }
+
+    /**
+     * 连接断开时调用，取消全部定时。
+     */
+    void close() {
+        int discarded = 0;
+        synchronized (this) {
+            closed = true;
+            if (pending != null) {
+                for (Pending entry : pending.values()) {
+                    entry.timeout.cancel();
+                }
+                discarded = pending.size();
+                pending = null;
+            }
+        }
+        tracker.stats().recordDiscarded(discarded);
+    }
+
+    synchronized int size() {
+        return pending == null ? 0 : pending.size();
+    }
+
+    private void onTimeout(Pending entry) {
+        String id = entry.deliver.getServerMessageId();
+        int exhausted = 0;
+        synchronized (this) {
+            if (closed || pending == null || pending.get(id) != entry) {
+                return;
+            }
+            if (outboundBacklogged()) {
+                entry.timeout = tracker.schedule(entry, entry.attempts);
+                tracker.stats().recordRetransmitDeferred();
+                return;
+            }
+            if (entry.attempts < tracker.maxRetries()) {
+                entry.attempts++;
+                entry.timeout = tracker.schedule(entry, entry.attempts);
+            } else {
+                exhausted = removeCoveredBy(entry.deliver);
+            }
+        }
+        if (exhausted == 0) {
+            tracker.stats().recordRetransmit();
+            send(Envelope.newBuilder()
+                    .setVersion(1)
+                    .setTimestampMs(System.currentTimeMillis())
+                    .setChatDeliver(entry.deliver)
+                    .build());
+        } else {
+            tracker.stats().recordExhausted(exhausted);
+            sendPullHint(entry.deliver, REASON_RETRY_EXHAUSTED);
+        }
+    }
+
+    /**
+     * 移除该条及同一会话中 seq 更大的未确认下行：一次从该 seq 起的拉取会把它们一并补齐。
+     * seq 未知时只移除该条。
+     */
+    private int removeCoveredBy(ChatDeliver deliver) {
+        int removed = 0;
+        Iterator<Pending> it = pending.values().iterator();
+        while (it.hasNext()) {
+            Pending other = it.next();
+            ChatDeliver d = other.deliver;
+            boolean covered = d == deliver || (deliver.getSeq() > 0
+                    && d.getSessionId() == deliver.getSessionId()
+                    && d.getPartitionId() == deliver.getPartitionId()
+                    && d.getSeq() >= deliver.getSeq());
+            if (covered) {
+                it.remove();
+                other.timeout.cancel();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private boolean outboundBacklogged() {
+        ChannelWriteQueue writeQueue = channel.attr(ConnectorChannelAttrs.WRITE_QUEUE).get();
+        return writeQueue != null && channel.isActive() && writeQueue.backlogged();
+    }
+
+    private void sendPullHint(ChatDeliver deliver, String reason) {
+        tracker.stats().recordPullHint();
+        send(Envelope.newBuilder()
+                .setVersion(1)
+                .setTimestampMs(System.currentTimeMillis())
+                .setPullHint(PullHint.newBuilder()
+                        .setSessionId(deliver.getSessionId())
+                        .setPartitionId(deliver.getPartitionId())
+                        .setFromSeq(deliver.getSeq())
+                        .setServerMessageId(deliver.getServerMessageId())
+                        .setReason(reason))
+                .build());
+    }
+
+    private void send(Envelope envelope) {
+        ChannelWriteQueue writeQueue = channel.attr(ConnectorChannelAttrs.WRITE_QUEUE).get();
+        if (writeQueue == null || !channel.isActive()) {
+            return;
+        }
+        EnvelopeFrames frames = new EnvelopeFrames(envelope);
+        try {
+            writeQueue.enqueue(frames.newFrame(channel));
+        } finally {
+            frames.release();
+        }
+    }
+}
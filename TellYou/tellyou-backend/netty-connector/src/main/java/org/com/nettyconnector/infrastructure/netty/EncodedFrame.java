@@ -0,0 +1,38 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+
+/**
+ * 已经带好 TCP 帧头的完整帧，出站时跳过 ProtobufEncoder / TcpFrameEncoder，
+ * 由 {@link EncodedFrameHandler} 原样交给 socket。
+ * <p>
+ * envelope 是帧的来源（可为 null），出站聚合时用它把多条 ChatDeliver 重新打包成一个批量帧。
+ */
+public final class EncodedFrame extends DefaultByteBufHolder {
+
+    private final Envelope envelope;
+
+    public EncodedFrame(ByteBuf frame) {
+        this(frame, null);
+    }
+
+    public EncodedFrame(ByteBuf frame, Envelope envelope) {
+        super(frame);
+        this.envelope = envelope;
+    }
+
+    public Envelope envelope() {
+        return envelope;
+    }
+
+    public boolean isChatDeliver() {
+        return envelope != null && envelope.getPayloadCase() == Envelope.PayloadCase.CHAT_DELIVER;
+    }
+
+    @Override
+    public EncodedFrame replace(ByteBuf content) {
+        return new EncodedFrame(content, envelope);
+    }
+}
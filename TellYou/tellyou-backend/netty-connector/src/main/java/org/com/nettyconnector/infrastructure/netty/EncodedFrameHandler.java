@@ -0,0 +1,25 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * 放在 TcpFrameEncoder 之前（更靠近 head），把 {@link EncodedFrame} 拆成原始 ByteBuf 直接写出，
+ * 引用计数的所有权随之转交，不做任何拷贝。
+ */
+@ChannelHandler.Sharable
+public class EncodedFrameHandler extends ChannelOutboundHandlerAdapter {
+
+    public static final EncodedFrameHandler INSTANCE = new EncodedFrameHandler();
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof EncodedFrame frame) {
+            ctx.write(frame.content(), promise);
+            return;
+        }
+        ctx.write(msg, promise);
+    }
+}
@@ -0,0 +1,65 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import com.google.protobuf.CodedInputStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.util.concurrent.FastThreadLocal;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+
+import java.util.List;
+
+/**
+ * 替代 ProtobufDecoder：解析 Envelope 时不再为每帧分配 byte[]。
+ * <p>
+ * ProtobufDecoder 遇到 direct buffer 会先 new 一个 body 大小的 byte[] 再解析。这里堆 buffer 直接用底层数组；
+ * direct / 多段 buffer 拷进 I/O 线程私有、可复用的 scratch 数组后再解析，解析结束 buffer 立即由
+ * MessageToMessageDecoder 释放。
+ * <p>
+ * 没有直接把 nioBuffer() 交给 CodedInputStream：protobuf 对 direct ByteBuffer 的 UTF-8 解码要经过 char[]，
+ * 字符串字段反而多分配一倍（见 connector-benchmark 的 UplinkDecodeBenchmark）。也不开启 aliasing：
+ * Envelope 没有 bytes 字段，字符串无论如何都会拷成新的 String，而 scratch 会被下一帧覆盖。
+ */
+@ChannelHandler.Sharable
+public class EnvelopeDecoder extends MessageToMessageDecoder<ByteBuf> {
+
+    public static final EnvelopeDecoder INSTANCE = new EnvelopeDecoder();
+
+    /** 超过该大小的 body 用一次性数组，避免个别大帧让每个 I/O 线程长期占住大块内存 */
+    private static final int MAX_SCRATCH_BYTES = 64 * 1024;
+
+    private static final FastThreadLocal<byte[]> SCRATCH = new FastThreadLocal<>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[4096];
+        }
+    };
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        out.add(Envelope.parseFrom(codedInput(msg)));
+    }
+
+    static CodedInputStream codedInput(ByteBuf body) {
+        int length = body.readableBytes();
+        if (body.hasArray()) {
+            return CodedInputStream.newInstance(body.array(), body.arrayOffset() + body.readerIndex(), length);
+        }
+        byte[] scratch = scratch(length);
+        body.getBytes(body.readerIndex(), scratch, 0, length);
+        return CodedInputStream.newInstance(scratch, 0, length);
+    }
+
+    private static byte[] scratch(int length) {
+        if (length > MAX_SCRATCH_BYTES) {
+            return new byte[length];
+        }
+        byte[] scratch = SCRATCH.get();
+        if (scratch.length < length) {
+            scratch = new byte[Math.min(MAX_SCRATCH_BYTES, Math.max(length, scratch.length << 1))];
+            SCRATCH.set(scratch);
+        }
+        return scratch;
+    }
+}
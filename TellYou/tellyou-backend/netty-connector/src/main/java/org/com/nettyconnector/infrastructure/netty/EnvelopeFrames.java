@@ -0,0 +1,75 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompression;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompressor;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 一次扇出内同一条 Envelope 的帧缓存：原始帧只编码一次，每种协商出的压缩方式最多再压缩一次，
+ * 各 channel 拿到的都是共享内存的 retainedDuplicate。
+ * <p>
+ * 非线程安全，只在发起扇出的线程内使用，结束时必须 {@link #release()}。
+ */
+final class EnvelopeFrames {
+
+    private final Envelope envelope;
+    private ByteBuf raw;
+    private Map<FrameCompressor, ByteBuf> compressed;
+
+    EnvelopeFrames(Envelope envelope) {
+        this.envelope = envelope;
+    }
+
+    Envelope envelope() {
+        return envelope;
+    }
+
+    EncodedFrame newFrame(Channel ch) {
+        return new EncodedFrame(frameFor(ch).retainedDuplicate(), envelope);
+    }
+
+    private ByteBuf frameFor(Channel ch) {
+        if (raw == null) {
+            raw = TcpFrames.encode(ch.alloc(), envelope);
+        }
+
+        FrameCompression compression = ch.attr(ConnectorChannelAttrs.FRAME_COMPRESSION).get();
+        if (compression == null || !compression.shouldCompress(raw.readableBytes() - TcpProtocolConstants.HEADER_LEN)) {
+            return raw;
+        }
+
+        if (compressed == null) {
+            compressed = new IdentityHashMap<>(4);
+        }
+        ByteBuf frame = compressed.get(compression.compressor());
+        if (frame == null) {
+            frame = TcpFrames.compressFrame(ch.alloc(), raw, compression.compressor());
+            // 压缩不划算时记下原始帧，避免对同一压缩方式重复尝试
+            if (frame == null) {
+                frame = raw;
+            }
+            compressed.put(compression.compressor(), frame);
+        }
+        return frame;
+    }
+
+    void release() {
+        if (compressed != null) {
+            for (ByteBuf frame : compressed.values()) {
+                if (frame != raw) {
+                    frame.release();
+                }
+            }
+            compressed = null;
+        }
+        if (raw != null) {
+            raw.release();
+            raw = null;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 读空闲清扫统计：跟踪中的连接数、清扫定时任务数（每个 eventLoop 一个，不随连接数增长）以及因读空闲关闭的连接数。
+ */
+@Component
+public class IdleSweepStats {
+
+    private final LongAdder trackedConnections = new LongAdder();
+    private final LongAdder sweepTimers = new LongAdder();
+    private final LongAdder sweeps = new LongAdder();
+    private final LongAdder scannedConnections = new LongAdder();
+    private final LongAdder idleCloses = new LongAdder();
+
+    void recordTracked() {
+        trackedConnections.increment();
+    }
+
+    void recordUntracked() {
+        trackedConnections.decrement();
+    }
+
+    void recordSweepTimer() {
+        sweepTimers.increment();
+    }
+
+    void recordSweep(int scanned) {
+        sweeps.increment();
+        scannedConnections.add(scanned);
+    }
+
+    void recordIdleClose() {
+        idleCloses.increment();
+    }
+
+    public long trackedConnections() {
+        return trackedConnections.sum();
+    }
+
+    public long sweepTimers() {
+        return sweepTimers.sum();
+    }
+
+    public long sweeps() {
+        return sweeps.sum();
+    }
+
+    public long scannedConnections() {
+        return scannedConnections.sum();
+    }
+
+    public long idleCloses() {
+        return idleCloses.sum();
+    }
+}
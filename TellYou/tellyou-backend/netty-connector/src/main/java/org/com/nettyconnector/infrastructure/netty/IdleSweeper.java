@@ -0,0 +1,136 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.concurrent.EventExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 全 connector 共享的读空闲检测，替代每连接一个 IdleStateHandler 定时器。
+ * <p>
+ * 每个 eventLoop 只有一个周期任务（netty.tcp.idle.sweep-interval-ms），连接的最后读时间记在
+ * {@link ReadIdleHandler} 里，取值是该 eventLoop 的粗粒度时钟（每次清扫时刷新），读路径不再调度、取消定时器。
+ * 连接列表分成 sweep-slices 份轮流扫描，每个连接每 interval * slices 被检查一次；超过 read-timeout-sec
+ * 未读到完整帧时触发 READER_IDLE 事件，由 {@link TcpEnvelopeHandler} 关闭连接，语义与 IdleStateHandler 一致。
+ */
+@Component
+public class IdleSweeper {
+
+    @Value("${netty.tcp.idle.read-timeout-sec:90}")
+    private long readTimeoutSec;
+
+    @Value("${netty.tcp.idle.sweep-interval-ms:250}")
+    private long sweepIntervalMs;
+
+    @Value("${netty.tcp.idle.sweep-slices:4}")
+    private int sweepSlices;
+
+    private final IdleSweepStats stats;
+    private final LongSupplier ticker;
+    private final ConcurrentHashMap<EventExecutor, LoopSweep> loops = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdleSweeper(IdleSweepStats stats) {
+        this(stats, System::nanoTime);
+    }
+
+    IdleSweeper(IdleSweepStats stats, LongSupplier ticker) {
+        this.stats = stats;
+        this.ticker = ticker;
+    }
+
+    public boolean enabled() {
+        return readTimeoutSec > 0;
+    }
+
+    /**
+     * 每个连接一个，放在 TcpFrameDecoder 之后：只有读到完整帧才算一次读，走快速通道的 Ping 同样计入。
+     */
+    public ChannelHandler newHandler() {
+        return new ReadIdleHandler(this);
+    }
+
+    /**
+     * eventLoop 线程调用。
+     */
+    LoopSweep track(ReadIdleHandler handler, EventExecutor executor) {
+        LoopSweep sweep = loops.computeIfAbsent(executor, this::startSweep);
+        sweep.handlers.add(handler);
+        stats.recordTracked();
+        return sweep;
+    }
+
+    private LoopSweep startSweep(EventExecutor executor) {
+        LoopSweep sweep = new LoopSweep(ticker.getAsLong());
+        long interval = intervalMs();
+        executor.scheduleAtFixedRate(sweep, interval, interval, TimeUnit.MILLISECONDS);
+        stats.recordSweepTimer();
+        return sweep;
+    }
+
+    private long intervalMs() {
+        return Math.max(10L, sweepIntervalMs);
+    }
+
+    /**
+     * 单个 eventLoop 上的连接列表与粗粒度时钟，只在该 eventLoop 上访问。
+     */
+    final class LoopSweep implements Runnable {
+
+        private final ArrayList<ReadIdleHandler> handlers = new ArrayList<>();
+        private int cursor;
+        long clockNanos;
+
+        private LoopSweep(long clockNanos) {
+            this.clockNanos = clockNanos;
+        }
+
+        @Override
+        public void run() {
+            clockNanos = ticker.getAsLong();
+            int size = handlers.size();
+            if (size == 0) {
+                return;
+            }
+            // 最后读时间取自上一次清扫的时钟，最多偏早一个 interval，补上后保证不会早于 read-timeout-sec 关闭
+            long timeoutNanos = TimeUnit.SECONDS.toNanos(readTimeoutSec) + TimeUnit.MILLISECONDS.toNanos(intervalMs());
+            int budget = (size + Math.max(1, sweepSlices) - 1) / Math.max(1, sweepSlices);
+            int scanned = 0;
+            while (scanned < budget && !handlers.isEmpty()) {
+                if (cursor >= handlers.size()) {
+                    cursor = 0;
+                }
+                ReadIdleHandler handler = handlers.get(cursor);
+                scanned++;
+                if (!handler.tracked()) {
+                    removeAt(cursor);
+                    continue;
+                }
+                if (handler.idleFor(clockNanos) >= timeoutNanos) {
+                    removeAt(cursor);
+                    handler.untrack();
+                    stats.recordIdleClose();
+                    handler.fireIdle(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT);
+                    continue;
+                }
+                cursor++;
+            }
+            stats.recordSweep(scanned);
+        }
+
+        private void removeAt(int index) {
+            // 与末尾交换后删除，O(1)；被换过来的元素本轮可能漏扫，下一轮补上
+            int last = handlers.size() - 1;
+            handlers.set(index, handlers.get(last));
+            handlers.remove(last);
+            stats.recordUntracked();
+        }
+    }
+}
@@ -5,47 +5,139 @@ import lombok.RequiredArgsConstructor;
 import org.com.nettyconnector.domain.connection.ConnectionKey;
 import org.com.nettyconnector.domain.connection.ConnectionManager;
 import org.com.nettyconnector.domain.connection.ConnectionMeta;
+import org.com.nettyconnector.domain.connection.ResumeResult;
 import org.com.nettyconnector.domain.connection.SendFilter;
 import org.com.nettyconnector.domain.connection.SendResult;
+import org.com.nettyconnector.domain.connection.SendTarget;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
 import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
 import org.com.shared.infrastructure.redis.OnlineRouteRepository;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * 默认的连接注册表：userId -> (deviceId -> Entry) 两级 ConcurrentHashMap，另有 channelId 反查索引。
+ * 单机连接数很大时可切换为 {@link CompactConnectionManager}（netty.tcp.connection-registry=compact）。
+ */
 @Component
+@ConditionalOnProperty(name = "netty.tcp.connection-registry", havingValue = "map", matchIfMissing = true)
 @RequiredArgsConstructor
 public class NettyConnectionManager implements ConnectionManager {
 
-    private record Entry(ConnectionMeta meta, Channel channel) {
+    /**
+     * channel 为 null 表示连接已断开、会话处于可恢复窗口内（detached）：路由保留，下行只记入 ring。
+     */
+    private record Entry(ConnectionMeta meta, Channel channel, ChannelWriteQueue writeQueue, DeliverRing ring) {
+
+        boolean detached() {
+            return channel == null;
+        }
     }
 
     private final ConcurrentHashMap<Long, ConcurrentHashMap<String, Entry>> userDeviceConnections = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, ConnectionKey> channelIndex = new ConcurrentHashMap<>();
 
     private final OnlineRouteRepository onlineRouteRepository;
+    private final WriteCoalescingStats writeCoalescingStats;
+    private final OutboundBacklogStats outboundBacklogStats;
+
+    /**
+     * 停机时路由已由 {@link #releaseRoutes()} 批量清理，之后逐个断开的连接不再单独访问 Redis。
+     */
+    private volatile boolean routesReleased;
 
     @Value("${gateway.route.ttl-seconds:300}")
     private long routeTtlSeconds;
 
+    @Value("${netty.tcp.outbound-backlog.max-messages:1024}")
+    private int backlogMaxMessages;
+
+    @Value("${netty.tcp.outbound-backlog.max-bytes:4194304}")
+    private long backlogMaxBytes;
+
+    @Value("${netty.tcp.resume.window-sec:120}")
+    private long resumeWindowSec;
+
+    @Value("${netty.tcp.resume.buffer-size:64}")
+    private int resumeBufferSize;
+
     @Override
     public void bindAuthenticated(ConnectionKey key, ConnectionMeta meta, Object connectionRef) {
         Objects.requireNonNull(key, "key");
         Objects.requireNonNull(meta, "meta");
+        attach(key, meta, channelOf(connectionRef), newRing(meta), null);
+    }
+
+    @Override
+    public ResumeResult resumeAuthenticated(ConnectionKey key, ConnectionMeta meta, Object connectionRef, long resumedSessionId,
+                                            String lastServerMessageId) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(meta, "meta");
+        Channel channel = channelOf(connectionRef);
+
+        Map<String, Entry> deviceMap = userDeviceConnections.get(key.userId());
+        Entry previous = deviceMap == null ? null : deviceMap.get(key.deviceId());
+        if (previous == null || previous.ring == null || previous.meta.sessionId() != resumedSessionId) {
+            // 会话不在本机（换了 connector、已过恢复窗口或令牌已被用过）
+            return null;
+        }
+
+        List<ChatDeliver> missed = previous.ring.since(lastServerMessageId);
+        // 只替换仍是 previous 的绑定：同一令牌并发恢复时只有一个能成功
+        if (!attach(key, meta, channel, previous.ring, previous)) {
+            return null;
+        }
+        return missed == null ? new ResumeResult(List.of(), true) : new ResumeResult(missed, false);
+    }
+
+    @Override
+    public void acknowledgeDelivery(ConnectionKey key, String serverMessageId) {
+        Map<String, Entry> deviceMap = userDeviceConnections.get(key.userId());
+        Entry entry = deviceMap == null ? null : deviceMap.get(key.deviceId());
+        if (entry != null && entry.ring != null) {
+            entry.ring.ack(serverMessageId);
+        }
+    }
 
+    private static Channel channelOf(Object connectionRef) {
         if (!(connectionRef instanceof Channel channel)) {
             throw new IllegalArgumentException("connectionRef must be a Netty Channel");
         }
+        return channel;
+    }
+
+    private DeliverRing newRing(ConnectionMeta meta) {
+        return meta.sessionId() != 0 && resumeWindowSec > 0 && resumeBufferSize > 0 ? new DeliverRing(resumeBufferSize) : null;
+    }
 
+    /**
+     * @param expected 非 null 时只在当前绑定仍是它时才替换，否则不做任何改动并返回 false
+     */
+    private boolean attach(ConnectionKey key, ConnectionMeta meta, Channel channel, DeliverRing ring, Entry expected) {
         ConcurrentHashMap<String, Entry> deviceMap = userDeviceConnections.computeIfAbsent(key.userId(), _k -> new ConcurrentHashMap<>());
-        Entry newEntry = new Entry(meta, channel);
+        ChannelWriteQueue writeQueue = new ChannelWriteQueue(channel, writeCoalescingStats,
+                channel.attr(ConnectorChannelAttrs.DELIVER_BATCHING).get(),
+                new OutboundBacklogLimits(backlogMaxMessages, backlogMaxBytes), outboundBacklogStats);
+        Entry newEntry = new Entry(meta, channel, writeQueue, ring);
 
-        Entry old = deviceMap.put(key.deviceId(), newEntry);
+        Entry old;
+        if (expected == null) {
+            old = deviceMap.put(key.deviceId(), newEntry);
+        } else if (deviceMap.replace(key.deviceId(), expected, newEntry)) {
+            old = expected;
+        } else {
+            return false;
+        }
+        channel.attr(ConnectorChannelAttrs.WRITE_QUEUE).set(writeQueue);
         channelIndex.put(meta.channelId(), key);
 
         onlineRouteRepository.bind(key.userId(), key.deviceId(), meta.gatewayId(), routeTtlSeconds);
@@ -57,6 +149,7 @@ public class NettyConnectionManager implements ConnectionManager {
                 oldCh.eventLoop().execute(oldCh::close);
             }
         }
+        return true;
     }
 
     @Override
@@ -68,7 +161,40 @@ public class NettyConnectionManager implements ConnectionManager {
         if (key == null) {
             return;
         }
-        unbind(key);
+        if (!detach(key, channelId)) {
+            unbind(key);
+        }
+    }
+
+    /**
+     * 可恢复的会话断线后先转为 detached，保留路由和 ring；窗口到期仍未恢复再真正解绑。
+     */
+    private boolean detach(ConnectionKey key, String channelId) {
+        ConcurrentHashMap<String, Entry> deviceMap = userDeviceConnections.get(key.userId());
+        Entry entry = deviceMap == null ? null : deviceMap.get(key.deviceId());
+        if (entry == null || entry.ring == null || entry.detached() || routesReleased
+                || !channelId.equals(entry.meta.channelId())) {
+            return false;
+        }
+        Entry detached = new Entry(entry.meta, null, null, entry.ring);
+        if (!deviceMap.replace(key.deviceId(), entry, detached)) {
+            return false;
+        }
+        entry.channel.eventLoop().schedule(() -> expire(key, detached), resumeWindowSec, TimeUnit.SECONDS);
+        return true;
+    }
+
+    private void expire(ConnectionKey key, Entry detached) {
+        ConcurrentHashMap<String, Entry> deviceMap = userDeviceConnections.get(key.userId());
+        if (deviceMap == null || !deviceMap.remove(key.deviceId(), detached)) {
+            return;
+        }
+        if (!routesReleased) {
+            onlineRouteRepository.unbind(key.userId(), key.deviceId(), detached.meta.gatewayId());
+        }
+        if (deviceMap.isEmpty()) {
+            userDeviceConnections.remove(key.userId(), deviceMap);
+        }
     }
 
     @Override
@@ -83,7 +209,9 @@ public class NettyConnectionManager implements ConnectionManager {
         Entry removed = deviceMap.remove(key.deviceId());
         if (removed != null) {
             channelIndex.remove(removed.meta.channelId());
-            onlineRouteRepository.unbind(key.userId(), key.deviceId(), removed.meta.gatewayId());
+            if (!routesReleased) {
+                onlineRouteRepository.unbind(key.userId(), key.deviceId(), removed.meta.gatewayId());
+            }
         }
         if (deviceMap.isEmpty()) {
             userDeviceConnections.remove(key.userId(), deviceMap);
@@ -98,7 +226,7 @@ public class NettyConnectionManager implements ConnectionManager {
         }
         List<ConnectionMeta> metas = new ArrayList<>(deviceMap.size());
         for (Entry e : deviceMap.values()) {
-            if (e != null) {
+            if (e != null && !e.detached()) {
                 metas.add(e.meta);
             }
         }
@@ -108,11 +236,81 @@ public class NettyConnectionManager implements ConnectionManager {
     @Override
     public int onlineCount(long userId) {
         Map<String, Entry> deviceMap = userDeviceConnections.get(userId);
-        return deviceMap == null ? 0 : deviceMap.size();
+        if (deviceMap == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Entry e : deviceMap.values()) {
+            if (!e.detached()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Map<Long, Map<String, String>> localRoutes() {
+        Map<Long, Map<String, String>> routes = new HashMap<>(userDeviceConnections.size());
+        for (Map.Entry<Long, ConcurrentHashMap<String, Entry>> user : userDeviceConnections.entrySet()) {
+            Map<String, String> devices = new HashMap<>(user.getValue().size());
+            for (Map.Entry<String, Entry> device : user.getValue().entrySet()) {
+                devices.put(device.getKey(), device.getValue().meta.gatewayId());
+            }
+            if (!devices.isEmpty()) {
+                routes.put(user.getKey(), devices);
+            }
+        }
+        return routes;
+    }
+
+    @Override
+    public Map<String, String> localRoutes(long userId) {
+        Map<String, Entry> deviceMap = userDeviceConnections.get(userId);
+        if (deviceMap == null || deviceMap.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> devices = new HashMap<>(deviceMap.size());
+        for (Map.Entry<String, Entry> device : deviceMap.entrySet()) {
+            devices.put(device.getKey(), device.getValue().meta.gatewayId());
+        }
+        return devices;
+    }
+
+    @Override
+    public Map<Long, Map<String, String>> releaseRoutes() {
+        routesReleased = true;
+        return localRoutes();
     }
 
     @Override
     public SendResult sendToUser(long userId, Envelope envelope, SendFilter filter) {
+        // 同一条 Envelope 只序列化、加帧头一次，各设备写 retainedDuplicate，共享底层内存
+        EnvelopeFrames frames = new EnvelopeFrames(envelope);
+        try {
+            return sendToDevices(userId, frames, filter);
+        } finally {
+            frames.release();
+        }
+    }
+
+    @Override
+    public List<SendResult> sendToUsers(List<SendTarget> targets, Envelope envelope) {
+        if (targets == null || targets.isEmpty()) {
+            return List.of();
+        }
+        List<SendResult> results = new ArrayList<>(targets.size());
+        EnvelopeFrames frames = new EnvelopeFrames(envelope);
+        try {
+            for (SendTarget target : targets) {
+                results.add(sendToDevices(target.userId(), frames, target.filter()));
+            }
+        } finally {
+            frames.release();
+        }
+        return results;
+    }
+
+    private SendResult sendToDevices(long userId, EnvelopeFrames frames, SendFilter filter) {
         Map<String, Entry> deviceMap = userDeviceConnections.get(userId);
         if (deviceMap == null || deviceMap.isEmpty()) {
             return new SendResult(0, 1, 0, 0);
@@ -135,20 +333,30 @@ public class NettyConnectionManager implements ConnectionManager {
                 continue;
             }
 
+            Envelope envelope = frames.envelope();
+            if (entry.ring != null && envelope.hasChatDeliver()) {
+                // detached 会话同样记录，恢复时补发
+                entry.ring.record(envelope.getChatDeliver());
+            }
+
             Channel ch = entry.channel;
             if (ch == null || !ch.isActive()) {
                 offline++;
                 continue;
             }
 
-            if (!ch.isWritable()) {
-                notWritable++;
-                continue;
+            if (envelope.hasChatDeliver()) {
+                // 写出前登记，避免 DeliveryAck 先于登记到达
+                DeliveryAckWindow.track(ch, envelope.getChatDeliver());
             }
-
             try {
-                ch.eventLoop().execute(() -> ch.writeAndFlush(envelope));
-                delivered++;
+                // 进入 channel 的聚合队列，同一 tick 内的多条投递合并为一次 flush；
+                // 越过高水位时由队列暂存，只有慢消费者已被驱逐时才计入 notWritable
+                if (entry.writeQueue.enqueue(frames.newFrame(ch))) {
+                    delivered++;
+                } else {
+                    notWritable++;
+                }
             } catch (Exception e) {
                 errors++;
             }
@@ -0,0 +1,9 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+/**
+ * channel 越过高水位后，待发送积压的上限；条数或字节数任一超限即判定为慢消费者并断开。
+ */
+public record OutboundBacklogLimits(int maxMessages, long maxBytes) {
+
+    public static final OutboundBacklogLimits DEFAULT = new OutboundBacklogLimits(1024, 4L * 1024 * 1024);
+}
@@ -0,0 +1,54 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 不可写 channel 的积压统计：当前积压深度（全连接合计）以及慢消费者驱逐次数。
+ */
+@Component
+public class OutboundBacklogStats {
+
+    private final LongAdder pendingMessages = new LongAdder();
+    private final LongAdder pendingBytes = new LongAdder();
+    private final LongAdder parkedMessages = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder evictedMessages = new LongAdder();
+
+    void recordParked(long bytes) {
+        pendingMessages.increment();
+        pendingBytes.add(bytes);
+        parkedMessages.increment();
+    }
+
+    void recordUnparked(long bytes) {
+        pendingMessages.decrement();
+        pendingBytes.add(-bytes);
+    }
+
+    void recordEviction(int messages) {
+        evictions.increment();
+        evictedMessages.add(messages);
+    }
+
+    public long pendingMessages() {
+        return pendingMessages.sum();
+    }
+
+    public long pendingBytes() {
+        return pendingBytes.sum();
+    }
+
+    public long parkedMessages() {
+        return parkedMessages.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long evictedMessages() {
+        return evictedMessages.sum();
+    }
+}
@@ -0,0 +1,164 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.com.nettyconnector.proto.connector.tcp.v1.Pong;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 心跳快速通道：放在 TcpFrameDecoder（以及 ReadIdleHandler）之后、EnvelopeDecoder 之前，
+ * 直接在 body 字节上识别"纯 Ping"，回写预编码好的 Pong 帧，不构造 Envelope、也不经过编码器。
+ * <p>
+ * 纯 Ping 指 body 只含 version / timestamp_ms / 空 stream_id / 空 trace_id 和 ping 字段；带 stream_id 或
+ * trace_id 的 Ping 需要原样回显，照旧交给 {@link TcpEnvelopeHandler}。Pong 帧按 version 缓存，
+ * timestamp_ms 精确到秒，每秒重新编码一次。
+ */
+@Component
+@ChannelHandler.Sharable
+public class PingFastPathHandler extends ChannelInboundHandlerAdapter {
+
+    private static final int FIELD_VERSION = 1;
+    private static final int FIELD_STREAM_ID = 2;
+    private static final int FIELD_TIMESTAMP_MS = 3;
+    private static final int FIELD_TRACE_ID = 4;
+    private static final int FIELD_PING = Envelope.PING_FIELD_NUMBER;
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+
+    private static final int MAX_CACHED_VERSION = 15;
+
+    private record CachedPong(long epochSecond, byte[] frame) {
+    }
+
+    private final CachedPong[] pongs = new CachedPong[MAX_CACHED_VERSION + 1];
+    private final LongAdder fastPongs = new LongAdder();
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof ByteBuf body) {
+            int version = pingVersion(body);
+            if (version >= 0) {
+                body.release();
+                ctx.writeAndFlush(Unpooled.wrappedBuffer(pongFrame(version)));
+                fastPongs.increment();
+                return;
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    public long fastPongs() {
+        return fastPongs.sum();
+    }
+
+    private byte[] pongFrame(int version) {
+        long nowMs = System.currentTimeMillis();
+        long epochSecond = nowMs / 1000L;
+        // 数组元素的竞争更新无害：最坏情况同一秒内重复编码一次
+        CachedPong cached = pongs[version];
+        if (cached == null || cached.epochSecond != epochSecond) {
+            Envelope pong = Envelope.newBuilder()
+                    .setVersion(version)
+                    .setTimestampMs(epochSecond * 1000L)
+                    .setPong(Pong.getDefaultInstance())
+                    .build();
+            ByteBuf frame = TcpFrames.encode(UnpooledByteBufAllocator.DEFAULT, pong);
+            try {
+                cached = new CachedPong(epochSecond, ByteBufUtil.getBytes(frame));
+            } finally {
+                frame.release();
+            }
+            pongs[version] = cached;
+        }
+        return cached.frame;
+    }
+
+    /**
+     * @return 纯 Ping 的 Envelope.version；不是纯 Ping（或无法快速判断）时返回 -1
+     */
+    static int pingVersion(ByteBuf body) {
+        int index = body.readerIndex();
+        int end = body.writerIndex();
+        long version = 0;
+        boolean ping = false;
+        while (index < end) {
+            int tagSize = varintLength(body, index, end);
+            if (tagSize < 0) {
+                return -1;
+            }
+            long tag = readVarint(body, index, tagSize);
+            index += tagSize;
+            int field = (int) (tag >>> 3);
+            int wireType = (int) (tag & 7);
+
+            int size = varintLength(body, index, end);
+            if (size < 0) {
+                return -1;
+            }
+            long value = readVarint(body, index, size);
+            index += size;
+
+            if (wireType == WIRE_VARINT) {
+                switch (field) {
+                    case FIELD_VERSION -> version = value;
+                    case FIELD_TIMESTAMP_MS -> {
+                    }
+                    case FIELD_STREAM_ID -> {
+                        if (value != 0) {
+                            return -1;
+                        }
+                    }
+                    default -> {
+                        return -1;
+                    }
+                }
+            } else if (wireType == WIRE_LENGTH_DELIMITED) {
+                if (value < 0 || value > end - index) {
+                    return -1;
+                }
+                if (field == FIELD_PING) {
+                    // Ping 没有字段，出现多次时以最后一次为准，同样是 Ping
+                    ping = true;
+                } else if (field != FIELD_TRACE_ID || value != 0) {
+                    return -1;
+                }
+                index += (int) value;
+            } else {
+                return -1;
+            }
+        }
+        if (!ping || version < 0 || version > MAX_CACHED_VERSION) {
+            return -1;
+        }
+        return (int) version;
+    }
+
+    /**
+     * index 处 varint 的字节数；越界或超过 10 字节时返回 -1。
+     */
+    private static int varintLength(ByteBuf buf, int index, int end) {
+        for (int i = 0; i < 10 && index + i < end; i++) {
+            if (buf.getByte(index + i) >= 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static long readVarint(ByteBuf buf, int index, int size) {
+        long result = 0;
+        for (int i = 0; i < size; i++) {
+            result |= (long) (buf.getByte(index + i) & 0x7F) << (7 * i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.IdleStateEvent;
+
+/**
+ * 单连接的读空闲状态，只记录时间戳，检测由 {@link IdleSweeper} 按 eventLoop 批量完成。
+ * 与 IdleStateHandler 一样，正在读的连接（channelRead 之后、channelReadComplete 之前）不算空闲。
+ */
+final class ReadIdleHandler extends ChannelInboundHandlerAdapter {
+
+    private final IdleSweeper sweeper;
+    private ChannelHandlerContext ctx;
+    private IdleSweeper.LoopSweep sweep;
+    private long lastReadNanos;
+    private boolean reading;
+    private boolean tracked;
+
+    ReadIdleHandler(IdleSweeper sweeper) {
+        this.sweeper = sweeper;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+        if (ctx.channel().isActive() && ctx.channel().isRegistered()) {
+            start();
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        tracked = false;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        start();
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        tracked = false;
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        reading = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        if (reading) {
+            touch();
+            reading = false;
+        }
+        ctx.fireChannelReadComplete();
+    }
+
+    private void start() {
+        if (sweep != null) {
+            return;
+        }
+        sweep = sweeper.track(this, ctx.executor());
+        lastReadNanos = sweep.clockNanos;
+        tracked = true;
+    }
+
+    /**
+     * 刷新最后读时间（eventLoop 线程）。
+     */
+    void touch() {
+        if (sweep != null) {
+            lastReadNanos = sweep.clockNanos;
+        }
+    }
+
+    boolean tracked() {
+        return tracked;
+    }
+
+    void untrack() {
+        tracked = false;
+    }
+
+    long idleFor(long nowNanos) {
+        return reading ? 0L : nowNanos - lastReadNanos;
+    }
+
+    void fireIdle(IdleStateEvent event) {
+        ctx.fireUserEventTriggered(event);
+    }
+}
@@ -0,0 +1,15 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 连接当前可恢复会话的令牌参数，以及定期换发令牌的任务；连接断开或重新认证时取消。
+ *
+ * @param authExpiresAtMs 最初认证所用 JWT 的过期时间，换发的令牌不会超过它
+ */
+record ResumeSession(long sessionId, long authExpiresAtMs, ScheduledFuture<?> refresh) {
+
+    void cancel() {
+        refresh.cancel(false);
+    }
+}
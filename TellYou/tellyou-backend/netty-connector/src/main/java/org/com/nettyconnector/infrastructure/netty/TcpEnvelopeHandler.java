@@ -9,12 +9,26 @@ import lombok.extern.slf4j.Slf4j;
 import org.com.nettyconnector.domain.connection.ConnectionKey;
 import org.com.nettyconnector.domain.connection.ConnectionManager;
 import org.com.nettyconnector.domain.connection.ConnectionMeta;
+import org.com.nettyconnector.domain.connection.ResumeResult;
+import org.com.nettyconnector.infrastructure.auth.ResumeTokenCodec;
+import org.com.nettyconnector.infrastructure.auth.ResumeTokenLedger;
+import org.com.nettyconnector.infrastructure.auth.TokenAuthenticator;
+import org.com.nettyconnector.infrastructure.auth.TokenVerification;
+import org.com.nettyconnector.infrastructure.metrics.ConnectorMetrics;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompression;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompressionNegotiator;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompressors;
 import org.com.nettyconnector.proto.connector.tcp.v1.*;
 import org.com.nettyconnector.proto.connector.tcp.v1.Error;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import lombok.RequiredArgsConstructor;
 
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -27,7 +41,23 @@ public class TcpEnvelopeHandler extends SimpleChannelInboundHandler<Envelope> {
     @Value("${netty.tcp.heartbeat-interval-sec:30}")
     private int heartbeatIntervalSec;
 
+    @Value("${netty.tcp.deliver-batch.enabled:true}")
+    private boolean deliverBatchEnabled;
+
+    @Value("${netty.tcp.deliver-batch.max-size:32}")
+    private int deliverBatchMaxSize;
+
+    @Value("${netty.tcp.deliver-batch.window-ms:2}")
+    private long deliverBatchWindowMs;
+
     private final ConnectionManager connectionManager;
+    private final FrameCompressionNegotiator frameCompressionNegotiator;
+    private final ChatUplinkProcessor chatUplinkProcessor;
+    private final TokenAuthenticator tokenAuthenticator;
+    private final ResumeTokenCodec resumeTokenCodec;
+    private final ResumeTokenLedger resumeTokenLedger;
+    private final ConnectorMetrics connectorMetrics;
+    private final DeliveryAckTracker deliveryAckTracker;
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) {
@@ -35,11 +65,40 @@ public class TcpEnvelopeHandler extends SimpleChannelInboundHandler<Envelope> {
         ctx.fireChannelActive();
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (ctx.channel().isWritable()) {
+            ChannelWriteQueue writeQueue = ctx.channel().attr(ConnectorChannelAttrs.WRITE_QUEUE).get();
+            if (writeQueue != null) {
+                writeQueue.onWritable();
+            }
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
+        ChannelWriteQueue writeQueue = ctx.channel().attr(ConnectorChannelAttrs.WRITE_QUEUE).getAndSet(null);
+        if (writeQueue != null) {
+            writeQueue.discard();
+        }
+        DeliveryAckWindow ackWindow = ctx.channel().attr(ConnectorChannelAttrs.ACK_WINDOW).getAndSet(null);
+        if (ackWindow != null) {
+            ackWindow.close();
+        }
+        ResumeSession resumeSession = ctx.channel().attr(ConnectorChannelAttrs.RESUME_SESSION).getAndSet(null);
+        if (resumeSession != null) {
+            resumeSession.cancel();
+        }
         try {
             String channelId = ctx.channel().id().asShortText();
-            connectionManager.unbindByChannelId(channelId);
+            Long userId = ctx.channel().attr(ConnectorChannelAttrs.USER_ID).get();
+            String deviceId = ctx.channel().attr(ConnectorChannelAttrs.DEVICE_ID).get();
+            if (userId != null && deviceId != null) {
+                connectionManager.unbindByChannel(new ConnectionKey(userId, deviceId), channelId);
+            } else {
+                connectionManager.unbindByChannelId(channelId);
+            }
         } catch (Exception ignored) {
         }
         ctx.fireChannelInactive();
@@ -48,12 +107,34 @@ public class TcpEnvelopeHandler extends SimpleChannelInboundHandler<Envelope> {
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Envelope msg) {
         switch (msg.getPayloadCase()) {
-            case AUTH_REQUEST -> handleAuth(ctx, msg, msg.getAuthRequest());
+            case AUTH_REQUEST -> {
+                if (!rejectIfAuthStarted(ctx, msg)) {
+                    handleAuth(ctx, msg, msg.getAuthRequest());
+                }
+            }
+            case RESUME_REQUEST -> {
+                if (!rejectIfAuthStarted(ctx, msg)) {
+                    handleResume(ctx, msg, msg.getResumeRequest());
+                }
+            }
             case PING -> handlePing(ctx, msg);
             case PAYLOAD_NOT_SET -> writeError(ctx, msg, 400, "payload_not_set");
+            case CHAT_UPLINK -> {
+                if (isAuthenticated(ctx)) {
+                    chatUplinkProcessor.handle(ctx, msg);
+                } else {
+                    writeAuthFail(ctx, msg, 401, "unauthenticated");
+                }
+            }
+            case DELIVERY_ACK -> {
+                if (isAuthenticated(ctx)) {
+                    handleDeliveryAck(ctx, msg.getDeliveryAck());
+                } else {
+                    writeAuthFail(ctx, msg, 401, "unauthenticated");
+                }
+            }
             default -> {
-                Boolean authenticated = ctx.channel().attr(ConnectorChannelAttrs.AUTHENTICATED).get();
-                if (Boolean.TRUE.equals(authenticated)) {
+                if (isAuthenticated(ctx)) {
                     writeError(ctx, msg, 404, "unsupported_payload: " + msg.getPayloadCase().name());
                 } else {
                     writeAuthFail(ctx, msg, 401, "unauthenticated");
@@ -77,6 +158,26 @@ public class TcpEnvelopeHandler extends SimpleChannelInboundHandler<Envelope> {
         ctx.close();
     }
 
+    private static boolean isAuthenticated(ChannelHandlerContext ctx) {
+        return Boolean.TRUE.equals(ctx.channel().attr(ConnectorChannelAttrs.AUTHENTICATED).get());
+    }
+
+    /**
+     * 一条连接只认证一次：验签进行中或已认证时再来的 AuthRequest / ResumeRequest 直接回错误，
+     * 否则两次认证都会绑定到同一 channel，先绑定的 (userId, deviceId) 条目和它的路由再也没有机会解绑。
+     */
+    private boolean rejectIfAuthStarted(ChannelHandlerContext ctx, Envelope req) {
+        if (isAuthenticated(ctx)) {
+            writeError(ctx, req, 409, "already_authenticated");
+            return true;
+        }
+        if (Boolean.TRUE.equals(ctx.channel().attr(ConnectorChannelAttrs.AUTH_PENDING).get())) {
+            writeError(ctx, req, 409, "auth_in_progress");
+            return true;
+        }
+        return false;
+    }
+
     private void handlePing(ChannelHandlerContext ctx, Envelope req) {
         Envelope resp = Envelope.newBuilder()
                 .setVersion(req.getVersion())
@@ -96,44 +197,246 @@ public class TcpEnvelopeHandler extends SimpleChannelInboundHandler<Envelope> {
             return;
         }
 
-        long userId = deriveUserId(token);
-        ctx.channel().attr(ConnectorChannelAttrs.USER_ID).set(userId);
-        ctx.channel().attr(ConnectorChannelAttrs.DEVICE_ID).set(authRequest.getDeviceId());
-        ctx.channel().attr(ConnectorChannelAttrs.CLIENT_ID).set(authRequest.getClientId());
+        // 验签在独立线程池上完成（缓存命中时同步返回），结果切回本 channel 的 eventLoop 继续绑定
+        ctx.channel().attr(ConnectorChannelAttrs.AUTH_PENDING).set(true);
+        long startNanos = System.nanoTime();
+        tokenAuthenticator.authenticate(token.trim()).whenComplete((result, error) -> {
+            TokenVerification verification = error != null
+                    ? TokenVerification.failure(500, "auth_error")
+                    : result;
+            if (ctx.executor().inEventLoop()) {
+                completeAuth(ctx, req, authRequest, verification, startNanos);
+            } else {
+                ctx.executor().execute(() -> completeAuth(ctx, req, authRequest, verification, startNanos));
+            }
+        });
+    }
+
+    private void completeAuth(ChannelHandlerContext ctx, Envelope req, AuthRequest authRequest, TokenVerification verification,
+                              long startNanos) {
+        ctx.channel().attr(ConnectorChannelAttrs.AUTH_PENDING).set(null);
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+        if (!verification.ok()) {
+            writeAuthFail(ctx, req, verification.errorCode(), verification.reason());
+            ctx.close();
+            connectorMetrics.recordAuth(false, System.nanoTime() - startNanos);
+            return;
+        }
+
+        long userId = verification.userId();
+        String deviceId = orUnknown(authRequest.getDeviceId());
+        long sessionId = resumeTokenCodec.enabled() ? nextSessionId() : 0L;
+        ConnectionKey key = new ConnectionKey(userId, deviceId);
+        ConnectionMeta meta = prepareChannel(ctx, key, authRequest, sessionId);
+        connectionManager.bindAuthenticated(key, meta, ctx.channel());
+
+        AuthOk authOk = buildAuthOk(ctx, key, authRequest, sessionId, verification.expiresAtMs());
+        writeAndEnableCompression(ctx, authRequest, newResponse(req).setAuthOk(authOk).build());
+        connectorMetrics.recordAuth(true, System.nanoTime() - startNanos);
+        startResumeRefresh(ctx, sessionId, verification.expiresAtMs());
+    }
+
+    /**
+     * 凭 resume token 免 JWT 验签恢复会话；令牌无效或已兑换过时只回 AuthFail，不断开连接，客户端可以接着走完整认证。
+     * 兑换前先在 Redis 上占用令牌（见 {@link ResumeTokenLedger}），占位期间与 AuthRequest 一样算作认证进行中。
+     */
+    private void handleResume(ChannelHandlerContext ctx, Envelope req, ResumeRequest resumeRequest) {
+        ResumeTokenCodec.ResumeClaims claims = resumeTokenCodec.enabled() ? resumeTokenCodec.parse(resumeRequest.getResumeToken()) : null;
+        if (claims == null) {
+            writeAuthFail(ctx, req, 401, "resume_rejected");
+            return;
+        }
+
+        ctx.channel().attr(ConnectorChannelAttrs.AUTH_PENDING).set(true);
+        resumeTokenLedger.claim(claims.sessionId(), gatewayId).whenComplete((claimed, error) -> {
+            if (ctx.executor().inEventLoop()) {
+                completeResume(ctx, req, resumeRequest, claims, claimed, error);
+            } else {
+                ctx.executor().execute(() -> completeResume(ctx, req, resumeRequest, claims, claimed, error));
+            }
+        });
+    }
+
+    /**
+     * 会话仍在本机时挂回并补发 ring 中未确认的下行；会话在其他 connector 上（或本机已过恢复窗口）时按令牌中的身份绑定新会话，
+     * 回 ResumeOk(needs_pull=true) 让客户端拉取断线期间的消息。两种情况会话号都会轮换，随 ResumeOk 下发新令牌。
+     */
+    private void completeResume(ChannelHandlerContext ctx, Envelope req, ResumeRequest resumeRequest,
+                                ResumeTokenCodec.ResumeClaims claims, Boolean claimed, Throwable error) {
+        ctx.channel().attr(ConnectorChannelAttrs.AUTH_PENDING).set(null);
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+        if (error != null) {
+            log.warn("resume token claim failed: userId={}, err={}", claims.userId(), error.toString());
+            writeAuthFail(ctx, req, 503, "resume_unavailable");
+            return;
+        }
+        if (!Boolean.TRUE.equals(claimed)) {
+            writeAuthFail(ctx, req, 401, "resume_rejected");
+            return;
+        }
+
+        // 协商字段与 AuthRequest 一致，复用同一套处理
+        AuthRequest authRequest = AuthRequest.newBuilder()
+                .setClientId(resumeRequest.getClientId())
+                .setDeviceId(claims.deviceId())
+                .addAllAcceptCompression(resumeRequest.getAcceptCompressionList())
+                .setCompressionDictionaryId(resumeRequest.getCompressionDictionaryId())
+                .setAcceptDeliverBatch(resumeRequest.getAcceptDeliverBatch())
+                .build();
+        ConnectionKey key = new ConnectionKey(claims.userId(), claims.deviceId());
+        long sessionId = nextSessionId();
+        ConnectionMeta meta = prepareChannel(ctx, key, authRequest, sessionId);
+        ResumeResult result = connectionManager.resumeAuthenticated(key, meta, ctx.channel(), claims.sessionId(),
+                resumeRequest.getLastServerMessageId());
+        if (result == null) {
+            connectionManager.bindAuthenticated(key, meta, ctx.channel());
+            result = new ResumeResult(List.of(), true);
+        }
+
+        AuthOk authOk = buildAuthOk(ctx, key, authRequest, sessionId, claims.authExpiresAtMs());
+        writeAndEnableCompression(ctx, authRequest, newResponse(req)
+                .setResumeOk(ResumeOk.newBuilder()
+                        .setAuthOk(authOk)
+                        .setReplayed(result.missed().size())
+                        .setNeedsPull(result.needsPull())
+                        .build())
+                .build());
+        startResumeRefresh(ctx, sessionId, claims.authExpiresAtMs());
+
+        // 补发直接写在当前 eventLoop 任务里，排在之后经 ChannelWriteQueue 下发的新消息之前
+        for (ChatDeliver missed : result.missed()) {
+            DeliveryAckWindow.track(ctx.channel(), missed);
+            ctx.write(Envelope.newBuilder()
+                    .setVersion(req.getVersion())
+                    .setTimestampMs(System.currentTimeMillis())
+                    .setTraceId(req.getTraceId())
+                    .setChatDeliver(missed)
+                    .build());
+        }
+        if (!result.missed().isEmpty()) {
+            ctx.flush();
+        }
+    }
+
+    private void handleDeliveryAck(ChannelHandlerContext ctx, DeliveryAck ack) {
+        Long userId = ctx.channel().attr(ConnectorChannelAttrs.USER_ID).get();
+        String deviceId = ctx.channel().attr(ConnectorChannelAttrs.DEVICE_ID).get();
+        if (userId != null && deviceId != null && !ack.getServerMessageId().isEmpty()) {
+            DeliveryAckWindow ackWindow = ctx.channel().attr(ConnectorChannelAttrs.ACK_WINDOW).get();
+            if (ackWindow != null) {
+                ackWindow.ack(ack.getServerMessageId());
+            }
+            connectionManager.acknowledgeDelivery(new ConnectionKey(userId, deviceId), ack.getServerMessageId());
+        }
+    }
+
+    private ConnectionMeta prepareChannel(ChannelHandlerContext ctx, ConnectionKey key, AuthRequest authRequest, long sessionId) {
+        String clientId = orUnknown(authRequest.getClientId());
+        ctx.channel().attr(ConnectorChannelAttrs.USER_ID).set(key.userId());
+        ctx.channel().attr(ConnectorChannelAttrs.DEVICE_ID).set(key.deviceId());
+        ctx.channel().attr(ConnectorChannelAttrs.CLIENT_ID).set(clientId);
         ctx.channel().attr(ConnectorChannelAttrs.AUTHENTICATED).set(true);
+        if (ctx.channel().attr(ConnectorChannelAttrs.ACK_WINDOW).get() == null) {
+            ctx.channel().attr(ConnectorChannelAttrs.ACK_WINDOW).set(deliveryAckTracker.newWindow(ctx.channel()));
+        }
+        if (deliverBatchEnabled && authRequest.getAcceptDeliverBatch() && deliverBatchMaxSize > 1) {
+            ctx.channel().attr(ConnectorChannelAttrs.DELIVER_BATCHING)
+                    .set(new DeliverBatching(deliverBatchMaxSize, Math.max(0, deliverBatchWindowMs)));
+        }
 
         String channelId = ctx.channel().id().asShortText();
         Long connectedAt = ctx.channel().attr(ConnectorChannelAttrs.CONNECTED_AT_MS).get();
         long connectedAtMs = connectedAt == null ? System.currentTimeMillis() : connectedAt;
-        long authenticatedAtMs = System.currentTimeMillis();
-        String deviceId = authRequest.getDeviceId();
-        String clientId = authRequest.getClientId();
-        if (deviceId == null || deviceId.isBlank()) {
-            deviceId = "unknown";
+        return new ConnectionMeta(clientId, gatewayId, channelId, connectedAtMs, System.currentTimeMillis(), sessionId);
+    }
+
+    /**
+     * 连接期间每半个恢复窗口换发一次令牌（会话号不变），断线时客户端手里的令牌不会早于窗口过期太多；JWT 过期后停止换发。
+     */
+    private void startResumeRefresh(ChannelHandlerContext ctx, long sessionId, long authExpiresAtMs) {
+        if (sessionId == 0) {
+            return;
+        }
+        long intervalMs = resumeTokenCodec.refreshIntervalMs();
+        ScheduledFuture<?> refresh = ctx.executor().scheduleAtFixedRate(() -> refreshResumeToken(ctx),
+                intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        ResumeSession previous = ctx.channel().attr(ConnectorChannelAttrs.RESUME_SESSION)
+                .getAndSet(new ResumeSession(sessionId, authExpiresAtMs, refresh));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    private void refreshResumeToken(ChannelHandlerContext ctx) {
+        ResumeSession session = ctx.channel().attr(ConnectorChannelAttrs.RESUME_SESSION).get();
+        Long userId = ctx.channel().attr(ConnectorChannelAttrs.USER_ID).get();
+        String deviceId = ctx.channel().attr(ConnectorChannelAttrs.DEVICE_ID).get();
+        if (session == null || userId == null || deviceId == null || !ctx.channel().isActive()) {
+            return;
+        }
+        if (session.authExpiresAtMs() > 0 && session.authExpiresAtMs() <= System.currentTimeMillis()) {
+            session.cancel();
+            return;
         }
-        if (clientId == null || clientId.isBlank()) {
-            clientId = "unknown";
+        ctx.writeAndFlush(Envelope.newBuilder()
+                .setVersion(1)
+                .setTimestampMs(System.currentTimeMillis())
+                .setResumeTokenRefresh(ResumeTokenRefresh.newBuilder()
+                        .setResumeToken(resumeTokenCodec.issue(userId, deviceId, session.sessionId(), session.authExpiresAtMs()))
+                        .build())
+                .build());
+    }
+
+    private AuthOk buildAuthOk(ChannelHandlerContext ctx, ConnectionKey key, AuthRequest authRequest, long sessionId, long authExpiresAtMs) {
+        FrameCompression compression = frameCompressionNegotiator.negotiate(authRequest);
+        AuthOk.Builder authOk = AuthOk.newBuilder()
+                .setUserId(key.userId())
+                .setGatewayId(gatewayId)
+                .setHeartbeatIntervalSec(heartbeatIntervalSec)
+                .setDeliverBatch(ctx.channel().attr(ConnectorChannelAttrs.DELIVER_BATCHING).get() != null);
+        if (compression != null) {
+            authOk.setCompression(FrameCompressionNegotiator.algorithmOf(compression))
+                    .setCompressionThreshold(compression.thresholdBytes())
+                    .setCompressionDictionaryId(FrameCompressors.hasDictionary(compression.compressor()) ? FrameCompressors.DICTIONARY_ID_V1 : 0);
         }
+        if (sessionId != 0) {
+            authOk.setResumeToken(resumeTokenCodec.issue(key.userId(), key.deviceId(), sessionId, authExpiresAtMs))
+                    .setResumeWindowSec(resumeTokenCodec.windowSec());
+        }
+        return authOk.build();
+    }
 
-        connectionManager.bindAuthenticated(
-                new ConnectionKey(userId, deviceId),
-                new ConnectionMeta(clientId, gatewayId, channelId, connectedAtMs, authenticatedAtMs),
-                ctx.channel()
-        );
+    private void writeAndEnableCompression(ChannelHandlerContext ctx, AuthRequest authRequest, Envelope resp) {
+        FrameCompression compression = frameCompressionNegotiator.negotiate(authRequest);
+        ctx.writeAndFlush(resp);
+        // AuthOk / ResumeOk 本身保持不压缩，之后的下行帧才按协商结果压缩
+        if (compression != null) {
+            ctx.channel().attr(ConnectorChannelAttrs.FRAME_COMPRESSION).set(compression);
+        }
+    }
 
-        Envelope resp = Envelope.newBuilder()
+    private static Envelope.Builder newResponse(Envelope req) {
+        return Envelope.newBuilder()
                 .setVersion(req.getVersion())
                 .setStreamId(req.getStreamId())
                 .setTimestampMs(System.currentTimeMillis())
-                .setTraceId(req.getTraceId())
-                .setAuthOk(AuthOk.newBuilder()
-                        .setUserId(userId)
-                        .setGatewayId(gatewayId)
-                        .setHeartbeatIntervalSec(heartbeatIntervalSec)
-                        .build())
-                .build();
+                .setTraceId(req.getTraceId());
+    }
 
-        ctx.writeAndFlush(resp);
+    private static long nextSessionId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    private static String orUnknown(String value) {
+        return value == null || value.isBlank() ? "unknown" : value;
     }
 
     private void writeAuthFail(ChannelHandlerContext ctx, Envelope req, int errorCode, String message) {
@@ -163,28 +466,4 @@ public class TcpEnvelopeHandler extends SimpleChannelInboundHandler<Envelope> {
                 .build();
         ctx.writeAndFlush(resp);
     }
-
-    private long deriveUserId(String token) {
-        String t = token.trim();
-        try {
-            if (t.startsWith("uid=") && t.length() > 4) {
-                return Long.parseLong(t.substring(4));
-            }
-            if (t.startsWith("uid:") && t.length() > 4) {
-                return Long.parseLong(t.substring(4));
-            }
-            if (t.matches("\\d+")) {
-                return Long.parseLong(t);
-            }
-            int idx = t.lastIndexOf(':');
-            if (idx >= 0 && idx + 1 < t.length()) {
-                String suffix = t.substring(idx + 1);
-                if (suffix.matches("\\d+")) {
-                    return Long.parseLong(suffix);
-                }
-            }
-        } catch (Exception ignored) {
-        }
-        return (long) Math.abs(t.hashCode());
-    }
 }
@@ -5,6 +5,8 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.CorruptedFrameException;
 import io.netty.handler.codec.TooLongFrameException;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompressor;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompressors;
 
 import java.util.List;
 
@@ -50,11 +52,23 @@ public class TcpFrameDecoder extends ByteToMessageDecoder {
         }
 
         ByteBuf body = in.readRetainedSlice(bodyLen);
-        out.add(body);
 
-        // flags reserved for future usage (compression/encryption). Currently ignored.
-        if (flags != 0) {
-            // no-op
+        FrameCompressor compressor;
+        try {
+            compressor = FrameCompressors.forFlags(flags);
+        } catch (IllegalArgumentException e) {
+            body.release();
+            throw new CorruptedFrameException("unsupported_flags: " + flags);
+        }
+        if (compressor == null) {
+            out.add(body);
+            return;
+        }
+
+        try {
+            out.add(compressor.decompress(ctx.alloc(), body, maxBodyLen));
+        } finally {
+            body.release();
         }
     }
 }
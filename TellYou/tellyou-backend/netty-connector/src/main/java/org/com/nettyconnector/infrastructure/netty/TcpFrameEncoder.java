@@ -3,6 +3,7 @@ package org.com.nettyconnector.infrastructure.netty;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompression;
 
 public class TcpFrameEncoder extends MessageToByteEncoder<ByteBuf> {
 
@@ -22,10 +23,22 @@ public class TcpFrameEncoder extends MessageToByteEncoder<ByteBuf> {
     protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) {
         int bodyLen = msg.readableBytes();
 
-        out.writeShort(TcpProtocolConstants.MAGIC);
-        out.writeByte(version);
-        out.writeByte(flags);
-        out.writeInt(bodyLen);
+        FrameCompression compression = ctx.channel().attr(ConnectorChannelAttrs.FRAME_COMPRESSION).get();
+        if (compression != null && compression.shouldCompress(bodyLen)) {
+            ByteBuf compressed = compression.compressor().compress(ctx.alloc(), msg);
+            try {
+                // 压缩后没有变小（已压缩的媒体 URL、随机串等）就按原样发送
+                if (compressed.readableBytes() < bodyLen) {
+                    TcpFrames.writeHeader(out, version, (byte) (flags | compression.compressor().flags()), compressed.readableBytes());
+                    out.writeBytes(compressed);
+                    return;
+                }
+            } finally {
+                compressed.release();
+            }
+        }
+
+        TcpFrames.writeHeader(out, version, flags, bodyLen);
         out.writeBytes(msg, msg.readerIndex(), bodyLen);
     }
 }
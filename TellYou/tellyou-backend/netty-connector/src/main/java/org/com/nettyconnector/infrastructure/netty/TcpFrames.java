@@ -0,0 +1,68 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import com.google.protobuf.CodedOutputStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompressor;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 帧编码工具：header 与 Envelope body 一次性写入同一个 ByteBuf，供扇出时复用。
+ */
+public final class TcpFrames {
+
+    private TcpFrames() {
+    }
+
+    public static void writeHeader(ByteBuf out, byte version, byte flags, int bodyLen) {
+        out.writeShort(TcpProtocolConstants.MAGIC);
+        out.writeByte(version);
+        out.writeByte(flags);
+        out.writeInt(bodyLen);
+    }
+
+    /**
+     * 直接把 Envelope 序列化进（通常是池化 direct 的）frame buffer，不经过中间 byte[]。
+     */
+    public static ByteBuf encode(ByteBufAllocator alloc, Envelope envelope) {
+        int bodyLen = envelope.getSerializedSize();
+        ByteBuf frame = alloc.buffer(TcpProtocolConstants.HEADER_LEN + bodyLen);
+        try {
+            writeHeader(frame, TcpProtocolConstants.VERSION_V1, (byte) 0, bodyLen);
+            ByteBuffer nio = frame.nioBuffer(frame.writerIndex(), bodyLen);
+            CodedOutputStream cos = CodedOutputStream.newInstance(nio);
+            envelope.writeTo(cos);
+            cos.checkNoSpaceLeft();
+            frame.writerIndex(frame.writerIndex() + bodyLen);
+            return frame;
+        } catch (IOException | RuntimeException e) {
+            frame.release();
+            throw new IllegalStateException("envelope encode failed", e);
+        }
+    }
+
+    /**
+     * 把已编码的原始帧压缩成新帧（flags 带上压缩位）；压缩后没有变小时返回 null，调用方继续用原始帧。
+     */
+    public static ByteBuf compressFrame(ByteBufAllocator alloc, ByteBuf rawFrame, FrameCompressor compressor) {
+        int start = rawFrame.readerIndex();
+        int bodyLen = rawFrame.readableBytes() - TcpProtocolConstants.HEADER_LEN;
+        ByteBuf compressed = compressor.compress(alloc, rawFrame.slice(start + TcpProtocolConstants.HEADER_LEN, bodyLen));
+        try {
+            if (compressed.readableBytes() >= bodyLen) {
+                return null;
+            }
+            byte version = rawFrame.getByte(start + 2);
+            byte flags = (byte) (rawFrame.getByte(start + 3) | compressor.flags());
+            ByteBuf frame = alloc.buffer(TcpProtocolConstants.HEADER_LEN + compressed.readableBytes());
+            writeHeader(frame, version, flags, compressed.readableBytes());
+            frame.writeBytes(compressed);
+            return frame;
+        } finally {
+            compressed.release();
+        }
+    }
+}
@@ -10,4 +10,15 @@ public final class TcpProtocolConstants {
 
     public static final int HEADER_LEN = 8;
     public static final int DEFAULT_MAX_BODY_LEN = 1024 * 1024;
+
+    /**
+     * flags 低 2 位：body 压缩算法（0 表示未压缩）
+     */
+    public static final int FLAG_COMPRESSION_MASK = 0x03;
+    public static final byte FLAG_DEFLATE = 0x01;
+    public static final byte FLAG_ZSTD = 0x02;
+    /**
+     * body 使用内置预设字典压缩
+     */
+    public static final byte FLAG_DICTIONARY = 0x04;
 }
@@ -4,30 +4,37 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.protobuf.ProtobufDecoder;
 import io.netty.handler.codec.protobuf.ProtobufEncoder;
-import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.util.concurrent.GlobalEventExecutor;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 帧格式（网络字节序 Big-Endian）
  * <ul>
  *     <li>magic：2 字节 short</li>
  *     <li>ver：  1 字节</li>
- *     <li>flags：1 字节（预留，当前不启用）</li>
+ *     <li>flags：1 字节，低 2 位为 body 压缩算法（0 不压缩 / 1 deflate / 2 zstd），0x04 表示使用预设字典；
+ *     压缩后的 body 为 [int 原始长度][压缩数据]</li>
  *     <li>length：4 字节 int，表示 body 长度</li>
  *     <li>body：length 字节，内容是 Envelope 的 protobuf 二进制</li>
  * </ul>
+ * 传输层由 netty.tcp.transport 选择（auto/nio/epoll/io_uring），原生传输下 netty.tcp.acceptors > 1
+ * 时通过 SO_REUSEPORT 在同一端口绑定多个 acceptor。
  * @author lanye
  * @since 2026/01/30 01:42
  */
@@ -40,17 +47,62 @@ public class TcpServer {
     @Value("${netty.tcp.port:7070}")
     private int port;
 
+    @Value("${netty.tcp.transport:auto}")
+    private String transportMode;
+
+    @Value("${netty.tcp.acceptors:1}")
+    private int acceptors;
+
+    @Value("${netty.tcp.worker-threads:0}")
+    private int workerThreads;
+
+    @Value("${netty.tcp.so-backlog:1024}")
+    private int soBacklog;
+
+    @Value("${netty.tcp.tcp-nodelay:true}")
+    private boolean tcpNoDelay;
+
+    @Value("${netty.tcp.tcp-quickack:false}")
+    private boolean tcpQuickAck;
+
+    @Value("${netty.tcp.so-sndbuf:0}")
+    private int soSndBuf;
+
+    @Value("${netty.tcp.so-rcvbuf:0}")
+    private int soRcvBuf;
+
+    @Value("${netty.tcp.write-buffer.low-water-mark:32768}")
+    private int writeBufferLowWaterMark;
+
+    @Value("${netty.tcp.write-buffer.high-water-mark:65536}")
+    private int writeBufferHighWaterMark;
+
+    @Value("${netty.tcp.ping-fast-path:true}")
+    private boolean pingFastPath;
+
     private final TcpEnvelopeHandler tcpEnvelopeHandler;
+    private final IdleSweeper idleSweeper;
+    private final PingFastPathHandler pingFastPathHandler;
+    private final TrafficCountingHandler trafficCountingHandler;
 
+    private TcpTransport transport;
+    private int acceptorCount;
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
-    private Channel serverChannel;
+    private final List<Channel> serverChannels = new ArrayList<>();
+    private final ChannelGroup connections = new DefaultChannelGroup("tcp-connections", GlobalEventExecutor.INSTANCE);
     private Thread bindThread;
 
     @PostConstruct
     public void start() {
-        this.bossGroup = new NioEventLoopGroup(1);
-        this.workerGroup = new NioEventLoopGroup();
+        this.transport = TcpTransport.resolve(transportMode);
+        this.acceptorCount = transport.effectiveAcceptors(acceptors);
+        if (acceptorCount < acceptors) {
+            log.warn("netty transport {} does not support SO_REUSEPORT, acceptors={} downgraded to {}", transport, acceptors, acceptorCount);
+        }
+
+        this.bossGroup = transport.newEventLoopGroup(acceptorCount, "netty-tcp-boss");
+        this.workerGroup = transport.newEventLoopGroup(Math.max(0, workerThreads), "netty-tcp-worker");
 
         this.bindThread = new Thread(this::doBind, "netty-tcp-server");
         this.bindThread.setDaemon(true);
@@ -61,24 +113,58 @@ public class TcpServer {
         try {
             ServerBootstrap bootstrap = new ServerBootstrap()
                     .group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+                    .channel(transport.serverChannelClass())
+                    .option(ChannelOption.SO_BACKLOG, soBacklog)
+                    .childOption(ChannelOption.TCP_NODELAY, tcpNoDelay)
+                    .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                            new WriteBufferWaterMark(writeBufferLowWaterMark, Math.max(writeBufferLowWaterMark, writeBufferHighWaterMark)))
                     .childHandler(new ChannelInitializer<SocketChannel>() {
                         @Override
                         protected void initChannel(SocketChannel ch) {
+                            connections.add(ch);
+                            ch.pipeline().addLast(trafficCountingHandler);
+                            // 读循环内由 handler 触发的 flush（pong、ack 等）合并到 channelReadComplete 时统一下发
+                            ch.pipeline().addLast(new FlushConsolidationHandler());
                             ch.pipeline().addLast(new TcpFrameDecoder(TcpProtocolConstants.DEFAULT_MAX_BODY_LEN));
-                            ch.pipeline().addLast(new ProtobufDecoder(Envelope.getDefaultInstance()));
-                            ch.pipeline().addLast(new IdleStateHandler(90, 0, 0));
+                            if (idleSweeper.enabled()) {
+                                ch.pipeline().addLast(idleSweeper.newHandler());
+                            }
+                            if (pingFastPath) {
+                                ch.pipeline().addLast(pingFastPathHandler);
+                            }
+                            ch.pipeline().addLast(EnvelopeDecoder.INSTANCE);
 
+                            ch.pipeline().addLast(EncodedFrameHandler.INSTANCE);
                             ch.pipeline().addLast(new TcpFrameEncoder());
                             ch.pipeline().addLast(new ProtobufEncoder());
                             ch.pipeline().addLast(tcpEnvelopeHandler);
                         }
                     });
+            if (soSndBuf > 0) {
+                bootstrap.childOption(ChannelOption.SO_SNDBUF, soSndBuf);
+            }
+            if (soRcvBuf > 0) {
+                bootstrap.childOption(ChannelOption.SO_RCVBUF, soRcvBuf);
+            }
+            if (tcpQuickAck) {
+                transport.applyQuickAck(bootstrap, true);
+            }
+            if (acceptorCount > 1) {
+                transport.applyReusePort(bootstrap);
+            }
+
+            // SO_REUSEPORT 下每次 bind 都会得到一个独立的监听 socket，分别落在不同的 boss 线程上
+            for (int i = 0; i < acceptorCount; i++) {
+                ChannelFuture future = bootstrap.bind(port).sync();
+                synchronized (serverChannels) {
+                    serverChannels.add(future.channel());
+                }
+            }
+            log.info("Netty TCP server started on port={}, transport={}, acceptors={}", port, transport, acceptorCount);
 
-            ChannelFuture future = bootstrap.bind(port).sync();
-            this.serverChannel = future.channel();
-            log.info("Netty TCP server started on port={}", port);
-            this.serverChannel.closeFuture().sync();
+            for (Channel ch : snapshotServerChannels()) {
+                ch.closeFuture().sync();
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } catch (Exception e) {
@@ -86,11 +172,40 @@ public class TcpServer {
         }
     }
 
+    private List<Channel> snapshotServerChannels() {
+        synchronized (serverChannels) {
+            return new ArrayList<>(serverChannels);
+        }
+    }
+
+    /**
+     * 当前全部已建立的客户端连接（含未认证），关闭的连接自动移出。
+     */
+    public ChannelGroup connections() {
+        return connections;
+    }
+
+    /**
+     * 处理客户端连接的 eventLoop 组，{@link #start()} 之前为 null。
+     */
+    public EventLoopGroup workerGroup() {
+        return workerGroup;
+    }
+
+    /**
+     * 关闭监听 socket，不再接受新连接，已建立的连接不受影响。
+     */
+    public void stopAccepting() {
+        for (Channel ch : snapshotServerChannels()) {
+            ch.close().syncUninterruptibly();
+        }
+        log.info("Netty TCP server stopped accepting on port={}", port);
+    }
+
     @PreDestroy
     public void stop() {
         try {
-            Channel ch = this.serverChannel;
-            if (ch != null) {
+            for (Channel ch : snapshotServerChannels()) {
                 ch.close().syncUninterruptibly();
             }
         } catch (Exception e) {
@@ -0,0 +1,205 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.unix.UnixChannelOption;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringChannelOption;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * TCP 传输层实现：NIO 为兜底，Linux 下优先使用原生 epoll，io_uring 需显式开启。
+ * <p>
+ * 原生传输支持 SO_REUSEPORT，可以在同一端口上绑定多个 acceptor，由内核分摊新连接。
+ */
+@Slf4j
+public enum TcpTransport {
+
+    NIO {
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads, String poolName) {
+            return new NioEventLoopGroup(threads, new DefaultThreadFactory(poolName));
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannelClass() {
+            return NioServerSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends Channel> socketChannelClass() {
+            return NioSocketChannel.class;
+        }
+
+        @Override
+        public boolean supportsReusePort() {
+            return false;
+        }
+
+        @Override
+        public void applyQuickAck(ServerBootstrap bootstrap, boolean quickAck) {
+        }
+    },
+
+    EPOLL {
+        @Override
+        public boolean isAvailable() {
+            try {
+                return Epoll.isAvailable();
+            } catch (Throwable e) {
+                return false;
+            }
+        }
+
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads, String poolName) {
+            return new EpollEventLoopGroup(threads, new DefaultThreadFactory(poolName));
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends Channel> socketChannelClass() {
+            return EpollSocketChannel.class;
+        }
+
+        @Override
+        public boolean supportsReusePort() {
+            return true;
+        }
+
+        @Override
+        public void applyQuickAck(ServerBootstrap bootstrap, boolean quickAck) {
+            bootstrap.childOption(EpollChannelOption.TCP_QUICKACK, quickAck);
+        }
+    },
+
+    IO_URING {
+        @Override
+        public boolean isAvailable() {
+            try {
+                return IOUring.isAvailable();
+            } catch (Throwable e) {
+                return false;
+            }
+        }
+
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads, String poolName) {
+            return new IOUringEventLoopGroup(threads, new DefaultThreadFactory(poolName));
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannelClass() {
+            return IOUringServerSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends Channel> socketChannelClass() {
+            return IOUringSocketChannel.class;
+        }
+
+        @Override
+        public boolean supportsReusePort() {
+            return true;
+        }
+
+        @Override
+        public void applyQuickAck(ServerBootstrap bootstrap, boolean quickAck) {
+            bootstrap.childOption(IOUringChannelOption.TCP_QUICKACK, quickAck);
+        }
+    };
+
+    public abstract boolean isAvailable();
+
+    public abstract EventLoopGroup newEventLoopGroup(int threads, String poolName);
+
+    public abstract Class<? extends ServerChannel> serverChannelClass();
+
+    /**
+     * 同一传输下的客户端 socket，供压测工具等主动建连的场景使用。
+     */
+    public abstract Class<? extends Channel> socketChannelClass();
+
+    public abstract boolean supportsReusePort();
+
+    public abstract void applyQuickAck(ServerBootstrap bootstrap, boolean quickAck);
+
+    public void applyReusePort(ServerBootstrap bootstrap) {
+        if (supportsReusePort()) {
+            bootstrap.option(UnixChannelOption.SO_REUSEPORT, true);
+        }
+    }
+
+    /**
+     * 在本传输上实际可用的 acceptor 数：不支持 SO_REUSEPORT 时只能绑定一个。
+     */
+    public int effectiveAcceptors(int requested) {
+        return supportsReusePort() ? Math.max(1, requested) : 1;
+    }
+
+    /**
+     * 解析配置的传输模式：auto 优先 epoll；io_uring（incubator 版本）需显式指定。
+     * 请求的传输不可用时按 io_uring → epoll → nio 依次回退。
+     */
+    public static TcpTransport resolve(String mode) {
+        return resolve(mode, TcpTransport::isAvailable);
+    }
+
+    static TcpTransport resolve(String mode, Predicate<TcpTransport> available) {
+        String m = mode == null ? "auto" : mode.trim().toLowerCase(Locale.ROOT).replace('-', '_');
+        TcpTransport requested;
+        if (m.isEmpty() || "auto".equals(m)) {
+            requested = EPOLL;
+        } else {
+            try {
+                requested = TcpTransport.valueOf(m.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                log.warn("unknown netty.tcp.transport={}, fallback to auto", mode);
+                requested = EPOLL;
+                m = "auto";
+            }
+        }
+
+        TcpTransport t = requested;
+        while (t != NIO && !available.test(t)) {
+            t = t.fallback();
+        }
+        if (t != requested && !"auto".equals(m)) {
+            log.warn("netty transport {} is not available on this host, fallback to {}", requested, t);
+        }
+        return t;
+    }
+
+    private TcpTransport fallback() {
+        return switch (this) {
+            case IO_URING -> EPOLL;
+            case EPOLL, NIO -> NIO;
+        };
+    }
+}
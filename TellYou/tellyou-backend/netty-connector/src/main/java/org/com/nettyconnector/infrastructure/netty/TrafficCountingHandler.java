@@ -0,0 +1,49 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 放在 pipeline 最靠近 head 的位置，统计全部连接的原始入站 / 出站字节数（含帧头，压缩后大小）。
+ * 只累加 LongAdder，不按连接保存状态。
+ */
+@Component
+@ChannelHandler.Sharable
+public class TrafficCountingHandler extends ChannelDuplexHandler {
+
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof ByteBuf buf) {
+            bytesIn.add(buf.readableBytes());
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof ByteBuf buf) {
+            bytesOut.add(buf.readableBytes());
+        } else if (msg instanceof ByteBufHolder holder) {
+            bytesOut.add(holder.content().readableBytes());
+        }
+        ctx.write(msg, promise);
+    }
+
+    public long bytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long bytesOut() {
+        return bytesOut.sum();
+    }
+}
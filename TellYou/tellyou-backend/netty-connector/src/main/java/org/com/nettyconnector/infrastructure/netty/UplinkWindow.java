@@ -0,0 +1,10 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+/**
+ * 单连接的上行在途窗口，只在 channel 所属 eventLoop 上读写，无需同步。
+ */
+final class UplinkWindow {
+
+    int inFlight;
+    boolean readSuspended;
+}
@@ -0,0 +1,72 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * 出站聚合的累计统计，用来观察每次 flush（≈ 每次 write 系统调用）平均带出多少条消息。
+ */
+@Component
+public class WriteCoalescingStats {
+
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder deliverBatches = new LongAdder();
+    private final LongAdder batchedDelivers = new LongAdder();
+    private volatile LongConsumer flushLatencySink;
+    private volatile int flushLatencySampleMask;
+
+    public void recordFlush(int messageCount) {
+        flushes.increment();
+        messages.add(messageCount);
+    }
+
+    public void recordDeliverBatch(int deliverCount) {
+        deliverBatches.increment();
+        batchedDelivers.add(deliverCount);
+    }
+
+    /**
+     * 按约 1/sampleEvery 的概率对 drain 计时（向上取到 2 的幂），耗时（纳秒）交给 sink；未设置时不计时。
+     */
+    public void onFlushLatency(int sampleEvery, LongConsumer sink) {
+        this.flushLatencySampleMask = Integer.highestOneBit(Math.max(1, sampleEvery) * 2 - 1) - 1;
+        this.flushLatencySink = sink;
+    }
+
+    boolean sampleFlushLatency() {
+        return flushLatencySink != null && (ThreadLocalRandom.current().nextInt() & flushLatencySampleMask) == 0;
+    }
+
+    void recordFlushLatency(long nanos) {
+        LongConsumer sink = flushLatencySink;
+        if (sink != null) {
+            sink.accept(nanos);
+        }
+    }
+
+    public long flushes() {
+        return flushes.sum();
+    }
+
+    public long messages() {
+        return messages.sum();
+    }
+
+    public double averageMessagesPerFlush() {
+        long f = flushes.sum();
+        return f == 0 ? 0D : (double) messages.sum() / f;
+    }
+
+    public long deliverBatches() {
+        return deliverBatches.sum();
+    }
+
+    public double averageDeliversPerBatch() {
+        long b = deliverBatches.sum();
+        return b == 0 ? 0D : (double) batchedDelivers.sum() / b;
+    }
+}
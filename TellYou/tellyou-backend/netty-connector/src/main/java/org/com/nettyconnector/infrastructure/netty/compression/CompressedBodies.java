@@ -0,0 +1,35 @@
+package org.com.nettyconnector.infrastructure.netty.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+
+final class CompressedBodies {
+
+    private CompressedBodies() {
+    }
+
+    static int readRawLength(ByteBuf payload, int maxRawLen) {
+        if (payload.readableBytes() < 4) {
+            throw new CorruptedFrameException("compressed_body_too_short");
+        }
+        int rawLen = payload.readInt();
+        if (rawLen < 0 || rawLen > maxRawLen) {
+            throw new TooLongFrameException("body_too_large: " + rawLen);
+        }
+        return rawLen;
+    }
+
+    /**
+     * zstd-jni 只接受 direct ByteBuffer：已经是单段 direct 内存时原样返回，否则拷贝一份（调用方负责释放拷贝）。
+     */
+    static ByteBuf directView(ByteBufAllocator alloc, ByteBuf buf) {
+        if (buf.isDirect() && buf.nioBufferCount() == 1) {
+            return buf;
+        }
+        ByteBuf copy = alloc.directBuffer(buf.readableBytes());
+        copy.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+        return copy;
+    }
+}
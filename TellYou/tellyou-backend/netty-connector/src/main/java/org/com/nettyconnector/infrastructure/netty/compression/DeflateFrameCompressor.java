@@ -0,0 +1,115 @@
+package org.com.nettyconnector.infrastructure.netty.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * zlib/deflate 实现，JDK 自带，任何平台都可用；可选预设字典。
+ */
+public final class DeflateFrameCompressor implements FrameCompressor {
+
+    private static final FastThreadLocal<Inflater> INFLATERS = new FastThreadLocal<>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+
+        @Override
+        protected void onRemoval(Inflater value) {
+            value.end();
+        }
+    };
+
+    private final byte flags;
+    private final byte[] dictionary;
+    private final FastThreadLocal<Deflater> deflaters;
+
+    public DeflateFrameCompressor(byte flags, int level, byte[] dictionary) {
+        this.flags = flags;
+        this.dictionary = dictionary;
+        this.deflaters = new FastThreadLocal<>() {
+            @Override
+            protected Deflater initialValue() {
+                return new Deflater(level);
+            }
+
+            @Override
+            protected void onRemoval(Deflater value) {
+                value.end();
+            }
+        };
+    }
+
+    @Override
+    public byte flags() {
+        return flags;
+    }
+
+    @Override
+    public ByteBuf compress(ByteBufAllocator alloc, ByteBuf body) {
+        int rawLen = body.readableBytes();
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(body.nioBuffer(body.readerIndex(), rawLen));
+        deflater.finish();
+
+        // zlib deflateBound 的保守估计
+        ByteBuf out = alloc.buffer(4 + rawLen + (rawLen >> 12) + (rawLen >> 14) + 64);
+        try {
+            out.writeInt(rawLen);
+            while (!deflater.finished()) {
+                out.ensureWritable(64);
+                ByteBuffer dst = out.nioBuffer(out.writerIndex(), out.writableBytes());
+                out.writerIndex(out.writerIndex() + deflater.deflate(dst));
+            }
+            return out;
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public ByteBuf decompress(ByteBufAllocator alloc, ByteBuf payload, int maxRawLen) {
+        int rawLen = CompressedBodies.readRawLength(payload, maxRawLen);
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(payload.nioBuffer(payload.readerIndex(), payload.readableBytes()));
+
+        ByteBuf out = alloc.buffer(rawLen);
+        try {
+            while (out.writerIndex() < rawLen && !inflater.finished()) {
+                ByteBuffer dst = out.nioBuffer(out.writerIndex(), rawLen - out.writerIndex());
+                int n = inflater.inflate(dst);
+                if (n == 0) {
+                    if (inflater.needsDictionary() && dictionary != null) {
+                        inflater.setDictionary(dictionary);
+                        continue;
+                    }
+                    break;
+                }
+                out.writerIndex(out.writerIndex() + n);
+            }
+            if (out.writerIndex() != rawLen || !inflater.finished()) {
+                throw new CorruptedFrameException("deflate_length_mismatch");
+            }
+            return out;
+        } catch (DataFormatException e) {
+            out.release();
+            throw new CorruptedFrameException("deflate_corrupted", e);
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.com.nettyconnector.infrastructure.netty.compression;
+
+/**
+ * 单个连接协商出的压缩策略：body 不小于 thresholdBytes 时才压缩，小帧保持原样。
+ */
+public record FrameCompression(FrameCompressor compressor, int thresholdBytes) {
+
+    public boolean shouldCompress(int bodyLen) {
+        return bodyLen >= thresholdBytes;
+    }
+}
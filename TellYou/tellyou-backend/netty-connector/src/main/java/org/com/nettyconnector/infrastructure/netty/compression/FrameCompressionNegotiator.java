@@ -0,0 +1,69 @@
+package org.com.nettyconnector.infrastructure.netty.compression;
+
+import org.com.nettyconnector.infrastructure.netty.TcpProtocolConstants;
+import org.com.nettyconnector.proto.connector.tcp.v1.AuthRequest;
+import org.com.nettyconnector.proto.connector.tcp.v1.CompressionAlgorithm;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * 鉴权时按服务端偏好顺序挑选客户端也支持的压缩算法；客户端声明了相同版本的预设字典时启用字典。
+ */
+@Component
+public class FrameCompressionNegotiator {
+
+    @Value("${netty.tcp.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${netty.tcp.compression.algorithms:zstd,deflate}")
+    private String[] algorithms;
+
+    @Value("${netty.tcp.compression.threshold-bytes:256}")
+    private int thresholdBytes;
+
+    /**
+     * @return 协商结果；不压缩时返回 null
+     */
+    public FrameCompression negotiate(AuthRequest authRequest) {
+        if (!enabled || authRequest.getAcceptCompressionCount() == 0 || algorithms == null) {
+            return null;
+        }
+        boolean useDictionary = authRequest.getCompressionDictionaryId() == FrameCompressors.DICTIONARY_ID_V1;
+
+        for (String name : algorithms) {
+            CompressionAlgorithm algorithm = parse(name);
+            if (algorithm == null || !authRequest.getAcceptCompressionList().contains(algorithm)) {
+                continue;
+            }
+            FrameCompressor compressor = FrameCompressors.select(algorithm, useDictionary);
+            if (compressor != null) {
+                return new FrameCompression(compressor, Math.max(0, thresholdBytes));
+            }
+        }
+        return null;
+    }
+
+    public static CompressionAlgorithm algorithmOf(FrameCompression compression) {
+        if (compression == null) {
+            return CompressionAlgorithm.COMPRESSION_ALGORITHM_UNSPECIFIED;
+        }
+        return switch (compression.compressor().flags() & TcpProtocolConstants.FLAG_COMPRESSION_MASK) {
+            case TcpProtocolConstants.FLAG_DEFLATE -> CompressionAlgorithm.DEFLATE;
+            case TcpProtocolConstants.FLAG_ZSTD -> CompressionAlgorithm.ZSTD;
+            default -> CompressionAlgorithm.COMPRESSION_ALGORITHM_UNSPECIFIED;
+        };
+    }
+
+    private static CompressionAlgorithm parse(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        try {
+            return CompressionAlgorithm.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.com.nettyconnector.infrastructure.netty.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * 单帧 body 压缩器。压缩后的 body 布局为 [int 原始长度][压缩数据]，原始长度用于解压时一次性分配目标缓冲区。
+ */
+public interface FrameCompressor {
+
+    /**
+     * 写入帧头 flags 的位（算法位 + 可选的字典位）。
+     */
+    byte flags();
+
+    /**
+     * 压缩 body 的可读部分，不修改 body 的读写索引；返回的 ByteBuf 由调用方释放。
+     */
+    ByteBuf compress(ByteBufAllocator alloc, ByteBuf body);
+
+    /**
+     * 解压 {@link #compress} 产出的数据；原始长度超过 maxRawLen 时拒绝解压。返回的 ByteBuf 由调用方释放。
+     */
+    ByteBuf decompress(ByteBufAllocator alloc, ByteBuf payload, int maxRawLen);
+}
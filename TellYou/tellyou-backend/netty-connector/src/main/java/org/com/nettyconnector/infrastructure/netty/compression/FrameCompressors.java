@@ -0,0 +1,106 @@
+package org.com.nettyconnector.infrastructure.netty.compression;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.nettyconnector.infrastructure.netty.TcpProtocolConstants;
+import org.com.nettyconnector.proto.connector.tcp.v1.CompressionAlgorithm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+
+/**
+ * 连接器支持的全部帧压缩器，按帧头 flags 查找。
+ * <p>
+ * 预设字典是协议的一部分（客户端内置同一份），版本号通过 AuthRequest/AuthOk 的 compression_dictionary_id 协商。
+ */
+@Slf4j
+public final class FrameCompressors {
+
+    public static final int DICTIONARY_ID_V1 = 1;
+
+    private static final String DICTIONARY_V1_RESOURCE = "tcp/compression-dict-v1.txt";
+    private static final int ZSTD_LEVEL = 3;
+
+    private static final FrameCompressor DEFLATE;
+    private static final FrameCompressor DEFLATE_DICT;
+    private static final FrameCompressor ZSTD;
+    private static final FrameCompressor ZSTD_DICT;
+
+    static {
+        byte[] dictionary = loadDictionary();
+
+        DEFLATE = new DeflateFrameCompressor(TcpProtocolConstants.FLAG_DEFLATE, Deflater.DEFAULT_COMPRESSION, null);
+        DEFLATE_DICT = dictionary == null ? null : new DeflateFrameCompressor(
+                (byte) (TcpProtocolConstants.FLAG_DEFLATE | TcpProtocolConstants.FLAG_DICTIONARY), Deflater.DEFAULT_COMPRESSION, dictionary);
+
+        FrameCompressor zstd = null;
+        FrameCompressor zstdDict = null;
+        try {
+            zstd = new ZstdFrameCompressor(TcpProtocolConstants.FLAG_ZSTD, ZSTD_LEVEL, null);
+            if (dictionary != null) {
+                zstdDict = new ZstdFrameCompressor(
+                        (byte) (TcpProtocolConstants.FLAG_ZSTD | TcpProtocolConstants.FLAG_DICTIONARY), ZSTD_LEVEL, dictionary);
+            }
+        } catch (Throwable e) {
+            log.warn("zstd native library not available, zstd frame compression disabled: {}", e.toString());
+        }
+        ZSTD = zstd;
+        ZSTD_DICT = zstdDict;
+    }
+
+    private FrameCompressors() {
+    }
+
+    /**
+     * @return 对应 flags 的压缩器；flags 未声明压缩时返回 null
+     * @throws IllegalArgumentException flags 声明了本机不支持的压缩方式
+     */
+    public static FrameCompressor forFlags(byte flags) {
+        int algorithm = flags & TcpProtocolConstants.FLAG_COMPRESSION_MASK;
+        boolean dictionary = (flags & TcpProtocolConstants.FLAG_DICTIONARY) != 0;
+        if (algorithm == 0) {
+            if (dictionary) {
+                throw new IllegalArgumentException("dictionary flag without compression: " + flags);
+            }
+            return null;
+        }
+
+        FrameCompressor c = switch (algorithm) {
+            case TcpProtocolConstants.FLAG_DEFLATE -> dictionary ? DEFLATE_DICT : DEFLATE;
+            case TcpProtocolConstants.FLAG_ZSTD -> dictionary ? ZSTD_DICT : ZSTD;
+            default -> null;
+        };
+        if (c == null) {
+            throw new IllegalArgumentException("unsupported compression flags: " + flags);
+        }
+        return c;
+    }
+
+    /**
+     * @return 对应算法的压缩器；本机不支持时返回 null
+     */
+    public static FrameCompressor select(CompressionAlgorithm algorithm, boolean useDictionary) {
+        return switch (algorithm) {
+            case DEFLATE -> useDictionary && DEFLATE_DICT != null ? DEFLATE_DICT : DEFLATE;
+            case ZSTD -> useDictionary && ZSTD_DICT != null ? ZSTD_DICT : ZSTD;
+            default -> null;
+        };
+    }
+
+    public static boolean hasDictionary(FrameCompressor compressor) {
+        return compressor != null && (compressor.flags() & TcpProtocolConstants.FLAG_DICTIONARY) != 0;
+    }
+
+    private static byte[] loadDictionary() {
+        try (InputStream is = FrameCompressors.class.getClassLoader().getResourceAsStream(DICTIONARY_V1_RESOURCE)) {
+            if (is == null) {
+                log.warn("compression dictionary not found: {}", DICTIONARY_V1_RESOURCE);
+                return null;
+            }
+            return is.readAllBytes();
+        } catch (IOException e) {
+            log.warn("compression dictionary load failed: {}", DICTIONARY_V1_RESOURCE, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.com.nettyconnector.infrastructure.netty.compression;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * zstd 实现（zstd-jni），直接在 direct 内存上压缩/解压；可选预设字典（raw content dictionary）。
+ */
+public final class ZstdFrameCompressor implements FrameCompressor {
+
+    private final byte flags;
+    private final int level;
+    private final ZstdDictCompress dictCompress;
+    private final ZstdDictDecompress dictDecompress;
+
+    public ZstdFrameCompressor(byte flags, int level, byte[] dictionary) {
+        this.flags = flags;
+        this.level = level;
+        this.dictCompress = dictionary == null ? null : new ZstdDictCompress(dictionary, level);
+        this.dictDecompress = dictionary == null ? null : new ZstdDictDecompress(dictionary);
+    }
+
+    @Override
+    public byte flags() {
+        return flags;
+    }
+
+    @Override
+    public ByteBuf compress(ByteBufAllocator alloc, ByteBuf body) {
+        int rawLen = body.readableBytes();
+        int bound = (int) Zstd.compressBound(rawLen);
+        ByteBuf src = CompressedBodies.directView(alloc, body);
+        ByteBuf out = alloc.directBuffer(4 + bound);
+        try {
+            out.writeInt(rawLen);
+            ByteBuffer dst = out.nioBuffer(4, bound);
+            ByteBuffer in = src.nioBuffer(src.readerIndex(), rawLen);
+            long n = dictCompress == null
+                    ? Zstd.compressDirectByteBuffer(dst, 0, bound, in, 0, rawLen, level)
+                    : Zstd.compressDirectByteBufferFastDict(dst, 0, bound, in, 0, rawLen, dictCompress);
+            if (Zstd.isError(n)) {
+                throw new IllegalStateException("zstd compress failed: " + Zstd.getErrorName(n));
+            }
+            out.writerIndex(4 + (int) n);
+            return out;
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        } finally {
+            if (src != body) {
+                src.release();
+            }
+        }
+    }
+
+    @Override
+    public ByteBuf decompress(ByteBufAllocator alloc, ByteBuf payload, int maxRawLen) {
+        int rawLen = CompressedBodies.readRawLength(payload, maxRawLen);
+        int srcLen = payload.readableBytes();
+        ByteBuf src = CompressedBodies.directView(alloc, payload);
+        ByteBuf out = alloc.directBuffer(rawLen);
+        try {
+            ByteBuffer dst = out.nioBuffer(0, rawLen);
+            ByteBuffer in = src.nioBuffer(src.readerIndex(), srcLen);
+            long n = dictDecompress == null
+                    ? Zstd.decompressDirectByteBuffer(dst, 0, rawLen, in, 0, srcLen)
+                    : Zstd.decompressDirectByteBufferFastDict(dst, 0, rawLen, in, 0, srcLen, dictDecompress);
+            if (Zstd.isError(n) || n != rawLen) {
+                throw new CorruptedFrameException("zstd_corrupted");
+            }
+            out.writerIndex(rawLen);
+            return out;
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        } finally {
+            if (src != payload) {
+                src.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.com.nettyconnector.infrastructure.route;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.com.nettyconnector.domain.connection.ConnectionManager;
+import org.com.shared.infrastructure.redis.OnlineRouteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
+
+/**
+ * 本机路由租约：定期把所有本地连接的 gw:route:user:{uid} 批量续期，停机时批量清理。
+ * <p>
+ * 续期不跟随心跳逐个进行，而是每 gateway.route.refresh-interval-ms 对全部本地路由做一轮
+ * pipeline（每 refresh-batch-size 个用户一次 RBatch）。每批发出前按本地注册表重新取一次路由，快照之后已断开的设备不再续期；
+ * Redis 侧只写入缺失或仍指向本机的字段，主从切换丢失的路由会在下一轮补回，设备已在别的 gateway 登录时不会被覆盖。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RouteLeaseManager {
+
+    private final ConnectionManager connectionManager;
+    private final OnlineRouteRepository onlineRouteRepository;
+    private final RouteLeaseStats stats;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    @Value("${gateway.route.ttl-seconds:300}")
+    private long routeTtlSeconds;
+
+    @Value("${gateway.route.refresh-batch-size:512}")
+    private int refreshBatchSize;
+
+    @Scheduled(initialDelayString = "${gateway.route.refresh-interval-ms:100000}",
+            fixedDelayString = "${gateway.route.refresh-interval-ms:100000}")
+    public void renew() {
+        long startNs = System.nanoTime();
+        long renewed = forEachBatch(connectionManager.localRoutes(), batch -> {
+            Map<Long, Map<String, String>> current = stillLocal(batch);
+            onlineRouteRepository.bindAll(current, routeTtlSeconds);
+            return countRoutes(current);
+        });
+        long elapsedMs = (System.nanoTime() - startNs) / 1_000_000L;
+        stats.recordCycle(renewed, elapsedMs);
+        log.debug("route lease renewed: routes={}, costMs={}", renewed, elapsedMs);
+    }
+
+    /**
+     * 停机时批量清理本机路由，只执行一次。开启停机迁移时由 ConnectionDrainer 在强制关闭剩余连接之后调用，
+     * 这里的 {@code @PreDestroy} 只兜底未迁移的情况。
+     */
+    @PreDestroy
+    public void releaseAll() {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        long released = forEachBatch(connectionManager.releaseRoutes(), batch -> {
+            onlineRouteRepository.unbindAll(batch);
+            return countRoutes(batch);
+        });
+        log.info("route lease released on shutdown: routes={}", released);
+    }
+
+    /**
+     * 按本地注册表的当前状态过滤一批路由：用户已全部下线则整体跳过。
+     */
+    private Map<Long, Map<String, String>> stillLocal(Map<Long, Map<String, String>> batch) {
+        Map<Long, Map<String, String>> current = new HashMap<>(batch.size() * 2);
+        for (Long userId : batch.keySet()) {
+            Map<String, String> routes = connectionManager.localRoutes(userId);
+            if (!routes.isEmpty()) {
+                current.put(userId, routes);
+            }
+        }
+        return current;
+    }
+
+    private static long countRoutes(Map<Long, Map<String, String>> routes) {
+        long n = 0;
+        for (Map<String, String> byDevice : routes.values()) {
+            n += byDevice.size();
+        }
+        return n;
+    }
+
+    private long forEachBatch(Map<Long, Map<String, String>> routes, ToLongFunction<Map<Long, Map<String, String>>> action) {
+        int batchSize = Math.max(1, refreshBatchSize);
+        long done = 0;
+        Map<Long, Map<String, String>> batch = new HashMap<>();
+        for (Map.Entry<Long, Map<String, String>> it : routes.entrySet()) {
+            batch.put(it.getKey(), it.getValue());
+            if (batch.size() >= batchSize) {
+                done += execute(batch, action);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            done += execute(batch, action);
+        }
+        return done;
+    }
+
+    private long execute(Map<Long, Map<String, String>> batch, ToLongFunction<Map<Long, Map<String, String>>> action) {
+        try {
+            return action.applyAsLong(batch);
+        } catch (Exception e) {
+            stats.recordFailedBatch();
+            log.warn("route lease batch failed: users={}, err={}", batch.size(), e.toString());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.com.nettyconnector.infrastructure.route;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 路由续期统计：最近一轮续期的路由数与耗时，以及累计值。
+ */
+@Component
+public class RouteLeaseStats {
+
+    private final LongAdder cycles = new LongAdder();
+    private final LongAdder renewedRoutes = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private volatile long lastRenewedRoutes;
+    private volatile long lastCycleMs;
+
+    void recordCycle(long routes, long elapsedMs) {
+        cycles.increment();
+        renewedRoutes.add(routes);
+        lastRenewedRoutes = routes;
+        lastCycleMs = elapsedMs;
+    }
+
+    void recordFailedBatch() {
+        failedBatches.increment();
+    }
+
+    public long cycles() {
+        return cycles.sum();
+    }
+
+    public long renewedRoutes() {
+        return renewedRoutes.sum();
+    }
+
+    public long failedBatches() {
+        return failedBatches.sum();
+    }
+
+    public long lastRenewedRoutes() {
+        return lastRenewedRoutes;
+    }
+
+    public long lastCycleMs() {
+        return lastCycleMs;
+    }
+}
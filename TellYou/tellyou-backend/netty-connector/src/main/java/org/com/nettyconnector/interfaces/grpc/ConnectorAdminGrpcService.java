@@ -0,0 +1,41 @@
+package org.com.nettyconnector.interfaces.grpc;
+
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+import net.devh.boot.grpc.server.service.GrpcService;
+import org.com.nettyconnector.infrastructure.netty.ConnectionDrainer;
+import org.com.shared.proto.connector.admin.v1.ConnectorAdminServiceGrpc;
+import org.com.shared.proto.connector.admin.v1.DrainRequest;
+import org.com.shared.proto.connector.admin.v1.DrainResponse;
+
+@GrpcService
+@RequiredArgsConstructor
+public class ConnectorAdminGrpcService extends ConnectorAdminServiceGrpc.ConnectorAdminServiceImplBase {
+
+    private final ConnectionDrainer connectionDrainer;
+
+    /**
+     * 迁移在后台进行，这里只返回开始时的连接数与预计耗时。
+     */
+    @Override
+    public void drain(DrainRequest request, StreamObserver<DrainResponse> responseObserver) {
+        ConnectionDrainer.DrainTicket ticket = connectionDrainer.start(new ConnectionDrainer.DrainPlan(
+                emptyToNull(request.getTargetGatewayId()),
+                emptyToNull(request.getTargetAddress()),
+                request.getWaveSize(),
+                request.getWaveIntervalMs(),
+                request.getMaxJitterMs(),
+                request.getCloseGraceMs()));
+
+        DrainResponse.Builder resp = DrainResponse.newBuilder().setAccepted(ticket != null);
+        if (ticket != null) {
+            resp.setConnections(ticket.connections()).setEstimatedDurationMs(ticket.estimatedDurationMs());
+        }
+        responseObserver.onNext(resp.build());
+        responseObserver.onCompleted();
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -1,68 +1,204 @@
 package org.com.nettyconnector.interfaces.grpc;
 
 import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.com.nettyconnector.domain.connection.ConnectionManager;
 import org.com.nettyconnector.domain.connection.SendFilter;
 import org.com.nettyconnector.domain.connection.SendResult;
+import org.com.nettyconnector.domain.connection.SendTarget;
+import org.com.nettyconnector.infrastructure.metrics.ConnectorMetrics;
 import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
 import org.com.shared.proto.connector.deliver.v1.ConnectorDeliverServiceGrpc;
+import org.com.shared.proto.connector.deliver.v1.DeliverChatBatchRequest;
+import org.com.shared.proto.connector.deliver.v1.DeliverChatBatchResponse;
 import org.com.shared.proto.connector.deliver.v1.DeliverChatRequest;
 import org.com.shared.proto.connector.deliver.v1.DeliverChatResponse;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamRequest;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamResponse;
+import org.com.shared.proto.connector.deliver.v1.TargetOutcome;
+import org.com.shared.proto.connector.deliver.v1.UserTarget;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
+@Slf4j
 @GrpcService
 public class ConnectorDeliverGrpcService extends ConnectorDeliverServiceGrpc.ConnectorDeliverServiceImplBase {
 
     private final ConnectionManager connectionManager;
+    private final ConnectorMetrics connectorMetrics;
 
-    public ConnectorDeliverGrpcService(ConnectionManager connectionManager) {
+    private final Executor deliverStreamExecutor;
+
+    @Value("${grpc.deliver-stream.max-in-flight:16}")
+    private int deliverStreamMaxInFlight;
+
+    public ConnectorDeliverGrpcService(ConnectionManager connectionManager, ConnectorMetrics connectorMetrics,
+                                       @Qualifier("deliverStreamExecutor") Executor deliverStreamExecutor) {
         this.connectionManager = connectionManager;
+        this.connectorMetrics = connectorMetrics;
+        this.deliverStreamExecutor = deliverStreamExecutor;
     }
 
     @Override
     public void deliverChat(DeliverChatRequest request, StreamObserver<DeliverChatResponse> responseObserver) {
-        long userId = request.getUserId();
-        if (userId <= 0) {
-            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("user_id must be positive").asRuntimeException());
+        String invalid = validate(request);
+        if (invalid != null) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(invalid).asRuntimeException());
             return;
         }
-        if (!request.hasDeliver()) {
-            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("missing deliver").asRuntimeException());
+        responseObserver.onNext(deliver(request));
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void deliverChatBatch(DeliverChatBatchRequest request, StreamObserver<DeliverChatBatchResponse> responseObserver) {
+        String invalid = validate(request);
+        if (invalid != null) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(invalid).asRuntimeException());
             return;
         }
+        responseObserver.onNext(deliverBatch(request));
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * 每条流最多 max-in-flight 条请求并行处理，流控与 credit 见 {@link DeliverStreamHandler}。
+     */
+    @Override
+    public StreamObserver<DeliverStreamRequest> deliverStream(StreamObserver<DeliverStreamResponse> responseObserver) {
+        return new DeliverStreamHandler((ServerCallStreamObserver<DeliverStreamResponse>) responseObserver,
+                deliverStreamExecutor, deliverStreamMaxInFlight, this::deliverStreamItem);
+    }
+
+    private DeliverStreamResponse deliverStreamItem(DeliverStreamRequest item) {
+        DeliverStreamResponse.Builder resp = DeliverStreamResponse.newBuilder()
+                .setCorrelationId(item.getCorrelationId());
+        switch (item.getItemCase()) {
+            case DELIVER -> {
+                String invalid = validate(item.getDeliver());
+                if (invalid == null) {
+                    resp.setDeliver(deliver(item.getDeliver()));
+                } else {
+                    resp.setError(invalid);
+                }
+            }
+            case DELIVER_BATCH -> {
+                String invalid = validate(item.getDeliverBatch());
+                if (invalid == null) {
+                    resp.setDeliverBatch(deliverBatch(item.getDeliverBatch()));
+                } else {
+                    resp.setError(invalid);
+                }
+            }
+            default -> resp.setError("unsupported_item: " + item.getItemCase().name());
+        }
+        return resp.build();
+    }
+
+    private static String validate(DeliverChatRequest request) {
+        if (request.getUserId() <= 0) {
+            return "user_id must be positive";
+        }
+        if (!request.hasDeliver()) {
+            return "missing deliver";
+        }
+        return null;
+    }
+
+    private static String validate(DeliverChatBatchRequest request) {
+        if (!request.hasDeliver()) {
+            return "missing deliver";
+        }
+        for (UserTarget target : request.getTargetsList()) {
+            if (target.getUserId() <= 0) {
+                return "user_id must be positive";
+            }
+        }
+        return null;
+    }
 
-        String traceId = request.getTraceId();
-        if (traceId == null) {
-            traceId = "";
+    private DeliverChatBatchResponse deliverBatch(DeliverChatBatchRequest request) {
+        long startNanos = System.nanoTime();
+        List<SendTarget> targets = new ArrayList<>(request.getTargetsCount());
+        for (UserTarget target : request.getTargetsList()) {
+            SendFilter filter = null;
+            if (target.getDeviceIdsCount() > 0) {
+                filter = new SendFilter(new HashSet<>(target.getDeviceIdsList()), null);
+            }
+            targets.add(new SendTarget(target.getUserId(), filter));
         }
 
         Envelope envelope = Envelope.newBuilder()
                 .setVersion(1)
                 .setStreamId(0)
                 .setTimestampMs(System.currentTimeMillis())
-                .setTraceId(traceId)
+                .setTraceId(request.getTraceId())
+                .setChatDeliver(request.getDeliver())
+                .build();
+        List<SendResult> results = connectionManager.sendToUsers(targets, envelope);
+
+        DeliverChatBatchResponse.Builder resp = DeliverChatBatchResponse.newBuilder();
+        int delivered = 0;
+        int offline = 0;
+        int notWritable = 0;
+        int errors = 0;
+        for (int i = 0; i < results.size(); i++) {
+            SendResult r = results.get(i);
+            resp.addOutcomes(TargetOutcome.newBuilder()
+                    .setUserId(targets.get(i).userId())
+                    .setDelivered(r.delivered())
+                    .setOffline(r.offline())
+                    .setNotWritable(r.notWritable())
+                    .setErrors(r.errors())
+                    .build());
+            delivered += r.delivered();
+            offline += r.offline();
+            notWritable += r.notWritable();
+            errors += r.errors();
+        }
+        connectorMetrics.recordOutcome(delivered, offline, notWritable, errors);
+        connectorMetrics.recordDeliver(true, System.nanoTime() - startNanos);
+        return resp.setDelivered(delivered)
+                .setOffline(offline)
+                .setNotWritable(notWritable)
+                .setErrors(errors)
+                .build();
+    }
+
+    private DeliverChatResponse deliver(DeliverChatRequest request) {
+        long startNanos = System.nanoTime();
+        Envelope envelope = Envelope.newBuilder()
+                .setVersion(1)
+                .setStreamId(0)
+                .setTimestampMs(System.currentTimeMillis())
+                .setTraceId(request.getTraceId())
                 .setChatDeliver(request.getDeliver())
                 .build();
 
         SendFilter filter = null;
         String deviceId = request.getDeviceId();
-        if (deviceId != null && !deviceId.isBlank()) {
+        if (!deviceId.isBlank()) {
             filter = new SendFilter(Set.of(deviceId), null);
         }
 
-        SendResult result = connectionManager.sendToUser(userId, envelope, filter);
+        SendResult result = connectionManager.sendToUser(request.getUserId(), envelope, filter);
+        connectorMetrics.recordOutcome(result);
+        connectorMetrics.recordDeliver(false, System.nanoTime() - startNanos);
 
-        DeliverChatResponse resp = DeliverChatResponse.newBuilder()
+        return DeliverChatResponse.newBuilder()
                 .setDelivered(result.delivered())
                 .setOffline(result.offline())
                 .setNotWritable(result.notWritable())
                 .setErrors(result.errors())
                 .build();
-
-        responseObserver.onNext(resp);
-        responseObserver.onCompleted();
     }
 }
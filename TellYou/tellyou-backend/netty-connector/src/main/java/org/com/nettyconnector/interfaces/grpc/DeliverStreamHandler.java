@@ -0,0 +1,139 @@
+package org.com.nettyconnector.interfaces.grpc;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamRequest;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamResponse;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * 单条 DeliverStream 的服务端：最多 maxInFlight 条请求同时在工作线程上处理，响应按完成顺序写回，由 correlation_id 匹配。
+ * <p>
+ * 手动流控：首次 onReady 时一次性 request(maxInFlight)，之后每写回一条补 1 个 credit；响应方向不可写时 credit
+ * 攒到下一次 onReady 再补，dispatch 写得过快时由 HTTP/2 窗口把压力传回去。处理抛出的异常以 internal_error 回执。
+ */
+@Slf4j
+final class DeliverStreamHandler implements StreamObserver<DeliverStreamRequest> {
+
+    private final ServerCallStreamObserver<DeliverStreamResponse> responses;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final Function<DeliverStreamRequest, DeliverStreamResponse> processor;
+
+    private final Object lock = new Object();
+    private boolean started;
+    private int pendingCredits;
+    private int inFlight;
+    private boolean halfClosed;
+    private boolean done;
+
+    DeliverStreamHandler(ServerCallStreamObserver<DeliverStreamResponse> responses, Executor executor, int maxInFlight,
+                         Function<DeliverStreamRequest, DeliverStreamResponse> processor) {
+        this.responses = responses;
+        this.executor = executor;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.processor = processor;
+
+        responses.disableAutoRequest();
+        responses.setOnReadyHandler(this::onReady);
+        responses.setOnCancelHandler(() -> {
+            synchronized (lock) {
+                done = true;
+            }
+        });
+    }
+
+    private void onReady() {
+        int credits;
+        synchronized (lock) {
+            if (done || !responses.isReady()) {
+                return;
+            }
+            if (!started) {
+                started = true;
+                credits = maxInFlight;
+            } else {
+                credits = pendingCredits;
+            }
+            pendingCredits = 0;
+        }
+        if (credits > 0) {
+            responses.request(credits);
+        }
+    }
+
+    @Override
+    public void onNext(DeliverStreamRequest item) {
+        synchronized (lock) {
+            inFlight++;
+        }
+        try {
+            executor.execute(() -> complete(process(item)));
+        } catch (RejectedExecutionException e) {
+            complete(internalError(item, "deliver_executor_busy"));
+        }
+    }
+
+    private DeliverStreamResponse process(DeliverStreamRequest item) {
+        try {
+            return processor.apply(item);
+        } catch (Exception e) {
+            log.warn("deliver stream item failed: correlationId={}, err={}", item.getCorrelationId(), e.toString());
+            return internalError(item, e.toString());
+        }
+    }
+
+    private void complete(DeliverStreamResponse resp) {
+        boolean request = false;
+        synchronized (lock) {
+            inFlight--;
+            if (done) {
+                return;
+            }
+            responses.onNext(resp);
+            if (halfClosed) {
+                if (inFlight == 0) {
+                    done = true;
+                    responses.onCompleted();
+                }
+            } else if (responses.isReady()) {
+                request = true;
+            } else {
+                pendingCredits++;
+            }
+        }
+        if (request) {
+            responses.request(1);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        synchronized (lock) {
+            done = true;
+        }
+        log.debug("deliver stream closed by peer: {}", t.toString());
+    }
+
+    @Override
+    public void onCompleted() {
+        synchronized (lock) {
+            halfClosed = true;
+            if (inFlight == 0 && !done) {
+                done = true;
+                responses.onCompleted();
+            }
+        }
+    }
+
+    private static DeliverStreamResponse internalError(DeliverStreamRequest item, String error) {
+        return DeliverStreamResponse.newBuilder()
+                .setCorrelationId(item.getCorrelationId())
+                .setInternalError(error)
+                .build();
+    }
+}
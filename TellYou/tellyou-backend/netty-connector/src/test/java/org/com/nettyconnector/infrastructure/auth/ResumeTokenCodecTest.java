@@ -0,0 +1,58 @@
+package org.com.nettyconnector.infrastructure.auth;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ResumeTokenCodecTest {
+
+    @Test
+    void shouldExpireWithinWindowAndNotOutliveJwt() {
+        ResumeTokenCodec codec = newCodec("secret-0123456789abcdef", 120L, false);
+        long now = System.currentTimeMillis();
+
+        ResumeTokenCodec.ResumeClaims claims = codec.parse(codec.issue(42L, "pc", 7L, now + 3_600_000L));
+        Assertions.assertNotNull(claims);
+        Assertions.assertEquals(42L, claims.userId());
+        Assertions.assertEquals("pc", claims.deviceId());
+        Assertions.assertEquals(7L, claims.sessionId());
+        Assertions.assertEquals(now + 3_600_000L, claims.authExpiresAtMs());
+        Assertions.assertTrue(claims.expiresAtMs() >= now + 120_000L && claims.expiresAtMs() <= now + 125_000L);
+
+        // JWT 比窗口先到期时以 JWT 为准
+        ResumeTokenCodec.ResumeClaims capped = codec.parse(codec.issue(42L, "pc", 7L, now + 30_000L));
+        Assertions.assertEquals(now + 30_000L, capped.expiresAtMs());
+
+        Assertions.assertNull(codec.parse(codec.issue(42L, "pc", 7L, now - 1)));
+        Assertions.assertEquals(60_000L, codec.refreshIntervalMs());
+    }
+
+    @Test
+    void shouldRejectTokenSignedWithAnotherSecret() {
+        ResumeTokenCodec a = newCodec("secret-a", 120L, false);
+        ResumeTokenCodec b = newCodec("secret-b", 120L, false);
+
+        String token = a.issue(42L, "pc", 7L, 0L);
+
+        Assertions.assertNotNull(a.parse(token));
+        Assertions.assertNull(b.parse(token));
+        Assertions.assertNull(a.parse(token.substring(1)));
+    }
+
+    @Test
+    void shouldFailStartupWithoutSecretWhenRequired() {
+        Assertions.assertThrows(IllegalStateException.class, () -> newCodec("", 120L, true));
+        // 关闭断线恢复时不要求密钥；默认只告警
+        Assertions.assertFalse(newCodec("", 0L, true).enabled());
+        Assertions.assertTrue(newCodec("", 120L, false).enabled());
+    }
+
+    private static ResumeTokenCodec newCodec(String secret, long windowSec, boolean requireSecret) {
+        ResumeTokenCodec codec = new ResumeTokenCodec();
+        ReflectionTestUtils.setField(codec, "secret", secret);
+        ReflectionTestUtils.setField(codec, "windowSec", windowSec);
+        ReflectionTestUtils.setField(codec, "requireSecret", requireSecret);
+        codec.init();
+        return codec;
+    }
+}
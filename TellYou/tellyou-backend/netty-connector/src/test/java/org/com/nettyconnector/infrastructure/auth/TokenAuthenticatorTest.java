@@ -0,0 +1,73 @@
+package org.com.nettyconnector.infrastructure.auth;
+
+import org.com.shared.infrastructure.jwt.JwtRsaTokenCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+public class TokenAuthenticatorTest {
+
+    @Test
+    void shouldVerifyOnceAndServeRepeatsFromCache() throws Exception {
+        KeyPair keys = rsaKeyPair();
+        TokenAuthenticator authenticator = newAuthenticator(Runnable::run, keys);
+        String token = JwtRsaTokenCodec.createToken(keys.getPrivate(), "uid", 42L, 60_000L);
+
+        TokenVerification first = authenticator.authenticate(token).join();
+        TokenVerification second = authenticator.authenticate(token).join();
+
+        Assertions.assertTrue(first.ok());
+        Assertions.assertEquals(42L, first.userId());
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(1, authenticator.verifications());
+        Assertions.assertEquals(1, authenticator.cacheHits());
+    }
+
+    @Test
+    void shouldRejectForgedToken() throws Exception {
+        KeyPair keys = rsaKeyPair();
+        TokenAuthenticator authenticator = newAuthenticator(Runnable::run, keys);
+        String forged = JwtRsaTokenCodec.createToken(rsaKeyPair().getPrivate(), "uid", 42L, 60_000L);
+
+        TokenVerification result = authenticator.authenticate(forged).join();
+
+        Assertions.assertFalse(result.ok());
+        Assertions.assertEquals(401, result.errorCode());
+        Assertions.assertEquals("invalid_token", result.reason());
+    }
+
+    @Test
+    void shouldRejectWhenVerifyBacklogIsFull() throws Exception {
+        KeyPair keys = rsaKeyPair();
+        Executor full = command -> {
+            throw new RejectedExecutionException("full");
+        };
+        TokenAuthenticator authenticator = newAuthenticator(full, keys);
+        String token = JwtRsaTokenCodec.createToken(keys.getPrivate(), "uid", 42L, 60_000L);
+
+        TokenVerification result = authenticator.authenticate(token).join();
+
+        Assertions.assertFalse(result.ok());
+        Assertions.assertEquals(503, result.errorCode());
+        Assertions.assertEquals(1, authenticator.rejections());
+    }
+
+    private static TokenAuthenticator newAuthenticator(Executor executor, KeyPair keys) {
+        TokenAuthenticator authenticator = new TokenAuthenticator(executor, 1024);
+        ReflectionTestUtils.setField(authenticator, "uidKey", "uid");
+        ReflectionTestUtils.setField(authenticator, "cacheMaxTtlSec", 3600L);
+        ReflectionTestUtils.setField(authenticator, "cachedPublicKey", keys.getPublic());
+        return authenticator;
+    }
+
+    private static KeyPair rsaKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+}
@@ -0,0 +1,68 @@
+package org.com.nettyconnector.infrastructure.metrics;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.com.nettyconnector.domain.connection.SendResult;
+import org.com.nettyconnector.infrastructure.netty.ChannelWriteQueue;
+import org.com.nettyconnector.infrastructure.netty.TrafficCountingHandler;
+import org.com.nettyconnector.infrastructure.netty.WriteCoalescingStats;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+public class ConnectorMetricsTest {
+
+    @Test
+    void shouldRecordSampledFlushLatencyAndTrafficAndServeScrape() throws Exception {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        ConnectorMetrics metrics = new ConnectorMetrics(registry);
+        WriteCoalescingStats stats = new WriteCoalescingStats();
+        stats.onFlushLatency(1, metrics::recordWriteFlush);
+        TrafficCountingHandler traffic = new TrafficCountingHandler();
+        EmbeddedChannel ch = new EmbeddedChannel(traffic);
+        ChannelWriteQueue queue = new ChannelWriteQueue(ch, stats);
+
+        PrometheusScrapeServer server = new PrometheusScrapeServer(registry);
+        ReflectionTestUtils.setField(server, "enabled", true);
+        ReflectionTestUtils.setField(server, "port", 0);
+        ReflectionTestUtils.setField(server, "path", "/metrics");
+        try {
+            ch.writeInbound(Unpooled.wrappedBuffer(new byte[7]));
+            queue.enqueue(Unpooled.wrappedBuffer(new byte[10]));
+            queue.enqueue(Unpooled.wrappedBuffer(new byte[5]));
+            ch.runPendingTasks();
+            ByteBuf out;
+            while ((out = ch.readOutbound()) != null) {
+                out.release();
+            }
+            ((ByteBuf) ch.readInbound()).release();
+
+            metrics.recordOutcome(new SendResult(2, 1, 0, 0));
+            metrics.recordDeliver(true, 1_000_000L);
+
+            Assertions.assertEquals(7, traffic.bytesIn());
+            Assertions.assertEquals(15, traffic.bytesOut());
+            Assertions.assertEquals(1, registry.get("connector.write.flush.latency").timer().count());
+            Assertions.assertEquals(2.0, registry.get("connector.deliver.targets").tag("outcome", "delivered").counter().count());
+
+            server.start();
+            HttpResponse<String> resp = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, resp.statusCode());
+            Assertions.assertTrue(resp.body().contains("connector_grpc_deliver_latency_seconds_count{method=\"DeliverChatBatch\",} 1.0"));
+            Assertions.assertTrue(resp.body().contains("connector_deliver_targets_total{outcome=\"offline\",} 1.0"));
+        } finally {
+            server.stop();
+            ch.finishAndReleaseAll();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import io.netty.handler.codec.protobuf.ProtobufEncoder;
+import io.netty.util.ReferenceCountUtil;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.com.nettyconnector.proto.connector.tcp.v1.Error;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ChannelWriteQueueTest {
+
+    @Test
+    void shouldCoalesceWritesIntoOneFlushPerDrain() {
+        EmbeddedChannel ch = newChannel();
+        WriteCoalescingStats stats = new WriteCoalescingStats();
+        ChannelWriteQueue queue = new ChannelWriteQueue(ch, stats);
+
+        try {
+            for (int i = 1; i <= 5; i++) {
+                enqueue(queue, ch, deliver(i));
+            }
+            // drain 任务尚未执行前不写出任何帧
+            Assertions.assertNull(ch.readOutbound());
+            ch.runPendingTasks();
+            for (int i = 1; i <= 5; i++) {
+                Assertions.assertEquals(i, readEnvelope(ch).getChatDeliver().getSeq());
+            }
+            Assertions.assertEquals(1, stats.flushes());
+
+            enqueue(queue, ch, deliver(6));
+            enqueue(queue, ch, deliver(7));
+            ch.runPendingTasks();
+            Assertions.assertEquals(6, readEnvelope(ch).getChatDeliver().getSeq());
+            Assertions.assertEquals(7, readEnvelope(ch).getChatDeliver().getSeq());
+            Assertions.assertNull(ch.readOutbound());
+            Assertions.assertEquals(2, stats.flushes());
+            Assertions.assertEquals(7, stats.messages());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldCapWritesPerDrainAndContinueInNextTask() {
+        EmbeddedChannel ch = newChannel();
+        WriteCoalescingStats stats = new WriteCoalescingStats();
+        ChannelWriteQueue queue = new ChannelWriteQueue(ch, stats);
+        int total = 1500;
+        // 放宽高水位，只验证单次 drain 的条数上限
+        ch.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1 << 19, 1 << 20));
+
+        try {
+            for (int i = 1; i <= total; i++) {
+                enqueue(queue, ch, deliver(i));
+            }
+            ch.runPendingTasks();
+
+            for (int i = 1; i <= total; i++) {
+                Assertions.assertEquals(i, readEnvelope(ch).getChatDeliver().getSeq());
+            }
+            Assertions.assertNull(ch.readOutbound());
+            // 单次 drain 最多写 1024 条，剩余部分由重新投递的任务写完
+            Assertions.assertEquals(2, stats.flushes());
+            Assertions.assertEquals(total, stats.messages());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldPackConsecutiveDeliversIntoOneBatchFrame() {
+        EmbeddedChannel ch = newChannel();
+        WriteCoalescingStats stats = new WriteCoalescingStats();
+        ChannelWriteQueue queue = new ChannelWriteQueue(ch, stats, new DeliverBatching(32, 0));
+
+        try {
+            for (int i = 1; i <= 3; i++) {
+                enqueue(queue, ch, deliver(i));
+            }
+            enqueue(queue, ch, Envelope.newBuilder().setVersion(1)
+                    .setError(Error.newBuilder().setErrorCode(500).build()).build());
+            enqueue(queue, ch, deliver(4));
+            ch.runPendingTasks();
+
+            Envelope batch = readEnvelope(ch);
+            Assertions.assertEquals(Envelope.PayloadCase.CHAT_DELIVER_BATCH, batch.getPayloadCase());
+            Assertions.assertEquals(3, batch.getChatDeliverBatch().getDeliversCount());
+            Assertions.assertEquals(3, batch.getChatDeliverBatch().getDelivers(2).getSeq());
+
+            Assertions.assertEquals(Envelope.PayloadCase.ERROR, readEnvelope(ch).getPayloadCase());
+
+            Envelope single = readEnvelope(ch);
+            Assertions.assertEquals(Envelope.PayloadCase.CHAT_DELIVER, single.getPayloadCase());
+            Assertions.assertEquals(4, single.getChatDeliver().getSeq());
+
+            Assertions.assertNull(ch.readOutbound());
+            Assertions.assertEquals(1, stats.flushes());
+            Assertions.assertEquals(5, stats.messages());
+            Assertions.assertEquals(1, stats.deliverBatches());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldKeepSingleFramesWithoutBatching() {
+        EmbeddedChannel ch = newChannel();
+        WriteCoalescingStats stats = new WriteCoalescingStats();
+        ChannelWriteQueue queue = new ChannelWriteQueue(ch, stats);
+
+        try {
+            for (int i = 1; i <= 3; i++) {
+                enqueue(queue, ch, deliver(i));
+            }
+            ch.runPendingTasks();
+
+            for (int i = 1; i <= 3; i++) {
+                Envelope env = readEnvelope(ch);
+                Assertions.assertEquals(Envelope.PayloadCase.CHAT_DELIVER, env.getPayloadCase());
+                Assertions.assertEquals(i, env.getChatDeliver().getSeq());
+            }
+            Assertions.assertEquals(1, stats.flushes());
+            Assertions.assertEquals(3.0D, stats.averageMessagesPerFlush());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldParkWhileNotWritableAndResumeInOrder() {
+        EmbeddedChannel ch = newChannel();
+        OutboundBacklogStats backlogStats = new OutboundBacklogStats();
+        ChannelWriteQueue queue = new ChannelWriteQueue(ch, new WriteCoalescingStats(), null,
+                new OutboundBacklogLimits(16, 1 << 20), backlogStats);
+
+        try {
+            ch.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+            for (int i = 1; i <= 3; i++) {
+                enqueue(queue, ch, deliver(i));
+            }
+            ch.runPendingTasks();
+            Assertions.assertNull(ch.readOutbound());
+            Assertions.assertEquals(3, backlogStats.pendingMessages());
+
+            ch.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+            queue.onWritable();
+
+            for (int i = 1; i <= 3; i++) {
+                Assertions.assertEquals(i, readEnvelope(ch).getChatDeliver().getSeq());
+            }
+            Assertions.assertEquals(0, backlogStats.pendingMessages());
+            Assertions.assertEquals(0, backlogStats.pendingBytes());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldEvictSlowConsumerOnBacklogOverflow() {
+        EmbeddedChannel ch = newChannel();
+        OutboundBacklogStats backlogStats = new OutboundBacklogStats();
+        ChannelWriteQueue queue = new ChannelWriteQueue(ch, new WriteCoalescingStats(), null,
+                new OutboundBacklogLimits(2, 1 << 20), backlogStats);
+
+        try {
+            ch.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+            for (int i = 1; i <= 3; i++) {
+                enqueue(queue, ch, deliver(i));
+            }
+            ch.runPendingTasks();
+
+            Assertions.assertFalse(ch.isOpen());
+            Assertions.assertEquals(1, backlogStats.evictions());
+            Assertions.assertEquals(3, backlogStats.evictedMessages());
+            Assertions.assertEquals(0, backlogStats.pendingMessages());
+
+            EnvelopeFrames frames = new EnvelopeFrames(deliver(4));
+            try {
+                Assertions.assertFalse(queue.enqueue(frames.newFrame(ch)));
+            } finally {
+                frames.release();
+            }
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    private static EmbeddedChannel newChannel() {
+        return new EmbeddedChannel(
+                new TcpFrameDecoder(TcpProtocolConstants.DEFAULT_MAX_BODY_LEN),
+                new ProtobufDecoder(Envelope.getDefaultInstance()),
+                EncodedFrameHandler.INSTANCE,
+                new TcpFrameEncoder(),
+                new ProtobufEncoder()
+        );
+    }
+
+    private static void enqueue(ChannelWriteQueue queue, EmbeddedChannel ch, Envelope envelope) {
+        EnvelopeFrames frames = new EnvelopeFrames(envelope);
+        try {
+            queue.enqueue(frames.newFrame(ch));
+        } finally {
+            frames.release();
+        }
+    }
+
+    private static Envelope readEnvelope(EmbeddedChannel ch) {
+        ByteBuf frame = ch.readOutbound();
+        Assertions.assertNotNull(frame);
+        try {
+            ch.writeInbound(frame.retain());
+            return ch.readInbound();
+        } finally {
+            ReferenceCountUtil.release(frame);
+        }
+    }
+
+    private static Envelope deliver(long seq) {
+        return Envelope.newBuilder()
+                .setVersion(1)
+                .setChatDeliver(ChatDeliver.newBuilder()
+                        .setServerMessageId(String.valueOf(10_000 + seq))
+                        .setSessionId(99)
+                        .setSenderId(7)
+                        .setContent("hi " + seq)
+                        .setSeq(seq)
+                        .build())
+                .build();
+    }
+}
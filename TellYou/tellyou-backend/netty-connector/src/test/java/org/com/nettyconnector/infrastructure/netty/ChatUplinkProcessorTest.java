@@ -0,0 +1,151 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.com.nettyconnector.infrastructure.grpc.MessageStoreGrpcClient;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatUplink;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.com.nettyconnector.proto.connector.tcp.v1.PersistedAck;
+import org.com.nettyconnector.proto.connector.tcp.v1.PersistedAckStatus;
+import org.com.nettyconnector.proto.connector.tcp.v1.UplinkAck;
+import org.com.nettyconnector.proto.connector.tcp.v1.UplinkAckStatus;
+import org.com.shared.proto.message.store.v1.PersistChatMessageRequest;
+import org.com.shared.proto.message.store.v1.PersistChatMessageResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ChatUplinkProcessorTest {
+
+    @Test
+    void shouldSuspendReadAtLimitAndRejectBeyondTwiceTheLimit() {
+        List<StreamObserver<PersistChatMessageResponse>> observers = new ArrayList<>();
+        List<PersistChatMessageRequest> requests = new ArrayList<>();
+        EmbeddedChannel ch = newChannel(stubStore(requests, observers), 2);
+
+        try {
+            uplink(ch, "c1");
+            Assertions.assertTrue(ch.config().isAutoRead());
+            uplink(ch, "c2");
+            Assertions.assertFalse(ch.config().isAutoRead());
+
+            // 关闭 autoRead 前已解码的帧仍被接受，直到两倍上限
+            uplink(ch, "c3");
+            uplink(ch, "c4");
+            uplink(ch, "c5");
+
+            for (String id : List.of("c1", "c2", "c3", "c4")) {
+                UplinkAck ack = readUplinkAck(ch);
+                Assertions.assertEquals(id, ack.getClientMessageId());
+                Assertions.assertEquals(UplinkAckStatus.ACCEPTED, ack.getStatus());
+            }
+            UplinkAck rejected = readUplinkAck(ch);
+            Assertions.assertEquals("c5", rejected.getClientMessageId());
+            Assertions.assertEquals(UplinkAckStatus.REJECTED, rejected.getStatus());
+            Assertions.assertEquals("too_many_in_flight", rejected.getReason());
+            Assertions.assertEquals(4, observers.size());
+            Assertions.assertEquals(42L, requests.get(0).getSenderId());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldResumeReadBelowHalfTheLimitAndReportPersistResults() {
+        List<StreamObserver<PersistChatMessageResponse>> observers = new ArrayList<>();
+        EmbeddedChannel ch = newChannel(stubStore(new ArrayList<>(), observers), 4);
+
+        try {
+            for (int i = 1; i <= 4; i++) {
+                uplink(ch, "c" + i);
+                readUplinkAck(ch);
+            }
+            Assertions.assertFalse(ch.config().isAutoRead());
+
+            persisted(observers.get(0), "s1");
+            ch.runPendingTasks();
+            // 在途 3 条，高于一半，保持暂停
+            Assertions.assertFalse(ch.config().isAutoRead());
+            PersistedAck first = readPersistedAck(ch);
+            Assertions.assertEquals(PersistedAckStatus.PERSISTED, first.getStatus());
+            Assertions.assertEquals("s1", first.getServerMessageId());
+
+            observers.get(1).onError(Status.UNAVAILABLE.asRuntimeException());
+            ch.runPendingTasks();
+            Assertions.assertTrue(ch.config().isAutoRead());
+            PersistedAck failed = readPersistedAck(ch);
+            Assertions.assertEquals("c2", failed.getClientMessageId());
+            Assertions.assertEquals(PersistedAckStatus.FAILED, failed.getStatus());
+            Assertions.assertEquals("UNAVAILABLE", failed.getReason());
+
+            observers.get(2).onNext(PersistChatMessageResponse.newBuilder().setPersisted(false).setReason("send_not_allowed").build());
+            observers.get(2).onCompleted();
+            ch.runPendingTasks();
+            Assertions.assertEquals("send_not_allowed", readPersistedAck(ch).getReason());
+            Assertions.assertNull(ch.readOutbound());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    private static MessageStoreGrpcClient stubStore(List<PersistChatMessageRequest> requests,
+                                                    List<StreamObserver<PersistChatMessageResponse>> observers) {
+        MessageStoreGrpcClient store = Mockito.mock(MessageStoreGrpcClient.class);
+        Mockito.doAnswer(inv -> {
+            requests.add(inv.getArgument(0));
+            observers.add(inv.getArgument(1));
+            return null;
+        }).when(store).persistChatMessage(Mockito.any(), Mockito.any());
+        return store;
+    }
+
+    private static EmbeddedChannel newChannel(MessageStoreGrpcClient store, int maxInFlight) {
+        ChatUplinkProcessor processor = new ChatUplinkProcessor(store);
+        ReflectionTestUtils.setField(processor, "maxInFlight", maxInFlight);
+        EmbeddedChannel ch = new EmbeddedChannel(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                processor.handle(ctx, (Envelope) msg);
+            }
+        });
+        ch.attr(ConnectorChannelAttrs.USER_ID).set(42L);
+        return ch;
+    }
+
+    private static void uplink(EmbeddedChannel ch, String clientMessageId) {
+        ch.writeInbound(Envelope.newBuilder()
+                .setVersion(1)
+                .setChatUplink(ChatUplink.newBuilder()
+                        .setClientMessageId(clientMessageId)
+                        .setSessionId(9)
+                        .setContent("{}")
+                        .build())
+                .build());
+    }
+
+    private static void persisted(StreamObserver<PersistChatMessageResponse> observer, String serverMessageId) {
+        observer.onNext(PersistChatMessageResponse.newBuilder().setPersisted(true).setServerMessageId(serverMessageId).build());
+        observer.onCompleted();
+    }
+
+    private static UplinkAck readUplinkAck(EmbeddedChannel ch) {
+        Envelope env = ch.readOutbound();
+        Assertions.assertNotNull(env);
+        Assertions.assertEquals(Envelope.PayloadCase.UPLINK_ACK, env.getPayloadCase());
+        return env.getUplinkAck();
+    }
+
+    private static PersistedAck readPersistedAck(EmbeddedChannel ch) {
+        Envelope env = ch.readOutbound();
+        Assertions.assertNotNull(env);
+        Assertions.assertEquals(Envelope.PayloadCase.PERSISTED_ACK, env.getPayloadCase());
+        return env.getPersistedAck();
+    }
+}
@@ -0,0 +1,130 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.com.nettyconnector.domain.connection.ConnectionKey;
+import org.com.nettyconnector.domain.connection.ConnectionMeta;
+import org.com.nettyconnector.domain.connection.ResumeResult;
+import org.com.nettyconnector.domain.connection.SendFilter;
+import org.com.nettyconnector.domain.connection.SendResult;
+import org.com.nettyconnector.domain.connection.SendTarget;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.com.shared.infrastructure.redis.OnlineRouteRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CompactConnectionManagerTest {
+
+    @Test
+    void shouldFanOutAndUnbindByChannel() {
+        OnlineRouteRepository routes = Mockito.mock(OnlineRouteRepository.class);
+        CompactConnectionManager manager = new CompactConnectionManager(routes, new WriteCoalescingStats(), new OutboundBacklogStats(), 4);
+        EmbeddedChannel a1 = bind(manager, 1L, "pc", 0L);
+        EmbeddedChannel a2 = bind(manager, 1L, "mobile", 0L);
+        EmbeddedChannel b1 = bind(manager, 2L, "pc", 0L);
+
+        try {
+            List<SendResult> results = manager.sendToUsers(List.of(
+                    new SendTarget(1L, null),
+                    new SendTarget(2L, new SendFilter(Set.of("pc"), null)),
+                    new SendTarget(3L, null)
+            ), deliver("42"));
+
+            Assertions.assertEquals(2, results.get(0).delivered());
+            Assertions.assertEquals(1, results.get(1).delivered());
+            Assertions.assertEquals(1, results.get(2).offline());
+            for (EmbeddedChannel ch : List.of(a1, a2, b1)) {
+                ch.runPendingTasks();
+                ByteBuf frame = ch.readOutbound();
+                Assertions.assertNotNull(frame);
+                ReferenceCountUtil.release(frame);
+            }
+
+            Assertions.assertEquals(Map.of(1L, Map.of("pc", "gw-1", "mobile", "gw-1"), 2L, Map.of("pc", "gw-1")), manager.localRoutes());
+
+            // 旧 channel 的断开不影响已被同设备新连接替换的绑定
+            manager.unbindByChannel(new ConnectionKey(1L, "pc"), "stale");
+            Assertions.assertEquals(2, manager.onlineCount(1L));
+
+            manager.unbindByChannel(new ConnectionKey(1L, "pc"), a1.id().asLongText());
+            manager.unbindByChannelId(b1.id().asLongText());
+            Assertions.assertEquals(1, manager.onlineCount(1L));
+            Assertions.assertEquals(0, manager.onlineCount(2L));
+            Assertions.assertEquals(1, manager.connectionCount());
+            Mockito.verify(routes).unbind(1L, "pc", "gw-1");
+            Mockito.verify(routes).unbind(2L, "pc", "gw-1");
+        } finally {
+            a1.finishAndReleaseAll();
+            a2.finishAndReleaseAll();
+            b1.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldReplayDeliveriesMissedWhileDetached() {
+        CompactConnectionManager manager = new CompactConnectionManager(
+                Mockito.mock(OnlineRouteRepository.class), new WriteCoalescingStats(), new OutboundBacklogStats(), 4);
+        ReflectionTestUtils.setField(manager, "resumeWindowSec", 120L);
+        ReflectionTestUtils.setField(manager, "resumeBufferSize", 8);
+        ConnectionKey key = new ConnectionKey(1L, "pc");
+        EmbeddedChannel first = bind(manager, 1L, "pc", 7L);
+        EmbeddedChannel second = new EmbeddedChannel(DefaultChannelId.newInstance(), EncodedFrameHandler.INSTANCE);
+
+        try {
+            manager.sendToUser(1L, deliver("1"), null);
+            manager.sendToUser(1L, deliver("2"), null);
+            manager.acknowledgeDelivery(key, "1");
+
+            manager.unbindByChannel(key, first.id().asLongText());
+            Assertions.assertEquals(0, manager.listByUser(1L).size());
+            manager.sendToUser(1L, deliver("3"), null);
+
+            ResumeResult result = manager.resumeAuthenticated(key,
+                    new ConnectionMeta("test", "gw-1", second.id().asLongText(), 0L, 0L, 8L), second, 7L, "");
+            Assertions.assertFalse(result.needsPull());
+            Assertions.assertEquals(List.of("2", "3"),
+                    result.missed().stream().map(ChatDeliver::getServerMessageId).toList());
+            Assertions.assertEquals(1, manager.listByUser(1L).size());
+            Assertions.assertEquals(8L, manager.listByUser(1L).get(0).sessionId());
+
+            // 会话号已轮换：旧令牌再次使用时不绑定，要求重新认证
+            EmbeddedChannel third = new EmbeddedChannel(DefaultChannelId.newInstance(), EncodedFrameHandler.INSTANCE);
+            try {
+                Assertions.assertNull(manager.resumeAuthenticated(key,
+                        new ConnectionMeta("test", "gw-1", third.id().asLongText(), 0L, 0L, 9L), third, 7L, ""));
+                Assertions.assertEquals(second.id().asLongText(), manager.listByUser(1L).get(0).channelId());
+                Assertions.assertNull(manager.resumeAuthenticated(new ConnectionKey(2L, "pc"),
+                        new ConnectionMeta("test", "gw-1", third.id().asLongText(), 0L, 0L, 9L), third, 7L, ""));
+                Assertions.assertEquals(0, manager.listByUser(2L).size());
+            } finally {
+                third.finishAndReleaseAll();
+            }
+        } finally {
+            first.finishAndReleaseAll();
+            second.finishAndReleaseAll();
+        }
+    }
+
+    private static Envelope deliver(String serverMessageId) {
+        return Envelope.newBuilder()
+                .setVersion(1)
+                .setChatDeliver(ChatDeliver.newBuilder().setServerMessageId(serverMessageId).setSessionId(9).build())
+                .build();
+    }
+
+    private static EmbeddedChannel bind(CompactConnectionManager manager, long userId, String deviceId, long sessionId) {
+        EmbeddedChannel ch = new EmbeddedChannel(DefaultChannelId.newInstance(), EncodedFrameHandler.INSTANCE);
+        manager.bindAuthenticated(new ConnectionKey(userId, deviceId),
+                new ConnectionMeta("test", "gw-1", ch.id().asLongText(), 0L, 0L, sessionId), ch);
+        return ch;
+    }
+}
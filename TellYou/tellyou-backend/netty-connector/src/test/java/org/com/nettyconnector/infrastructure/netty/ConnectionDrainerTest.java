@@ -0,0 +1,98 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.com.nettyconnector.infrastructure.nacos.NacosServiceRegistrar;
+import org.com.nettyconnector.infrastructure.route.RouteLeaseManager;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConnectionDrainerTest {
+
+    @Test
+    void shouldDeregisterThenHintInWavesThenCloseRemaining() {
+        TcpServer tcpServer = Mockito.mock(TcpServer.class);
+        NacosServiceRegistrar registrar = Mockito.mock(NacosServiceRegistrar.class);
+        ChannelGroup group = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        List<EmbeddedChannel> channels = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            EmbeddedChannel ch = new EmbeddedChannel(DefaultChannelId.newInstance());
+            channels.add(ch);
+            group.add(ch);
+        }
+        Mockito.when(tcpServer.connections()).thenReturn(group);
+
+        ConnectionDrainStats stats = new ConnectionDrainStats();
+        ConnectionDrainer drainer = new ConnectionDrainer(tcpServer, registrar, stats, Mockito.mock(RouteLeaseManager.class));
+        ReflectionTestUtils.setField(drainer, "drainOnShutdown", true);
+        ReflectionTestUtils.setField(drainer, "maxDurationMs", 10_000L);
+
+        ConnectionDrainer.DrainTicket ticket = drainer.start(
+                new ConnectionDrainer.DrainPlan("gw-2", "10.0.0.2:7070", 2, 10, 20, 10));
+        Assertions.assertNotNull(ticket);
+        Assertions.assertEquals(5, ticket.connections());
+        Assertions.assertNull(drainer.start(new ConnectionDrainer.DrainPlan(null, null, 0, 0, 0, 0)));
+
+        // 等待后台迁移结束
+        drainer.drainOnShutdown();
+
+        InOrder order = Mockito.inOrder(registrar, tcpServer);
+        order.verify(registrar).deregisterInstance();
+        order.verify(tcpServer).stopAccepting();
+        Assertions.assertEquals(5, stats.reconnectHints());
+        Assertions.assertEquals(5, stats.forcedCloses());
+        for (EmbeddedChannel ch : channels) {
+            Envelope hint = ch.readOutbound();
+            Assertions.assertTrue(hint.hasReconnect());
+            Assertions.assertEquals("gw-2", hint.getReconnect().getTargetGatewayId());
+            Assertions.assertTrue(hint.getReconnect().getDelayMs() < 20);
+            Assertions.assertFalse(ch.isActive());
+        }
+    }
+
+    @Test
+    void shouldReleaseRoutesOnlyAfterForcedCloses() {
+        TcpServer tcpServer = Mockito.mock(TcpServer.class);
+        ChannelGroup group = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        List<EmbeddedChannel> channels = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            EmbeddedChannel ch = new EmbeddedChannel(DefaultChannelId.newInstance());
+            channels.add(ch);
+            group.add(ch);
+        }
+        Mockito.when(tcpServer.connections()).thenReturn(group);
+
+        RouteLeaseManager routes = Mockito.mock(RouteLeaseManager.class);
+        List<Boolean> activeAtRelease = new ArrayList<>();
+        Mockito.doAnswer(inv -> {
+            channels.forEach(ch -> activeAtRelease.add(ch.isActive()));
+            return null;
+        }).when(routes).releaseAll();
+
+        ConnectionDrainStats stats = new ConnectionDrainStats();
+        ConnectionDrainer drainer = new ConnectionDrainer(tcpServer, Mockito.mock(NacosServiceRegistrar.class), stats, routes);
+        ReflectionTestUtils.setField(drainer, "drainOnShutdown", true);
+        ReflectionTestUtils.setField(drainer, "waveSize", 2);
+        ReflectionTestUtils.setField(drainer, "waveIntervalMs", 10L);
+        ReflectionTestUtils.setField(drainer, "maxJitterMs", 20);
+        ReflectionTestUtils.setField(drainer, "closeGraceMs", 10L);
+        ReflectionTestUtils.setField(drainer, "maxDurationMs", 10_000L);
+
+        drainer.drainOnShutdown();
+
+        Mockito.verify(routes).releaseAll();
+        Assertions.assertEquals(3, stats.forcedCloses());
+        Assertions.assertEquals(List.of(false, false, false), activeAtRelease);
+        channels.forEach(EmbeddedChannel::finishAndReleaseAll);
+    }
+}
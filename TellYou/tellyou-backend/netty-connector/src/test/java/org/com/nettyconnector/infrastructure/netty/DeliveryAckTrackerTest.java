@@ -0,0 +1,239 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class DeliveryAckTrackerTest {
+
+    @Test
+    void shouldRetransmitWithBackoffThenTurnExhaustedEntriesIntoOnePullHint() {
+        ManualTimer timer = new ManualTimer();
+        DeliveryAckStats stats = new DeliveryAckStats();
+        DeliveryAckTracker tracker = new DeliveryAckTracker(stats, timer, 100, 2, 1000, 16);
+        EmbeddedChannel ch = newChannel(tracker);
+        DeliveryAckWindow window = ch.attr(ConnectorChannelAttrs.ACK_WINDOW).get();
+
+        try {
+            window.track(deliver(1));
+            window.track(deliver(2));
+            window.track(deliver(3));
+            window.ack("m-1");
+            Assertions.assertEquals(2, window.size());
+            Assertions.assertEquals(List.of(100L, 100L, 100L), timer.delays);
+
+            // 两轮重传，间隔指数增长
+            timer.fireDue();
+            Assertions.assertEquals(List.of("m-2", "m-3"), readDeliverIds(ch));
+            timer.fireDue();
+            Assertions.assertEquals(List.of("m-2", "m-3"), readDeliverIds(ch));
+            Assertions.assertEquals(List.of(100L, 100L, 100L, 200L, 200L, 400L, 400L), timer.delays);
+
+            // 重传用尽：m-2 转为 PullHint，同会话更靠后的 m-3 由同一次拉取覆盖
+            timer.fireDue();
+            List<Envelope> out = readAll(ch);
+            Assertions.assertEquals(1, out.size());
+            Assertions.assertEquals(2, out.get(0).getPullHint().getFromSeq());
+            Assertions.assertEquals(DeliveryAckWindow.REASON_RETRY_EXHAUSTED, out.get(0).getPullHint().getReason());
+            Assertions.assertEquals(0, window.size());
+
+            Assertions.assertEquals(4, stats.retransmits());
+            Assertions.assertEquals(2, stats.exhausted());
+            Assertions.assertEquals(1, stats.pullHints());
+            Assertions.assertEquals(0, stats.unacked());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldPushOldestOutOfFullWindowAsPullHint() {
+        ManualTimer timer = new ManualTimer();
+        DeliveryAckStats stats = new DeliveryAckStats();
+        DeliveryAckTracker tracker = new DeliveryAckTracker(stats, timer, 100, 3, 1000, 2);
+        EmbeddedChannel ch = newChannel(tracker);
+        DeliveryAckWindow window = ch.attr(ConnectorChannelAttrs.ACK_WINDOW).get();
+
+        try {
+            window.track(deliver(1));
+            window.track(deliver(2));
+            window.track(deliver(3));
+            ch.runPendingTasks();
+
+            List<Envelope> out = readAll(ch);
+            Assertions.assertEquals(1, out.size());
+            Assertions.assertEquals("m-1", out.get(0).getPullHint().getServerMessageId());
+            Assertions.assertEquals(DeliveryAckWindow.REASON_WINDOW_OVERFLOW, out.get(0).getPullHint().getReason());
+            Assertions.assertEquals(2, window.size());
+            Assertions.assertEquals(1, timer.cancelled);
+
+            window.close();
+            Assertions.assertEquals(0, stats.unacked());
+            Assertions.assertEquals(3, timer.cancelled);
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldNotRetransmitWhileOutboundIsBacklogged() {
+        ManualTimer timer = new ManualTimer();
+        DeliveryAckStats stats = new DeliveryAckStats();
+        DeliveryAckTracker tracker = new DeliveryAckTracker(stats, timer, 100, 1, 1000, 16);
+        EmbeddedChannel ch = newChannel(tracker);
+        ch.config().setWriteBufferWaterMark(new WriteBufferWaterMark(8, 16));
+        DeliveryAckWindow window = ch.attr(ConnectorChannelAttrs.ACK_WINDOW).get();
+
+        try {
+            window.track(deliver(1));
+            // 出站缓冲越过高水位且未 flush：原帧还在本机
+            ch.write(Unpooled.wrappedBuffer(new byte[32]));
+            Assertions.assertFalse(ch.isWritable());
+
+            timer.fireDue();
+            timer.fireDue();
+            Assertions.assertEquals(0, stats.retransmits());
+            Assertions.assertEquals(2, stats.retransmitsDeferred());
+            // 推迟不消耗重试次数，也不加长退避
+            Assertions.assertEquals(List.of(100L, 100L, 100L), timer.delays);
+            Assertions.assertEquals(1, window.size());
+
+            ch.flush();
+            ReferenceCountUtil.release(ch.readOutbound());
+            Assertions.assertTrue(ch.isWritable());
+            timer.fireDue();
+            Assertions.assertEquals(List.of("m-1"), readDeliverIds(ch));
+            Assertions.assertEquals(1, stats.retransmits());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    private static EmbeddedChannel newChannel(DeliveryAckTracker tracker) {
+        EmbeddedChannel ch = new EmbeddedChannel(EncodedFrameHandler.INSTANCE, EnvelopeDecoder.INSTANCE);
+        ch.attr(ConnectorChannelAttrs.WRITE_QUEUE).set(new ChannelWriteQueue(ch, new WriteCoalescingStats()));
+        ch.attr(ConnectorChannelAttrs.ACK_WINDOW).set(tracker.newWindow(ch));
+        return ch;
+    }
+
+    private static List<String> readDeliverIds(EmbeddedChannel ch) {
+        return readAll(ch).stream().map(e -> e.getChatDeliver().getServerMessageId()).toList();
+    }
+
+    private static List<Envelope> readAll(EmbeddedChannel ch) {
+        ch.runPendingTasks();
+        List<Envelope> envelopes = new ArrayList<>();
+        ByteBuf frame;
+        while ((frame = ch.readOutbound()) != null) {
+            try {
+                ch.writeInbound(frame.retainedSlice(TcpProtocolConstants.HEADER_LEN,
+                        frame.readableBytes() - TcpProtocolConstants.HEADER_LEN));
+                envelopes.add(ch.readInbound());
+            } finally {
+                ReferenceCountUtil.release(frame);
+            }
+        }
+        return envelopes;
+    }
+
+    private static ChatDeliver deliver(long seq) {
+        return ChatDeliver.newBuilder()
+                .setServerMessageId("m-" + seq)
+                .setSessionId(9)
+                .setSeq(seq)
+                .build();
+    }
+
+    /**
+     * 手动推进的时间轮：fireDue 执行当前已登记且未取消的全部任务。
+     */
+    private static final class ManualTimer implements Timer {
+
+        private final List<ManualTimeout> scheduled = new ArrayList<>();
+        private final List<Long> delays = new ArrayList<>();
+        private int cancelled;
+
+        @Override
+        public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+            ManualTimeout timeout = new ManualTimeout(task);
+            scheduled.add(timeout);
+            delays.add(unit.toMillis(delay));
+            return timeout;
+        }
+
+        void fireDue() {
+            List<ManualTimeout> due = new ArrayList<>(scheduled);
+            scheduled.clear();
+            for (ManualTimeout timeout : due) {
+                if (!timeout.isCancelled()) {
+                    timeout.expired = true;
+                    try {
+                        timeout.task.run(timeout);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Set<Timeout> stop() {
+            return Set.of();
+        }
+
+        private final class ManualTimeout implements Timeout {
+
+            private final TimerTask task;
+            private boolean cancelled;
+            private boolean expired;
+
+            private ManualTimeout(TimerTask task) {
+                this.task = task;
+            }
+
+            @Override
+            public Timer timer() {
+                return ManualTimer.this;
+            }
+
+            @Override
+            public TimerTask task() {
+                return task;
+            }
+
+            @Override
+            public boolean isExpired() {
+                return expired;
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled;
+            }
+
+            @Override
+            public boolean cancel() {
+                if (cancelled || expired) {
+                    return false;
+                }
+                cancelled = true;
+                ManualTimer.this.cancelled++;
+                return true;
+            }
+        }
+    }
+}
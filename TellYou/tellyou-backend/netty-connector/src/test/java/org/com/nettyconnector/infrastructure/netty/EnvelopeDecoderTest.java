@@ -0,0 +1,45 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatUplink;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class EnvelopeDecoderTest {
+
+    private static final Envelope UPLINK = Envelope.newBuilder()
+            .setVersion(1)
+            .setTraceId("t-1")
+            .setChatUplink(ChatUplink.newBuilder()
+                    .setClientMessageId("c-1")
+                    .setSessionId(9)
+                    .setContent("你好，TellYou"))
+            .build();
+
+    @Test
+    void shouldDecodeDirectHeapAndCompositeBodiesAndReleaseThem() {
+        byte[] bytes = UPLINK.toByteArray();
+
+        ByteBuf direct = PooledByteBufAllocator.DEFAULT.directBuffer(bytes.length).writeBytes(bytes);
+        ByteBuf heap = PooledByteBufAllocator.DEFAULT.heapBuffer(bytes.length).writeBytes(bytes);
+        CompositeByteBuf composite = Unpooled.compositeBuffer();
+        composite.addComponent(true, Unpooled.directBuffer().writeBytes(bytes, 0, 5));
+        composite.addComponent(true, Unpooled.directBuffer().writeBytes(bytes, 5, bytes.length - 5));
+
+        EmbeddedChannel ch = new EmbeddedChannel(EnvelopeDecoder.INSTANCE);
+        try {
+            for (ByteBuf body : new ByteBuf[]{direct, heap, composite}) {
+                ch.writeInbound(body);
+                Assertions.assertEquals(UPLINK, ch.readInbound());
+                Assertions.assertEquals(0, body.refCnt());
+            }
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+}
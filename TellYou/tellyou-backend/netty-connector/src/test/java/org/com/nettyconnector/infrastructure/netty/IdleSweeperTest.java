@@ -0,0 +1,62 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class IdleSweeperTest {
+
+    @Test
+    void shouldCloseOnlyAfterReadTimeoutWithOneTimerPerLoop() {
+        AtomicLong clock = new AtomicLong();
+        IdleSweepStats stats = new IdleSweepStats();
+        IdleSweeper sweeper = new IdleSweeper(stats, clock::get);
+        ReflectionTestUtils.setField(sweeper, "readTimeoutSec", 90L);
+        ReflectionTestUtils.setField(sweeper, "sweepIntervalMs", 1000L);
+        ReflectionTestUtils.setField(sweeper, "sweepSlices", 1);
+
+        EmbeddedChannel ch = new EmbeddedChannel(sweeper.newHandler(), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                if (evt instanceof IdleStateEvent) {
+                    ctx.close();
+                }
+            }
+        });
+        try {
+            Assertions.assertEquals(1, stats.sweepTimers());
+            Assertions.assertEquals(1, stats.trackedConnections());
+
+            tick(ch, clock, 60);
+            ch.writeInbound("ping");
+            Assertions.assertEquals("ping", ch.readInbound());
+
+            // 最后一次读在 t=60s，t=150s 之前不能判空闲
+            tick(ch, clock, 85);
+            Assertions.assertTrue(ch.isActive());
+            Assertions.assertEquals(0, stats.idleCloses());
+
+            tick(ch, clock, 10);
+            Assertions.assertFalse(ch.isActive());
+            Assertions.assertEquals(1, stats.idleCloses());
+            Assertions.assertEquals(0, stats.trackedConnections());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    private static void tick(EmbeddedChannel ch, AtomicLong clock, int seconds) {
+        for (int i = 0; i < seconds; i++) {
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            ch.advanceTimeBy(1, TimeUnit.SECONDS);
+            ch.runScheduledPendingTasks();
+        }
+    }
+}
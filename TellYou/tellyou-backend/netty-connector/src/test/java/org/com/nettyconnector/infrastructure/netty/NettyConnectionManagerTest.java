@@ -0,0 +1,121 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.com.nettyconnector.domain.connection.ConnectionKey;
+import org.com.nettyconnector.domain.connection.ConnectionMeta;
+import org.com.nettyconnector.domain.connection.ResumeResult;
+import org.com.nettyconnector.domain.connection.SendFilter;
+import org.com.nettyconnector.domain.connection.SendResult;
+import org.com.nettyconnector.domain.connection.SendTarget;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.com.shared.infrastructure.redis.OnlineRouteRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+public class NettyConnectionManagerTest {
+
+    @Test
+    void shouldFanOutToAllTargetsWithPerTargetOutcomes() {
+        NettyConnectionManager manager = new NettyConnectionManager(
+                Mockito.mock(OnlineRouteRepository.class), new WriteCoalescingStats(), new OutboundBacklogStats());
+        EmbeddedChannel a1 = bind(manager, 1L, "pc");
+        EmbeddedChannel a2 = bind(manager, 1L, "mobile");
+        EmbeddedChannel b1 = bind(manager, 2L, "pc");
+
+        try {
+            Envelope envelope = Envelope.newBuilder()
+                    .setVersion(1)
+                    .setChatDeliver(ChatDeliver.newBuilder().setServerMessageId("42").setSessionId(9).setSeq(1).build())
+                    .build();
+            List<SendResult> results = manager.sendToUsers(List.of(
+                    new SendTarget(1L, null),
+                    new SendTarget(2L, new SendFilter(Set.of("pc"), null)),
+                    new SendTarget(3L, null)
+            ), envelope);
+
+            Assertions.assertEquals(3, results.size());
+            Assertions.assertEquals(2, results.get(0).delivered());
+            Assertions.assertEquals(1, results.get(1).delivered());
+            Assertions.assertEquals(1, results.get(2).offline());
+
+            for (EmbeddedChannel ch : List.of(a1, a2, b1)) {
+                ch.runPendingTasks();
+                ByteBuf frame = ch.readOutbound();
+                Assertions.assertNotNull(frame);
+                ReferenceCountUtil.release(frame);
+            }
+        } finally {
+            a1.finishAndReleaseAll();
+            a2.finishAndReleaseAll();
+            b1.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldReplayDeliveriesMissedWhileDetached() {
+        NettyConnectionManager manager = new NettyConnectionManager(
+                Mockito.mock(OnlineRouteRepository.class), new WriteCoalescingStats(), new OutboundBacklogStats());
+        ReflectionTestUtils.setField(manager, "resumeWindowSec", 120L);
+        ReflectionTestUtils.setField(manager, "resumeBufferSize", 8);
+        ConnectionKey key = new ConnectionKey(1L, "pc");
+        EmbeddedChannel first = new EmbeddedChannel(EncodedFrameHandler.INSTANCE);
+        EmbeddedChannel second = new EmbeddedChannel(EncodedFrameHandler.INSTANCE);
+
+        try {
+            manager.bindAuthenticated(key, new ConnectionMeta("test", "gw-1", first.id().asLongText(), 0L, 0L, 7L), first);
+            manager.sendToUser(1L, deliver("1"), null);
+            manager.sendToUser(1L, deliver("2"), null);
+            manager.acknowledgeDelivery(key, "1");
+
+            manager.unbindByChannelId(first.id().asLongText());
+            Assertions.assertEquals(0, manager.listByUser(1L).size());
+            manager.sendToUser(1L, deliver("3"), null);
+
+            ResumeResult result = manager.resumeAuthenticated(key,
+                    new ConnectionMeta("test", "gw-1", second.id().asLongText(), 0L, 0L, 8L), second, 7L, "");
+            Assertions.assertFalse(result.needsPull());
+            Assertions.assertEquals(List.of("2", "3"),
+                    result.missed().stream().map(ChatDeliver::getServerMessageId).toList());
+            Assertions.assertEquals(1, manager.listByUser(1L).size());
+            Assertions.assertEquals(8L, manager.listByUser(1L).get(0).sessionId());
+
+            // 会话号已轮换：旧令牌再次使用时不绑定，要求重新认证
+            EmbeddedChannel third = new EmbeddedChannel(EncodedFrameHandler.INSTANCE);
+            try {
+                Assertions.assertNull(manager.resumeAuthenticated(key,
+                        new ConnectionMeta("test", "gw-1", third.id().asLongText(), 0L, 0L, 9L), third, 7L, ""));
+                Assertions.assertEquals(second.id().asLongText(), manager.listByUser(1L).get(0).channelId());
+                Assertions.assertNull(manager.resumeAuthenticated(new ConnectionKey(2L, "pc"),
+                        new ConnectionMeta("test", "gw-1", third.id().asLongText(), 0L, 0L, 9L), third, 7L, ""));
+                Assertions.assertEquals(0, manager.listByUser(2L).size());
+            } finally {
+                third.finishAndReleaseAll();
+            }
+        } finally {
+            first.finishAndReleaseAll();
+            second.finishAndReleaseAll();
+        }
+    }
+
+    private static Envelope deliver(String serverMessageId) {
+        return Envelope.newBuilder()
+                .setVersion(1)
+                .setChatDeliver(ChatDeliver.newBuilder().setServerMessageId(serverMessageId).setSessionId(9).build())
+                .build();
+    }
+
+    private static EmbeddedChannel bind(NettyConnectionManager manager, long userId, String deviceId) {
+        EmbeddedChannel ch = new EmbeddedChannel(EncodedFrameHandler.INSTANCE);
+        manager.bindAuthenticated(new ConnectionKey(userId, deviceId),
+                new ConnectionMeta("test", "gw-1", ch.id().asLongText(), 0L, 0L, 0L), ch);
+        return ch;
+    }
+}
@@ -0,0 +1,86 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import io.netty.util.ReferenceCountUtil;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatUplink;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.com.nettyconnector.proto.connector.tcp.v1.Ping;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PingFastPathHandlerTest {
+
+    @Test
+    void shouldAnswerPurePingWithCachedPongFrame() {
+        PingFastPathHandler handler = new PingFastPathHandler();
+        EmbeddedChannel ch = newChannel(handler);
+        try {
+            ch.writeInbound(frame(Envelope.newBuilder()
+                    .setVersion(1)
+                    .setTimestampMs(1_700_000_000_123L)
+                    .setPing(Ping.getDefaultInstance())
+                    .build()));
+            Assertions.assertNull(ch.readInbound());
+            Assertions.assertEquals(1, handler.fastPongs());
+
+            ByteBuf pongFrame = ch.readOutbound();
+            try {
+                // 回写的是完整帧，解出来应是同版本的 Pong
+                EmbeddedChannel decoder = new EmbeddedChannel(
+                        new TcpFrameDecoder(TcpProtocolConstants.DEFAULT_MAX_BODY_LEN),
+                        new ProtobufDecoder(Envelope.getDefaultInstance()));
+                decoder.writeInbound(pongFrame.retain());
+                Envelope pong = decoder.readInbound();
+                Assertions.assertTrue(pong.hasPong());
+                Assertions.assertEquals(1, pong.getVersion());
+                Assertions.assertTrue(pong.getTimestampMs() > 0);
+                decoder.finishAndReleaseAll();
+            } finally {
+                ReferenceCountUtil.release(pongFrame);
+            }
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldLeaveOtherEnvelopesToTheFullDecoder() {
+        PingFastPathHandler handler = new PingFastPathHandler();
+        EmbeddedChannel ch = newChannel(handler);
+        try {
+            Envelope tracedPing = Envelope.newBuilder()
+                    .setVersion(1)
+                    .setStreamId(7)
+                    .setTraceId("t-1")
+                    .setPing(Ping.getDefaultInstance())
+                    .build();
+            Envelope uplink = Envelope.newBuilder()
+                    .setVersion(1)
+                    .setChatUplink(ChatUplink.newBuilder().setClientMessageId("c-1").setContent("hi"))
+                    .build();
+
+            ch.writeInbound(frame(tracedPing));
+            ch.writeInbound(frame(uplink));
+            Assertions.assertEquals(tracedPing, ch.readInbound());
+            Assertions.assertEquals(uplink, ch.readInbound());
+            Assertions.assertNull(ch.readOutbound());
+            Assertions.assertEquals(0, handler.fastPongs());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    private static EmbeddedChannel newChannel(PingFastPathHandler handler) {
+        return new EmbeddedChannel(
+                new TcpFrameDecoder(TcpProtocolConstants.DEFAULT_MAX_BODY_LEN),
+                handler,
+                new ProtobufDecoder(Envelope.getDefaultInstance()));
+    }
+
+    private static ByteBuf frame(Envelope envelope) {
+        return TcpFrames.encode(UnpooledByteBufAllocator.DEFAULT, envelope);
+    }
+}
@@ -0,0 +1,163 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.com.nettyconnector.domain.connection.ConnectionKey;
+import org.com.nettyconnector.domain.connection.ConnectionManager;
+import org.com.nettyconnector.domain.connection.ResumeResult;
+import org.com.nettyconnector.infrastructure.auth.ResumeTokenCodec;
+import org.com.nettyconnector.infrastructure.auth.ResumeTokenLedger;
+import org.com.nettyconnector.infrastructure.auth.TokenAuthenticator;
+import org.com.nettyconnector.infrastructure.auth.TokenVerification;
+import org.com.nettyconnector.infrastructure.metrics.ConnectorMetrics;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompressionNegotiator;
+import org.com.nettyconnector.proto.connector.tcp.v1.AuthRequest;
+import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
+import org.com.nettyconnector.proto.connector.tcp.v1.ResumeOk;
+import org.com.nettyconnector.proto.connector.tcp.v1.ResumeRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class TcpEnvelopeHandlerTest {
+
+    private final ConnectionManager connectionManager = Mockito.mock(ConnectionManager.class);
+    private final TokenAuthenticator tokenAuthenticator = Mockito.mock(TokenAuthenticator.class);
+    private final ResumeTokenLedger resumeTokenLedger = Mockito.mock(ResumeTokenLedger.class);
+    private final ResumeTokenCodec codec = newCodec();
+
+    @Test
+    void shouldRejectPipelinedAuthWhileVerificationIsPending() {
+        CompletableFuture<TokenVerification> first = new CompletableFuture<>();
+        Mockito.when(tokenAuthenticator.authenticate("t-1")).thenReturn(first);
+        EmbeddedChannel ch = new EmbeddedChannel(newHandler());
+        try {
+            ch.writeInbound(auth("t-1", "pc"));
+            ch.writeInbound(auth("t-2", "phone"));
+            Envelope rejected = ch.readOutbound();
+            Assertions.assertEquals(409, rejected.getError().getErrorCode());
+            Assertions.assertEquals("auth_in_progress", rejected.getError().getMessage());
+            Mockito.verify(tokenAuthenticator, Mockito.never()).authenticate("t-2");
+
+            first.complete(TokenVerification.success(42L, 0L));
+            ch.runPendingTasks();
+            Assertions.assertTrue(((Envelope) ch.readOutbound()).hasAuthOk());
+            Mockito.verify(connectionManager, Mockito.times(1))
+                    .bindAuthenticated(Mockito.eq(new ConnectionKey(42L, "pc")), Mockito.any(), Mockito.eq(ch));
+
+            // 已认证的连接不能再换设备重新认证
+            ch.writeInbound(auth("t-2", "phone"));
+            Envelope again = ch.readOutbound();
+            Assertions.assertEquals("already_authenticated", again.getError().getMessage());
+            Mockito.verify(connectionManager, Mockito.times(1)).bindAuthenticated(Mockito.any(), Mockito.any(), Mockito.any());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldClearPendingFlagWhenVerificationFails() {
+        Mockito.when(tokenAuthenticator.authenticate("bad")).thenReturn(CompletableFuture.completedFuture(TokenVerification.failure(401, "invalid_token")));
+        EmbeddedChannel ch = new EmbeddedChannel(newHandler());
+        try {
+            ch.writeInbound(auth("bad", "pc"));
+            Assertions.assertTrue(((Envelope) ch.readOutbound()).hasAuthFail());
+            Assertions.assertNull(ch.attr(ConnectorChannelAttrs.AUTH_PENDING).get());
+            Assertions.assertNull(ch.attr(ConnectorChannelAttrs.AUTHENTICATED).get());
+            Mockito.verify(connectionManager, Mockito.never()).bindAuthenticated(Mockito.any(), Mockito.any(), Mockito.any());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldResumeSessionHeldByAnotherConnectorWithPull() {
+        Mockito.when(resumeTokenLedger.claim(Mockito.eq(7L), Mockito.anyString())).thenReturn(CompletableFuture.completedFuture(true));
+        EmbeddedChannel ch = new EmbeddedChannel(newHandler());
+        try {
+            ch.writeInbound(resume(codec.issue(42L, "pc", 7L, 0L)));
+
+            // 本机没有这个会话：按令牌身份绑定新会话，不补发，让客户端拉取
+            ResumeOk ok = ((Envelope) ch.readOutbound()).getResumeOk();
+            Assertions.assertTrue(ok.getNeedsPull());
+            Assertions.assertEquals(0, ok.getReplayed());
+            ResumeTokenCodec.ResumeClaims rotated = codec.parse(ok.getAuthOk().getResumeToken());
+            Assertions.assertNotEquals(7L, rotated.sessionId());
+            Mockito.verify(connectionManager).bindAuthenticated(Mockito.eq(new ConnectionKey(42L, "pc")), Mockito.any(), Mockito.eq(ch));
+            Assertions.assertEquals(Boolean.TRUE, ch.attr(ConnectorChannelAttrs.AUTHENTICATED).get());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldRejectTokenAlreadyRedeemed() {
+        Mockito.when(resumeTokenLedger.claim(Mockito.eq(7L), Mockito.anyString())).thenReturn(CompletableFuture.completedFuture(false));
+        EmbeddedChannel ch = new EmbeddedChannel(newHandler());
+        try {
+            ch.writeInbound(resume(codec.issue(42L, "pc", 7L, 0L)));
+
+            Envelope resp = ch.readOutbound();
+            Assertions.assertEquals("resume_rejected", resp.getAuthFail().getMessage());
+            Assertions.assertNull(ch.attr(ConnectorChannelAttrs.AUTH_PENDING).get());
+            Mockito.verifyNoInteractions(connectionManager);
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void shouldRejectResumeOnAuthenticatedChannel() {
+        Mockito.when(tokenAuthenticator.authenticate("t-1")).thenReturn(CompletableFuture.completedFuture(TokenVerification.success(42L, 0L)));
+        Mockito.when(resumeTokenLedger.claim(Mockito.anyLong(), Mockito.anyString())).thenReturn(CompletableFuture.completedFuture(true));
+        Mockito.when(connectionManager.resumeAuthenticated(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyLong(), Mockito.any()))
+                .thenReturn(new ResumeResult(List.of(), false));
+        EmbeddedChannel ch = new EmbeddedChannel(newHandler());
+        try {
+            ch.writeInbound(auth("t-1", "pc"));
+            Assertions.assertTrue(((Envelope) ch.readOutbound()).hasAuthOk());
+
+            ch.writeInbound(resume(codec.issue(43L, "phone", 8L, 0L)));
+            Envelope resp = ch.readOutbound();
+            Assertions.assertEquals("already_authenticated", resp.getError().getMessage());
+            Assertions.assertEquals(42L, ch.attr(ConnectorChannelAttrs.USER_ID).get());
+            Mockito.verify(resumeTokenLedger, Mockito.never()).claim(Mockito.anyLong(), Mockito.anyString());
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    private TcpEnvelopeHandler newHandler() {
+        TcpEnvelopeHandler handler = new TcpEnvelopeHandler(connectionManager, Mockito.mock(FrameCompressionNegotiator.class),
+                Mockito.mock(ChatUplinkProcessor.class), tokenAuthenticator, codec, resumeTokenLedger,
+                Mockito.mock(ConnectorMetrics.class), Mockito.mock(DeliveryAckTracker.class));
+        ReflectionTestUtils.setField(handler, "gatewayId", "gw-1");
+        ReflectionTestUtils.setField(handler, "heartbeatIntervalSec", 30);
+        return handler;
+    }
+
+    private static ResumeTokenCodec newCodec() {
+        ResumeTokenCodec codec = new ResumeTokenCodec();
+        ReflectionTestUtils.setField(codec, "secret", "secret-0123456789abcdef");
+        ReflectionTestUtils.setField(codec, "windowSec", 120L);
+        codec.init();
+        return codec;
+    }
+
+    private static Envelope resume(String token) {
+        return Envelope.newBuilder()
+                .setVersion(1)
+                .setResumeRequest(ResumeRequest.newBuilder().setResumeToken(token).setClientId("test").build())
+                .build();
+    }
+
+    private static Envelope auth(String token, String deviceId) {
+        return Envelope.newBuilder()
+                .setVersion(1)
+                .setAuthRequest(AuthRequest.newBuilder().setToken(token).setDeviceId(deviceId).setClientId("test").build())
+                .build();
+    }
+}
@@ -1,10 +1,17 @@
 package org.com.nettyconnector.infrastructure.netty;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.protobuf.ProtobufDecoder;
 import io.netty.handler.codec.protobuf.ProtobufEncoder;
 import io.netty.util.ReferenceCountUtil;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompression;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompressor;
+import org.com.nettyconnector.infrastructure.netty.compression.FrameCompressors;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.nettyconnector.proto.connector.tcp.v1.CompressionAlgorithm;
 import org.com.nettyconnector.proto.connector.tcp.v1.Envelope;
 import org.com.nettyconnector.proto.connector.tcp.v1.Ping;
 import org.junit.jupiter.api.Assertions;
@@ -49,4 +56,105 @@ public class TcpPipelineCodecTest {
             ch.finishAndReleaseAll();
         }
     }
+
+    @Test
+    void shouldPassPreEncodedFrameThroughUntouched() {
+        Envelope outbound = Envelope.newBuilder()
+                .setVersion(1)
+                .setTimestampMs(1_700_000_000_000L)
+                .setTraceId("t-2")
+                .setChatDeliver(ChatDeliver.newBuilder()
+                        .setServerMessageId("10001")
+                        .setSenderId(7)
+                        .setSessionId(99)
+                        .setContent("{\"text\":\"hello\"}")
+                        .setSeq(3)
+                        .build())
+                .build();
+
+        EmbeddedChannel ch = new EmbeddedChannel(
+                new TcpFrameDecoder(TcpProtocolConstants.DEFAULT_MAX_BODY_LEN),
+                new ProtobufDecoder(Envelope.getDefaultInstance()),
+                EncodedFrameHandler.INSTANCE,
+                new TcpFrameEncoder(),
+                new ProtobufEncoder()
+        );
+
+        ByteBuf frame = TcpFrames.encode(PooledByteBufAllocator.DEFAULT, outbound);
+        ByteBuf viaEncoders = null;
+        ByteBuf viaFrame = null;
+        try {
+            Assertions.assertTrue(ch.writeOutbound(outbound));
+            viaEncoders = ch.readOutbound();
+
+            Assertions.assertTrue(ch.writeOutbound(new EncodedFrame(frame.retainedDuplicate())));
+            viaFrame = ch.readOutbound();
+
+            Assertions.assertTrue(ByteBufUtil.equals(viaEncoders, viaFrame));
+
+            ch.writeInbound(viaFrame.retain());
+            Envelope inbound = ch.readInbound();
+            Assertions.assertEquals(outbound, inbound);
+        } finally {
+            ReferenceCountUtil.release(viaEncoders);
+            ReferenceCountUtil.release(viaFrame);
+            frame.release();
+            ch.finishAndReleaseAll();
+        }
+        Assertions.assertEquals(0, frame.refCnt());
+    }
+
+    @Test
+    void shouldRoundTripCompressedFramesAboveThreshold() {
+        Envelope outbound = Envelope.newBuilder()
+                .setVersion(1)
+                .setTimestampMs(1_700_000_000_000L)
+                .setChatDeliver(ChatDeliver.newBuilder()
+                        .setServerMessageId("10002")
+                        .setSenderId(7)
+                        .setSessionId(99)
+                        .setContent("{\"fileName\":\"report.pdf\",\"fileSize\":1024,\"fileSuffix\":\"pdf\",\"mimeType\":\"application/octet-stream\"}".repeat(8))
+                        .build())
+                .build();
+
+        for (CompressionAlgorithm algorithm : new CompressionAlgorithm[]{CompressionAlgorithm.DEFLATE, CompressionAlgorithm.ZSTD}) {
+            for (boolean dictionary : new boolean[]{false, true}) {
+                FrameCompressor compressor = FrameCompressors.select(algorithm, dictionary);
+                Assertions.assertNotNull(compressor, algorithm.name());
+
+                EmbeddedChannel ch = new EmbeddedChannel(
+                        new TcpFrameDecoder(TcpProtocolConstants.DEFAULT_MAX_BODY_LEN),
+                        new ProtobufDecoder(Envelope.getDefaultInstance()),
+                        EncodedFrameHandler.INSTANCE,
+                        new TcpFrameEncoder(),
+                        new ProtobufEncoder()
+                );
+                ch.attr(ConnectorChannelAttrs.FRAME_COMPRESSION).set(new FrameCompression(compressor, 64));
+
+                EnvelopeFrames frames = new EnvelopeFrames(outbound);
+                ByteBuf viaEncoders = null;
+                ByteBuf viaFrame = null;
+                try {
+                    Assertions.assertTrue(ch.writeOutbound(outbound));
+                    viaEncoders = ch.readOutbound();
+                    Assertions.assertTrue(ch.writeOutbound(frames.newFrame(ch)));
+                    viaFrame = ch.readOutbound();
+
+                    for (ByteBuf frame : new ByteBuf[]{viaEncoders, viaFrame}) {
+                        Assertions.assertEquals(compressor.flags(), frame.getByte(frame.readerIndex() + 3));
+                        Assertions.assertTrue(frame.readableBytes() - TcpProtocolConstants.HEADER_LEN < outbound.getSerializedSize());
+
+                        ch.writeInbound(frame.retain());
+                        Envelope inbound = ch.readInbound();
+                        Assertions.assertEquals(outbound, inbound);
+                    }
+                } finally {
+                    ReferenceCountUtil.release(viaEncoders);
+                    ReferenceCountUtil.release(viaFrame);
+                    frames.release();
+                    ch.finishAndReleaseAll();
+                }
+            }
+        }
+    }
 }
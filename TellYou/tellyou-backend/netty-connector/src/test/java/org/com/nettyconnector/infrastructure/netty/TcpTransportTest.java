@@ -0,0 +1,42 @@
+package org.com.nettyconnector.infrastructure.netty;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+public class TcpTransportTest {
+
+    @Test
+    void autoShouldPreferEpollAndKeepIoUringOptIn() {
+        Set<TcpTransport> all = EnumSet.allOf(TcpTransport.class);
+        Assertions.assertEquals(TcpTransport.EPOLL, TcpTransport.resolve("auto", all::contains));
+        Assertions.assertEquals(TcpTransport.EPOLL, TcpTransport.resolve(null, all::contains));
+        Assertions.assertEquals(TcpTransport.EPOLL, TcpTransport.resolve("bogus", all::contains));
+        Assertions.assertEquals(TcpTransport.IO_URING, TcpTransport.resolve("io-uring", all::contains));
+
+        Set<TcpTransport> nioOnly = EnumSet.of(TcpTransport.NIO);
+        Assertions.assertEquals(TcpTransport.NIO, TcpTransport.resolve("auto", nioOnly::contains));
+    }
+
+    @Test
+    void unavailableTransportShouldFallBackStepByStep() {
+        Set<TcpTransport> noUring = EnumSet.of(TcpTransport.NIO, TcpTransport.EPOLL);
+        Assertions.assertEquals(TcpTransport.EPOLL, TcpTransport.resolve("io_uring", noUring::contains));
+
+        Set<TcpTransport> nioOnly = EnumSet.of(TcpTransport.NIO);
+        Assertions.assertEquals(TcpTransport.NIO, TcpTransport.resolve("io_uring", nioOnly::contains));
+        Assertions.assertEquals(TcpTransport.NIO, TcpTransport.resolve("epoll", nioOnly::contains));
+        // nio 不依赖可用性探测
+        Assertions.assertEquals(TcpTransport.NIO, TcpTransport.resolve("nio", t -> false));
+    }
+
+    @Test
+    void acceptorsShouldDowngradeWithoutReusePort() {
+        Assertions.assertEquals(1, TcpTransport.NIO.effectiveAcceptors(4));
+        Assertions.assertEquals(4, TcpTransport.EPOLL.effectiveAcceptors(4));
+        Assertions.assertEquals(4, TcpTransport.IO_URING.effectiveAcceptors(4));
+        Assertions.assertEquals(1, TcpTransport.EPOLL.effectiveAcceptors(0));
+    }
+}
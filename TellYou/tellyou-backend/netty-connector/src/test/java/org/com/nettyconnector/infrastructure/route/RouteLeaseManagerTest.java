@@ -0,0 +1,106 @@
+package org.com.nettyconnector.infrastructure.route;
+
+import org.com.nettyconnector.domain.connection.ConnectionManager;
+import org.com.shared.infrastructure.redis.OnlineRouteRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class RouteLeaseManagerTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRenewOnlyRoutesStillInLocalRegistry() {
+        ConnectionManager connections = Mockito.mock(ConnectionManager.class);
+        OnlineRouteRepository routes = Mockito.mock(OnlineRouteRepository.class);
+        RouteLeaseStats stats = new RouteLeaseStats();
+        RouteLeaseManager manager = newManager(connections, routes, stats, 2);
+
+        // 快照里有 3 个用户；续期时用户 2 已下线，用户 3 只剩一台设备
+        Mockito.when(connections.localRoutes()).thenReturn(Map.of(
+                1L, Map.of("pc", "gw-1"),
+                2L, Map.of("pc", "gw-1"),
+                3L, Map.of("pc", "gw-1", "mobile", "gw-1")));
+        Mockito.when(connections.localRoutes(1L)).thenReturn(Map.of("pc", "gw-1"));
+        Mockito.when(connections.localRoutes(2L)).thenReturn(Map.of());
+        Mockito.when(connections.localRoutes(3L)).thenReturn(Map.of("mobile", "gw-1"));
+
+        manager.renew();
+
+        ArgumentCaptor<Map<Long, Map<String, String>>> batches = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(routes, Mockito.times(2)).bindAll(batches.capture(), Mockito.eq(300L));
+        Map<Long, Map<String, String>> renewed = new HashMap<>();
+        for (Map<Long, Map<String, String>> batch : batches.getAllValues()) {
+            renewed.putAll(batch);
+        }
+        Assertions.assertEquals(Map.of(1L, Map.of("pc", "gw-1"), 3L, Map.of("mobile", "gw-1")), renewed);
+        Assertions.assertEquals(2, stats.lastRenewedRoutes());
+        Assertions.assertEquals(0, stats.failedBatches());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldCountFailedBatchAndKeepRenewing() {
+        ConnectionManager connections = Mockito.mock(ConnectionManager.class);
+        OnlineRouteRepository routes = Mockito.mock(OnlineRouteRepository.class);
+        RouteLeaseStats stats = new RouteLeaseStats();
+        RouteLeaseManager manager = newManager(connections, routes, stats, 1);
+
+        Mockito.when(connections.localRoutes()).thenReturn(Map.of(1L, Map.of("pc", "gw-1"), 2L, Map.of("pc", "gw-1")));
+        Mockito.when(connections.localRoutes(Mockito.anyLong())).thenReturn(Map.of("pc", "gw-1"));
+        Mockito.doThrow(new IllegalStateException("redis down")).doNothing()
+                .when(routes).bindAll(Mockito.anyMap(), Mockito.anyLong());
+
+        manager.renew();
+
+        Mockito.verify(routes, Mockito.times(2)).bindAll(Mockito.anyMap(), Mockito.anyLong());
+        Assertions.assertEquals(1, stats.failedBatches());
+        Assertions.assertEquals(1, stats.lastRenewedRoutes());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReleaseSnapshotRoutesInBatches() {
+        ConnectionManager connections = Mockito.mock(ConnectionManager.class);
+        OnlineRouteRepository routes = Mockito.mock(OnlineRouteRepository.class);
+        RouteLeaseManager manager = newManager(connections, routes, new RouteLeaseStats(), 2);
+
+        Map<Long, Map<String, String>> snapshot = Map.of(
+                1L, Map.of("pc", "gw-1"),
+                2L, Map.of("pc", "gw-1"),
+                3L, Map.of("mobile", "gw-1"));
+        Mockito.when(connections.releaseRoutes()).thenReturn(snapshot);
+
+        manager.releaseAll();
+
+        ArgumentCaptor<Map<Long, Map<String, String>>> batches = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(routes, Mockito.times(2)).unbindAll(batches.capture());
+        Map<Long, Map<String, String>> released = new HashMap<>();
+        for (Map<Long, Map<String, String>> batch : batches.getAllValues()) {
+            released.putAll(batch);
+        }
+        Assertions.assertEquals(snapshot, released);
+        // 停机释放的是 releaseRoutes 的快照，不再逐个回查注册表
+        Mockito.verify(connections, Mockito.never()).localRoutes(Mockito.anyLong());
+        for (Map<Long, Map<String, String>> batch : batches.getAllValues()) {
+            Assertions.assertTrue(batch.size() <= 2);
+        }
+
+        // ConnectionDrainer 已调用过时，自身的 @PreDestroy 不再重复清理
+        manager.releaseAll();
+        Mockito.verify(connections, Mockito.times(1)).releaseRoutes();
+    }
+
+    private static RouteLeaseManager newManager(ConnectionManager connections, OnlineRouteRepository routes,
+                                                RouteLeaseStats stats, int batchSize) {
+        RouteLeaseManager manager = new RouteLeaseManager(connections, routes, stats);
+        ReflectionTestUtils.setField(manager, "routeTtlSeconds", 300L);
+        ReflectionTestUtils.setField(manager, "refreshBatchSize", batchSize);
+        return manager;
+    }
+}
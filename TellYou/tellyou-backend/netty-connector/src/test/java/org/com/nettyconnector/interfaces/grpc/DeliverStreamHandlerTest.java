@@ -0,0 +1,116 @@
+package org.com.nettyconnector.interfaces.grpc;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.com.nettyconnector.proto.connector.tcp.v1.ChatDeliver;
+import org.com.shared.proto.connector.deliver.v1.ConnectorDeliverServiceGrpc;
+import org.com.shared.proto.connector.deliver.v1.DeliverChatRequest;
+import org.com.shared.proto.connector.deliver.v1.DeliverChatResponse;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamRequest;
+import org.com.shared.proto.connector.deliver.v1.DeliverStreamResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DeliverStreamHandlerTest {
+
+    @Test
+    void shouldProcessUpToWindowInParallelAndCompleteAfterDraining() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+
+        Server server = NettyServerBuilder.forPort(0).addService(new ConnectorDeliverServiceGrpc.ConnectorDeliverServiceImplBase() {
+            @Override
+            public StreamObserver<DeliverStreamRequest> deliverStream(StreamObserver<DeliverStreamResponse> responses) {
+                return new DeliverStreamHandler((ServerCallStreamObserver<DeliverStreamResponse>) responses, workers, 2, item -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    if (item.getDeliver().getUserId() == 2L) {
+                        throw new IllegalStateException("boom");
+                    }
+                    return DeliverStreamResponse.newBuilder()
+                            .setCorrelationId(item.getCorrelationId())
+                            .setDeliver(DeliverChatResponse.newBuilder().setDelivered(1).build())
+                            .build();
+                });
+            }
+        }).build().start();
+        ManagedChannel channel = NettyChannelBuilder.forAddress("127.0.0.1", server.getPort()).usePlaintext().build();
+
+        try {
+            List<DeliverStreamResponse> received = new CopyOnWriteArrayList<>();
+            CountDownLatch completed = new CountDownLatch(1);
+            StreamObserver<DeliverStreamRequest> requests = ConnectorDeliverServiceGrpc.newStub(channel)
+                    .deliverStream(new StreamObserver<>() {
+                        @Override
+                        public void onNext(DeliverStreamResponse value) {
+                            received.add(value);
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            completed.countDown();
+                        }
+
+                        @Override
+                        public void onCompleted() {
+                            completed.countDown();
+                        }
+                    });
+            for (int i = 1; i <= 6; i++) {
+                requests.onNext(request(i, i == 6 ? 2L : 1L));
+            }
+            requests.onCompleted();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+            while (running.get() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            // 窗口为 2：同时处理的请求不超过 2 条，其余留在对端等待 credit
+            Assertions.assertEquals(2, running.get());
+            Assertions.assertTrue(received.isEmpty());
+
+            release.countDown();
+            Assertions.assertTrue(completed.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(6, received.size());
+            Assertions.assertEquals(2, maxRunning.get());
+            DeliverStreamResponse failed = received.stream().filter(r -> r.getCorrelationId() == 6).findFirst().orElseThrow();
+            Assertions.assertEquals(DeliverStreamResponse.ResultCase.INTERNAL_ERROR, failed.getResultCase());
+            Assertions.assertEquals(5, received.stream().filter(r -> r.getResultCase() == DeliverStreamResponse.ResultCase.DELIVER).count());
+        } finally {
+            release.countDown();
+            channel.shutdownNow();
+            server.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+    private static DeliverStreamRequest request(long correlationId, long userId) {
+        return DeliverStreamRequest.newBuilder()
+                .setCorrelationId(correlationId)
+                .setDeliver(DeliverChatRequest.newBuilder()
+                        .setUserId(userId)
+                        .setDeliver(ChatDeliver.newBuilder().setServerMessageId(String.valueOf(correlationId)).build()))
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package org.com.shared.infrastructure.grpc;
 
+import com.alibaba.nacos.api.naming.pojo.Instance;
 import io.grpc.ManagedChannel;
 import lombok.extern.slf4j.Slf4j;
 import org.com.shared.infrastructure.nacos.NacosServiceDiscovery;
@@ -46,6 +47,30 @@ public class GrpcClientFactory {
         return factory.create(channel);
     }
 
+    /**
+     * 创建指向指定实例的 gRPC Stub（按会话等 key 固定路由到某个实例时使用）
+     *
+     * @param serviceName 服务名称
+     * @param instance 服务实例
+     * @param factory Stub 工厂函数
+     * @param <T> Stub 类型
+     * @return gRPC Stub 实例
+     */
+    public <T> T createStub(String serviceName, Instance instance, StubFactory<T> factory) {
+        ManagedChannel channel = clientManager.getChannel(serviceName, instance);
+        return factory.create(channel);
+    }
+
+    /**
+     * 关闭指向指定实例的 Channel
+     *
+     * @param serviceName 服务名称
+     * @param instance 服务实例
+     */
+    public void removeChannel(String serviceName, Instance instance) {
+        clientManager.removeChannel(serviceName, instance);
+    }
+
     /**
      * 获取底层 Channel（用于需要直接操作 Channel 的场景）
      *
@@ -106,6 +106,16 @@ public class GrpcClientManager {
         });
     }
 
+    /**
+     * 移除并关闭指定服务实例的 Channel（实例下线时调用）
+     *
+     * @param serviceName 服务名称
+     * @param instance 服务实例
+     */
+    public void removeChannel(String serviceName, Instance instance) {
+        removeChannel(serviceName + ":" + instance.getIp() + ":" + instance.getPort());
+    }
+
     /**
      * 移除并关闭指定服务的 Channel
      *
@@ -0,0 +1,129 @@
+package org.com.shared.infrastructure.nacos;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Nacos 实例上的一致性哈希环（不可变），用于把会话等 long 型 key 固定到某个实例上。
+ * <p>
+ * 每个健康且启用的实例按 ip:grpc.port 放置若干虚拟节点；成员增减时只有约 1/N 的 key 换归属。
+ * 成员变化时整体重建一个新环再替换引用即可，查询无锁。
+ *
+ * @author lanye
+ */
+public final class InstanceHashRing {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private static final InstanceHashRing EMPTY = new InstanceHashRing(new long[0], new Instance[0], List.of());
+
+    private final long[] points;
+    private final Instance[] owners;
+    private final List<Instance> members;
+
+    private InstanceHashRing(long[] points, Instance[] owners, List<Instance> members) {
+        this.points = points;
+        this.owners = owners;
+        this.members = members;
+    }
+
+    public static InstanceHashRing empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param instances   Nacos 返回的实例列表，不健康或未启用的实例被忽略，同一 id 只保留一个
+     * @param virtualNodes 每个实例的虚拟节点数
+     */
+    public static InstanceHashRing of(Collection<Instance> instances, int virtualNodes) {
+        if (instances == null || instances.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, Instance> byId = new LinkedHashMap<>();
+        for (Instance instance : instances) {
+            if (instance != null && instance.isHealthy() && instance.isEnabled()) {
+                byId.putIfAbsent(idOf(instance), instance);
+            }
+        }
+        if (byId.isEmpty()) {
+            return EMPTY;
+        }
+
+        int vnodes = Math.max(1, virtualNodes);
+        record Point(long hash, String id, Instance instance) {
+        }
+        ArrayList<Point> ring = new ArrayList<>(byId.size() * vnodes);
+        for (Map.Entry<String, Instance> it : byId.entrySet()) {
+            for (int i = 0; i < vnodes; i++) {
+                ring.add(new Point(hash(it.getKey() + "#" + i), it.getKey(), it.getValue()));
+            }
+        }
+        // 哈希相同时按 id 排序，保证各进程构造出的环完全一致
+        ring.sort(Comparator.comparingLong(Point::hash).thenComparing(Point::id));
+
+        long[] points = new long[ring.size()];
+        Instance[] owners = new Instance[ring.size()];
+        for (int i = 0; i < ring.size(); i++) {
+            points[i] = ring.get(i).hash();
+            owners[i] = ring.get(i).instance();
+        }
+        return new InstanceHashRing(points, owners, List.copyOf(byId.values()));
+    }
+
+    /**
+     * 实例在环上的标识：ip:grpc.port（没有 grpc.port 元数据时用注册端口）。
+     */
+    public static String idOf(Instance instance) {
+        String grpcPort = instance.getMetadata() == null ? null : instance.getMetadata().get("grpc.port");
+        return instance.getIp() + ":" + (grpcPort == null || grpcPort.isBlank() ? String.valueOf(instance.getPort()) : grpcPort);
+    }
+
+    /**
+     * @return key 的归属实例；环为空时返回 null
+     */
+    public Instance owner(long key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int i = Arrays.binarySearch(points, mix(key));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    public boolean isEmpty() {
+        return points.length == 0;
+    }
+
+    public List<Instance> members() {
+        return members;
+    }
+
+    private static long hash(String s) {
+        // FNV-1a 64 位，再经 mix 打散
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * SplitMix64 终结函数，让连续的会话 id 在环上均匀分布。
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -8,6 +8,17 @@ public interface OnlineRouteRepository {
 
     void unbind(long userId, String deviceId, String gatewayId);
 
+    /**
+     * 批量续期：routesByUser 为 userId -> (deviceId -> gatewayId)，每个用户一次 Lua（条件 HSET + EXPIRE），整体走一次 pipeline。
+     * 只写入缺失或仍指向同一 gateway 的字段：Redis 故障切换丢失的路由会被补回，设备已在别处登录的新路由不会被旧快照覆盖。
+     */
+    void bindAll(Map<Long, Map<String, String>> routesByUser, long ttlSeconds);
+
+    /**
+     * 批量解绑，只删除仍指向给定 gatewayId 的设备字段。
+     */
+    void unbindAll(Map<Long, Map<String, String>> routesByUser);
+
     Map<String, String> listDeviceRoutes(long userId);
 
     String getGatewayId(long userId, String deviceId);
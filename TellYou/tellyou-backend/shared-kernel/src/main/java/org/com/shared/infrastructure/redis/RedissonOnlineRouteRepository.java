@@ -1,16 +1,40 @@
 package org.com.shared.infrastructure.redis;
 
+import org.redisson.api.RBatch;
 import org.redisson.api.RMap;
+import org.redisson.api.RMapAsync;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
 import org.redisson.client.codec.StringCodec;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 @Component
 public class RedissonOnlineRouteRepository implements OnlineRouteRepository {
 
+    /**
+     * KEYS[1] 用户路由 hash；ARGV[1] ttl（秒），其后为 deviceId、gatewayId 成对出现。
+     * 字段不存在或已指向同一 gateway 时才写入，设备已在别的 gateway 登录时保持不动；返回写入的字段数。
+     */
+    private static final String RENEW_SCRIPT = """
+            local n = 0
+            for i = 2, #ARGV, 2 do
+                local current = redis.call('HGET', KEYS[1], ARGV[i])
+                if not current or current == ARGV[i + 1] then
+                    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+                    n = n + 1
+                end
+            end
+            local ttl = tonumber(ARGV[1])
+            if n > 0 and ttl > 0 then
+                redis.call('EXPIRE', KEYS[1], ttl)
+            end
+            return n
+            """;
+
     private final RedissonClient redissonClient;
 
     public RedissonOnlineRouteRepository(RedissonClient redissonClient) {
@@ -56,6 +80,50 @@ public class RedissonOnlineRouteRepository implements OnlineRouteRepository {
         }
     }
 
+    @Override
+    public void bindAll(Map<Long, Map<String, String>> routesByUser, long ttlSeconds) {
+        if (routesByUser == null || routesByUser.isEmpty()) {
+            return;
+        }
+        RBatch batch = redissonClient.createBatch();
+        for (Map.Entry<Long, Map<String, String>> it : routesByUser.entrySet()) {
+            Map<String, String> routes = it.getValue();
+            if (routes == null || routes.isEmpty()) {
+                continue;
+            }
+            Object[] args = new Object[1 + routes.size() * 2];
+            args[0] = String.valueOf(ttlSeconds);
+            int i = 1;
+            for (Map.Entry<String, String> route : routes.entrySet()) {
+                args[i++] = route.getKey();
+                args[i++] = route.getValue();
+            }
+            batch.getScript(StringCodec.INSTANCE).evalAsync(RScript.Mode.READ_WRITE, RENEW_SCRIPT,
+                    RScript.ReturnType.INTEGER, List.of(userRouteKey(it.getKey())), args);
+        }
+        batch.execute();
+    }
+
+    @Override
+    public void unbindAll(Map<Long, Map<String, String>> routesByUser) {
+        if (routesByUser == null || routesByUser.isEmpty()) {
+            return;
+        }
+        // hash 的最后一个字段被删除时 Redis 会自动删除 key，无需再单独判空
+        RBatch batch = redissonClient.createBatch();
+        for (Map.Entry<Long, Map<String, String>> it : routesByUser.entrySet()) {
+            Map<String, String> routes = it.getValue();
+            if (routes == null || routes.isEmpty()) {
+                continue;
+            }
+            RMapAsync<String, String> map = batch.getMap(userRouteKey(it.getKey()), StringCodec.INSTANCE);
+            for (Map.Entry<String, String> route : routes.entrySet()) {
+                map.removeAsync(route.getKey(), route.getValue());
+            }
+        }
+        batch.execute();
+    }
+
     @Override
     public Map<String, String> listDeviceRoutes(long userId) {
         RMap<String, String> map = redissonClient.getMap(userRouteKey(userId), StringCodec.INSTANCE);
@@ -0,0 +1,46 @@
+package org.com.shared.infrastructure.redis;
+
+/**
+ * 会话成员 / 状态变化通知，经 Redis pub/sub 广播给缓存了会话权限的服务。
+ * <p>
+ * userId 为 0 表示整个会话（建群、解散等）；否则只涉及该成员（退群、被踢等）。
+ * 消息体为 "sessionId:userId" 文本，使用 StringCodec 收发。pub/sub 不保证送达，订阅方需自带 TTL 兜底。
+ */
+public record SessionChangeEvent(long sessionId, long userId) {
+
+    public static final String TOPIC = "im:session:changed";
+
+    public static SessionChangeEvent wholeSession(long sessionId) {
+        return new SessionChangeEvent(sessionId, 0L);
+    }
+
+    public static SessionChangeEvent member(long sessionId, long userId) {
+        return new SessionChangeEvent(sessionId, userId);
+    }
+
+    public boolean wholeSessionChanged() {
+        return userId == 0L;
+    }
+
+    public String encode() {
+        return sessionId + ":" + userId;
+    }
+
+    /**
+     * @return 格式不对时返回 null
+     */
+    public static SessionChangeEvent decode(String text) {
+        if (text == null) {
+            return null;
+        }
+        int sep = text.indexOf(':');
+        try {
+            if (sep < 0) {
+                return wholeSession(Long.parseLong(text));
+            }
+            return new SessionChangeEvent(Long.parseLong(text.substring(0, sep)), Long.parseLong(text.substring(sep + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.com.shared.infrastructure.nacos;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class InstanceHashRingTest {
+
+    private static final int SESSIONS = 100_000;
+
+    @Test
+    void shouldSpreadSessionsEvenlyAndIgnoreUnhealthyInstances() {
+        Instance down = instance("10.0.0.9", 9095);
+        down.setHealthy(false);
+        InstanceHashRing ring = InstanceHashRing.of(List.of(
+                instance("10.0.0.1", 9095), instance("10.0.0.2", 9095), instance("10.0.0.3", 9095), down), 160);
+
+        Assertions.assertEquals(3, ring.members().size());
+        Map<String, Integer> counts = new HashMap<>();
+        for (long sessionId = 1; sessionId <= SESSIONS; sessionId++) {
+            counts.merge(InstanceHashRing.idOf(ring.owner(sessionId)), 1, Integer::sum);
+        }
+        Assertions.assertFalse(counts.containsKey("10.0.0.9:9095"));
+        for (int count : counts.values()) {
+            Assertions.assertTrue(Math.abs(count - SESSIONS / 3) < SESSIONS / 3 * 0.2, counts.toString());
+        }
+        Assertions.assertNull(InstanceHashRing.of(List.of(), 160).owner(1L));
+    }
+
+    @Test
+    void shouldOnlyMoveSessionsToTheJoiningInstance() {
+        List<Instance> members = new ArrayList<>(List.of(
+                instance("10.0.0.1", 9095), instance("10.0.0.2", 9095), instance("10.0.0.3", 9095)));
+        InstanceHashRing before = InstanceHashRing.of(members, 160);
+        members.add(instance("10.0.0.4", 9095));
+        // 成员顺序不影响环的构造
+        InstanceHashRing after = InstanceHashRing.of(members.reversed(), 160);
+
+        int moved = 0;
+        for (long sessionId = 1; sessionId <= SESSIONS; sessionId++) {
+            String from = InstanceHashRing.idOf(before.owner(sessionId));
+            String to = InstanceHashRing.idOf(after.owner(sessionId));
+            if (!from.equals(to)) {
+                moved++;
+                Assertions.assertEquals("10.0.0.4:9095", to);
+            }
+        }
+        Assertions.assertTrue(moved > SESSIONS / 4 * 0.8 && moved < SESSIONS / 4 * 1.2, "moved=" + moved);
+    }
+
+    private static Instance instance(String ip, int grpcPort) {
+        Instance instance = new Instance();
+        instance.setIp(ip);
+        instance.setPort(grpcPort);
+        instance.setHealthy(true);
+        instance.setEnabled(true);
+        instance.setMetadata(Map.of("grpc.port", String.valueOf(grpcPort)));
+        return instance;
+    }
+}
@@ -2,6 +2,7 @@ package org.com.social.application;
 
 import lombok.RequiredArgsConstructor;
 import org.com.shared.infrastructure.id.SnowflakeIdGenerator;
+import org.com.shared.infrastructure.redis.SessionChangeEvent;
 import org.com.social.infrastructure.persistence.mapper.GroupPartitionMapper;
 import org.com.social.infrastructure.persistence.mapper.GroupRelationMapper;
 import org.com.social.infrastructure.persistence.mapper.ImGroupMapper;
@@ -12,6 +13,7 @@ import org.com.social.infrastructure.persistence.po.GroupRelationDO;
 import org.com.social.infrastructure.persistence.po.ImGroupDO;
 import org.com.social.infrastructure.persistence.po.ImSessionDO;
 import org.com.social.infrastructure.persistence.po.SessionMemberDO;
+import org.com.social.infrastructure.redis.SessionChangePublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -70,6 +72,8 @@ public class GroupApplicationService {
 
     private final GroupPartitionMapper groupPartitionMapper;
 
+    private final SessionChangePublisher sessionChangePublisher;
+
     @Transactional
     public CreateGroupResult createGroup(long creatorId, String groupName, String avatar, Integer joinMode, List<Long> initialMemberIds) {
         long sessionId = snowflakeIdGenerator.nextId();
@@ -146,6 +150,9 @@ public class GroupApplicationService {
             groupRelationMapper.insertBatch(relations);
         }
 
+        // 清掉提交前可能已缓存的 session_not_found，提交后才发出
+        sessionChangePublisher.publish(SessionChangeEvent.wholeSession(sessionId));
+
         return new CreateGroupResult(groupId, sessionId);
     }
 
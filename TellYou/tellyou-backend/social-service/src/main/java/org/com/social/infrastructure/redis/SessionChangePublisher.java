@@ -0,0 +1,50 @@
+package org.com.social.infrastructure.redis;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.com.shared.infrastructure.redis.SessionChangeEvent;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 广播会话成员 / 状态变化，供 message-store 的发送权限缓存失效。
+ * <p>
+ * 在事务内调用时推迟到提交之后再发，避免对方在提交前回源读到旧数据又缓存下来。
+ * 发送失败只记日志，不影响业务；对方的缓存 TTL 兜底。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionChangePublisher {
+
+    private final RedissonClient redissonClient;
+
+    public void publish(SessionChangeEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doPublish(event);
+                }
+            });
+            return;
+        }
+        doPublish(event);
+    }
+
+    private void doPublish(SessionChangeEvent event) {
+        try {
+            redissonClient.getTopic(SessionChangeEvent.TOPIC, StringCodec.INSTANCE).publishAsync(event.encode())
+                    .whenComplete((receivers, e) -> {
+                        if (e != null) {
+                            log.warn("publish session change failed: event={}, err={}", event, e.toString());
+                        }
+                    });
+        } catch (Exception e) {
+            log.warn("publish session change failed: event={}, err={}", event, e.toString());
+        }
+    }
+}
@@ -4,6 +4,7 @@ import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import net.devh.boot.grpc.server.service.GrpcService;
+import org.com.shared.infrastructure.redis.SessionChangeEvent;
 import org.com.shared.proto.social.group.v1.*;
 import org.com.social.application.GroupApplicationService;
 import org.com.social.infrastructure.persistence.mapper.GroupRelationMapper;
@@ -12,6 +13,7 @@ import org.com.social.infrastructure.persistence.mapper.ImSessionMapper;
 import org.com.social.infrastructure.persistence.mapper.SessionMemberMapper;
 import org.com.social.infrastructure.persistence.po.GroupRelationDO;
 import org.com.social.infrastructure.persistence.po.ImGroupDO;
+import org.com.social.infrastructure.redis.SessionChangePublisher;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -38,6 +40,8 @@ public class GroupGrpcService extends GroupServiceGrpc.GroupServiceImplBase {
 
     private final SessionMemberMapper sessionMemberMapper;
 
+    private final SessionChangePublisher sessionChangePublisher;
+
     @Override
     public void createGroup(CreateGroupRequest request, StreamObserver<CreateGroupResponse> responseObserver) {
         try {
@@ -234,6 +238,7 @@ public class GroupGrpcService extends GroupServiceGrpc.GroupServiceImplBase {
             LocalDateTime now = LocalDateTime.now();
             groupRelationMapper.deactivate(request.getGroupId(), request.getFromUserId(), now);
             sessionMemberMapper.deactivate(group.getSessionId(), request.getFromUserId(), now);
+            sessionChangePublisher.publish(SessionChangeEvent.member(group.getSessionId(), request.getFromUserId()));
 
             syncMemberCount(group.getGroupId());
 
@@ -277,6 +282,7 @@ public class GroupGrpcService extends GroupServiceGrpc.GroupServiceImplBase {
             LocalDateTime now = LocalDateTime.now();
             groupRelationMapper.deactivate(request.getGroupId(), request.getTargetId(), now);
             sessionMemberMapper.deactivate(group.getSessionId(), request.getTargetId(), now);
+            sessionChangePublisher.publish(SessionChangeEvent.member(group.getSessionId(), request.getTargetId()));
 
             syncMemberCount(group.getGroupId());
 
@@ -306,6 +312,7 @@ public class GroupGrpcService extends GroupServiceGrpc.GroupServiceImplBase {
 
             imGroupMapper.updateState(group.getGroupId(), GROUP_STATE_DISSOLVED);
             imSessionMapper.updateState(group.getSessionId(), SESSION_STATE_INACTIVE);
+            sessionChangePublisher.publish(SessionChangeEvent.wholeSession(group.getSessionId()));
 
             responseObserver.onNext(DissolveGroupResponse.newBuilder().setDissolved(true).setReason("").build());
             responseObserver.onCompleted();